@@ -28,6 +28,7 @@ package org.hisp.dhis.common;
  * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
  */
 
+import java.util.Collection;
 import java.util.List;
 
 import org.hisp.dhis.category.CategoryOptionGroup;
@@ -63,6 +64,10 @@ public interface AnalyticalObjectService<T extends AnalyticalObject>
 
     List<T> getAnalyticalObjects( OrganisationUnit organisationUnit );
 
+    List<T> getAnalyticalObjectsByDataElements( Collection<DataElement> dataElements );
+
+    List<T> getAnalyticalObjectsByOrganisationUnits( Collection<OrganisationUnit> organisationUnits );
+
     List<T> getAnalyticalObjects( CategoryOptionGroup categoryOptionGroup );
     
     List<T> getAnalyticalObjects( LegendSet legendSet );
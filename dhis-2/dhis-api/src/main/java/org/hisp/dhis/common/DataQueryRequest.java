@@ -78,6 +78,8 @@ public class DataQueryRequest
 
     protected boolean includeMetadataDetails;
 
+    protected boolean includeQueryTimings;
+
     protected boolean duplicatesOnly;
 
     protected boolean allowAllPeriods;
@@ -201,6 +203,11 @@ public class DataQueryRequest
         return includeMetadataDetails;
     }
 
+    public boolean isIncludeQueryTimings()
+    {
+        return includeQueryTimings;
+    }
+
     public DisplayProperty getDisplayProperty()
     {
         return displayProperty;
@@ -390,6 +397,12 @@ public class DataQueryRequest
             return this;
         }
 
+        public DataQueryRequestBuilder includeQueryTimings( boolean includeQueryTimings )
+        {
+            this.request.includeQueryTimings = includeQueryTimings;
+            return this;
+        }
+
         public DataQueryRequestBuilder displayProperty( DisplayProperty displayProperty )
         {
             this.request.displayProperty = displayProperty;
@@ -62,6 +62,16 @@ public interface IdentifiableObjectManager
 
     void delete( IdentifiableObject object, User user );
 
+    /**
+     * Deletes the given objects. Deletion handlers are invoked once for the
+     * full list of objects rather than once per object, which allows handlers
+     * to resolve references with set based queries.
+     *
+     * @param objects the objects to delete.
+     * @param user the user performing the delete.
+     */
+    void delete( List<IdentifiableObject> objects, User user );
+
     <T extends IdentifiableObject> T get( String uid );
 
     <T extends IdentifiableObject> T get( Class<T> clazz, long id );
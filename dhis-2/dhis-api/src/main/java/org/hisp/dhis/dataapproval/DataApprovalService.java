@@ -29,9 +29,11 @@ package org.hisp.dhis.dataapproval;
  */
 
 import org.hisp.dhis.category.CategoryCombo;
+import org.hisp.dhis.category.CategoryOption;
 import org.hisp.dhis.category.CategoryOptionCombo;
 import org.hisp.dhis.organisationunit.OrganisationUnit;
 import org.hisp.dhis.period.Period;
+import org.hisp.dhis.scheduling.JobConfiguration;
 
 import java.util.List;
 import java.util.Map;
@@ -187,4 +189,72 @@ public interface DataApprovalService
      * @param organisationUnit the organisation unit.
      */
     void deleteDataApprovals( OrganisationUnit organisationUnit );
+
+    // -------------------------------------------------------------------------
+    // Data approval status table
+    // -------------------------------------------------------------------------
+
+    /**
+     * Deletes all materialized data approval statuses. Must be invoked after
+     * changes to the org unit hierarchy, approval levels, category option
+     * org units or data set org units which are not made through this service.
+     */
+    void deleteDataApprovalStatuses();
+
+    /**
+     * Deletes the materialized data approval statuses of the given workflow.
+     *
+     * @param workflow the workflow.
+     */
+    void deleteDataApprovalStatuses( DataApprovalWorkflow workflow );
+
+    /**
+     * Deletes the materialized data approval statuses of the given org unit,
+     * its ancestors and its descendants. Must be invoked when the org unit is
+     * moved in the hierarchy.
+     *
+     * @param organisationUnit the org unit.
+     */
+    void deleteDataApprovalStatuses( OrganisationUnit organisationUnit );
+
+    /**
+     * Deletes the materialized data approval statuses of the given category
+     * option. Must be invoked when the org units of the option change.
+     *
+     * @param categoryOption the category option.
+     */
+    void deleteDataApprovalStatuses( CategoryOption categoryOption );
+
+    /**
+     * Deletes the materialized data approval statuses of the workflows of the
+     * given approval level.
+     *
+     * @param dataApprovalLevel the approval level.
+     */
+    void deleteDataApprovalStatuses( DataApprovalLevel dataApprovalLevel );
+
+    /**
+     * Deletes the materialized data approval statuses of the workflows of the
+     * given category combo.
+     *
+     * @param categoryCombo the category combo.
+     */
+    void deleteDataApprovalStatuses( CategoryCombo categoryCombo );
+
+    /**
+     * Rebuilds the materialized data approval statuses.
+     *
+     * @param jobId the job configuration, can be null.
+     * @return the number of materialized statuses.
+     */
+    int rebuildDataApprovalStatuses( JobConfiguration jobId );
+
+    /**
+     * Compares the materialized data approval statuses with the statuses
+     * computed from the current data approvals, without changing them.
+     *
+     * @param jobId the job configuration, can be null.
+     * @return the number of inconsistent materialized statuses.
+     */
+    int checkDataApprovalStatuses( JobConfiguration jobId );
 }
@@ -29,6 +29,7 @@ package org.hisp.dhis.dataapproval;
  */
 
 import org.hisp.dhis.category.CategoryCombo;
+import org.hisp.dhis.category.CategoryOption;
 import org.hisp.dhis.category.CategoryOptionCombo;
 import org.hisp.dhis.organisationunit.OrganisationUnit;
 import org.hisp.dhis.period.Period;
@@ -153,4 +154,86 @@ public interface DataApprovalStore
         Period period, Collection<OrganisationUnit> orgUnits, int orgUnitLevel,
         CategoryCombo attributeCombo,
         Set<CategoryOptionCombo> attributeOptionCombos );
+
+    // -------------------------------------------------------------------------
+    // Data approval status table
+    // -------------------------------------------------------------------------
+
+    /**
+     * Indicates whether the materialized data approval status table is
+     * enabled. When disabled, the remaining status table methods do nothing.
+     *
+     * @return true if the status table is enabled.
+     */
+    boolean isDataApprovalStatusTableEnabled();
+
+    /**
+     * Recomputes the materialized status of the ancestors of the org units
+     * of the given data approvals, for the workflow, period and attribute
+     * option combo of each data approval. Must be invoked after data has been
+     * approved, unapproved, accepted or unaccepted.
+     *
+     * @param dataApprovals the changed data approvals.
+     */
+    void refreshDataApprovalStatuses( Collection<DataApproval> dataApprovals );
+
+    /**
+     * Deletes the materialized status of the given workflow. Statuses which
+     * are not materialized are computed from the data approvals.
+     *
+     * @param workflow the workflow.
+     */
+    void deleteDataApprovalStatuses( DataApprovalWorkflow workflow );
+
+    /**
+     * Deletes the materialized status of the given org unit, its ancestors
+     * and its descendants.
+     *
+     * @param organisationUnit the org unit.
+     */
+    void deleteDataApprovalStatuses( OrganisationUnit organisationUnit );
+
+    /**
+     * Deletes the materialized status of the given category option.
+     *
+     * @param categoryOption the category option.
+     */
+    void deleteDataApprovalStatuses( CategoryOption categoryOption );
+
+    /**
+     * Deletes the materialized status of the workflows of the given
+     * approval level.
+     *
+     * @param dataApprovalLevel the approval level.
+     */
+    void deleteDataApprovalStatuses( DataApprovalLevel dataApprovalLevel );
+
+    /**
+     * Deletes the materialized status of the workflows of the given
+     * category combo.
+     *
+     * @param categoryCombo the category combo.
+     */
+    void deleteDataApprovalStatuses( CategoryCombo categoryCombo );
+
+    /**
+     * Deletes all materialized statuses.
+     */
+    void deleteDataApprovalStatuses();
+
+    /**
+     * Rebuilds the materialized status for all workflows and periods which
+     * have data approvals.
+     *
+     * @return the number of materialized statuses.
+     */
+    int rebuildDataApprovalStatuses();
+
+    /**
+     * Compares the materialized status with the status computed from the
+     * current data approvals, org unit hierarchy and workflows.
+     *
+     * @return the number of inconsistent materialized statuses.
+     */
+    int checkDataApprovalStatuses();
 }
@@ -36,6 +36,7 @@ import org.hisp.dhis.period.Period;
 import java.util.Collection;
 import java.util.Date;
 import java.util.List;
+import java.util.function.Consumer;
 
 /**
  * The DataValueService interface defines how to work with data values.
@@ -183,6 +184,17 @@ public interface DataValueService
     List<DataValue> getDataValues( OrganisationUnit source, Period period,
         Collection<DataElement> dataElements, CategoryOptionCombo attributeOptionCombo );
 
+    /**
+     * Returns the persisted data values, including soft deleted data values,
+     * which match the data element, period, organisation unit, category option
+     * combo and attribute option combo of any of the given data values. The
+     * returned data values refer to the objects of the given data values.
+     *
+     * @param dataValues the data values to look up.
+     * @return a list of persisted data values.
+     */
+    List<DataValue> getPersistedDataValues( Collection<DataValue> dataValues );
+
     /**
      * Returns deflated data values for the given data export parameters.
      *
@@ -191,6 +203,18 @@ public interface DataValueService
      */
     List<DeflatedDataValue> getDeflatedDataValues( DataExportParams params );
 
+    /**
+     * Streams deflated data values for the given data export parameters to
+     * the given consumer. Rows are read through a forward-only cursor with a
+     * bounded fetch size and handed to the consumer one at a time, so no
+     * intermediate list of data values is built. The consumer is invoked
+     * while the cursor is open, so it should do little work per value.
+     *
+     * @param params the data export parameters.
+     * @param consumer the consumer of deflated data values.
+     */
+    void getDeflatedDataValues( DataExportParams params, Consumer<DeflatedDataValue> consumer );
+
     /**
      * Gets the number of DataValues persisted since the given number of days.
      *
@@ -43,6 +43,8 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
 import java.util.regex.Pattern;
 
 import static java.util.regex.Pattern.CASE_INSENSITIVE;
@@ -223,6 +225,35 @@ public interface ExpressionService
         Map<DimensionalItemObject, Double> valueMap, Map<String, Double> constantMap,
         Map<String, Integer> orgUnitCountMap );
 
+    /**
+     * Generates the calculated value for the given parameters based on the
+     * values in the given maps. The item value map must be built from the
+     * value map with {@link #getItemValueMap(Map)}, and can be reused for
+     * all indicators evaluated on the same value map.
+     *
+     * @param indicator the indicator for which to calculate the value.
+     * @param period the period for which to calculate the value.
+     * @param valueMap the map of data values.
+     * @param itemValueMap the map of data values by dimension item identifier.
+     * @param constantMap the map of constants.
+     * @param orgUnitCountMap the map of organisation unit counts.
+     * @return the calculated value as a double.
+     */
+    IndicatorValue getIndicatorValueObject( Indicator indicator, Period period,
+        Map<DimensionalItemObject, Double> valueMap, Map<String, Double> itemValueMap,
+        Map<String, Double> constantMap, Map<String, Integer> orgUnitCountMap );
+
+    /**
+     * Returns the non-null values of the given value map by dimension item
+     * identifier, the form in which items are referenced in expressions.
+     * Callers evaluating several expressions on the same value map should
+     * build this map once and pass it to the evaluation methods.
+     *
+     * @param valueMap the mapping between dimensional items and values.
+     * @return the values by dimension item identifier.
+     */
+    Map<String, Double> getItemValueMap( Map<? extends DimensionalItemObject, Double> valueMap );
+
     // -------------------------------------------------------------------------
     // Expression logic
     // -------------------------------------------------------------------------
@@ -283,6 +314,27 @@ public interface ExpressionService
         Map<String, Integer> orgUnitCountMap, Integer days,
         MissingValueStrategy missingValueStrategy );
 
+    /**
+     * Generates the calculated value for an expression bases on the values
+     * supplied in the value map, constant map, orgUnit counts, and days.
+     *
+     * @param expression the expression holding the formula for calculation.
+     * @param valueMap the DimensionalItemObject values to use for calculation.
+     * @param itemValueMap the values by dimension item identifier, built from
+     *        the value map with {@link #getItemValueMap(Map)}.
+     * @param constantMap map of constants to use for calculation.
+     * @param orgUnitCountMap the mapping between organisation unit group uid
+     *        and count of organisation units to use in the calculation.
+     * @param days the number of days to use in the calculation.
+     * @param missingValueStrategy the strategy to use when data values are
+     *        missing when calculating the expression.
+     * @return the calculated value as a double.
+     */
+    Double getExpressionValue( String expression,
+        Map<DimensionalItemObject, Double> valueMap, Map<String, Double> itemValueMap,
+        Map<String, Double> constantMap, Map<String, Integer> orgUnitCountMap, Integer days,
+        MissingValueStrategy missingValueStrategy );
+
     // -------------------------------------------------------------------------
     // Expression logic based on regular expressions (to be refactored)
     // -------------------------------------------------------------------------
@@ -326,6 +378,54 @@ public interface ExpressionService
         Map<String, Double> constantMap, Map<String, Integer> orgUnitCountMap, Integer days,
         ListMap<String, Double> aggregateMap );
 
+    /**
+     * Generates the calculated value for the given expression base on the
+     * values supplied in the value map, constant map and days.
+     *
+     * @param expression the expression which holds the formula for the
+     *         calculation.
+     * @param valueMap the mapping between data element operands and values to
+     *         use in the calculation.
+     * @param itemValueMap the values by dimension item identifier, built from
+     *         the value map with {@link #getItemValueMap(Map)}.
+     * @param constantMap the mapping between the constant uid and value to use
+     *         in the calculation.
+     * @param orgUnitCountMap the mapping between organisation unit group uid
+     *         and count of organisation units to use in the calculation.
+     * @param days the number of days to use in the calculation.
+     * @param aggregateMap a map of subexpression strings to List(s) of aggregated samples
+     *         for the expression
+     * @return the calculated value as a double.
+     */
+    Double getExpressionValueRegEx( Expression expression, Map<? extends DimensionalItemObject, Double> valueMap,
+        Map<String, Double> itemValueMap, Map<String, Double> constantMap, Map<String, Integer> orgUnitCountMap,
+        Integer days, ListMap<String, Double> aggregateMap );
+
+    /**
+     * Generates the calculated value for the given expression, reading the
+     * item values through the given function rather than from a map. This
+     * avoids building a value map for each evaluation when the values are
+     * held in another structure. The value map supplier is only called if
+     * the expression cannot be evaluated from the item values, e.g. because
+     * it uses aggregate functions.
+     *
+     * @param expression the expression which holds the formula for the
+     *         calculation.
+     * @param itemValueFunction returns the value of the item with the given
+     *         dimension item identifier, or NaN if the value is missing.
+     * @param valueMapSupplier supplies the mapping between dimensional items
+     *         and values to use in the calculation.
+     * @param constantMap the mapping between the constant uid and value to
+     *         use in the calculation.
+     * @param orgUnitCountMap the mapping between organisation unit group uid
+     *         and count of organisation units to use in the calculation.
+     * @param days the number of days to use in the calculation.
+     * @return the calculated value as a double.
+     */
+    Double getExpressionValueRegEx( Expression expression, ToDoubleFunction<String> itemValueFunction,
+        Supplier<Map<? extends DimensionalItemObject, Double>> valueMapSupplier,
+        Map<String, Double> constantMap, Map<String, Integer> orgUnitCountMap, Integer days );
+
     /**
      * Returns all data elements included in the given expression string.
      * Returns an empty set if the given expression is null.
@@ -28,83 +28,142 @@ package org.hisp.dhis.organisationunit;
  * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
  */
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
  * Class which encapsulates logic for the organisation unit hierarchy.
- * 
- * The key format for the organisation unit group variant is
- * "<parent org unit id>:<group id>".
- * 
+ * <p>
+ * The organisation units are numbered in pre-order by a depth-first
+ * traversal from the roots of the hierarchy, so that the subtree of each
+ * organisation unit occupies a contiguous interval of positions. The
+ * hierarchy is stored in primitive arrays holding the identifier and the
+ * end of the subtree interval for each position. Subtree lookups become
+ * array slices, and descendant checks become range checks.
+ * <p>
+ * Relationships which do not form a forest, where an organisation unit has
+ * more than one parent or is not reachable from a root, cannot be numbered
+ * this way. For such relationships the child adjacency lists are kept and
+ * subtrees are collected by traversal, so that an organisation unit is part
+ * of the subtree of each of its parents.
+ *
  * @author Lars Helge Overland
  */
 public class OrganisationUnitHierarchy
 {
+    private static final int NOT_FOUND = -1;
+
+    /**
+     * Maps organisation unit identifiers to pre-order positions.
+     */
+    private LongIntHashMap positions;
+
+    /**
+     * Organisation unit identifiers by pre-order position.
+     */
+    private long[] ids;
+
+    /**
+     * Exclusive end position of the subtree of the organisation unit at
+     * each pre-order position.
+     */
+    private int[] subTreeEnds;
+
+    /**
+     * Sorted pre-order positions of the members of organisation unit groups,
+     * by group identifier.
+     */
+    private Map<Long, int[]> groupPositions = new HashMap<>();
+
+    /**
+     * Indicates whether the relationships form a forest and the pre-order
+     * numbering is used. Otherwise subtrees are collected by traversal of
+     * the child adjacency lists below.
+     */
+    private boolean forest;
+
+    /**
+     * Maps organisation unit identifiers to dense indexes, only kept when
+     * the relationships do not form a forest.
+     */
+    private LongIntHashMap indexes;
+
+    /**
+     * Organisation unit identifiers by dense index.
+     */
+    private long[] indexIds;
+
     /**
-     * Contains mappings between parent and immediate children.
+     * Offsets of the child adjacency list of each dense index.
      */
-    private Map<Long, Set<Long>> relationships = new HashMap<>();
-
-    private Map<Long, Set<Long>> subTrees = new HashMap<>();
-    
-    // Key is on format "parent id:group id"
-    
-    private Map<String, Set<Long>> groupSubTrees = new HashMap<>();
-    
+    private int[] offsets;
+
+    /**
+     * Child dense indexes, by adjacency list.
+     */
+    private int[] adjacency;
+
     // -------------------------------------------------------------------------
     // Constructors
     // -------------------------------------------------------------------------
 
     public OrganisationUnitHierarchy( Map<Long, Set<Long>> relationships )
     {
-        this.relationships = relationships;
+        int size = relationships.values().stream().mapToInt( Set::size ).sum();
+
+        long[] parentIds = new long[size];
+        long[] childIds = new long[size];
+
+        int i = 0;
+
+        for ( Map.Entry<Long, Set<Long>> entry : relationships.entrySet() )
+        {
+            for ( Long childId : entry.getValue() )
+            {
+                parentIds[i] = entry.getKey();
+                childIds[i++] = childId;
+            }
+        }
+
+        build( parentIds, childIds, i );
     }
-    
+
     public OrganisationUnitHierarchy( Collection<OrganisationUnitRelationship> relations )
     {
+        long[] parentIds = new long[relations.size()];
+        long[] childIds = new long[relations.size()];
+
+        int i = 0;
+
         for ( OrganisationUnitRelationship relation : relations )
         {
-            if ( relation.getParentId() == relation.getChildId() )
-            {
-                continue; // Parent cannot be same as child
-            }
-            
-            Set<Long> children = relationships.get( relation.getParentId() );
-            
-            if ( children == null )
-            {
-                children = new HashSet<>();
-                relationships.put( relation.getParentId(), children );
-            }
-            
-            children.add( relation.getChildId() );
+            parentIds[i] = relation.getParentId();
+            childIds[i++] = relation.getChildId();
         }
+
+        build( parentIds, childIds, i );
     }
 
     // -------------------------------------------------------------------------
     // Prepare
     // -------------------------------------------------------------------------
 
+    /**
+     * Subtrees are always available as slices of the pre-order numbering, so
+     * there is nothing to prepare.
+     */
     public OrganisationUnitHierarchy prepareChildren( OrganisationUnit parent )
     {
-        subTrees.put( parent.getId(), getChildren( parent.getId() ) );
-        
         return this;
     }
 
     public OrganisationUnitHierarchy prepareChildren( Collection<OrganisationUnit> parents )
     {
-        for ( OrganisationUnit unit : parents )
-        {
-            prepareChildren( unit );
-        }
-        
         return this;
     }
 
@@ -114,79 +173,108 @@ public class OrganisationUnitHierarchy
 
     public OrganisationUnitHierarchy prepareChildren( OrganisationUnit parent, OrganisationUnitGroup group )
     {
-        if ( group == null )
+        if ( forest && group != null )
         {
-            return prepareChildren( parent );
+            getGroupPositions( group );
         }
-        
-        groupSubTrees.put( getKey( parent.getId(), group ), getChildren( parent.getId(), group ) );
-        
+
         return this;
     }
 
     public OrganisationUnitHierarchy prepareChildren( Collection<OrganisationUnit> parents, Collection<OrganisationUnitGroup> groups )
     {
-        if ( groups == null )
+        if ( forest && groups != null )
+        {
+            groups.forEach( this::getGroupPositions );
+        }
+
+        return this;
+    }
+
+    // -------------------------------------------------------------------------
+    // Descendants
+    // -------------------------------------------------------------------------
+
+    /**
+     * Indicates whether the given organisation unit is part of a parent-child
+     * relationship in this hierarchy.
+     *
+     * @param id the organisation unit identifier.
+     */
+    public boolean contains( long id )
+    {
+        return forest ? getPosition( id ) != NOT_FOUND : indexes.get( id ) != NOT_FOUND;
+    }
+
+    /**
+     * Indicates whether an organisation unit is equal to or a descendant of
+     * another organisation unit.
+     *
+     * @param id the organisation unit identifier.
+     * @param ancestorId the identifier of the possible ancestor.
+     */
+    public boolean isDescendant( long id, long ancestorId )
+    {
+        if ( id == ancestorId )
         {
-            return prepareChildren( parents );
+            return true;
         }
-        
-        for ( OrganisationUnit unit : parents )
+
+        if ( !forest )
         {
-            for ( OrganisationUnitGroup group : groups )
-            {
-                prepareChildren( unit, group );
-            }
+            return contains( id ) && getChildren( ancestorId ).contains( id );
         }
-        
-        return this;
+
+        int position = getPosition( id );
+        int ancestorPosition = getPosition( ancestorId );
+
+        return position != NOT_FOUND && ancestorPosition != NOT_FOUND &&
+            position > ancestorPosition && position < subTreeEnds[ancestorPosition];
     }
-    
+
     // -------------------------------------------------------------------------
     // Get children
     // -------------------------------------------------------------------------
 
     public Set<Long> getChildren( long parentId )
     {
-        Set<Long> preparedChildren = subTrees.get( parentId );
-        
-        if ( preparedChildren != null )
+        if ( !forest )
         {
-            return new HashSet<>( preparedChildren );
+            return traverse( parentId );
         }
-        
-        List<Long> children = new ArrayList<>();
-        
-        children.add( 0, parentId ); // Adds parent id to beginning of list
-
-        int childCounter = 1;
-        
-        for ( int i = 0; i < childCounter; i++ )
+
+        int position = getPosition( parentId );
+
+        if ( position == NOT_FOUND )
         {
-            Set<Long> currentChildren = relationships.get( children.get( i ) );
-            
-            if ( currentChildren != null )
-            {
-                children.addAll( currentChildren );
-            
-                childCounter += currentChildren.size();
-            }
+            Set<Long> children = new HashSet<>();
+            children.add( parentId );
+            return children;
         }
-        
-        return new HashSet<>( children );
+
+        int end = subTreeEnds[position];
+
+        Set<Long> children = new HashSet<>( Math.max( (int) ( ( end - position ) / .75f ) + 1, 16 ) );
+
+        for ( int i = position; i < end; i++ )
+        {
+            children.add( ids[i] );
+        }
+
+        return children;
     }
 
     public Set<Long> getChildren( Collection<Long> parentIds )
     {
         int capacity = parentIds.size() + 5;
-        
+
         Set<Long> children = new HashSet<>( Math.max( capacity, 16 ) );
 
         for ( Long id : parentIds )
         {
             children.addAll( getChildren( id ) );
         }
-        
+
         return children;
     }
 
@@ -200,39 +288,52 @@ public class OrganisationUnitHierarchy
         {
             return getChildren( parentId );
         }
-        
-        Set<Long> children = groupSubTrees.get( getKey( parentId, group ) );
-        
-        if ( children != null )
+
+        if ( !forest )
         {
-            return new HashSet<>( children );
+            Set<Long> children = traverse( parentId );
+            children.retainAll( group.getMembers().stream().map( OrganisationUnit::getId ).collect( Collectors.toSet() ) );
+            return children;
         }
-        
-        children = getChildren( parentId );
-        
-        Set<Long> groupMembers = new HashSet<>();
-        
-        for ( OrganisationUnit unit : group.getMembers() )
+
+        Set<Long> children = new HashSet<>();
+
+        int position = getPosition( parentId );
+
+        if ( position == NOT_FOUND )
         {
-            groupMembers.add( unit.getId() );
+            if ( group.getMembers().stream().anyMatch( unit -> unit.getId() == parentId ) )
+            {
+                children.add( parentId );
+            }
+
+            return children;
         }
-        
-        children.retainAll( groupMembers );
-        
+
+        int[] members = getGroupPositions( group );
+
+        int from = lowerBound( members, position );
+        int to = lowerBound( members, subTreeEnds[position] );
+
+        for ( int i = from; i < to; i++ )
+        {
+            children.add( ids[members[i]] );
+        }
+
         return children;
     }
-    
+
     public Set<Long> getChildren( Collection<Long> parentIds, Collection<OrganisationUnitGroup> groups )
     {
         if ( groups == null )
         {
             return getChildren( parentIds );
         }
-        
+
         int capacity = ( parentIds.size() * groups.size() ) + 5;
-        
+
         Set<Long> children = new HashSet<>( Math.max( capacity, 16 ) );
-        
+
         for ( Long id : parentIds )
         {
             for ( OrganisationUnitGroup group : groups )
@@ -240,17 +341,308 @@ public class OrganisationUnitHierarchy
                 children.addAll( getChildren( id, group ) );
             }
         }
-        
+
         return children;
     }
-    
+
     // -------------------------------------------------------------------------
     // Supportive methods
     // -------------------------------------------------------------------------
 
-    private String getKey( long parentId, OrganisationUnitGroup group )
+    /**
+     * Numbers the organisation units in pre-order by an iterative depth-first
+     * traversal from the organisation units without parent.
+     *
+     * @param parentIds the parent identifiers of the relationships.
+     * @param childIds the child identifiers of the relationships.
+     * @param size the number of relationships.
+     */
+    private void build( long[] parentIds, long[] childIds, int size )
     {
-        return parentId + ":" + group.getId();
+        // Dense indexes of organisation units in order of appearance
+
+        LongIntHashMap indexes = new LongIntHashMap( size * 2 );
+        long[] indexIds = new long[size * 2];
+        int[] parents = new int[size];
+        int[] children = new int[size];
+        int count = 0;
+
+        for ( int i = 0; i < size; i++ )
+        {
+            if ( parentIds[i] == childIds[i] )
+            {
+                parents[i] = NOT_FOUND; // Parent cannot be same as child
+                continue;
+            }
+
+            parents[i] = indexes.get( parentIds[i] );
+
+            if ( parents[i] == NOT_FOUND )
+            {
+                indexes.put( parentIds[i], parents[i] = count );
+                indexIds[count++] = parentIds[i];
+            }
+
+            children[i] = indexes.get( childIds[i] );
+
+            if ( children[i] == NOT_FOUND )
+            {
+                indexes.put( childIds[i], children[i] = count );
+                indexIds[count++] = childIds[i];
+            }
+        }
+
+        // Child adjacency lists in compressed row format
+
+        int[] offsets = new int[count + 1];
+        int[] parentIndexes = new int[count];
+        Arrays.fill( parentIndexes, NOT_FOUND );
+        boolean singleParents = true;
+
+        for ( int i = 0; i < size; i++ )
+        {
+            if ( parents[i] != NOT_FOUND )
+            {
+                offsets[parents[i] + 1]++;
+                singleParents &= parentIndexes[children[i]] == NOT_FOUND || parentIndexes[children[i]] == parents[i];
+                parentIndexes[children[i]] = parents[i];
+            }
+        }
+
+        for ( int i = 0; i < count; i++ )
+        {
+            offsets[i + 1] += offsets[i];
+        }
+
+        int[] adjacency = new int[offsets[count]];
+        int[] fill = Arrays.copyOf( offsets, count );
+
+        for ( int i = 0; i < size; i++ )
+        {
+            if ( parents[i] != NOT_FOUND )
+            {
+                adjacency[fill[parents[i]]++] = children[i];
+            }
+        }
+
+        // Pre-order numbering
+
+        int[] indexPositions = new int[count];
+        Arrays.fill( indexPositions, NOT_FOUND );
+
+        ids = new long[count];
+        subTreeEnds = new int[count];
+
+        int[] stack = new int[count];
+        int[] next = new int[count];
+        int position = 0;
+
+        for ( int root = 0; root < count; root++ )
+        {
+            if ( parentIndexes[root] != NOT_FOUND )
+            {
+                continue;
+            }
+
+            int top = 0;
+            stack[top] = root;
+            next[top] = offsets[root];
+            indexPositions[root] = position;
+            ids[position++] = indexIds[root];
+
+            while ( top >= 0 )
+            {
+                int node = stack[top];
+
+                if ( next[top] < offsets[node + 1] )
+                {
+                    int child = adjacency[next[top]++];
+
+                    if ( indexPositions[child] == NOT_FOUND )
+                    {
+                        stack[++top] = child;
+                        next[top] = offsets[child];
+                        indexPositions[child] = position;
+                        ids[position++] = indexIds[child];
+                    }
+                }
+                else
+                {
+                    subTreeEnds[indexPositions[node]] = position;
+                    top--;
+                }
+            }
+        }
+
+        forest = singleParents && position == count;
+
+        if ( !forest )
+        {
+            this.indexes = indexes;
+            this.indexIds = Arrays.copyOf( indexIds, count );
+            this.offsets = offsets;
+            this.adjacency = adjacency;
+            this.ids = null;
+            this.subTreeEnds = null;
+            return;
+        }
+
+        positions = new LongIntHashMap( position );
+
+        for ( int i = 0; i < position; i++ )
+        {
+            positions.put( ids[i], i );
+        }
     }
-}
 
+    /**
+     * Returns the given organisation unit and all organisation units reachable
+     * from it through the child adjacency lists, used when the relationships
+     * do not form a forest.
+     */
+    private Set<Long> traverse( long parentId )
+    {
+        Set<Long> children = new HashSet<>();
+        children.add( parentId );
+
+        int index = indexes.get( parentId );
+
+        if ( index == NOT_FOUND )
+        {
+            return children;
+        }
+
+        boolean[] visited = new boolean[indexIds.length];
+        int[] queue = new int[indexIds.length];
+        int head = 0;
+        int tail = 0;
+
+        visited[index] = true;
+        queue[tail++] = index;
+
+        while ( head < tail )
+        {
+            int node = queue[head++];
+
+            for ( int i = offsets[node]; i < offsets[node + 1]; i++ )
+            {
+                int child = adjacency[i];
+
+                if ( !visited[child] )
+                {
+                    visited[child] = true;
+                    queue[tail++] = child;
+                    children.add( indexIds[child] );
+                }
+            }
+        }
+
+        return children;
+    }
+
+    private int getPosition( long id )
+    {
+        return positions.get( id );
+    }
+
+    /**
+     * Returns the sorted pre-order positions of the members of the given group
+     * which are part of this hierarchy. The positions are computed once per
+     * group for the lifetime of this hierarchy.
+     */
+    private int[] getGroupPositions( OrganisationUnitGroup group )
+    {
+        return groupPositions.computeIfAbsent( group.getId(), key -> group.getMembers().stream()
+            .mapToInt( unit -> getPosition( unit.getId() ) )
+            .filter( position -> position != NOT_FOUND )
+            .sorted().distinct().toArray() );
+    }
+
+    /**
+     * Returns the index of the first value in the given sorted array which is
+     * greater than or equal to the given value.
+     */
+    private static int lowerBound( int[] values, int value )
+    {
+        int low = 0;
+        int high = values.length;
+
+        while ( low < high )
+        {
+            int mid = ( low + high ) >>> 1;
+
+            if ( values[mid] < value )
+            {
+                low = mid + 1;
+            }
+            else
+            {
+                high = mid;
+            }
+        }
+
+        return low;
+    }
+
+    /**
+     * Open addressing hash map from long keys to non-negative int values,
+     * avoiding boxing of keys and values.
+     */
+    private static final class LongIntHashMap
+    {
+        private final long[] keys;
+
+        private final int[] values;
+
+        private final int mask;
+
+        private LongIntHashMap( int expectedSize )
+        {
+            int capacity = Integer.highestOneBit( Math.max( 2, expectedSize ) * 2 - 1 ) << 1;
+
+            keys = new long[capacity];
+            values = new int[capacity];
+            mask = capacity - 1;
+        }
+
+        /**
+         * Puts a value for a key which is not yet present.
+         */
+        private void put( long key, int value )
+        {
+            int slot = slot( key );
+
+            while ( values[slot] != 0 )
+            {
+                slot = ( slot + 1 ) & mask;
+            }
+
+            keys[slot] = key;
+            values[slot] = value + 1;
+        }
+
+        private int get( long key )
+        {
+            int slot = slot( key );
+
+            while ( values[slot] != 0 )
+            {
+                if ( keys[slot] == key )
+                {
+                    return values[slot] - 1;
+                }
+
+                slot = ( slot + 1 ) & mask;
+            }
+
+            return NOT_FOUND;
+        }
+
+        private int slot( long key )
+        {
+            long hash = key * 0x9E3779B97F4A7C15L;
+
+            return (int) ( hash ^ ( hash >>> 32 ) ) & mask;
+        }
+    }
+}
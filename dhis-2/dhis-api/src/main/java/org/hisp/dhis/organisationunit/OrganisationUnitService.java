@@ -413,6 +413,14 @@ public interface OrganisationUnitService
      */
     void updateOrganisationUnitParent( long organisationUnitId, long parentId );
 
+    /**
+     * Invalidates the cached organisation unit hierarchy and the cached user
+     * hierarchy checks on all nodes, now and again when the current
+     * transaction completes. To be called when organisation units are changed
+     * without going through this service, such as by metadata import.
+     */
+    void invalidateOrganisationUnitHierarchyCache();
+
     // -------------------------------------------------------------------------
     // OrganisationUnitLevel
     // -------------------------------------------------------------------------
@@ -201,6 +201,16 @@ public interface PeriodService
      */
     List<Period> getPeriodsByPeriodType( PeriodType periodType );
 
+    /**
+     * Returns the persisted Periods for the given ISO period strings. Invalid
+     * ISO periods and Periods which do not exist are ignored. The Periods are
+     * fetched with one query per PeriodType.
+     * 
+     * @param isoPeriods the ISO period strings.
+     * @return the persisted Periods.
+     */
+    List<Period> getPeriodsByIsoPeriods( Collection<String> isoPeriods );
+
     /**
      * Enforces that each Period in the given collection is loaded in the current
      * session. Persists the Period if it does not exist.
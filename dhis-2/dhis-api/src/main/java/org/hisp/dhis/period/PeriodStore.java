@@ -30,6 +30,7 @@ package org.hisp.dhis.period;
 
 import org.hisp.dhis.common.GenericStore;
 
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 
@@ -131,6 +132,17 @@ public interface PeriodStore
      */
     List<Period> getPeriodsByPeriodType( PeriodType periodType );
 
+    /**
+     * Returns all Periods with a given PeriodType and one of the given start
+     * dates.
+     *
+     * @param periodType the PeriodType of the Periods to return.
+     * @param startDates the start dates of the Periods to return.
+     * @return the Periods with the given PeriodType and start dates, or an
+     *         empty list if no Periods match.
+     */
+    List<Period> getPeriodsByStartDates( PeriodType periodType, Collection<Date> startDates );
+
     /**
      * Checks if the given period is associated with the current session and loads
      * it if not. Null is returned if the period does not exist.
@@ -0,0 +1,212 @@
+package org.hisp.dhis.reservedvalue;
+
+/*
+ * Copyright (c) 2004-2018, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.dataformat.xml.annotation.JacksonXmlProperty;
+import org.hisp.dhis.common.DxfNamespaces;
+
+/**
+ * Statistics for the pool of pre-generated values of a text pattern and key,
+ * including a forecast of when the values of the pattern will be exhausted.
+ * Pool request and exhaustion counts are kept in memory and cover the current
+ * server instance since startup.
+ */
+public class ReservedValuePoolStatistics
+{
+    private String ownerObject;
+
+    private String ownerUid;
+
+    private String key;
+
+    private long totalValues;
+
+    private int usedValues;
+
+    private int pooledValues;
+
+    private long poolRequests;
+
+    private long poolExhaustions;
+
+    private double reservationsPerDay;
+
+    private Double daysUntilExhausted;
+
+    public ReservedValuePoolStatistics()
+    {
+    }
+
+    public ReservedValuePoolStatistics( String ownerObject, String ownerUid, String key )
+    {
+        this.ownerObject = ownerObject;
+        this.ownerUid = ownerUid;
+        this.key = key;
+    }
+
+    // -------------------------------------------------------------------------
+    // Logic
+    // -------------------------------------------------------------------------
+
+    /**
+     * Returns the number of values which are neither reserved nor used. Pooled
+     * values are counted as remaining as they are available for reservation.
+     */
+    @JsonProperty
+    @JacksonXmlProperty( namespace = DxfNamespaces.DXF_2_0 )
+    public long getRemainingValues()
+    {
+        return Math.max( 0, totalValues - usedValues );
+    }
+
+    // -------------------------------------------------------------------------
+    // Getters and setters
+    // -------------------------------------------------------------------------
+
+    @JsonProperty
+    @JacksonXmlProperty( namespace = DxfNamespaces.DXF_2_0 )
+    public String getOwnerObject()
+    {
+        return ownerObject;
+    }
+
+    public void setOwnerObject( String ownerObject )
+    {
+        this.ownerObject = ownerObject;
+    }
+
+    @JsonProperty
+    @JacksonXmlProperty( namespace = DxfNamespaces.DXF_2_0 )
+    public String getOwnerUid()
+    {
+        return ownerUid;
+    }
+
+    public void setOwnerUid( String ownerUid )
+    {
+        this.ownerUid = ownerUid;
+    }
+
+    @JsonProperty
+    @JacksonXmlProperty( namespace = DxfNamespaces.DXF_2_0 )
+    public String getKey()
+    {
+        return key;
+    }
+
+    public void setKey( String key )
+    {
+        this.key = key;
+    }
+
+    @JsonProperty
+    @JacksonXmlProperty( namespace = DxfNamespaces.DXF_2_0 )
+    public long getTotalValues()
+    {
+        return totalValues;
+    }
+
+    public void setTotalValues( long totalValues )
+    {
+        this.totalValues = totalValues;
+    }
+
+    @JsonProperty
+    @JacksonXmlProperty( namespace = DxfNamespaces.DXF_2_0 )
+    public int getUsedValues()
+    {
+        return usedValues;
+    }
+
+    public void setUsedValues( int usedValues )
+    {
+        this.usedValues = usedValues;
+    }
+
+    @JsonProperty
+    @JacksonXmlProperty( namespace = DxfNamespaces.DXF_2_0 )
+    public int getPooledValues()
+    {
+        return pooledValues;
+    }
+
+    public void setPooledValues( int pooledValues )
+    {
+        this.pooledValues = pooledValues;
+    }
+
+    @JsonProperty
+    @JacksonXmlProperty( namespace = DxfNamespaces.DXF_2_0 )
+    public long getPoolRequests()
+    {
+        return poolRequests;
+    }
+
+    public void setPoolRequests( long poolRequests )
+    {
+        this.poolRequests = poolRequests;
+    }
+
+    @JsonProperty
+    @JacksonXmlProperty( namespace = DxfNamespaces.DXF_2_0 )
+    public long getPoolExhaustions()
+    {
+        return poolExhaustions;
+    }
+
+    public void setPoolExhaustions( long poolExhaustions )
+    {
+        this.poolExhaustions = poolExhaustions;
+    }
+
+    @JsonProperty
+    @JacksonXmlProperty( namespace = DxfNamespaces.DXF_2_0 )
+    public double getReservationsPerDay()
+    {
+        return reservationsPerDay;
+    }
+
+    public void setReservationsPerDay( double reservationsPerDay )
+    {
+        this.reservationsPerDay = reservationsPerDay;
+    }
+
+    @JsonProperty
+    @JacksonXmlProperty( namespace = DxfNamespaces.DXF_2_0 )
+    public Double getDaysUntilExhausted()
+    {
+        return daysUntilExhausted;
+    }
+
+    public void setDaysUntilExhausted( Double daysUntilExhausted )
+    {
+        this.daysUntilExhausted = daysUntilExhausted;
+    }
+}
@@ -46,4 +46,27 @@ public interface ReservedValueService
     boolean useReservedValue( TextPattern textPattern, String value );
 
     boolean isReserved( TextPattern textPattern, String value );
+
+    /**
+     * Tops up the pool of pre-generated values for the given text pattern and
+     * resolved key, so that reservations can be served from the pool rather
+     * than by generating and checking values on request.
+     *
+     * @param textPattern the text pattern.
+     * @param key the key, which is the text pattern resolved with all values
+     *        except the generated segment.
+     * @param poolSize the target number of pooled values.
+     * @return the number of values added to the pool.
+     */
+    int fillPool( TextPattern textPattern, String key, int poolSize );
+
+    /**
+     * Returns pool and capacity statistics for the given text pattern and the
+     * key resolved from the given values.
+     *
+     * @param textPattern the text pattern.
+     * @param values the values required to resolve the key.
+     */
+    ReservedValuePoolStatistics getPoolStatistics( TextPattern textPattern, Map<String, String> values )
+        throws TextPatternGenerationException;
 }
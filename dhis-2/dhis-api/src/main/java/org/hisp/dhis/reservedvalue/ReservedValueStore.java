@@ -30,6 +30,7 @@ package org.hisp.dhis.reservedvalue;
 
 import org.hisp.dhis.common.GenericStore;
 
+import java.util.Date;
 import java.util.List;
 
 /**
@@ -52,4 +53,61 @@ public interface ReservedValueStore
     void deleteReservedValueByUid( String uid );
 
     boolean isReserved( String ownerObject, String ownerUID, String value );
+
+    /**
+     * Returns the number of values reserved for the owner and key of the given
+     * reserved value since the given date, including values which have been
+     * reserved and then used.
+     *
+     * @param reservedValue the reserved value holding the owner, key and the
+     *        value key used to match used values.
+     * @param since the start date.
+     */
+    int getNumberOfReservedValues( ReservedValue reservedValue, Date since );
+
+    /**
+     * Returns the distinct owner and key combinations with values reserved
+     * since the given date. The value and expiry date properties are not set.
+     *
+     * @param since the start date.
+     */
+    List<ReservedValue> getReservedValueKeys( Date since );
+
+    // -------------------------------------------------------------------------
+    // Pool
+    // -------------------------------------------------------------------------
+
+    /**
+     * Removes and returns up to the given number of pre-generated values from
+     * the pool for the owner and key of the given reserved value. Concurrent
+     * callers never receive the same value.
+     *
+     * @param reservedValue the reserved value holding the owner and key.
+     * @param numberOfValues the maximum number of values to take.
+     */
+    List<String> takePooledValues( ReservedValue reservedValue, int numberOfValues );
+
+    /**
+     * Adds the given values to the pool for the owner and key of the given
+     * reserved value. Values which are already pooled, reserved or used are
+     * skipped.
+     *
+     * @param reservedValue the reserved value holding the owner and key.
+     * @param values the values to add.
+     * @return the number of values added.
+     */
+    int addPooledValues( ReservedValue reservedValue, List<String> values );
+
+    int getNumberOfPooledValues( ReservedValue reservedValue );
+
+    /**
+     * Removes pooled values which were added before the given date for keys
+     * which have not seen any reservations since the given date. Note that
+     * pooled values of sequential text patterns have already been drawn from
+     * the sequential number counter, so removing them leaves gaps in the
+     * sequence which are never filled.
+     *
+     * @param since the date.
+     */
+    void removeUnusedPooledValues( Date since );
 }
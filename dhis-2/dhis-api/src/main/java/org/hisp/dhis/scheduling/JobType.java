@@ -30,6 +30,7 @@ package org.hisp.dhis.scheduling;
 
 import com.google.common.collect.ImmutableMap;
 import org.hisp.dhis.scheduling.parameters.AnalyticsJobParameters;
+import org.hisp.dhis.scheduling.parameters.DataApprovalStatusJobParameters;
 import org.hisp.dhis.scheduling.parameters.MockJobParameters;
 import org.hisp.dhis.scheduling.parameters.MonitoringJobParameters;
 import org.hisp.dhis.scheduling.parameters.PredictorJobParameters;
@@ -74,6 +75,9 @@ public enum JobType
     ) ),
     DATA_SET_NOTIFICATION( "dataSetNotificationJob", false, null, null ),
     REMOVE_EXPIRED_RESERVED_VALUES( "removeExpiredReservedValuesJob", false, null, null ),
+    RESERVED_VALUE_POOL( "reservedValuePoolJob", false, null, null ),
+    TRACKED_ENTITY_ATTRIBUTE_SEARCH_INDEX( "trackedEntityAttributeSearchIndexJob", true, null, null ),
+    DATA_APPROVAL_STATUS( "dataApprovalStatusJob", true, DataApprovalStatusJobParameters.class, null ),
 
     // For tests
     MOCK( "mockJob", false, MockJobParameters.class, null ),
@@ -0,0 +1,63 @@
+package org.hisp.dhis.scheduling;
+
+/*
+ * Copyright (c) 2004-2018, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import java.util.List;
+
+/**
+ * Cluster wide queue of job tasks. A job running on the leader node splits its
+ * work into tasks, which are pulled and executed by every node of the cluster,
+ * including the leader itself. Tasks are executed by the
+ * {@link WorkTaskHandler} of the task type.
+ * <p>
+ * Tasks of nodes which stop sending heartbeats are considered abandoned and
+ * are retried by other nodes.
+ *
+ * @see WorkTaskHandler
+ */
+public interface WorkQueue
+{
+    /**
+     * Indicates whether the work queue is enabled. Jobs should execute their
+     * work locally if not.
+     */
+    boolean isEnabled();
+
+    /**
+     * Submits a task for each of the given payloads and blocks until all tasks
+     * are completed or failed. The calling thread executes queued tasks while
+     * waiting. Progress is reported through the notifier of the given job.
+     *
+     * @param jobId the job configuration, can be null.
+     * @param taskType the task type, see {@link WorkTaskHandler#getTaskType()}.
+     * @param payloads the payloads of the tasks.
+     * @return the result of the tasks.
+     */
+    WorkQueueResult execute( JobConfiguration jobId, String taskType, List<String> payloads );
+}
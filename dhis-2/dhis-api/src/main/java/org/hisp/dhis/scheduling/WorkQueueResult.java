@@ -0,0 +1,96 @@
+package org.hisp.dhis.scheduling;
+
+/*
+ * Copyright (c) 2004-2018, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Result of a group of tasks executed through the {@link WorkQueue}.
+ */
+public class WorkQueueResult
+{
+    private final List<String> results = new ArrayList<>();
+
+    private final List<String> errors = new ArrayList<>();
+
+    public WorkQueueResult()
+    {
+    }
+
+    // -------------------------------------------------------------------------
+    // Logic
+    // -------------------------------------------------------------------------
+
+    public WorkQueueResult addResult( String result )
+    {
+        this.results.add( result );
+        return this;
+    }
+
+    public WorkQueueResult addError( String error )
+    {
+        this.errors.add( error );
+        return this;
+    }
+
+    /**
+     * Indicates whether all tasks completed successfully.
+     */
+    public boolean isSuccess()
+    {
+        return errors.isEmpty();
+    }
+
+    // -------------------------------------------------------------------------
+    // Get methods
+    // -------------------------------------------------------------------------
+
+    /**
+     * Returns the non-null results of the completed tasks.
+     */
+    public List<String> getResults()
+    {
+        return results;
+    }
+
+    /**
+     * Returns the errors of the failed tasks.
+     */
+    public List<String> getErrors()
+    {
+        return errors;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format( "[Results: %d, errors: %s]", results.size(), errors );
+    }
+}
@@ -54,6 +54,9 @@ public class AnalyticsJobParameters
     @JsonProperty
     private boolean skipResourceTables = false;
 
+    @JsonProperty
+    private boolean incremental = false;
+
     public AnalyticsJobParameters()
     {
     }
@@ -65,6 +68,12 @@ public class AnalyticsJobParameters
         this.skipResourceTables = skipResourceTables;
     }
 
+    public AnalyticsJobParameters( Integer lastYears, Set<AnalyticsTableType> skipTableTypes, boolean skipResourceTables, boolean incremental )
+    {
+        this( lastYears, skipTableTypes, skipResourceTables );
+        this.incremental = incremental;
+    }
+
     public Integer getLastYears()
     {
         return lastYears;
@@ -80,6 +89,11 @@ public class AnalyticsJobParameters
         return skipResourceTables;
     }
 
+    public boolean isIncremental()
+    {
+        return incremental;
+    }
+
     @Override
     public Optional<ErrorReport> validate()
     {
@@ -29,6 +29,7 @@ package org.hisp.dhis.sqlview;
  */
 
 import org.hisp.dhis.common.Grid;
+import org.hisp.dhis.common.GridWriter;
 import org.hisp.dhis.common.IllegalQueryException;
 import org.hisp.dhis.commons.util.SqlHelper;
 
@@ -99,6 +100,21 @@ public interface SqlViewService
     */
     Grid getSqlViewGrid( SqlView sqlView, Map<String, String> criteria, Map<String, String> variables, List<String> filters, List<String> fields );
 
+    /**
+    * Writes the SQL view to the given writer as rows are read from the
+    * database, without holding the rows in memory. Checks if the SQL query
+    * is valid.
+    * 
+    * @param sqlView the SQL view to render.
+    * @param criteria the criteria on the format key:value, will be applied as
+    *        criteria on the SQL result set.
+    * @param variables the variables on the format key:value, will be substituted
+    *        with variables inside the SQL view.
+    * @param writer the {@link GridWriter} to write to.
+    * @throws {@link IllegalQueryException} if the SQL query is invalid.
+    */
+    void writeSqlViewData( SqlView sqlView, Map<String, String> criteria, Map<String, String> variables, List<String> filters, List<String> fields, GridWriter writer );
+
     /**
      * Returns an SQL where clause based on the given criteria.
      *
@@ -30,6 +30,7 @@ package org.hisp.dhis.sqlview;
 
 import org.hisp.dhis.common.IdentifiableObjectStore;
 import org.hisp.dhis.common.Grid;
+import org.hisp.dhis.common.GridWriter;
 
 /**
  * @author Dang Duy Hieu
@@ -47,6 +48,15 @@ public interface SqlViewStore
 
     void populateSqlViewGrid( Grid grid, String sql );
 
+    /**
+     * Writes the headers and rows produced by the given SQL to the given
+     * writer as rows are read from the database.
+     *
+     * @param sql the SQL string.
+     * @param writer the {@link GridWriter}.
+     */
+    void writeSqlViewData( String sql, GridWriter writer );
+
     /**
      * Tests the given SQL for validity.
      * 
@@ -0,0 +1,68 @@
+package org.hisp.dhis.trackedentity;
+
+/*
+ * Copyright (c) 2004-2018, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import org.hisp.dhis.scheduling.JobConfiguration;
+
+import java.util.Set;
+
+/**
+ * Maintains trigram indexes on the values of searchable tracked entity
+ * attributes, which lets tracked entity instance queries with like and
+ * equality filters on these attributes avoid scanning all attribute values.
+ * <p>
+ * An attribute is searchable if it is system wide unique or marked as
+ * searchable for a program or tracked entity type, and has a text value type.
+ * The indexes are kept up to date by the database on attribute value writes.
+ */
+public interface TrackedEntityAttributeSearchIndexService
+{
+    /**
+     * Indicates whether search indexes are supported by the database.
+     */
+    boolean isSearchIndexSupported();
+
+    /**
+     * Returns the identifiers of the tracked entity attributes which have a
+     * valid search index.
+     *
+     * @return a set of tracked entity attribute identifiers.
+     */
+    Set<Long> getIndexedAttributes();
+
+    /**
+     * Creates missing search indexes for searchable attributes, drops indexes
+     * of attributes which are no longer searchable and rebuilds invalid
+     * indexes.
+     *
+     * @param jobId the job configuration, can be null.
+     * @return the number of created indexes.
+     */
+    int updateSearchIndexes( JobConfiguration jobId );
+}
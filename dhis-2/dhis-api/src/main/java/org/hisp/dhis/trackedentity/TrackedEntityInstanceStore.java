@@ -76,4 +76,20 @@ public interface TrackedEntityInstanceStore
     void updateTrackedEntityInstancesSyncTimestamp( List<String> trackedEntityInstanceUIDs, Date lastSynchronized );
 
     List<TrackedEntityInstance> getTrackedEntityInstancesByUid( List<String> uids, User user );
+
+    /**
+     * Initializes the associations of the given tracked entity instances,
+     * which must be attached to the current session, with a fixed number of
+     * set based queries per page of instances. Attribute values are always
+     * loaded. This avoids one query per instance and association when the
+     * instances are converted or exported.
+     *
+     * @param instances the tracked entity instances.
+     * @param includeProgramOwners whether to load program owners.
+     * @param includeEnrollments whether to load enrollments and their notes.
+     * @param includeEvents whether to load the events and event notes of enrollments.
+     * @param includeRelationships whether to load relationships.
+     */
+    void loadAssociations( List<TrackedEntityInstance> instances, boolean includeProgramOwners,
+        boolean includeEnrollments, boolean includeEvents, boolean includeRelationships );
 }
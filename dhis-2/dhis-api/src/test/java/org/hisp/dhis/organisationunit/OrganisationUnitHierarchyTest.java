@@ -31,6 +31,7 @@ package org.hisp.dhis.organisationunit;
 import org.junit.Test;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -177,6 +178,123 @@ public class OrganisationUnitHierarchyTest
         testHierarchy( hierarchy );
     }
 
+    @Test
+    public void testIsDescendant()
+    {
+        List<OrganisationUnitRelationship> relationships = new ArrayList<>();
+
+        relationships.add( new OrganisationUnitRelationship( 1, 2 ) );
+        relationships.add( new OrganisationUnitRelationship( 1, 3 ) );
+        relationships.add( new OrganisationUnitRelationship( 2, 4 ) );
+        relationships.add( new OrganisationUnitRelationship( 3, 5 ) );
+        relationships.add( new OrganisationUnitRelationship( 4, 6 ) );
+
+        OrganisationUnitHierarchy hierarchy = new OrganisationUnitHierarchy( relationships );
+
+        assertTrue( hierarchy.contains( 1 ) );
+        assertTrue( hierarchy.contains( 6 ) );
+        assertFalse( hierarchy.contains( 7 ) );
+
+        assertTrue( hierarchy.isDescendant( 6, 1 ) );
+        assertTrue( hierarchy.isDescendant( 6, 2 ) );
+        assertTrue( hierarchy.isDescendant( 6, 4 ) );
+        assertTrue( hierarchy.isDescendant( 6, 6 ) );
+        assertTrue( hierarchy.isDescendant( 5, 3 ) );
+        assertTrue( hierarchy.isDescendant( 7, 7 ) );
+
+        assertFalse( hierarchy.isDescendant( 6, 3 ) );
+        assertFalse( hierarchy.isDescendant( 5, 2 ) );
+        assertFalse( hierarchy.isDescendant( 1, 2 ) );
+        assertFalse( hierarchy.isDescendant( 7, 1 ) );
+        assertFalse( hierarchy.isDescendant( 1, 7 ) );
+    }
+
+    @Test
+    public void testMultipleParents()
+    {
+        List<OrganisationUnitRelationship> relationships = new ArrayList<>();
+
+        relationships.add( new OrganisationUnitRelationship( 1, 2 ) );
+        relationships.add( new OrganisationUnitRelationship( 1, 3 ) );
+        relationships.add( new OrganisationUnitRelationship( 2, 4 ) );
+        relationships.add( new OrganisationUnitRelationship( 3, 4 ) );
+        relationships.add( new OrganisationUnitRelationship( 4, 5 ) );
+
+        OrganisationUnitHierarchy hierarchy = new OrganisationUnitHierarchy( relationships );
+
+        assertEquals( new HashSet<>( Arrays.asList( 1L, 2L, 3L, 4L, 5L ) ), hierarchy.getChildren( 1 ) );
+        assertEquals( new HashSet<>( Arrays.asList( 2L, 4L, 5L ) ), hierarchy.getChildren( 2 ) );
+        assertEquals( new HashSet<>( Arrays.asList( 3L, 4L, 5L ) ), hierarchy.getChildren( 3 ) );
+
+        assertTrue( hierarchy.isDescendant( 5, 2 ) );
+        assertTrue( hierarchy.isDescendant( 5, 3 ) );
+        assertFalse( hierarchy.isDescendant( 3, 2 ) );
+
+        OrganisationUnitGroup group = new OrganisationUnitGroup( "Group" );
+        group.setId( 1 );
+
+        OrganisationUnit unit5 = new OrganisationUnit( "Unit5" );
+        unit5.setId( 5 );
+        group.addOrganisationUnit( unit5 );
+
+        assertEquals( Collections.singleton( 5L ), hierarchy.prepareChildren( new ArrayList<>(), Collections.singleton( group ) ).getChildren( 3, group ) );
+    }
+
+    @Test
+    public void testCycle()
+    {
+        List<OrganisationUnitRelationship> relationships = new ArrayList<>();
+
+        relationships.add( new OrganisationUnitRelationship( 1, 2 ) );
+        relationships.add( new OrganisationUnitRelationship( 2, 1 ) );
+        relationships.add( new OrganisationUnitRelationship( 2, 3 ) );
+
+        OrganisationUnitHierarchy hierarchy = new OrganisationUnitHierarchy( relationships );
+
+        assertEquals( new HashSet<>( Arrays.asList( 1L, 2L, 3L ) ), hierarchy.getChildren( 1 ) );
+        assertEquals( Collections.singleton( 3L ), hierarchy.getChildren( 3 ) );
+        assertTrue( hierarchy.isDescendant( 3, 1 ) );
+    }
+
+    @Test
+    public void testLargeHierarchy()
+    {
+        List<OrganisationUnitRelationship> relations = new ArrayList<>();
+
+        int size = 500000; // Each unit has up to 8 children
+        int fanOut = 8;
+
+        for ( long childId = 2; childId <= size; childId++ )
+        {
+            relations.add( new OrganisationUnitRelationship( ( ( childId - 2 ) / fanOut ) + 1, childId ) );
+        }
+
+        OrganisationUnitHierarchy hierarchy = new OrganisationUnitHierarchy( relations );
+
+        int descendantsOfTwo = 0;
+
+        for ( long id = 2; id <= size; id++ )
+        {
+            long ancestorId = id;
+
+            while ( ancestorId > 2 )
+            {
+                ancestorId = ( ( ancestorId - 2 ) / fanOut ) + 1;
+            }
+
+            boolean descendant = ancestorId == 2;
+
+            descendantsOfTwo += descendant ? 1 : 0;
+
+            assertEquals( descendant, hierarchy.isDescendant( id, 2 ) );
+            assertTrue( hierarchy.isDescendant( id, 1 ) );
+        }
+
+        assertEquals( size, hierarchy.getChildren( 1 ).size() );
+        assertEquals( descendantsOfTwo, hierarchy.getChildren( 2 ).size() );
+        assertFalse( hierarchy.isDescendant( 2, 3 ) );
+    }
+
     private void testHierarchy( OrganisationUnitHierarchy hierarchy )
     {
         assertEquals( 12, hierarchy.getChildren( 1 ).size() );
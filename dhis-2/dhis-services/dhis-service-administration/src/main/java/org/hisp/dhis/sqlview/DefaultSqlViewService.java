@@ -36,6 +36,7 @@ import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.hisp.dhis.common.Grid;
+import org.hisp.dhis.common.GridWriter;
 import org.hisp.dhis.common.IllegalQueryException;
 import org.hisp.dhis.commons.util.SqlHelper;
 import org.hisp.dhis.external.conf.ConfigurationKey;
@@ -43,7 +44,7 @@ import org.hisp.dhis.external.conf.DhisConfigurationProvider;
 import org.hisp.dhis.jdbc.StatementBuilder;
 import org.hisp.dhis.query.QueryParserException;
 import org.hisp.dhis.query.QueryUtils;
-import org.hisp.dhis.system.grid.ListGrid;
+import org.hisp.dhis.system.grid.ColumnarGrid;
 import org.hisp.dhis.util.ObjectUtils;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -169,7 +170,7 @@ public class DefaultSqlViewService
     {
         validateSqlView( sqlView, criteria, variables );
         
-        Grid grid = new ListGrid();
+        Grid grid = new ColumnarGrid();
         grid.setTitle( sqlView.getName() );
         grid.setSubtitle( sqlView.getDescription() );
 
@@ -186,6 +187,20 @@ public class DefaultSqlViewService
         return grid;
     }
 
+    @Override
+    public void writeSqlViewData( SqlView sqlView, Map<String, String> criteria, Map<String, String> variables, List<String> filters, List<String> fields, GridWriter writer )
+    {
+        validateSqlView( sqlView, criteria, variables );
+
+        log.info( String.format( "Writing data for SQL view: '%s'", sqlView.getUid() ) );
+
+        String sql = sqlView.isQuery() ?
+            getSqlForQuery( null, sqlView, criteria, variables, filters, fields ) :
+            getSqlForView( null, sqlView, criteria, filters, fields );
+
+        sqlViewStore.writeSqlViewData( sql, writer );
+    }
+
     private String parseFilters(List<String> filters, SqlHelper sqlHelper ) throws QueryParserException
     {
         String query = StringUtils.EMPTY;
@@ -32,12 +32,20 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.hisp.dhis.DhisSpringTest;
+import org.hisp.dhis.common.GridHeader;
+import org.hisp.dhis.common.GridWriter;
 import org.hisp.dhis.common.IllegalQueryException;
+import org.hisp.dhis.dataelement.DataElementService;
+import org.hisp.dhis.setting.SettingKey;
+import org.hisp.dhis.setting.SystemSettingManager;
 import org.junit.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 
@@ -50,6 +58,12 @@ public class SqlViewServiceTest
     @Autowired
     private SqlViewService sqlViewService;
 
+    @Autowired
+    private DataElementService dataElementService;
+
+    @Autowired
+    private SystemSettingManager systemSettingManager;
+
     private String sqlA = "SELECT   *  FROM     _categorystructure;;  ; ;;;  ;; ; ";
 
     private String sqlB = "SELECT COUNT(*) from organisationunit;";
@@ -68,6 +82,31 @@ public class SqlViewServiceTest
     // Supportive methods
     // -------------------------------------------------------------------------
 
+    private class ListGridWriter
+        implements GridWriter
+    {
+        private List<GridHeader> headers = new ArrayList<>();
+
+        private List<List<Object>> rows = new ArrayList<>();
+
+        @Override
+        public void writeHeaders( List<GridHeader> headers )
+        {
+            this.headers.addAll( headers );
+        }
+
+        @Override
+        public void writeRow( List<Object> row )
+        {
+            rows.add( row );
+        }
+
+        @Override
+        public void flush()
+        {
+        }
+    }
+
     private void assertEq( char uniqueCharacter, SqlView sqlView, String sql )
     {
         assertEquals( "SqlView" + uniqueCharacter, sqlView.getName() );
@@ -294,4 +333,51 @@ public class SqlViewServiceTest
 
         sqlViewService.validateSqlView( sqlView, null, null );
     }
+
+    @Test
+    public void testWriteSqlViewData()
+    {
+        dataElementService.addDataElement( createDataElement( 'A' ) );
+        dataElementService.addDataElement( createDataElement( 'B' ) );
+        dataElementService.addDataElement( createDataElement( 'C' ) );
+
+        systemSettingManager.saveSystemSetting( SettingKey.SQL_VIEW_MAX_LIMIT, 3 );
+
+        SqlView sqlView = new SqlView( "Name", "select name from dataelement", SqlViewType.QUERY );
+
+        ListGridWriter writer = new ListGridWriter();
+
+        sqlViewService.writeSqlViewData( sqlView, null, null, null, null, writer );
+
+        assertEquals( 1, writer.headers.size() );
+        assertEquals( 3, writer.rows.size() );
+    }
+
+    @Test
+    public void testWriteSqlViewDataAboveMaxLimit()
+    {
+        dataElementService.addDataElement( createDataElement( 'A' ) );
+        dataElementService.addDataElement( createDataElement( 'B' ) );
+        dataElementService.addDataElement( createDataElement( 'C' ) );
+
+        systemSettingManager.saveSystemSetting( SettingKey.SQL_VIEW_MAX_LIMIT, 2 );
+
+        SqlView sqlView = new SqlView( "Name", "select name from dataelement", SqlViewType.QUERY );
+
+        ListGridWriter writer = new ListGridWriter();
+
+        try
+        {
+            sqlViewService.writeSqlViewData( sqlView, null, null, null, null, writer );
+
+            fail( "Expected max limit to be exceeded" );
+        }
+        catch ( IllegalStateException ex )
+        {
+            // Streaming is aborted when the row after the max limit is read
+
+            assertEquals( 1, writer.headers.size() );
+            assertEquals( 2, writer.rows.size() );
+        }
+    }
 }
@@ -29,7 +29,7 @@ package org.hisp.dhis.analytics;
  */
 
 import java.util.Map;
-import java.util.concurrent.Future;
+import java.util.concurrent.CompletableFuture;
 
 import org.hisp.dhis.common.DimensionalItemObject;
 import org.hisp.dhis.common.IllegalQueryException;
@@ -44,17 +44,21 @@ public interface AnalyticsManager
 {
     /**
      * Retrieves aggregated data values for the given query. The data is returned
-     * as a mapping where the key is concatenated from the dimension options for
-     * all dimensions separated by "-", and the value is the data value. This
-     * method is invoked asynchronously. The value class can be Double or String.
+     * as a mapping where the key holds the ordinals of the dimension options for
+     * all dimensions, interned in the given dictionary, and the value is the
+     * data value. This method is invoked asynchronously. The value class can be
+     * Double or String.
      *
      * @param params the query to retrieve aggregated data for.
      * @param tableType the {@link AnalyticsTableType}.
      * @param maxLimit the max number of records to retrieve.
+     * @param dictionary the {@link DimensionItemDictionary} to intern dimension
+     *        options in.
      * @return a map.
      * @throws IllegalQueryException if query result set exceeds the max limit.
      */
-    Future<Map<String, Object>> getAggregatedDataValues( DataQueryParams params, AnalyticsTableType tableType, int maxLimit );
+    CompletableFuture<Map<DimensionKey, Object>> getAggregatedDataValues( DataQueryParams params, AnalyticsTableType tableType, int maxLimit,
+        DimensionItemDictionary dictionary );
 
     /**
      * Inserts entries for the aggregation periods mapped to each data period
@@ -64,7 +68,9 @@ public interface AnalyticsManager
      * @param params the query.
      * @param dataPeriodAggregationPeriodMap the mapping between data periods and
      *        aggregation periods for this query.
+     * @param dictionary the {@link DimensionItemDictionary} of the map keys.
      */
-    void replaceDataPeriodsWithAggregationPeriods( Map<String, Object> dataValueMap,
-        DataQueryParams params, ListMap<DimensionalItemObject, DimensionalItemObject> dataPeriodAggregationPeriodMap );
+    void replaceDataPeriodsWithAggregationPeriods( Map<DimensionKey, Object> dataValueMap,
+        DataQueryParams params, ListMap<DimensionalItemObject, DimensionalItemObject> dataPeriodAggregationPeriodMap,
+        DimensionItemDictionary dictionary );
 }
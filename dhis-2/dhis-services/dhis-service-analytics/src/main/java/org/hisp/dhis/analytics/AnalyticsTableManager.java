@@ -146,6 +146,13 @@ public interface AnalyticsTableManager
      */
     void dropTableCascade( String tableName );
 
+    /**
+     * Removes all rows from the given table.
+     *
+     * @param tableName the table name.
+     */
+    void truncateTable( String tableName );
+
     /**
      * Performs an analyze operation on the given table name.
      *
@@ -173,4 +180,32 @@ public interface AnalyticsTableManager
      * @return a future representing the asynchronous task.
      */
     Future<?> vacuumTablesAsync( ConcurrentLinkedQueue<AnalyticsTablePartition> partitions );
+
+    /**
+     * Performs vacuum or optimization of the table with the given name.
+     *
+     * @param tableName the table name.
+     */
+    void vacuumTable( String tableName );
+
+    /**
+     * Indicates whether this manager supports incremental updates, where rows
+     * for data changed since the last successful update are replaced in the
+     * existing analytics table partitions.
+     *
+     * @return true if incremental updates are supported.
+     */
+    boolean supportsIncrementalUpdate();
+
+    /**
+     * Replaces the rows of the existing analytics table partition which belong
+     * to data changed since the last successful update with the rows of the
+     * populated temporary partition. Rows are deleted and inserted in a single
+     * transaction.
+     *
+     * @param params the {@link AnalyticsTableUpdateParams}.
+     * @param partition the analytics table partition.
+     * @return the number of rows deleted and inserted.
+     */
+    int updateLivePartition( AnalyticsTableUpdateParams params, AnalyticsTablePartition partition );
 }
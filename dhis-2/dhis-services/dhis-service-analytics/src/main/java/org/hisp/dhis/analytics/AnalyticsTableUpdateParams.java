@@ -56,6 +56,21 @@ public class AnalyticsTableUpdateParams
      */
     boolean skipResourceTables;
 
+    /**
+     * Indicates whether to update the existing analytics tables in place with
+     * data changed since the last successful update, instead of regenerating
+     * the tables.
+     */
+    private boolean incremental;
+
+    /**
+     * Time from which incremental updates include changed data. This is the
+     * start of the last successful update, or the start of the oldest
+     * transaction in progress at that time if earlier, as rows of such
+     * transactions were not visible to the last successful update.
+     */
+    private Date lastSuccessfulUpdate;
+
     /**
      * Analytics table types to skip.
      */
@@ -90,6 +105,16 @@ public class AnalyticsTableUpdateParams
         return skipResourceTables;
     }
 
+    public boolean isIncremental()
+    {
+        return incremental;
+    }
+
+    public Date getLastSuccessfulUpdate()
+    {
+        return lastSuccessfulUpdate;
+    }
+
     public Set<AnalyticsTableType> getSkipTableTypes()
     {
         return skipTableTypes;
@@ -115,6 +140,16 @@ public class AnalyticsTableUpdateParams
         return lastYears != null;
     }
 
+    /**
+     * Indicates whether this is an incremental update of analytics tables,
+     * i.e. if rows for data changed since the last successful update are to
+     * be replaced in the existing analytics table partitions.
+     */
+    public boolean isIncrementalUpdate()
+    {
+        return incremental && lastSuccessfulUpdate != null;
+    }
+
     // -------------------------------------------------------------------------
     // toString
     // -------------------------------------------------------------------------
@@ -126,6 +161,8 @@ public class AnalyticsTableUpdateParams
             .add( "last years", lastYears )
             .add( "skip resource tables", skipResourceTables )
             .add( "skip table types", skipTableTypes )
+            .add( "incremental", incremental )
+            .add( "last successful update", lastSuccessfulUpdate )
             .add( "start time", startTime )
             .toString();
     }
@@ -167,11 +204,13 @@ public class AnalyticsTableUpdateParams
 
         params.lastYears = this.lastYears;
         params.skipResourceTables = this.skipResourceTables;
-        params.skipTableTypes = new HashSet<>( this.skipTableTypes );
+        params.skipTableTypes = this.skipTableTypes != null ? new HashSet<>( this.skipTableTypes ) : null;
+        params.incremental = this.incremental;
+        params.lastSuccessfulUpdate = this.lastSuccessfulUpdate;
         params.jobId = this.jobId;
         params.startTime = this.startTime;
 
-        return this;
+        return params;
     }
     public static Builder newBuilder()
     {
@@ -218,12 +257,30 @@ public class AnalyticsTableUpdateParams
             return this;
         }
 
+        public Builder withIncremental( boolean incremental )
+        {
+            this.params.incremental = incremental;
+            return this;
+        }
+
+        public Builder withLastSuccessfulUpdate( Date lastSuccessfulUpdate )
+        {
+            this.params.lastSuccessfulUpdate = lastSuccessfulUpdate;
+            return this;
+        }
+
         public Builder withJobId( JobConfiguration jobId )
         {
             this.params.jobId = jobId;
             return this;
         }
 
+        public Builder withStartTime( Date startTime )
+        {
+            this.params.startTime = startTime;
+            return this;
+        }
+
         public AnalyticsTableUpdateParams build()
         {
             return this.params;
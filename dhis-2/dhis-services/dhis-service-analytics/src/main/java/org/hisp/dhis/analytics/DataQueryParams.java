@@ -264,6 +264,12 @@ public class DataQueryParams
      */
     protected boolean includeMetadataDetails;
 
+    /**
+     * Indicates whether to include the execution time of sub-queries in the
+     * response meta data.
+     */
+    protected boolean includeQueryTimings;
+
     /**
      * Indicates which property to display for meta-data.
      */
@@ -348,6 +354,12 @@ public class DataQueryParams
      */
     protected transient Partitions partitions;
 
+    /**
+     * The collector of sub-query execution times, shared between all copies
+     * of this query.
+     */
+    protected transient QueryTimings queryTimings;
+
     /**
      * The name of the analytics table to use for this query.
      */
@@ -482,6 +494,7 @@ public class DataQueryParams
         params.includeNumDen = this.includeNumDen;
         params.includePeriodStartEndDates = this.includePeriodStartEndDates;
         params.includeMetadataDetails = this.includeMetadataDetails;
+        params.includeQueryTimings = this.includeQueryTimings;
         params.displayProperty = this.displayProperty;
         params.outputIdScheme = this.outputIdScheme;
         params.outputFormat = this.outputFormat;
@@ -496,6 +509,7 @@ public class DataQueryParams
 
         params.currentUser = this.currentUser;
         params.partitions = new Partitions( this.partitions );
+        params.queryTimings = this.queryTimings;
         params.tableName = this.tableName;
         params.dataType = this.dataType;
         params.periodType = this.periodType;
@@ -540,6 +554,7 @@ public class DataQueryParams
             .add( includeNumDen )
             .add( includePeriodStartEndDates )
             .add( includeMetadataDetails )
+            .add( includeQueryTimings )
             .add( displayProperty )
             .add( outputIdScheme )
             .add( outputFormat )
@@ -558,10 +573,10 @@ public class DataQueryParams
     // -------------------------------------------------------------------------
 
     /**
-     * Returns a key representing a group of queries which should be run in
-     * sequence. Currently queries with different {@link AnalyticsAggregationType}
-     * are run in sequence. It is not allowed for the implementation to differentiate
-     * on dimensional objects.
+     * Returns a key representing a group of queries which are planned
+     * together. Currently queries are grouped by {@link AnalyticsAggregationType}.
+     * It is not allowed for the implementation to differentiate on dimensional
+     * objects.
      */
     public String getSequentialQueryGroupKey()
     {
@@ -1960,6 +1975,11 @@ public class DataQueryParams
         return includeMetadataDetails;
     }
 
+    public boolean isIncludeQueryTimings()
+    {
+        return includeQueryTimings;
+    }
+
     public DisplayProperty getDisplayProperty()
     {
         return displayProperty;
@@ -2044,6 +2064,11 @@ public class DataQueryParams
         return partitions;
     }
 
+    public QueryTimings getQueryTimings()
+    {
+        return queryTimings;
+    }
+
     public void setPartitions( Partitions partitions )
     {
         this.partitions = partitions;
@@ -2728,6 +2753,13 @@ public class DataQueryParams
             return this;
         }
 
+        public Builder withIncludeQueryTimings( boolean includeQueryTimings )
+        {
+            this.params.includeQueryTimings = includeQueryTimings;
+            this.params.queryTimings = includeQueryTimings ? new QueryTimings() : null;
+            return this;
+        }
+
         public Builder withDisplayProperty( DisplayProperty displayProperty )
         {
             this.params.displayProperty = displayProperty;
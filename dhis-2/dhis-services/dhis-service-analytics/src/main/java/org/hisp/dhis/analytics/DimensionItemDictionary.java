@@ -0,0 +1,188 @@
+package org.hisp.dhis.analytics;
+
+/*
+ * Copyright (c) 2004-2018, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import static org.hisp.dhis.common.DimensionalObject.DIMENSION_SEP;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Interns dimension item identifiers into integer ordinals for the lifetime of
+ * an analytics request. Aggregated values are keyed on {@link DimensionKey}
+ * instances holding these ordinals, and are only rendered back into dimension
+ * item identifiers when the response grid is assembled. Instances are thread
+ * safe and can be shared between the asynchronous query tasks of a request.
+ */
+public class DimensionItemDictionary
+{
+    private final Map<String, Integer> ordinals = new ConcurrentHashMap<>();
+
+    private final List<String> items = new ArrayList<>();
+
+    /**
+     * Returns the ordinal for the given dimension item identifier, assigning
+     * a new ordinal if the item has not been seen before. Null items are
+     * interned as the string "null" to match the string key representation.
+     *
+     * @param item the dimension item identifier.
+     * @return the ordinal of the item.
+     */
+    public int getOrdinal( String item )
+    {
+        String key = String.valueOf( item );
+
+        Integer ordinal = ordinals.get( key );
+
+        if ( ordinal != null )
+        {
+            return ordinal;
+        }
+
+        synchronized ( items )
+        {
+            ordinal = ordinals.get( key );
+
+            if ( ordinal == null )
+            {
+                ordinal = items.size();
+                items.add( key );
+                ordinals.put( key, ordinal );
+            }
+
+            return ordinal;
+        }
+    }
+
+    /**
+     * Returns the dimension item identifier for the given ordinal.
+     *
+     * @param ordinal the ordinal.
+     * @return the dimension item identifier.
+     */
+    public String getItem( int ordinal )
+    {
+        synchronized ( items )
+        {
+            return items.get( ordinal );
+        }
+    }
+
+    /**
+     * Returns the number of interned dimension items.
+     */
+    public int size()
+    {
+        synchronized ( items )
+        {
+            return items.size();
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Rendering
+    // -------------------------------------------------------------------------
+
+    /**
+     * Renders the given key into an array of dimension item identifiers.
+     *
+     * @param key the {@link DimensionKey}.
+     * @return an array of dimension item identifiers in dimension order.
+     */
+    public String[] getItems( DimensionKey key )
+    {
+        String[] values = new String[key.size()];
+
+        synchronized ( items )
+        {
+            for ( int i = 0; i < values.length; i++ )
+            {
+                values[i] = items.get( key.getOrdinal( i ) );
+            }
+        }
+
+        return values;
+    }
+
+    /**
+     * Renders the given key into the dimension item identifiers joined by
+     * {@link org.hisp.dhis.common.DimensionalObject#DIMENSION_SEP}.
+     *
+     * @param key the {@link DimensionKey}.
+     * @return a string key.
+     */
+    public String getKey( DimensionKey key )
+    {
+        return String.join( DIMENSION_SEP, getItems( key ) );
+    }
+
+    /**
+     * Interns the given string key, where dimension item identifiers are
+     * joined by {@link org.hisp.dhis.common.DimensionalObject#DIMENSION_SEP}.
+     *
+     * @param key the string key.
+     * @return a {@link DimensionKey}.
+     */
+    public DimensionKey getDimensionKey( String key )
+    {
+        String[] values = key.split( DIMENSION_SEP );
+
+        int[] keyOrdinals = new int[values.length];
+
+        for ( int i = 0; i < values.length; i++ )
+        {
+            keyOrdinals[i] = getOrdinal( values[i] );
+        }
+
+        return DimensionKey.of( keyOrdinals );
+    }
+
+    /**
+     * Renders the given map into a map keyed on string keys, where dimension
+     * item identifiers are joined by
+     * {@link org.hisp.dhis.common.DimensionalObject#DIMENSION_SEP}.
+     *
+     * @param map the map keyed on {@link DimensionKey}.
+     * @return a map keyed on string keys.
+     */
+    public <T> Map<String, T> getStringKeyMap( Map<DimensionKey, T> map )
+    {
+        Map<String, T> stringKeyMap = new HashMap<>();
+
+        for ( Map.Entry<DimensionKey, T> entry : map.entrySet() )
+        {
+            stringKeyMap.put( getKey( entry.getKey() ), entry.getValue() );
+        }
+
+        return stringKeyMap;
+    }
+}
@@ -0,0 +1,152 @@
+package org.hisp.dhis.analytics;
+
+/*
+ * Copyright (c) 2004-2018, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import java.util.Arrays;
+
+/**
+ * Compact, immutable key for an aggregated value which holds the ordinals of
+ * the dimension items of the value in dimension order. Ordinals are assigned by
+ * a {@link DimensionItemDictionary}, which is also used to render the key into
+ * dimension item identifiers.
+ */
+public final class DimensionKey
+{
+    private final int[] ordinals;
+
+    private final int hash;
+
+    private DimensionKey( int[] ordinals )
+    {
+        this.ordinals = ordinals;
+        this.hash = Arrays.hashCode( ordinals );
+    }
+
+    /**
+     * Creates a key for the given dimension item ordinals. The key takes
+     * ownership of the given array, which must not be modified afterwards.
+     *
+     * @param ordinals the dimension item ordinals.
+     * @return a {@link DimensionKey}.
+     */
+    public static DimensionKey of( int... ordinals )
+    {
+        return new DimensionKey( ordinals );
+    }
+
+    // -------------------------------------------------------------------------
+    // Logic
+    // -------------------------------------------------------------------------
+
+    /**
+     * Returns the number of dimensions of this key.
+     */
+    public int size()
+    {
+        return ordinals.length;
+    }
+
+    /**
+     * Returns the dimension item ordinal at the given dimension index.
+     *
+     * @param index the dimension index.
+     * @return the dimension item ordinal.
+     */
+    public int getOrdinal( int index )
+    {
+        return ordinals[index];
+    }
+
+    /**
+     * Returns a copy of this key where the ordinal at the given dimension index
+     * is replaced with the given ordinal.
+     *
+     * @param index the dimension index.
+     * @param ordinal the replacement dimension item ordinal.
+     * @return a {@link DimensionKey}.
+     */
+    public DimensionKey withOrdinal( int index, int ordinal )
+    {
+        int[] copy = ordinals.clone();
+        copy[index] = ordinal;
+        return new DimensionKey( copy );
+    }
+
+    /**
+     * Returns a key where the ordinals from the given start index up to and
+     * excluding the given end index are replaced by the given single ordinal.
+     *
+     * @param start the start dimension index, inclusive.
+     * @param end the end dimension index, exclusive.
+     * @param ordinal the replacement dimension item ordinal.
+     * @return a {@link DimensionKey}.
+     */
+    public DimensionKey withOrdinalRange( int start, int end, int ordinal )
+    {
+        int[] copy = new int[ordinals.length - ( end - start ) + 1];
+        System.arraycopy( ordinals, 0, copy, 0, start );
+        copy[start] = ordinal;
+        System.arraycopy( ordinals, end, copy, start + 1, ordinals.length - end );
+        return new DimensionKey( copy );
+    }
+
+    // -------------------------------------------------------------------------
+    // hashCode, equals and toString
+    // -------------------------------------------------------------------------
+
+    @Override
+    public int hashCode()
+    {
+        return hash;
+    }
+
+    @Override
+    public boolean equals( Object object )
+    {
+        if ( this == object )
+        {
+            return true;
+        }
+
+        if ( object == null || getClass() != object.getClass() )
+        {
+            return false;
+        }
+
+        DimensionKey other = (DimensionKey) object;
+
+        return hash == other.hash && Arrays.equals( ordinals, other.ordinals );
+    }
+
+    @Override
+    public String toString()
+    {
+        return Arrays.toString( ordinals );
+    }
+}
@@ -0,0 +1,106 @@
+package org.hisp.dhis.analytics;
+
+/*
+ * Copyright (c) 2004-2018, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import org.hisp.dhis.common.IllegalQueryException;
+import org.hisp.dhis.common.QueryRejectedException;
+import org.hisp.dhis.common.QueryTimeoutException;
+
+/**
+ * Controls admission of analytics queries to the database. Each analytics
+ * request is admitted once, before its planned sub-queries are executed.
+ * Queries wait in a bounded, fair queue until they are within the global and
+ * per-user concurrency limits, for up to the max wait.
+ */
+public interface QueryAdmissionController
+{
+    /**
+     * Returns the estimated cost of the given query, as the product of the
+     * number of partitions, organisation units, periods and data items.
+     *
+     * @param params the {@link DataQueryParams}.
+     * @return the estimated cost.
+     */
+    long estimateCost( DataQueryParams params );
+
+    /**
+     * Requests admission of the given query. The returned future completes
+     * with a permit when the query can be executed. The permit must be
+     * released when the query has completed. The future can be cancelled
+     * while waiting, which removes the query from the queue.
+     *
+     * @param params the {@link DataQueryParams}.
+     * @param user the name of the user executing the query.
+     * @return a future for the permit.
+     * @throws IllegalQueryException if the estimated cost of the query exceeds
+     *         the max query cost.
+     * @throws QueryRejectedException if the max number of queued queries is
+     *         reached.
+     */
+    CompletableFuture<QueryPermit> admit( DataQueryParams params, String user )
+        throws IllegalQueryException, QueryRejectedException;
+
+    /**
+     * Requests admission of the given query and waits for the permit for up
+     * to the max query wait. The permit must be released when the query has
+     * completed.
+     *
+     * @param params the {@link DataQueryParams}.
+     * @param user the name of the user executing the query.
+     * @return the permit.
+     * @throws IllegalQueryException if the estimated cost of the query exceeds
+     *         the max query cost.
+     * @throws QueryRejectedException if the max number of queued queries is
+     *         reached.
+     * @throws QueryTimeoutException if the query is not admitted within the
+     *         max query wait.
+     */
+    QueryPermit acquire( DataQueryParams params, String user )
+        throws IllegalQueryException, QueryRejectedException, QueryTimeoutException;
+
+    /**
+     * Returns statistics on admitted and rejected queries, queue wait and
+     * query latency.
+     */
+    Map<String, Object> getStatistics();
+
+    /**
+     * Permit to execute an admitted query.
+     */
+    interface QueryPermit
+    {
+        /**
+         * Releases this permit. Subsequent invocations have no effect.
+         */
+        void release();
+    }
+}
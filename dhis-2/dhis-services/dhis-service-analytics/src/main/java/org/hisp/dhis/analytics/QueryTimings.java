@@ -0,0 +1,76 @@
+package org.hisp.dhis.analytics;
+
+/*
+ * Copyright (c) 2004-2018, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Collects the execution time of each sub-query of an analytics request. An
+ * instance is shared between all copies of the {@link DataQueryParams} of a
+ * request, and sub-queries are recorded concurrently as they complete.
+ */
+public class QueryTimings
+{
+    private final List<Map<String, Object>> timings = Collections.synchronizedList( new ArrayList<>() );
+
+    /**
+     * Records the execution of the given sub-query.
+     *
+     * @param query the sub-query.
+     * @param rows the number of rows retrieved.
+     * @param millis the execution time in milliseconds.
+     */
+    public void add( DataQueryParams query, int rows, long millis )
+    {
+        Map<String, Object> timing = new LinkedHashMap<>();
+        timing.put( "table", query.getTableName() );
+        timing.put( "partitions", query.hasPartitions() ? query.getPartitions().toString() : null );
+        timing.put( "periodType", query.getPeriodType() );
+        timing.put( "aggregationType", query.getAggregationType() != null ? query.getAggregationType().getAggregationType() : null );
+        timing.put( "rows", rows );
+        timing.put( "millis", millis );
+
+        timings.add( timing );
+    }
+
+    /**
+     * Returns the recorded timings, ordered by completion.
+     */
+    public List<Map<String, Object>> getTimings()
+    {
+        synchronized ( timings )
+        {
+            return new ArrayList<>( timings );
+        }
+    }
+}
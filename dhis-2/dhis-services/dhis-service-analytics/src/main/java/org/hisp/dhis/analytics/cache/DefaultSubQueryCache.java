@@ -0,0 +1,321 @@
+package org.hisp.dhis.analytics.cache;
+
+/*
+ * Copyright (c) 2004-2018, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import javax.annotation.PostConstruct;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.hisp.dhis.analytics.AnalyticsTable;
+import org.hisp.dhis.analytics.AnalyticsTablePartition;
+import org.hisp.dhis.analytics.DimensionItemDictionary;
+import org.hisp.dhis.analytics.DimensionKey;
+import org.hisp.dhis.analytics.QueryKey;
+import org.hisp.dhis.cache.Cache;
+import org.hisp.dhis.cache.CacheBuilder;
+import org.hisp.dhis.cache.CacheProvider;
+import org.hisp.dhis.commons.util.SystemUtils;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+
+/**
+ * Sub-query cache backed by a {@link Cache} region. Entries are stored with
+ * dimension item strings rather than dictionary ordinals, as dictionaries are
+ * local to an analytics request.
+ * <p>
+ * Invalidation is done by versioning the analytics table names. The key of a
+ * cached sub-query includes the current version of each table it reads, so a
+ * table swap makes entries for that table unreachable while entries for other
+ * partitions remain valid. Unreachable entries are evicted by weight or expiry.
+ * <p>
+ * Table versions are the time of the last invalidation of the table and are
+ * kept in a separate cache region next to the results, so they are shared by
+ * all nodes and outlive a restart whenever the results do. A missing version
+ * is initialized to the current time, which makes any entries written under
+ * an earlier version unreachable. A version which applies to all tables is
+ * incremented to invalidate all entries.
+ */
+public class DefaultSubQueryCache
+    implements SubQueryCache
+{
+    private static final Log log = LogFactory.getLog( DefaultSubQueryCache.class );
+
+    private static final long MAX_CACHE_WEIGHT = 256L * 1024 * 1024;
+    private static final String CACHE_REGION = "analyticsSubQueryResult";
+    private static final String VERSION_CACHE_REGION = "analyticsTableVersion";
+    private static final int MAX_TABLE_VERSIONS = 10000;
+
+    /**
+     * Version key which applies to all tables, used to invalidate all entries
+     * also in stores which cannot be cleared, such as redis.
+     */
+    private static final String ALL_TABLES = "*";
+
+    private final AtomicLong hitCount = new AtomicLong();
+
+    private final AtomicLong missCount = new AtomicLong();
+
+    private final DhisConfigurationProvider dhisConfig;
+
+    private final CacheProvider cacheProvider;
+
+    private final Environment environment;
+
+    private Cache<SubQueryResult> cache;
+
+    private Cache<Long> tableVersions;
+
+    private boolean enabled;
+
+    @Autowired
+    public DefaultSubQueryCache( DhisConfigurationProvider dhisConfig, CacheProvider cacheProvider, Environment environment )
+    {
+        checkNotNull( dhisConfig );
+        checkNotNull( cacheProvider );
+        checkNotNull( environment );
+
+        this.dhisConfig = dhisConfig;
+        this.cacheProvider = cacheProvider;
+        this.environment = environment;
+    }
+
+    @PostConstruct
+    public void init()
+    {
+        long expiration = dhisConfig.getAnalyticsCacheExpiration();
+        enabled = expiration > 0 && !SystemUtils.isTestRun( environment.getActiveProfiles() );
+
+        CacheBuilder<SubQueryResult> builder = cacheProvider.newCacheBuilder( SubQueryResult.class ).forRegion( CACHE_REGION )
+            .expireAfterWrite( expiration, TimeUnit.SECONDS );
+
+        cache = enabled ? builder.withMaximumWeight( MAX_CACHE_WEIGHT, SubQueryResult::getWeight ).build() : builder.withMaximumSize( 0 ).build();
+
+        tableVersions = cacheProvider.newCacheBuilder( Long.class ).forRegion( VERSION_CACHE_REGION )
+            .withMaximumSize( enabled ? MAX_TABLE_VERSIONS : 0 ).build();
+
+        log.info( String.format( "Analytics sub-query cache is enabled: %b with expiration: %d s", enabled, expiration ) );
+    }
+
+    // -------------------------------------------------------------------------
+    // SubQueryCache implementation
+    // -------------------------------------------------------------------------
+
+    @Override
+    public Map<DimensionKey, Object> get( String key, Collection<String> tables, DimensionItemDictionary dictionary,
+        Supplier<Map<DimensionKey, Object>> supplier )
+    {
+        if ( !enabled )
+        {
+            return supplier.get();
+        }
+
+        String versionedKey = getVersionedKey( key, tables );
+
+        Optional<SubQueryResult> result = cache.getIfPresent( versionedKey );
+
+        if ( result.isPresent() )
+        {
+            hitCount.incrementAndGet();
+
+            log.debug( String.format( "Sub-query cache hit for tables: %s", tables ) );
+
+            return result.get().toMap( dictionary );
+        }
+
+        missCount.incrementAndGet();
+
+        Map<DimensionKey, Object> map = supplier.get();
+
+        cache.put( versionedKey, SubQueryResult.of( map, dictionary ) );
+
+        return map;
+    }
+
+    @Override
+    public void invalidate( AnalyticsTable table )
+    {
+        incrementVersion( table.getTableName() );
+
+        for ( AnalyticsTablePartition partition : table.getPartitionTables() )
+        {
+            incrementVersion( partition.getTableName() );
+        }
+
+        log.info( String.format( "Sub-query cache invalidated for table: %s, hit ratio: %.3f, hits: %d, misses: %d",
+            table.getTableName(), getHitRatio(), getHitCount(), getMissCount() ) );
+    }
+
+    @Override
+    public void invalidateAll()
+    {
+        cache.invalidateAll();
+        incrementVersion( ALL_TABLES );
+
+        log.info( "Sub-query cache invalidated" );
+    }
+
+    @Override
+    public long getHitCount()
+    {
+        return hitCount.get();
+    }
+
+    @Override
+    public long getMissCount()
+    {
+        return missCount.get();
+    }
+
+    @Override
+    public double getHitRatio()
+    {
+        long hits = hitCount.get();
+        long lookups = hits + missCount.get();
+
+        return lookups > 0 ? (double) hits / lookups : 0d;
+    }
+
+    // -------------------------------------------------------------------------
+    // Supportive methods
+    // -------------------------------------------------------------------------
+
+    private String getVersionedKey( String key, Collection<String> tables )
+    {
+        QueryKey versionedKey = new QueryKey().add( key ).add( getVersion( ALL_TABLES ) );
+
+        tables.forEach( table -> versionedKey.add( table ).add( getVersion( table ) ) );
+
+        return versionedKey.build();
+    }
+
+    private long getVersion( String table )
+    {
+        return tableVersions.get( table, t -> System.currentTimeMillis() ).orElse( 0L );
+    }
+
+    /**
+     * Sets the version of the given table to the current time, or to the
+     * next version if the clock has not moved since the last invalidation.
+     */
+    private void incrementVersion( String table )
+    {
+        tableVersions.put( table, Math.max( System.currentTimeMillis(), getVersion( table ) + 1 ) );
+    }
+
+    /**
+     * Value map of a sub-query with dimension keys held as item strings.
+     */
+    private static class SubQueryResult
+        implements Serializable
+    {
+        /**
+         * Approximate size in bytes of an object header with a reference or
+         * array length.
+         */
+        private static final int OBJECT_OVERHEAD = 16;
+
+        private final String[][] keys;
+
+        private final Object[] values;
+
+        private SubQueryResult( String[][] keys, Object[] values )
+        {
+            this.keys = keys;
+            this.values = values;
+        }
+
+        static SubQueryResult of( Map<DimensionKey, Object> map, DimensionItemDictionary dictionary )
+        {
+            String[][] keys = new String[map.size()][];
+            Object[] values = new Object[map.size()];
+
+            int i = 0;
+
+            for ( Map.Entry<DimensionKey, Object> entry : map.entrySet() )
+            {
+                keys[i] = dictionary.getItems( entry.getKey() );
+                values[i++] = entry.getValue();
+            }
+
+            return new SubQueryResult( keys, values );
+        }
+
+        /**
+         * Returns the approximate size of this result in bytes, counting each
+         * item string separately although strings may be shared between keys.
+         */
+        int getWeight()
+        {
+            long weight = OBJECT_OVERHEAD * 2 + (long) OBJECT_OVERHEAD * values.length;
+
+            for ( String[] key : keys )
+            {
+                weight += OBJECT_OVERHEAD;
+
+                for ( String item : key )
+                {
+                    weight += OBJECT_OVERHEAD * 2 + item.length() * 2;
+                }
+            }
+
+            return (int) Math.min( weight, Integer.MAX_VALUE );
+        }
+
+        Map<DimensionKey, Object> toMap( DimensionItemDictionary dictionary )
+        {
+            Map<DimensionKey, Object> map = new HashMap<>( (int) ( keys.length / 0.75f ) + 1 );
+
+            for ( int i = 0; i < keys.length; i++ )
+            {
+                int[] ordinals = new int[keys[i].length];
+
+                for ( int j = 0; j < ordinals.length; j++ )
+                {
+                    ordinals[j] = dictionary.getOrdinal( keys[i][j] );
+                }
+
+                map.put( DimensionKey.of( ordinals ), values[i] );
+            }
+
+            return map;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package org.hisp.dhis.analytics.cache;
+
+/*
+ * Copyright (c) 2004-2018, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import org.hisp.dhis.analytics.AnalyticsTable;
+import org.hisp.dhis.analytics.DimensionItemDictionary;
+import org.hisp.dhis.analytics.DimensionKey;
+
+/**
+ * Cache for the aggregated value maps of planned analytics sub-queries. The
+ * same sub-query is frequently part of otherwise different analytics requests,
+ * e.g. dashboard items which overlap in data and organisation units.
+ */
+public interface SubQueryCache
+{
+    /**
+     * Returns the value map for the given sub-query key, loading and caching
+     * it using the given supplier if not present. The returned map is owned by
+     * the caller and can be modified.
+     *
+     * @param key the sub-query key.
+     * @param tables the names of the analytics tables read by the sub-query.
+     * @param dictionary the dictionary of the dimension keys of the map.
+     * @param supplier the supplier of the value map for a cache miss.
+     * @return a value map.
+     */
+    Map<DimensionKey, Object> get( String key, Collection<String> tables, DimensionItemDictionary dictionary,
+        Supplier<Map<DimensionKey, Object>> supplier );
+
+    /**
+     * Invalidates cached sub-queries reading the given analytics table, either
+     * through the master table or through any of its partition tables.
+     *
+     * @param table the {@link AnalyticsTable}.
+     */
+    void invalidate( AnalyticsTable table );
+
+    /**
+     * Invalidates all cached sub-queries.
+     */
+    void invalidateAll();
+
+    /**
+     * Returns the number of cache hits since startup.
+     */
+    long getHitCount();
+
+    /**
+     * Returns the number of cache misses since startup.
+     */
+    long getMissCount();
+
+    /**
+     * Returns the ratio of cache hits to lookups since startup, between 0 and 1.
+     */
+    double getHitRatio();
+}
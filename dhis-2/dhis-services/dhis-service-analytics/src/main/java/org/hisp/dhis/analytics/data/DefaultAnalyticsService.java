@@ -36,7 +36,6 @@ import static org.hisp.dhis.common.DataDimensionItemType.PROGRAM_INDICATOR;
 import static org.hisp.dhis.common.DimensionalObject.ATTRIBUTEOPTIONCOMBO_DIM_ID;
 import static org.hisp.dhis.common.DimensionalObject.CATEGORYOPTIONCOMBO_DIM_ID;
 import static org.hisp.dhis.common.DimensionalObject.DATA_X_DIM_ID;
-import static org.hisp.dhis.common.DimensionalObject.DIMENSION_SEP;
 import static org.hisp.dhis.common.DimensionalObject.ORGUNIT_DIM_ID;
 import static org.hisp.dhis.common.DimensionalObject.PERIOD_DIM_ID;
 import static org.hisp.dhis.common.DimensionalObjectUtils.asTypedList;
@@ -54,12 +53,16 @@ import static org.hisp.dhis.reporttable.ReportTable.addListIfEmpty;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
-import java.util.concurrent.Future;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -78,10 +81,15 @@ import org.hisp.dhis.analytics.DataQueryGroups;
 import org.hisp.dhis.analytics.DataQueryParams;
 import org.hisp.dhis.analytics.DataQueryService;
 import org.hisp.dhis.analytics.DimensionItem;
+import org.hisp.dhis.analytics.DimensionItemDictionary;
+import org.hisp.dhis.analytics.DimensionKey;
 import org.hisp.dhis.analytics.OutputFormat;
 import org.hisp.dhis.analytics.ProcessingHint;
+import org.hisp.dhis.analytics.QueryAdmissionController;
+import org.hisp.dhis.analytics.QueryAdmissionController.QueryPermit;
 import org.hisp.dhis.analytics.QueryPlanner;
 import org.hisp.dhis.analytics.QueryPlannerParams;
+import org.hisp.dhis.analytics.QueryTimings;
 import org.hisp.dhis.analytics.QueryValidator;
 import org.hisp.dhis.analytics.RawAnalyticsManager;
 import org.hisp.dhis.analytics.SortOrder;
@@ -122,6 +130,7 @@ import org.hisp.dhis.period.PeriodType;
 import org.hisp.dhis.reporttable.ReportTable;
 import org.hisp.dhis.setting.SettingKey;
 import org.hisp.dhis.setting.SystemSettingManager;
+import org.hisp.dhis.system.grid.ColumnarGrid;
 import org.hisp.dhis.system.grid.ListGrid;
 import org.hisp.dhis.system.util.MathUtils;
 import org.hisp.dhis.user.User;
@@ -156,6 +165,8 @@ public class DefaultAnalyticsService
 
     private QueryValidator queryValidator;
 
+    private QueryAdmissionController admissionController;
+
     private ExpressionService expressionService;
 
     private ConstantService constantService;
@@ -195,7 +206,7 @@ public class DefaultAnalyticsService
     @Autowired
     public DefaultAnalyticsService( AnalyticsManager analyticsManager, RawAnalyticsManager rawAnalyticsManager,
         AnalyticsSecurityManager securityManager, QueryPlanner queryPlanner, QueryValidator queryValidator,
-        ConstantService constantService, ExpressionService expressionService,
+        QueryAdmissionController admissionController, ConstantService constantService, ExpressionService expressionService,
         OrganisationUnitService organisationUnitService, SystemSettingManager systemSettingManager,
         EventAnalyticsService eventAnalyticsService, DataQueryService dataQueryService,
         DhisConfigurationProvider dhisConfig, CacheProvider cacheProvider, Environment environment)
@@ -205,6 +216,7 @@ public class DefaultAnalyticsService
         checkNotNull( securityManager );
         checkNotNull( queryPlanner );
         checkNotNull( queryValidator );
+        checkNotNull( admissionController );
         checkNotNull( constantService );
         checkNotNull( expressionService );
         checkNotNull( organisationUnitService );
@@ -220,6 +232,7 @@ public class DefaultAnalyticsService
         this.securityManager = securityManager;
         this.queryPlanner = queryPlanner;
         this.queryValidator = queryValidator;
+        this.admissionController = admissionController;
         this.constantService = constantService;
         this.expressionService = expressionService;
         this.organisationUnitService = organisationUnitService;
@@ -245,7 +258,7 @@ public class DefaultAnalyticsService
 
         queryValidator.validate( params );
 
-        if ( dhisConfig.isAnalyticsCacheEnabled() )
+        if ( dhisConfig.isAnalyticsCacheEnabled() && !params.isIncludeQueryTimings() )
         {
             final DataQueryParams query = DataQueryParams.newBuilder( params ).build();
             return queryCache.get( params.getKey(), key -> getAggregatedDataValueGridInternal( query ) ).orElseGet( () -> new ListGrid() );
@@ -489,6 +502,11 @@ public class DefaultAnalyticsService
 
             Map<String, Map<DimensionalItemObject, Double>> permutationDimensionItemValueMap = getPermutationDimensionItemValueMap( dataSourceParams );
 
+            Map<String, Map<String, Double>> permutationItemValueMap = new HashMap<>();
+
+            permutationDimensionItemValueMap.forEach( ( permKey, valueMap ) ->
+                permutationItemValueMap.put( permKey, expressionService.getItemValueMap( valueMap ) ) );
+
             handleEmptyDimensionItemPermutations( dimensionItemPermutations );
 
             for ( Indicator indicator : indicators )
@@ -512,7 +530,8 @@ public class DefaultAnalyticsService
 
                     Map<String, Integer> orgUnitCountMap = permutationOrgUnitTargetMap != null ? permutationOrgUnitTargetMap.get( ou ) : null;
 
-                    IndicatorValue value = expressionService.getIndicatorValueObject( indicator, period, valueMap, constantMap, orgUnitCountMap );
+                    IndicatorValue value = expressionService.getIndicatorValueObject( indicator, period, valueMap,
+                        permutationItemValueMap.get( permKey ), constantMap, orgUnitCountMap );
 
                     if ( value != null && satisfiesMeasureCriteria( params, value, indicator ) )
                     {
@@ -575,14 +594,16 @@ public class DefaultAnalyticsService
                 .retainDataDimension( DataDimensionItemType.DATA_ELEMENT )
                 .withIncludeNumDen( false ).build();
 
-            Map<String, Object> aggregatedDataMap = getAggregatedDataValueMapObjectTyped( dataSourceParams );
+            DimensionItemDictionary dictionary = new DimensionItemDictionary();
 
-            for ( Map.Entry<String, Object> entry : aggregatedDataMap.entrySet() )
+            Map<DimensionKey, Object> aggregatedDataMap = getAggregatedDataValueMapObjectTyped( dataSourceParams, dictionary );
+
+            for ( Map.Entry<DimensionKey, Object> entry : aggregatedDataMap.entrySet() )
             {
                 Object value = AnalyticsUtils.getRoundedValueObject( params, entry.getValue() );
 
                 grid.addRow()
-                    .addValues( entry.getKey().split( DIMENSION_SEP ) )
+                    .addValues( dictionary.getItems( entry.getKey() ) )
                     .addValue( value );
 
                 if ( params.isIncludeNumDen() )
@@ -653,16 +674,18 @@ public class DefaultAnalyticsService
 
         DataQueryParams operandParams = builder.build();
 
-        Map<String, Object> aggregatedDataMap = getAggregatedDataValueMapObjectTyped( operandParams );
+        DimensionItemDictionary dictionary = new DimensionItemDictionary();
+
+        Map<DimensionKey, Object> aggregatedDataMap = getAggregatedDataValueMapObjectTyped( operandParams, dictionary );
 
-        aggregatedDataMap = AnalyticsUtils.convertDxToOperand( aggregatedDataMap, totalType );
+        aggregatedDataMap = AnalyticsUtils.convertDxToOperand( aggregatedDataMap, totalType, dictionary );
 
-        for ( Map.Entry<String, Object> entry : aggregatedDataMap.entrySet() )
+        for ( Map.Entry<DimensionKey, Object> entry : aggregatedDataMap.entrySet() )
         {
             Object value = AnalyticsUtils.getRoundedValueObject( operandParams, entry.getValue() );
 
             grid.addRow()
-                .addValues( entry.getKey().split( DIMENSION_SEP ) )
+                .addValues( dictionary.getItems( entry.getKey() ) )
                 .addValue( value );
 
             if ( params.isIncludeNumDen() )
@@ -720,9 +743,13 @@ public class DefaultAnalyticsService
                 .withRestrictByCategoryOptionStartEndDate( true )
                 .withAggregationType( AnalyticsAggregationType.SUM ).build();
 
-            Map<String, Double> targetMap = getAggregatedCompletenessTargetMap( targetParams );
+            // Target and data keys are interned in the same dictionary so they can be matched
 
-            Map<String, Double> dataMap = metric != EXPECTED_REPORTS ? getAggregatedCompletenessValueMap( params ) : new HashMap<>();
+            DimensionItemDictionary dictionary = new DimensionItemDictionary();
+
+            Map<DimensionKey, Double> targetMap = getAggregatedCompletenessTargetMap( targetParams, dictionary );
+
+            Map<DimensionKey, Double> dataMap = metric != EXPECTED_REPORTS ? getAggregatedCompletenessValueMap( params, dictionary ) : new HashMap<>();
 
             Integer periodIndex = params.getPeriodDimensionIndex();
             Integer dataSetIndex = DataQueryParams.DX_INDEX;
@@ -731,9 +758,9 @@ public class DefaultAnalyticsService
 
             int timeUnits = params.hasFilter( DimensionalObject.PERIOD_DIM_ID ) ? params.getFilterPeriods().size() : 1;
 
-            for ( Map.Entry<String, Double> entry : targetMap.entrySet() )
+            for ( Map.Entry<DimensionKey, Double> entry : targetMap.entrySet() )
             {
-                List<String> dataRow = Lists.newArrayList( entry.getKey().split( DIMENSION_SEP ) );
+                List<String> dataRow = Lists.newArrayList( dictionary.getItems( entry.getKey() ) );
 
                 Double target = entry.getValue();
                 Double actual = dataMap.get( entry.getKey() );
@@ -821,10 +848,12 @@ public class DefaultAnalyticsService
     {
         if ( params.getDataDimensionAndFilterOptions().isEmpty() && !params.isSkipData() )
         {
-            Map<String, Double> aggregatedDataMap = getAggregatedDataValueMap( DataQueryParams.newBuilder( params )
-                .withIncludeNumDen( false ).build() );
+            DimensionItemDictionary dictionary = new DimensionItemDictionary();
 
-            fillGridWithAggregatedDataMap(params, grid, aggregatedDataMap);
+            Map<DimensionKey, Double> aggregatedDataMap = getAggregatedDataValueMap( DataQueryParams.newBuilder( params )
+                .withIncludeNumDen( false ).build(), dictionary );
+
+            fillGridWithAggregatedDataMap( params, grid, aggregatedDataMap, dictionary );
         }
     }
 
@@ -844,9 +873,11 @@ public class DefaultAnalyticsService
                 .withAggregationType( AnalyticsAggregationType.COUNT )
                 .withIncludeNumDen( false ).build();
 
-            Map<String, Double> aggregatedDataMap = getAggregatedValidationResultMapObjectTyped( dataSourceParams );
+            DimensionItemDictionary dictionary = new DimensionItemDictionary();
+
+            Map<DimensionKey, Double> aggregatedDataMap = getAggregatedValidationResultMapObjectTyped( dataSourceParams, dictionary );
 
-            fillGridWithAggregatedDataMap(params, grid, aggregatedDataMap);
+            fillGridWithAggregatedDataMap( params, grid, aggregatedDataMap, dictionary );
         }
     }
 
@@ -920,6 +951,15 @@ public class DefaultAnalyticsService
                 metaData.put( AnalyticsMetaDataKey.ORG_UNIT_NAME_HIERARCHY.getKey(), getParentNameGraphMap( organisationUnits, roots, true ) );
             }
 
+            // -----------------------------------------------------------------
+            // Sub-query execution times
+            // -----------------------------------------------------------------
+
+            if ( params.isIncludeQueryTimings() && params.getQueryTimings() != null )
+            {
+                metaData.put( AnalyticsMetaDataKey.QUERY_TIMINGS.getKey(), params.getQueryTimings().getTimings() );
+            }
+
             grid.setMetaData( ImmutableMap.copyOf( metaData ) );
             grid.setInternalMetaData( ImmutableMap.copyOf( internalMetaData ) );
         }
@@ -1031,15 +1071,16 @@ public class DefaultAnalyticsService
      * @param params the {@link DataQueryParams}.
      * @param grid the grid
      * @param aggregatedDataMap the aggregated data map
+     * @param dictionary the {@link DimensionItemDictionary} of the map keys.
      */
-    private void fillGridWithAggregatedDataMap( DataQueryParams params, Grid grid, Map<String, Double> aggregatedDataMap)
+    private void fillGridWithAggregatedDataMap( DataQueryParams params, Grid grid, Map<DimensionKey, Double> aggregatedDataMap, DimensionItemDictionary dictionary )
     {
-        for ( Map.Entry<String, Double> entry : aggregatedDataMap.entrySet() )
+        for ( Map.Entry<DimensionKey, Double> entry : aggregatedDataMap.entrySet() )
         {
             Double value = params.isSkipRounding() ? entry.getValue() : MathUtils.getRounded( entry.getValue() );
 
             grid.addRow()
-                .addValues( entry.getKey().split( DIMENSION_SEP ) )
+                .addValues( dictionary.getItems( entry.getKey() ) )
                 .addValue( value );
 
             if ( params.isIncludeNumDen() )
@@ -1072,48 +1113,53 @@ public class DefaultAnalyticsService
             .addDimension( new BaseDimensionalObject( DimensionalObject.ORGUNIT_GROUP_DIM_ID, DimensionType.ORGANISATION_UNIT_GROUP, new ArrayList<DimensionalItemObject>( orgUnitGroups ) ) )
             .withSkipPartitioning( true ).build();
 
-        Map<String, Double> orgUnitCountMap = getAggregatedOrganisationUnitTargetMap( orgUnitTargetParams );
+        DimensionItemDictionary dictionary = new DimensionItemDictionary();
+
+        Map<String, Double> orgUnitCountMap = dictionary.getStringKeyMap( getAggregatedOrganisationUnitTargetMap( orgUnitTargetParams, dictionary ) );
 
         return DataQueryParams.getPermutationOrgUnitGroupCountMap( orgUnitCountMap );
     }
 
     /**
      * Generates aggregated values for the given query. Creates a mapping between
-     * a dimension key and the aggregated value. The dimension key is a
-     * concatenation of the identifiers of the dimension items separated by "-".
+     * a dimension key and the aggregated value. The dimension key holds the
+     * ordinals of the dimension items interned in the given dictionary.
      *
      * @param params the {@link DataQueryParams}.
+     * @param dictionary the {@link DimensionItemDictionary}.
      * @return a mapping between a dimension key and the aggregated value.
      */
-    private Map<String, Double> getAggregatedDataValueMap( DataQueryParams params )
+    private Map<DimensionKey, Double> getAggregatedDataValueMap( DataQueryParams params, DimensionItemDictionary dictionary )
     {
-        return AnalyticsUtils.getDoubleMap( getAggregatedValueMap( params, AnalyticsTableType.DATA_VALUE, Lists.newArrayList() ) );
+        return AnalyticsUtils.getDoubleMap( getAggregatedValueMap( params, AnalyticsTableType.DATA_VALUE, Lists.newArrayList(), dictionary ) );
     }
 
     /**
      * Generates aggregated values for the given query. Creates a mapping between
-     * a dimension key and the aggregated value. The dimension key is a
-     * concatenation of the identifiers of the dimension items separated by "-".
+     * a dimension key and the aggregated value. The dimension key holds the
+     * ordinals of the dimension items interned in the given dictionary.
      *
      * @param params the {@link DataQueryParams}.
+     * @param dictionary the {@link DimensionItemDictionary}.
      * @return a mapping between a dimension key and the aggregated value.
      */
-    private Map<String, Object> getAggregatedDataValueMapObjectTyped( DataQueryParams params )
+    private Map<DimensionKey, Object> getAggregatedDataValueMapObjectTyped( DataQueryParams params, DimensionItemDictionary dictionary )
     {
-        return getAggregatedValueMap( params, AnalyticsTableType.DATA_VALUE, Lists.newArrayList() );
+        return getAggregatedValueMap( params, AnalyticsTableType.DATA_VALUE, Lists.newArrayList(), dictionary );
     }
 
     /**
      * Generates aggregated values for the given query. Creates a mapping between
-     * a dimension key and the aggregated value. The dimension key is a
-     * concatenation of the identifiers of the dimension items separated by "-".
+     * a dimension key and the aggregated value. The dimension key holds the
+     * ordinals of the dimension items interned in the given dictionary.
      *
      * @param params the {@link DataQueryParams}.
+     * @param dictionary the {@link DimensionItemDictionary}.
      * @return a mapping between a dimension key and the aggregated value.
      */
-    private Map<String, Double> getAggregatedCompletenessValueMap( DataQueryParams params )
+    private Map<DimensionKey, Double> getAggregatedCompletenessValueMap( DataQueryParams params, DimensionItemDictionary dictionary )
     {
-        return AnalyticsUtils.getDoubleMap( getAggregatedValueMap( params, AnalyticsTableType.COMPLETENESS, Lists.newArrayList() ) );
+        return AnalyticsUtils.getDoubleMap( getAggregatedValueMap( params, AnalyticsTableType.COMPLETENESS, Lists.newArrayList(), dictionary ) );
     }
 
     /**
@@ -1121,15 +1167,16 @@ public class DefaultAnalyticsService
      * of expected data sets to report.
      *
      * @param params the {@link DataQueryParams}.
+     * @param dictionary the {@link DimensionItemDictionary}.
      * @return a mapping between the the data set dimension key and the count of
      *         expected data sets to report.
      */
-    private Map<String, Double> getAggregatedCompletenessTargetMap( DataQueryParams params )
+    private Map<DimensionKey, Double> getAggregatedCompletenessTargetMap( DataQueryParams params, DimensionItemDictionary dictionary )
     {
         List<Function<DataQueryParams, List<DataQueryParams>>> queryGroupers = Lists.newArrayList();
         queryGroupers.add( q -> queryPlanner.groupByStartEndDateRestriction( q ) );
 
-        return AnalyticsUtils.getDoubleMap( getAggregatedValueMap( params, AnalyticsTableType.COMPLETENESS_TARGET, queryGroupers ) );
+        return AnalyticsUtils.getDoubleMap( getAggregatedValueMap( params, AnalyticsTableType.COMPLETENESS_TARGET, queryGroupers, dictionary ) );
     }
 
     /**
@@ -1138,37 +1185,41 @@ public class DefaultAnalyticsService
      * members of the given organisation unit groups.
      *
      * @param params the {@link DataQueryParams}.
+     * @param dictionary the {@link DimensionItemDictionary}.
      * @return a mapping between the the data set dimension key and the count of
      *         expected data sets to report.
      */
-    private Map<String, Double> getAggregatedOrganisationUnitTargetMap( DataQueryParams params )
+    private Map<DimensionKey, Double> getAggregatedOrganisationUnitTargetMap( DataQueryParams params, DimensionItemDictionary dictionary )
     {
-        return AnalyticsUtils.getDoubleMap( getAggregatedValueMap( params, AnalyticsTableType.ORG_UNIT_TARGET, Lists.newArrayList() ) );
+        return AnalyticsUtils.getDoubleMap( getAggregatedValueMap( params, AnalyticsTableType.ORG_UNIT_TARGET, Lists.newArrayList(), dictionary ) );
     }
 
     /**
      * Generates a mapping between the count of a validation result.
      *
      * @param params the {@link DataQueryParams}.
+     * @param dictionary the {@link DimensionItemDictionary}.
      * @return a mapping between validation results and counts of them
      */
-    private Map<String, Double> getAggregatedValidationResultMapObjectTyped( DataQueryParams params )
+    private Map<DimensionKey, Double> getAggregatedValidationResultMapObjectTyped( DataQueryParams params, DimensionItemDictionary dictionary )
     {
-        return AnalyticsUtils.getDoubleMap( getAggregatedValueMap( params, AnalyticsTableType.VALIDATION_RESULT, Lists.newArrayList() ) );
+        return AnalyticsUtils.getDoubleMap( getAggregatedValueMap( params, AnalyticsTableType.VALIDATION_RESULT, Lists.newArrayList(), dictionary ) );
     }
 
     /**
      * Generates a mapping between a dimension key and the aggregated value. The
-     * dimension key is a concatenation of the identifiers of the dimension items
-     * separated by "-".
+     * dimension key holds the ordinals of the identifiers of the dimension items
+     * interned in the given dictionary.
      *
      * @param params the {@link DataQueryParams}.
      * @param tableType the {@link AnalyticsTableType}.
      * @param queryGroupers the list of additional query groupers to use for
      *        query planning, use empty list for none.
+     * @param dictionary the {@link DimensionItemDictionary}.
      * @return a mapping between a dimension key and aggregated values.
      */
-    private Map<String, Object> getAggregatedValueMap( DataQueryParams params, AnalyticsTableType tableType, List<Function<DataQueryParams, List<DataQueryParams>>> queryGroupers )
+    private Map<DimensionKey, Object> getAggregatedValueMap( DataQueryParams params, AnalyticsTableType tableType, List<Function<DataQueryParams, List<DataQueryParams>>> queryGroupers,
+        DimensionItemDictionary dictionary )
     {
         queryValidator.validateMaintenanceMode();
 
@@ -1187,43 +1238,53 @@ public class DefaultAnalyticsService
 
         timer.getSplitTime( "Planned analytics query, got: " + queryGroups.getLargestGroupSize() + " for optimal: " + optimalQueries );
 
-        Map<String, Object> map = new HashMap<>();
+        // ---------------------------------------------------------------------
+        // Admit the request once, then run up to the optimal number of queries
+        // at a time, across groups, starting the next query as soon as any
+        // query completes
+        // ---------------------------------------------------------------------
 
-        for ( List<DataQueryParams> queries : queryGroups.getSequentialQueries() )
-        {
-            List<Future<Map<String, Object>>> futures = new ArrayList<>();
+        User currentUser = securityManager.getCurrentUser( params );
 
-            for ( DataQueryParams query : queries )
-            {
-                futures.add( analyticsManager.getAggregatedDataValues( query, tableType, maxLimit ) );
-            }
+        String username = currentUser != null ? currentUser.getUsername() : null;
+
+        QueryPermit permit = admissionController.acquire( params, username );
+
+        ConcurrentLinkedQueue<DataQueryParams> queryQ = queryGroups.getSequentialQueries().stream()
+            .flatMap( List::stream )
+            .collect( Collectors.toCollection( ConcurrentLinkedQueue::new ) );
+
+        Map<DimensionKey, Object> map = Collections.synchronizedMap( new HashMap<>() );
+
+        int workerNo = Math.min( optimalQueries, queryQ.size() );
 
-            for ( Future<Map<String, Object>> future : futures )
+        List<CompletableFuture<Void>> workers = new ArrayList<>();
+
+        try
+        {
+            for ( int i = 0; i < workerNo; i++ )
             {
-                try
-                {
-                    Map<String, Object> taskValues = future.get();
+                workers.add( executeNextQuery( queryQ, tableType, maxLimit, dictionary, map, params.getQueryTimings() ) );
+            }
 
-                    if ( taskValues != null )
-                    {
-                        map.putAll( taskValues );
-                    }
-                }
-                catch ( Exception ex )
-                {
-                    log.error( DebugUtils.getStackTrace( ex ) );
-                    log.error( DebugUtils.getStackTrace( ex.getCause() ) );
+            CompletableFuture.allOf( workers.toArray( new CompletableFuture<?>[0] ) ).join();
+        }
+        catch ( CompletionException ex )
+        {
+            log.error( DebugUtils.getStackTrace( ex.getCause() ) );
 
-                    if ( ex.getCause() != null && ex.getCause() instanceof RuntimeException )
-                    {
-                        throw (RuntimeException) ex.getCause(); // Throw the real exception instead of execution exception
-                    }
-                    else
-                    {
-                        throw new RuntimeException( "Error during execution of aggregation query task", ex );
-                    }
-                }
+            if ( ex.getCause() != null && ex.getCause() instanceof RuntimeException )
+            {
+                throw (RuntimeException) ex.getCause(); // Throw the real exception instead of completion exception
             }
+            else
+            {
+                throw new RuntimeException( "Error during execution of aggregation query task", ex );
+            }
+        }
+        finally
+        {
+            permit.release();
         }
 
         timer.getTime( "Got analytics values" );
@@ -1231,6 +1292,54 @@ public class DefaultAnalyticsService
         return map;
     }
 
+    /**
+     * Takes the next query from the given queue and executes it. Merges the
+     * result into the given map when complete, then continues with the next
+     * query until the queue is empty. Clears the queue if a query fails so that
+     * no further queries are started.
+     *
+     * @param queryQ the queue of queries.
+     * @param tableType the {@link AnalyticsTableType}.
+     * @param maxLimit the max number of records to retrieve.
+     * @param dictionary the {@link DimensionItemDictionary}.
+     * @param map the map to merge results into.
+     * @param timings the {@link QueryTimings} to record sub-queries in, can be null.
+     * @return a future which completes when the queue is empty.
+     */
+    private CompletableFuture<Void> executeNextQuery( Queue<DataQueryParams> queryQ, AnalyticsTableType tableType, int maxLimit,
+        DimensionItemDictionary dictionary, Map<DimensionKey, Object> map, QueryTimings timings )
+    {
+        final DataQueryParams query = queryQ.poll();
+
+        if ( query == null )
+        {
+            return CompletableFuture.completedFuture( null );
+        }
+
+        final long start = System.currentTimeMillis();
+
+        return analyticsManager.getAggregatedDataValues( query, tableType, maxLimit, dictionary )
+            .thenCompose( values -> {
+                if ( timings != null )
+                {
+                    timings.add( query, values != null ? values.size() : 0, System.currentTimeMillis() - start );
+                }
+
+                if ( values != null )
+                {
+                    map.putAll( values );
+                }
+
+                return executeNextQuery( queryQ, tableType, maxLimit, dictionary, map, timings );
+            } )
+            .whenComplete( ( result, ex ) -> {
+                if ( ex != null )
+                {
+                    queryQ.clear();
+                }
+            } );
+    }
+
     /**
      * Returns headers, raw data and meta data as a grid.
      *
@@ -1239,7 +1348,7 @@ public class DefaultAnalyticsService
      */
     private Grid getRawDataGrid( DataQueryParams params )
     {
-        Grid grid = new ListGrid();
+        Grid grid = new ColumnarGrid();
 
         params = preHandleRawDataQuery( params );
 
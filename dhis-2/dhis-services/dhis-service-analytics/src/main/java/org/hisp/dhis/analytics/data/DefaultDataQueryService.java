@@ -168,6 +168,7 @@ public class DefaultDataQueryService
             .withShowHierarchy( request.isShowHierarchy() )
             .withIncludeNumDen( request.isIncludeNumDen() )
             .withIncludeMetadataDetails( request.isIncludeMetadataDetails() )
+            .withIncludeQueryTimings( request.isIncludeQueryTimings() )
             .withDisplayProperty( request.getDisplayProperty() )
             .withOutputIdScheme( request.getOutputIdScheme() )
             .withOutputFormat( OutputFormat.ANALYTICS )
@@ -0,0 +1,370 @@
+package org.hisp.dhis.analytics.data;
+
+/*
+ * Copyright (c) 2004-2018, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.hisp.dhis.common.DimensionalObject.ORGUNIT_DIM_ID;
+import static org.hisp.dhis.common.DimensionalObject.PERIOD_DIM_ID;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.hisp.dhis.analytics.DataQueryParams;
+import org.hisp.dhis.analytics.QueryAdmissionController;
+import org.hisp.dhis.common.IllegalQueryException;
+import org.hisp.dhis.common.QueryRejectedException;
+import org.hisp.dhis.common.QueryTimeoutException;
+import org.hisp.dhis.setting.SettingKey;
+import org.hisp.dhis.setting.SystemSettingManager;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * Admission controller which holds waiting queries in a single FIFO queue.
+ * When a query completes, the queue is scanned from the head and every query
+ * within the global and per-user limits is admitted. A user at the per-user
+ * limit does not block queries of other users behind it in the queue. Queries
+ * are rejected when the queue is full, and time out when not admitted within
+ * the max wait.
+ * <p>
+ * A limit of zero means no limit.
+ */
+public class DefaultQueryAdmissionController
+    implements QueryAdmissionController
+{
+    private static final Log log = LogFactory.getLog( DefaultQueryAdmissionController.class );
+
+    private static final String SYSTEM_USER = "system";
+
+    private final SystemSettingManager systemSettingManager;
+
+    /**
+     * Waiting queries, guarded by this.
+     */
+    private final Deque<Ticket> queue = new ArrayDeque<>();
+
+    /**
+     * Number of running queries per user, guarded by this.
+     */
+    private final Map<String, Integer> userRunning = new HashMap<>();
+
+    /**
+     * Number of running queries, guarded by this.
+     */
+    private int running;
+
+    private final AtomicLong admittedCount = new AtomicLong();
+
+    private final AtomicLong rejectedCount = new AtomicLong();
+
+    private final AtomicLong timedOutCount = new AtomicLong();
+
+    private final AtomicLong completedCount = new AtomicLong();
+
+    private final AtomicLong totalWaitMillis = new AtomicLong();
+
+    private final AtomicLong maxWaitMillis = new AtomicLong();
+
+    private final AtomicLong totalLatencyMillis = new AtomicLong();
+
+    private final AtomicLong maxLatencyMillis = new AtomicLong();
+
+    @Autowired
+    public DefaultQueryAdmissionController( SystemSettingManager systemSettingManager )
+    {
+        checkNotNull( systemSettingManager );
+
+        this.systemSettingManager = systemSettingManager;
+    }
+
+    // -------------------------------------------------------------------------
+    // QueryAdmissionController implementation
+    // -------------------------------------------------------------------------
+
+    @Override
+    public long estimateCost( DataQueryParams params )
+    {
+        long partitions = params.hasPartitions() ? params.getPartitions().getPartitions().size() : 1;
+
+        return Math.max( 1, partitions ) *
+            Math.max( 1, params.getDimensionOrFilterItems( ORGUNIT_DIM_ID ).size() ) *
+            Math.max( 1, params.getDimensionOrFilterItems( PERIOD_DIM_ID ).size() ) *
+            Math.max( 1, params.getAllDataDimensionItems().size() );
+    }
+
+    @Override
+    public CompletableFuture<QueryPermit> admit( DataQueryParams params, String user )
+    {
+        long cost = estimateCost( params );
+        long maxCost = getSetting( SettingKey.ANALYTICS_MAX_QUERY_COST );
+
+        if ( maxCost > 0 && cost > maxCost )
+        {
+            rejectedCount.incrementAndGet();
+
+            log.warn( String.format( "Analytics query rejected for user: %s, estimated cost: %d, max cost: %d", user, cost, maxCost ) );
+
+            throw new IllegalQueryException( String.format( "Analytics query is too large, estimated cost: %d exceeds max cost: %d, " +
+                "reduce the number of data items, periods or organisation units", cost, maxCost ) );
+        }
+
+        int maxQueued = getSetting( SettingKey.ANALYTICS_MAX_QUEUED_QUERIES );
+
+        Ticket ticket = new Ticket( user != null ? user : SYSTEM_USER, cost );
+
+        synchronized ( this )
+        {
+            if ( maxQueued > 0 && queue.size() >= maxQueued )
+            {
+                rejectedCount.incrementAndGet();
+
+                log.warn( String.format( "Analytics query rejected for user: %s, queued queries: %d", ticket.user, queue.size() ) );
+
+                throw new QueryRejectedException( "Too many analytics queries are waiting, try again later" );
+            }
+
+            queue.addLast( ticket );
+        }
+
+        ticket.future.whenComplete( ( permit, ex ) -> {
+            if ( ticket.future.isCancelled() )
+            {
+                cancel( ticket );
+            }
+        } );
+
+        dispatch();
+
+        return ticket.future;
+    }
+
+    @Override
+    public QueryPermit acquire( DataQueryParams params, String user )
+    {
+        int maxWait = getSetting( SettingKey.ANALYTICS_MAX_QUERY_WAIT );
+
+        CompletableFuture<QueryPermit> future = admit( params, user );
+
+        try
+        {
+            return maxWait > 0 ? future.get( maxWait, TimeUnit.SECONDS ) : future.get();
+        }
+        catch ( TimeoutException ex )
+        {
+            future.cancel( false );
+
+            timedOutCount.incrementAndGet();
+
+            log.warn( String.format( "Analytics query timed out waiting for admission for user: %s, max wait: %d s", user, maxWait ) );
+
+            throw new QueryTimeoutException( String.format( "Analytics query was not admitted within %d seconds, try again later", maxWait ) );
+        }
+        catch ( InterruptedException ex )
+        {
+            future.cancel( false );
+
+            Thread.currentThread().interrupt();
+
+            throw new QueryTimeoutException( "Interrupted while waiting for analytics query admission", ex );
+        }
+        catch ( ExecutionException ex )
+        {
+            throw new IllegalStateException( "Analytics query admission failed", ex.getCause() );
+        }
+    }
+
+    @Override
+    public Map<String, Object> getStatistics()
+    {
+        long admitted = admittedCount.get();
+        long completed = completedCount.get();
+
+        Map<String, Object> statistics = new LinkedHashMap<>();
+
+        synchronized ( this )
+        {
+            statistics.put( "queued", queue.size() );
+            statistics.put( "running", running );
+        }
+
+        statistics.put( "admitted", admitted );
+        statistics.put( "rejected", rejectedCount.get() );
+        statistics.put( "timedOut", timedOutCount.get() );
+        statistics.put( "completed", completed );
+        statistics.put( "averageWaitMillis", admitted > 0 ? totalWaitMillis.get() / admitted : 0 );
+        statistics.put( "maxWaitMillis", maxWaitMillis.get() );
+        statistics.put( "averageLatencyMillis", completed > 0 ? totalLatencyMillis.get() / completed : 0 );
+        statistics.put( "maxLatencyMillis", maxLatencyMillis.get() );
+
+        return statistics;
+    }
+
+    // -------------------------------------------------------------------------
+    // Supportive methods
+    // -------------------------------------------------------------------------
+
+    /**
+     * Admits waiting queries which are within the concurrency limits. Futures
+     * are completed outside of the lock, as dependent stages may run in the
+     * completing thread and release permits.
+     */
+    private void dispatch()
+    {
+        int maxRunning = getSetting( SettingKey.ANALYTICS_MAX_CONCURRENT_QUERIES );
+        int maxUserRunning = getSetting( SettingKey.ANALYTICS_MAX_CONCURRENT_QUERIES_PER_USER );
+
+        List<Ticket> admitted = new ArrayList<>();
+
+        synchronized ( this )
+        {
+            Iterator<Ticket> iterator = queue.iterator();
+
+            while ( iterator.hasNext() && ( maxRunning <= 0 || running < maxRunning ) )
+            {
+                Ticket ticket = iterator.next();
+
+                int userCount = userRunning.getOrDefault( ticket.user, 0 );
+
+                if ( maxUserRunning <= 0 || userCount < maxUserRunning )
+                {
+                    iterator.remove();
+                    running++;
+                    userRunning.put( ticket.user, userCount + 1 );
+                    admitted.add( ticket );
+                }
+            }
+        }
+
+        for ( Ticket ticket : admitted )
+        {
+            long waitMillis = ticket.admit();
+
+            // Release the permit if the wait was cancelled concurrently
+
+            if ( !ticket.future.complete( ticket ) )
+            {
+                ticket.release();
+                continue;
+            }
+
+            admittedCount.incrementAndGet();
+            totalWaitMillis.addAndGet( waitMillis );
+            maxWaitMillis.accumulateAndGet( waitMillis, Math::max );
+
+            log.debug( String.format( "Analytics query admitted for user: %s, cost: %d, wait: %d ms", ticket.user, ticket.cost, waitMillis ) );
+        }
+    }
+
+    /**
+     * Removes the given cancelled ticket from the queue, if still waiting.
+     */
+    private void cancel( Ticket ticket )
+    {
+        synchronized ( this )
+        {
+            queue.remove( ticket );
+        }
+    }
+
+    private void release( Ticket ticket, long latencyMillis )
+    {
+        synchronized ( this )
+        {
+            running--;
+            userRunning.computeIfPresent( ticket.user, ( user, count ) -> count > 1 ? count - 1 : null );
+        }
+
+        completedCount.incrementAndGet();
+        totalLatencyMillis.addAndGet( latencyMillis );
+        maxLatencyMillis.accumulateAndGet( latencyMillis, Math::max );
+
+        dispatch();
+    }
+
+    private int getSetting( SettingKey key )
+    {
+        Integer value = (Integer) systemSettingManager.getSystemSetting( key );
+
+        return value != null ? value : 0;
+    }
+
+    /**
+     * A query waiting for or holding a permit.
+     */
+    private class Ticket
+        implements QueryPermit
+    {
+        private final String user;
+
+        private final long cost;
+
+        private final long queued = System.currentTimeMillis();
+
+        private final CompletableFuture<QueryPermit> future = new CompletableFuture<>();
+
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private long admitted;
+
+        private Ticket( String user, long cost )
+        {
+            this.user = user;
+            this.cost = cost;
+        }
+
+        private long admit()
+        {
+            admitted = System.currentTimeMillis();
+
+            return admitted - queued;
+        }
+
+        @Override
+        public void release()
+        {
+            if ( released.compareAndSet( false, true ) )
+            {
+                DefaultQueryAdmissionController.this.release( this, System.currentTimeMillis() - admitted );
+            }
+        }
+    }
+}
@@ -44,7 +44,6 @@ import static org.hisp.dhis.analytics.util.AnalyticsSqlUtils.ANALYTICS_TBL_ALIAS
 import static org.hisp.dhis.analytics.util.AnalyticsSqlUtils.quote;
 import static org.hisp.dhis.analytics.util.AnalyticsSqlUtils.quoteAlias;
 import static org.hisp.dhis.api.util.DateUtils.getMediumDateString;
-import static org.hisp.dhis.common.DimensionalObject.DIMENSION_SEP;
 import static org.hisp.dhis.common.IdentifiableObjectUtils.getUids;
 import static org.hisp.dhis.commons.util.TextUtils.getQuotedCommaDelimitedString;
 import static org.hisp.dhis.commons.util.TextUtils.removeLastOr;
@@ -56,7 +55,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.Future;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 import javax.annotation.Resource;
@@ -69,8 +68,12 @@ import org.hisp.dhis.analytics.AnalyticsManager;
 import org.hisp.dhis.analytics.AnalyticsTableType;
 import org.hisp.dhis.analytics.DataQueryParams;
 import org.hisp.dhis.analytics.DataType;
+import org.hisp.dhis.analytics.DimensionItemDictionary;
+import org.hisp.dhis.analytics.DimensionKey;
 import org.hisp.dhis.analytics.MeasureFilter;
+import org.hisp.dhis.analytics.QueryKey;
 import org.hisp.dhis.analytics.QueryPlanner;
+import org.hisp.dhis.analytics.cache.SubQueryCache;
 import org.hisp.dhis.analytics.table.PartitionUtils;
 import org.hisp.dhis.analytics.util.AnalyticsUtils;
 import org.hisp.dhis.common.DimensionType;
@@ -92,7 +95,6 @@ import org.springframework.jdbc.BadSqlGrammarException;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.support.rowset.SqlRowSet;
 import org.springframework.scheduling.annotation.Async;
-import org.springframework.scheduling.annotation.AsyncResult;
 import org.springframework.util.Assert;
 
 import com.google.common.collect.ImmutableMap;
@@ -124,6 +126,9 @@ public class JdbcAnalyticsManager
     @Autowired
     private QueryPlanner queryPlanner;
 
+    @Autowired
+    private SubQueryCache subQueryCache;
+
     @Resource( name = "readOnlyJdbcTemplate" )
     private JdbcTemplate jdbcTemplate;
 
@@ -133,7 +138,8 @@ public class JdbcAnalyticsManager
 
     @Override
     @Async
-    public Future<Map<String, Object>> getAggregatedDataValues( DataQueryParams params, AnalyticsTableType tableType, int maxLimit )
+    public CompletableFuture<Map<DimensionKey, Object>> getAggregatedDataValues( DataQueryParams params, AnalyticsTableType tableType, int maxLimit,
+        DimensionItemDictionary dictionary )
     {
         assertQuery( params );
 
@@ -166,21 +172,25 @@ public class JdbcAnalyticsManager
 
             log.debug( sql );
 
-            Map<String, Object> map;
+            final DataQueryParams query = params;
+            final String querySql = sql;
+
+            Map<DimensionKey, Object> map;
 
             try
             {
-                map = getKeyValueMap( params, sql, maxLimit );
+                map = subQueryCache.get( getSubQueryKey( sql, maxLimit ), getSourceTables( params ), dictionary,
+                    () -> getKeyValueMap( query, querySql, maxLimit, dictionary ) );
             }
             catch ( BadSqlGrammarException ex )
             {
                 log.info( AnalyticsUtils.ERR_MSG_TABLE_NOT_EXISTING, ex );
-                return new AsyncResult<>( Maps.newHashMap() );
+                return CompletableFuture.completedFuture( Maps.newHashMap() );
             }
 
-            replaceDataPeriodsWithAggregationPeriods( map, params, dataPeriodAggregationPeriodMap );
+            replaceDataPeriodsWithAggregationPeriods( map, params, dataPeriodAggregationPeriodMap, dictionary );
 
-            return new AsyncResult<>( map );
+            return CompletableFuture.completedFuture( map );
         }
         catch ( DataAccessResourceFailureException ex )
         {
@@ -195,8 +205,9 @@ public class JdbcAnalyticsManager
     }
 
     @Override
-    public void replaceDataPeriodsWithAggregationPeriods( Map<String, Object> dataValueMap,
-        DataQueryParams params, ListMap<DimensionalItemObject, DimensionalItemObject> dataPeriodAggregationPeriodMap )
+    public void replaceDataPeriodsWithAggregationPeriods( Map<DimensionKey, Object> dataValueMap,
+        DataQueryParams params, ListMap<DimensionalItemObject, DimensionalItemObject> dataPeriodAggregationPeriodMap,
+        DimensionItemDictionary dictionary )
     {
         if ( params.isDisaggregation() )
         {
@@ -207,29 +218,31 @@ public class JdbcAnalyticsManager
                 return; // Period is filter, nothing to replace
             }
 
-            Set<String> keys = new HashSet<>( dataValueMap.keySet() );
+            // Resolve aggregation periods once per distinct data period ordinal
+
+            Map<Integer, List<DimensionalItemObject>> periodOrdinalMap = new HashMap<>();
 
-            for ( String key : keys )
+            Set<DimensionKey> keys = new HashSet<>( dataValueMap.keySet() );
+
+            for ( DimensionKey key : keys )
             {
-                String[] keyArray = key.split( DIMENSION_SEP );
+                List<DimensionalItemObject> periods = periodOrdinalMap.computeIfAbsent( key.getOrdinal( periodIndex ), ordinal -> {
+                    String periodKey = dictionary.getItem( ordinal );
 
-                String periodKey = keyArray[periodIndex];
+                    Assert.notNull( periodKey, String.format( "Period key cannot be null, key: '%s'", dictionary.getKey( key ) ) );
 
-                Assert.notNull( periodKey, String.format( "Period key cannot be null, key: '%s'", key ) );
+                    List<DimensionalItemObject> aggregationPeriods = dataPeriodAggregationPeriodMap.get( PeriodType.getPeriodFromIsoString( periodKey ) );
 
-                List<DimensionalItemObject> periods = dataPeriodAggregationPeriodMap.get( PeriodType.getPeriodFromIsoString( periodKey ) );
+                    Assert.notNull( aggregationPeriods, String.format( "Period list cannot be null, key: '%s', map: '%s'", dictionary.getKey( key ), dataPeriodAggregationPeriodMap.toString() ) );
 
-                Assert.notNull( periods, String.format( "Period list cannot be null, key: '%s', map: '%s'", key, dataPeriodAggregationPeriodMap.toString() ) );
+                    return aggregationPeriods;
+                } );
 
                 Object value = dataValueMap.get( key );
 
                 for ( DimensionalItemObject period : periods )
                 {
-                    String[] keyCopy = keyArray.clone();
-
-                    keyCopy[periodIndex] = ((Period) period).getIsoDate();
-
-                    String replacementKey = TextUtils.toString( keyCopy, DIMENSION_SEP );
+                    DimensionKey replacementKey = key.withOrdinal( periodIndex, dictionary.getOrdinal( ((Period) period).getIsoDate() ) );
 
                     if ( dataValueMap.containsKey( replacementKey )
                         && ((Period) period).getPeriodType().spansMultipleCalendarYears() )
@@ -238,11 +251,11 @@ public class JdbcAnalyticsManager
                             (Double) dataValueMap.get( replacementKey ), (Double) value,
                                 AnalyticsUtils.getBaseMonth( ((Period) period).getPeriodType() ) );
 
-                        dataValueMap.put( TextUtils.toString( keyCopy, DIMENSION_SEP ), weightedAverage );
+                        dataValueMap.put( replacementKey, weightedAverage );
                     }
                     else
                     {
-                        dataValueMap.put( TextUtils.toString( keyCopy, DIMENSION_SEP ), value );
+                        dataValueMap.put( replacementKey, value );
                     }
                 }
 
@@ -352,6 +365,36 @@ public class JdbcAnalyticsManager
         return sql + " as " + ANALYTICS_TBL_ALIAS + " ";
     }
 
+    /**
+     * Returns the names of the tables read by the query from source clause.
+     */
+    private List<String> getSourceTables( DataQueryParams params )
+    {
+        if ( !params.isSkipPartitioning() && params.hasPartitions() )
+        {
+            return params.getPartitions().getPartitions().stream()
+                .sorted()
+                .map( partition -> PartitionUtils.getPartitionName( params.getTableName(), partition ) )
+                .collect( Collectors.toList() );
+        }
+        else
+        {
+            return Lists.newArrayList( params.getTableName() );
+        }
+    }
+
+    /**
+     * Returns a key for the sub-query. The SQL reflects every property of the
+     * planned query, including partitions, period type, aggregation type and
+     * dimension items.
+     */
+    private String getSubQueryKey( String sql, int maxLimit )
+    {
+        return new QueryKey()
+            .add( sql )
+            .add( maxLimit ).build();
+    }
+
     /**
      * Returns the query from source clause. Can be any of table name, partition
      * name or inner select union all query.
@@ -640,16 +683,26 @@ public class JdbcAnalyticsManager
 
     /**
      * Retrieves data from the database based on the given query and SQL and puts
-     * into a value key and value mapping.
+     * into a value key and value mapping. Dimension options are interned in the
+     * given dictionary.
      */
-    private Map<String, Object> getKeyValueMap( DataQueryParams params, String sql, int maxLimit )
+    private Map<DimensionKey, Object> getKeyValueMap( DataQueryParams params, String sql, int maxLimit, DimensionItemDictionary dictionary )
     {
-        Map<String, Object> map = new HashMap<>();
+        Map<DimensionKey, Object> map = new HashMap<>();
 
         log.debug( String.format( "Analytics SQL: %s", sql ) );
 
         SqlRowSet rowSet = jdbcTemplate.queryForRowSet( sql );
 
+        List<DimensionalObject> dimensions = params.getDimensions();
+
+        int[] fixedOrdinals = new int[dimensions.size()];
+
+        for ( int i = 0; i < dimensions.size(); i++ )
+        {
+            fixedOrdinals[i] = dimensions.get( i ).isFixed() ? dictionary.getOrdinal( dimensions.get( i ).getDimensionName() ) : -1;
+        }
+
         int counter = 0;
 
         while ( rowSet.next() )
@@ -659,28 +712,26 @@ public class JdbcAnalyticsManager
                 throw new IllegalQueryException( "Query result set exceeds max limit: " + maxLimit );
             }
 
-            StringBuilder key = new StringBuilder();
+            int[] ordinals = new int[dimensions.size()];
 
-            for ( DimensionalObject dim : params.getDimensions() )
+            for ( int i = 0; i < ordinals.length; i++ )
             {
-                String value = dim.isFixed() ? dim.getDimensionName() : rowSet.getString( dim.getDimensionName() );
-
-                key.append( value ).append( DIMENSION_SEP );
+                ordinals[i] = fixedOrdinals[i] != -1 ? fixedOrdinals[i] : dictionary.getOrdinal( rowSet.getString( dimensions.get( i ).getDimensionName() ) );
             }
 
-            key.deleteCharAt( key.length() - 1 );
+            DimensionKey key = DimensionKey.of( ordinals );
 
             if ( params.isDataType( TEXT ) )
             {
                 String value = rowSet.getString( VALUE_ID );
 
-                map.put( key.toString(), value );
+                map.put( key, value );
             }
             else // NUMERIC
             {
                 Double value = rowSet.getDouble( VALUE_ID );
 
-                map.put( key.toString(), value );
+                map.put( key, value );
             }
         }
 
@@ -30,6 +30,7 @@ package org.hisp.dhis.analytics.table;
 
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.ConcurrentLinkedQueue;
@@ -52,6 +53,8 @@ import org.hisp.dhis.analytics.AnalyticsTablePhase;
 import org.hisp.dhis.analytics.AnalyticsTableType;
 import org.hisp.dhis.analytics.AnalyticsTableUpdateParams;
 import org.hisp.dhis.analytics.partition.PartitionManager;
+import org.hisp.dhis.analytics.util.AnalyticsSqlUtils;
+import org.hisp.dhis.api.util.DateUtils;
 import org.hisp.dhis.calendar.Calendar;
 import org.hisp.dhis.category.CategoryService;
 import org.hisp.dhis.common.IdentifiableObjectManager;
@@ -71,6 +74,9 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.BadSqlGrammarException;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.scheduling.annotation.Async;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.google.common.base.Preconditions;
 
 /**
  * @author Lars Helge Overland
@@ -211,6 +217,12 @@ public abstract class AbstractJdbcTableManager
         executeSilently( "drop table " + tableName + " cascade" );
     }
 
+    @Override
+    public void truncateTable( String tableName )
+    {
+        jdbcTemplate.execute( "truncate table " + tableName );
+    }
+
     @Override
     public void analyzeTable( String tableName )
     {
@@ -238,6 +250,52 @@ public abstract class AbstractJdbcTableManager
         return null;
     }
 
+    @Override
+    public void vacuumTable( String tableName )
+    {
+        executeSilently( statementBuilder.getVacuum( tableName ) );
+    }
+
+    /**
+     * Override in order to support incremental updates, together with
+     * {@link #getChangedRowsDeleteSql(AnalyticsTableUpdateParams, AnalyticsTablePartition)}.
+     */
+    @Override
+    public boolean supportsIncrementalUpdate()
+    {
+        return false;
+    }
+
+    /**
+     * Creates the live partition from the temporary partition if it does not
+     * exist, which is the case when data has changed into a year without data
+     * at the last full update.
+     */
+    @Override
+    @Transactional
+    public int updateLivePartition( AnalyticsTableUpdateParams params, AnalyticsTablePartition partition )
+    {
+        final AnalyticsTable table = partition.getMasterTable();
+        final String columns = ListUtils.union( table.getDimensionColumns(), table.getValueColumns() ).stream()
+            .map( AnalyticsTableColumn::getName )
+            .collect( Collectors.joining( "," ) );
+
+        if ( !partitionManager.tableExists( partition.getTableName() ) )
+        {
+            createLivePartition( partition );
+        }
+
+        final String insertSql = "insert into " + partition.getTableName() + " (" + columns + ") " +
+            "select " + columns + " from " + partition.getTempTableName();
+
+        int deleted = deleteChangedRows( params, partition );
+        int inserted = jdbcTemplate.update( insertSql );
+
+        log.info( String.format( "Updated partition: %s, deleted rows: %d, inserted rows: %d", partition.getTableName(), deleted, inserted ) );
+
+        return deleted + inserted;
+    }
+
     @Override
     public int invokeAnalyticsTableSqlHooks()
     {
@@ -267,6 +325,21 @@ public abstract class AbstractJdbcTableManager
      */
     protected abstract void populateTable( AnalyticsTableUpdateParams params, AnalyticsTablePartition partition );
 
+    /**
+     * Returns a SQL statement which deletes the rows of the existing analytics
+     * table partition which belong to data changed after the last successful
+     * update and before the start of the current update, including data which
+     * has been soft deleted. Override in order to support incremental updates.
+     * Only invoked when {@link #supportsIncrementalUpdate()} returns true.
+     *
+     * @param params the {@link AnalyticsTableUpdateParams}.
+     * @param partition the {@link AnalyticsTablePartition}.
+     */
+    protected String getChangedRowsDeleteSql( AnalyticsTableUpdateParams params, AnalyticsTablePartition partition )
+    {
+        throw new UnsupportedOperationException( "Incremental update not supported for: " + getAnalyticsTableType() );
+    }
+
     // -------------------------------------------------------------------------
     // Protected supportive methods
     // -------------------------------------------------------------------------
@@ -451,6 +524,101 @@ public abstract class AbstractJdbcTableManager
             .collect( Collectors.toList() );
     }
 
+    /**
+     * Removes the partitions of the given table which can not be updated
+     * incrementally. All partitions are removed if the master table does not
+     * exist. Existing partitions which lack columns of the table are removed
+     * after deleting their changed rows, so that no stale rows remain until
+     * the full analytics table update they require. Partitions which do not
+     * exist are retained, as they are created when updated.
+     *
+     * @param params the {@link AnalyticsTableUpdateParams}.
+     * @param table the {@link AnalyticsTable}.
+     */
+    protected void retainIncrementalPartitions( AnalyticsTableUpdateParams params, AnalyticsTable table )
+    {
+        if ( !partitionManager.tableExists( table.getTableName() ) )
+        {
+            log.warn( String.format( "Table can not be updated incrementally, full analytics table update required: %s", table.getTableName() ) );
+
+            table.getPartitionTables().clear();
+            return;
+        }
+
+        final Set<String> columns = ListUtils.union( table.getDimensionColumns(), table.getValueColumns() ).stream()
+            .map( c -> AnalyticsSqlUtils.removeQuote( c.getName() ) )
+            .collect( Collectors.toSet() );
+
+        table.getPartitionTables().removeIf( partition -> {
+            Set<String> tableColumns = new HashSet<>( jdbcTemplate.queryForList(
+                "select column_name from information_schema.columns where table_name = ?", String.class, partition.getTableName() ) );
+
+            boolean compatible = tableColumns.isEmpty() || tableColumns.containsAll( columns );
+
+            if ( !compatible )
+            {
+                log.warn( String.format( "Partition can not be updated incrementally, full analytics table update required, removing changed rows: %s", partition.getTableName() ) );
+
+                deleteChangedRows( params, partition );
+            }
+
+            return !compatible;
+        } );
+    }
+
+    /**
+     * Returns a SQL condition on the given last updated column which matches
+     * data changed from the last successful update and before the start of
+     * the current update. The last successful update is the start of the
+     * oldest transaction in progress when the previous update started, see
+     * {@link AnalyticsTableUpdateParams#getLastSuccessfulUpdate()}.
+     *
+     * @param params the {@link AnalyticsTableUpdateParams}.
+     * @param column the last updated column.
+     */
+    protected String getChangedDataCondition( AnalyticsTableUpdateParams params, String column )
+    {
+        return column + " >= '" + DateUtils.getLongDateString( params.getLastSuccessfulUpdate() ) + "' " +
+            "and " + column + " <= '" + DateUtils.getLongDateString( params.getStartTime() ) + "' ";
+    }
+
+    /**
+     * Deletes the rows of changed data for the given partition.
+     *
+     * @param params the {@link AnalyticsTableUpdateParams}.
+     * @param partition the {@link AnalyticsTablePartition}.
+     * @return the number of deleted rows.
+     */
+    private int deleteChangedRows( AnalyticsTableUpdateParams params, AnalyticsTablePartition partition )
+    {
+        Preconditions.checkState( supportsIncrementalUpdate(), "Incremental update not supported for: " + getAnalyticsTableType() );
+
+        final String sql = getChangedRowsDeleteSql( params, partition );
+
+        log.debug( String.format( "Delete changed rows SQL: %s", sql ) );
+
+        return jdbcTemplate.update( sql );
+    }
+
+    /**
+     * Creates the live partition for the given temporary partition, with the
+     * columns, checks and indexes of the temporary partition, inheriting from
+     * the live master table.
+     *
+     * @param partition the {@link AnalyticsTablePartition}.
+     */
+    private void createLivePartition( AnalyticsTablePartition partition )
+    {
+        final String sql =
+            "create table " + partition.getTableName() + " (" +
+            "like " + partition.getTempTableName() + " including constraints including indexes) " +
+            "inherits (" + partition.getMasterTable().getTableName() + ") " + getTableOptions();
+
+        log.info( String.format( "Creating live partition table: %s", partition.getTableName() ) );
+
+        jdbcTemplate.execute( sql );
+    }
+
     /**
      * Executes the given  SQL statement. Logs and times the operation.
      *
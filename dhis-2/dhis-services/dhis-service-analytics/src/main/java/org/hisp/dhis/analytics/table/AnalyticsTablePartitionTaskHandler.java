@@ -0,0 +1,129 @@
+package org.hisp.dhis.analytics.table;
+
+/*
+ * Copyright (c) 2004-2018, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import org.apache.commons.lang3.StringUtils;
+import org.hisp.dhis.analytics.AnalyticsTable;
+import org.hisp.dhis.analytics.AnalyticsTableManager;
+import org.hisp.dhis.analytics.AnalyticsTablePartition;
+import org.hisp.dhis.analytics.AnalyticsTableType;
+import org.hisp.dhis.analytics.AnalyticsTableUpdateParams;
+import org.hisp.dhis.commons.util.ConcurrentUtils;
+import org.hisp.dhis.scheduling.WorkTaskHandler;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Future;
+
+/**
+ * Populates a single analytics table partition on behalf of an analytics
+ * table update running on another node of the cluster.
+ * <p>
+ * The payload is on the format
+ * <code>{table type};{start time};{last years};{temp table name}</code>.
+ * The temp partition table is truncated before it is populated, which makes
+ * re-running a task after a failed or timed out attempt idempotent.
+ */
+public class AnalyticsTablePartitionTaskHandler
+    implements WorkTaskHandler
+{
+    public static final String TASK_TYPE = "analyticsTablePartition";
+
+    private static final String SEP = ";";
+
+    @Autowired
+    private List<AnalyticsTableManager> tableManagers;
+
+    // -------------------------------------------------------------------------
+    // WorkTaskHandler implementation
+    // -------------------------------------------------------------------------
+
+    @Override
+    public String getTaskType()
+    {
+        return TASK_TYPE;
+    }
+
+    @Override
+    public String execute( String payload )
+    {
+        String[] parts = payload.split( SEP, -1 );
+
+        AnalyticsTableType tableType = AnalyticsTableType.valueOf( parts[0] );
+        String tempTableName = parts[3];
+
+        AnalyticsTableUpdateParams params = AnalyticsTableUpdateParams.newBuilder()
+            .withStartTime( new Date( Long.parseLong( parts[1] ) ) )
+            .withLastYears( StringUtils.isNotEmpty( parts[2] ) ? Integer.valueOf( parts[2] ) : null )
+            .build();
+
+        AnalyticsTableManager tableManager = tableManagers.stream()
+            .filter( manager -> tableType == manager.getAnalyticsTableType() )
+            .findFirst()
+            .orElseThrow( () -> new IllegalArgumentException( "No table manager for table type: " + tableType ) );
+
+        List<AnalyticsTable> tables = tableManager.getAnalyticsTables( params );
+
+        AnalyticsTablePartition partition = PartitionUtils.getTablePartitions( tables ).stream()
+            .filter( p -> tempTableName.equals( p.getTempTableName() ) )
+            .findFirst()
+            .orElseThrow( () -> new IllegalArgumentException( "No partition for temp table: " + tempTableName ) );
+
+        // A task may be re-claimed after a node died half way, clear rows of
+        // any previous attempt so that the partition is not populated twice
+
+        tableManager.truncateTable( partition.getTempTableName() );
+
+        ConcurrentLinkedQueue<AnalyticsTablePartition> partitionQ = new ConcurrentLinkedQueue<>( Collections.singletonList( partition ) );
+
+        Future<?> future = tableManager.populateTablesAsync( params, partitionQ );
+
+        ConcurrentUtils.waitForCompletion( Collections.singletonList( future ) );
+
+        return null;
+    }
+
+    /**
+     * Returns the task payload for the given partition.
+     *
+     * @param params the {@link AnalyticsTableUpdateParams}.
+     * @param tableType the {@link AnalyticsTableType}.
+     * @param partition the {@link AnalyticsTablePartition}.
+     * @return the task payload.
+     */
+    public static String getPayload( AnalyticsTableUpdateParams params, AnalyticsTableType tableType, AnalyticsTablePartition partition )
+    {
+        return tableType.name() + SEP + params.getStartTime().getTime() + SEP +
+            StringUtils.defaultString( params.getLastYears() != null ? params.getLastYears().toString() : null ) + SEP +
+            partition.getTempTableName();
+    }
+}
@@ -44,6 +44,7 @@ import org.hisp.dhis.analytics.AnalyticsTableType;
 import org.hisp.dhis.analytics.AnalyticsTableUpdateParams;
 import org.hisp.dhis.api.util.DateUtils;
 import org.hisp.dhis.commons.collection.CollectionUtils;
+import org.hisp.dhis.jdbc.StatementBuilder;
 import org.hisp.dhis.message.MessageService;
 import org.hisp.dhis.resourcetable.ResourceTableService;
 import org.hisp.dhis.scheduling.JobConfiguration;
@@ -52,6 +53,7 @@ import org.hisp.dhis.setting.SystemSettingManager;
 import org.hisp.dhis.system.notification.Notifier;
 import org.hisp.dhis.system.util.Clock;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
 
 /**
  * @author Lars Helge Overland
@@ -76,6 +78,12 @@ public class DefaultAnalyticsTableGenerator
     @Autowired
     private Notifier notifier;
 
+    @Autowired
+    private StatementBuilder statementBuilder;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     // -------------------------------------------------------------------------
     // Implementation
     // -------------------------------------------------------------------------
@@ -85,6 +93,23 @@ public class DefaultAnalyticsTableGenerator
     {
         final Clock clock = new Clock( log ).startClock();
         final JobConfiguration jobId = params.getJobId();
+        final Date changedDataStart = getNextChangedDataStart( params );
+
+        if ( params.isIncremental() )
+        {
+            Date lastSuccessfulUpdate = (Date) systemSettingManager.getSystemSetting( SettingKey.LAST_SUCCESSFUL_INCREMENTAL_ANALYTICS_TABLES_UPDATE );
+
+            if ( lastSuccessfulUpdate == null )
+            {
+                log.warn( "Incremental analytics table update requires a previous full update" );
+                notifier.clear( jobId ).notify( jobId, INFO, "Incremental update aborted, a full analytics table update is required first", true );
+                return;
+            }
+
+            params = AnalyticsTableUpdateParams.newBuilder( params )
+                .withLastSuccessfulUpdate( lastSuccessfulUpdate ).build();
+        }
+
         final Set<AnalyticsTableType> skipTypes = CollectionUtils.emptyIfNull( params.getSkipTableTypes() );
         final Set<AnalyticsTableType> availableTypes = analyticsTableServices.stream()
             .map( AnalyticsTableService::getAnalyticsTableType )
@@ -97,7 +122,12 @@ public class DefaultAnalyticsTableGenerator
         {
             notifier.clear( jobId ).notify( jobId, "Analytics table update process started" );
 
-            if ( !params.isSkipResourceTables() )
+            if ( params.isIncrementalUpdate() && !params.isSkipResourceTables() )
+            {
+                notifier.notify( jobId, "Updating period resource tables" );
+                generatePeriodResourceTables();
+            }
+            else if ( !params.isSkipResourceTables() )
             {
                 notifier.notify( jobId, "Updating resource tables" );
                 generateResourceTables();
@@ -128,8 +158,19 @@ public class DefaultAnalyticsTableGenerator
             throw ex;
         }
 
-        systemSettingManager.saveSystemSetting( SettingKey.LAST_SUCCESSFUL_ANALYTICS_TABLES_UPDATE, params.getStartTime() );
-        systemSettingManager.saveSystemSetting( SettingKey.LAST_SUCCESSFUL_ANALYTICS_TABLES_RUNTIME, DateUtils.getPrettyInterval( clock.getSplitTime() ) );
+        if ( !params.isIncrementalUpdate() )
+        {
+            systemSettingManager.saveSystemSetting( SettingKey.LAST_SUCCESSFUL_ANALYTICS_TABLES_UPDATE, params.getStartTime() );
+            systemSettingManager.saveSystemSetting( SettingKey.LAST_SUCCESSFUL_ANALYTICS_TABLES_RUNTIME, DateUtils.getPrettyInterval( clock.getSplitTime() ) );
+        }
+
+        // Partial updates and skipped table types leave tables behind, so only
+        // complete full and incremental updates advance the high-water mark
+
+        if ( skipTypes.isEmpty() && ( params.isIncrementalUpdate() || !params.isPartialUpdate() ) )
+        {
+            systemSettingManager.saveSystemSetting( SettingKey.LAST_SUCCESSFUL_INCREMENTAL_ANALYTICS_TABLES_UPDATE, changedDataStart );
+        }
     }
 
     @Override
@@ -168,6 +209,38 @@ public class DefaultAnalyticsTableGenerator
     // Supportive methods
     // -------------------------------------------------------------------------
 
+    /**
+     * Returns the time from which the next incremental update includes changed
+     * data, which is the start time of the given update or the start of the
+     * oldest transaction in progress if earlier. Rows written by transactions
+     * in progress get a last updated time after the start of the transaction
+     * but are not visible to this update, and are hence included in the next.
+     *
+     * @param params the {@link AnalyticsTableUpdateParams}.
+     */
+    private Date getNextChangedDataStart( AnalyticsTableUpdateParams params )
+    {
+        final String sql = statementBuilder.getOldestTransactionStart();
+
+        Date oldestTransactionStart = sql != null ? jdbcTemplate.queryForObject( sql, Date.class ) : null;
+
+        return oldestTransactionStart != null && oldestTransactionStart.before( params.getStartTime() ) ?
+            oldestTransactionStart : params.getStartTime();
+    }
+
+    /**
+     * Generates the period resource tables only. Incremental updates require
+     * a full update for metadata changes, but data for periods created since
+     * the last update must join the period resource tables.
+     */
+    private void generatePeriodResourceTables()
+    {
+        resourceTableService.dropAllSqlViews();
+        resourceTableService.generatePeriodTable();
+        resourceTableService.generateDatePeriodTable();
+        resourceTableService.createAllSqlViews();
+    }
+
     private void generateResourceTables()
     {
         final Date startTime = new Date();
@@ -31,13 +31,19 @@ package org.hisp.dhis.analytics.table;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.hisp.dhis.analytics.*;
+import org.hisp.dhis.analytics.cache.SubQueryCache;
+import org.hisp.dhis.analytics.partition.PartitionManager;
 import org.hisp.dhis.common.IdentifiableObjectUtils;
+import org.hisp.dhis.commons.timer.SystemTimer;
+import org.hisp.dhis.commons.timer.Timer;
 import org.hisp.dhis.commons.util.ConcurrentUtils;
 import org.hisp.dhis.commons.util.SystemUtils;
 import org.hisp.dhis.dataelement.DataElementService;
 import org.hisp.dhis.organisationunit.OrganisationUnitService;
 import org.hisp.dhis.resourcetable.ResourceTableService;
 import org.hisp.dhis.scheduling.JobConfiguration;
+import org.hisp.dhis.scheduling.WorkQueue;
+import org.hisp.dhis.scheduling.WorkQueueResult;
 import org.hisp.dhis.setting.SettingKey;
 import org.hisp.dhis.setting.SystemSettingManager;
 import org.hisp.dhis.system.notification.Notifier;
@@ -52,6 +58,7 @@ import java.util.List;
 import java.util.Set;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Future;
+import java.util.stream.Collectors;
 
 /**
  * @author Lars Helge Overland
@@ -83,6 +90,15 @@ public class DefaultAnalyticsTableService
     @Autowired
     private SystemSettingManager systemSettingManager;
 
+    @Autowired
+    private SubQueryCache subQueryCache;
+
+    @Autowired
+    private WorkQueue workQueue;
+
+    @Autowired
+    private PartitionManager partitionManager;
+
     // -------------------------------------------------------------------------
     // Implementation
     // -------------------------------------------------------------------------
@@ -118,6 +134,12 @@ public class DefaultAnalyticsTableService
             return;
         }
 
+        if ( params.isIncrementalUpdate() )
+        {
+            updateIncremental( params, clock );
+            return;
+        }
+
         final List<AnalyticsTable> tables = tableManager.getAnalyticsTables( params );
 
         if ( tables.isEmpty() )
@@ -208,6 +230,95 @@ public class DefaultAnalyticsTableService
     // Supportive methods
     // -------------------------------------------------------------------------
 
+    /**
+     * Updates the live analytics table partitions with data changed since the
+     * last successful update. Changed rows are populated into temporary tables,
+     * then replace the corresponding rows in the live partitions.
+     *
+     * @param params the {@link AnalyticsTableUpdateParams}.
+     * @param clock the {@link Clock} of the current update.
+     */
+    private void updateIncremental( AnalyticsTableUpdateParams params, Clock clock )
+    {
+        JobConfiguration jobId = params.getJobId();
+
+        AnalyticsTableType tableType = tableManager.getAnalyticsTableType();
+
+        if ( !tableManager.supportsIncrementalUpdate() )
+        {
+            clock.logTime( "Incremental update not supported, skipping: " + tableType.getTableName() );
+            notifier.notify( jobId, "Incremental update not supported, skipping: " + tableType.getTableName() );
+            return;
+        }
+
+        final List<AnalyticsTable> tables = tableManager.getAnalyticsTables( params );
+
+        if ( tables.isEmpty() )
+        {
+            clock.logTime( "Incremental update done, no changed data found" );
+            notifier.notify( jobId, "Incremental update done, no changed data found" );
+            return;
+        }
+
+        clock.logTime( "Incremental update start: " + tableType.getTableName() + ", changed since: " + params.getLastSuccessfulUpdate() );
+        notifier.notify( jobId, "Performing pre-create table work" );
+
+        tableManager.preCreateTables( params );
+        dropTempTables( tables );
+        createTables( tables );
+
+        clock.logTime( "Created temp tables" );
+        notifier.notify( jobId, "Populating changed data" );
+
+        populateTables( params, tables );
+        tableManager.invokeAnalyticsTableSqlHooks();
+        applyAggregationLevels( tables );
+
+        clock.logTime( "Populated changed data" );
+
+        final List<AnalyticsTablePartition> partitions = PartitionUtils.getTablePartitions( tables );
+        final List<AnalyticsTablePartition> newPartitions = partitions.stream()
+            .filter( partition -> !partitionManager.tableExists( partition.getTableName() ) )
+            .collect( Collectors.toList() );
+
+        if ( !newPartitions.isEmpty() )
+        {
+            notifier.notify( jobId, "Creating indexes for new partitions" );
+
+            createPartitionIndexes( newPartitions );
+
+            clock.logTime( "Created indexes for new partitions: " + newPartitions.size() );
+        }
+
+        notifier.notify( jobId, "Updating live partitions" );
+
+        for ( AnalyticsTablePartition partition : partitions )
+        {
+            Timer timer = new SystemTimer().start();
+
+            int rows = tableManager.updateLivePartition( params, partition );
+
+            tableManager.vacuumTable( partition.getTableName() );
+
+            String message = String.format( "Updated partition: %s, rows: %d, time: %s", partition.getTableName(), rows, timer.stop().toString() );
+
+            clock.logTime( message );
+            notifier.notify( jobId, message );
+        }
+
+        if ( !newPartitions.isEmpty() )
+        {
+            partitionManager.clearCaches();
+        }
+
+        tables.forEach( table -> subQueryCache.invalidate( table ) );
+
+        dropTempTables( tables );
+
+        clock.logTime( "Incremental update done: " + tableType.getTableName() );
+        notifier.notify( jobId, "Incremental update done" );
+    }
+
     /**
      * Drops the given temporary analytics tables.
      *
@@ -237,6 +348,12 @@ public class DefaultAnalyticsTableService
     {
         List<AnalyticsTablePartition> partitions = PartitionUtils.getTablePartitions( tables );
 
+        if ( workQueue.isEnabled() && !params.isIncrementalUpdate() )
+        {
+            populateTablesDistributed( params, partitions );
+            return;
+        }
+
         int taskNo = Math.min( getProcessNo(), partitions.size() );
 
         log.info( "Populate table task number: " + taskNo );
@@ -253,6 +370,30 @@ public class DefaultAnalyticsTableService
         ConcurrentUtils.waitForCompletion( futures );
     }
 
+    /**
+     * Populates the given analytics table partitions by distributing one task
+     * per partition to the nodes of the cluster through the {@link WorkQueue}.
+     *
+     * @param partitions the list of {@link AnalyticsTablePartition}.
+     */
+    private void populateTablesDistributed( AnalyticsTableUpdateParams params, List<AnalyticsTablePartition> partitions )
+    {
+        AnalyticsTableType tableType = tableManager.getAnalyticsTableType();
+
+        List<String> payloads = partitions.stream()
+            .map( partition -> AnalyticsTablePartitionTaskHandler.getPayload( params, tableType, partition ) )
+            .collect( Collectors.toList() );
+
+        log.info( "Populate table distributed task number: " + payloads.size() );
+
+        WorkQueueResult result = workQueue.execute( params.getJobId(), AnalyticsTablePartitionTaskHandler.TASK_TYPE, payloads );
+
+        if ( !result.isSuccess() )
+        {
+            throw new IllegalStateException( "Failed to populate analytics table partitions: " + result.getErrors() );
+        }
+    }
+
     /**
      * Applies aggregation levels to the given analytics tables.
      *
@@ -324,8 +465,17 @@ public class DefaultAnalyticsTableService
      */
     private void createIndexes( List<AnalyticsTable> tables )
     {
-        List<AnalyticsTablePartition> partitions = PartitionUtils.getTablePartitions( tables );
+        createPartitionIndexes( PartitionUtils.getTablePartitions( tables ) );
+    }
 
+    /**
+     * Creates indexes on the temporary tables of the given analytics table
+     * partitions.
+     *
+     * @param partitions the list of {@link AnalyticsTablePartition}.
+     */
+    private void createPartitionIndexes( Collection<AnalyticsTablePartition> partitions )
+    {
         ConcurrentLinkedQueue<AnalyticsIndex> indexes = new ConcurrentLinkedQueue<>();
 
         for ( AnalyticsTablePartition partition : partitions )
@@ -380,6 +530,8 @@ public class DefaultAnalyticsTableService
         tables.forEach( table -> tableManager.swapTable( params, table ) );
 
         resourceTableService.createAllSqlViews();
+
+        tables.forEach( table -> subQueryCache.invalidate( table ) );
     }
 
     /**
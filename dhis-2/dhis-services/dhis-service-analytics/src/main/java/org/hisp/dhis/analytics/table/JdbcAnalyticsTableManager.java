@@ -116,7 +116,12 @@ public class JdbcAnalyticsTableManager
     @Transactional
     public List<AnalyticsTable> getAnalyticsTables( AnalyticsTableUpdateParams params )
     {
-        AnalyticsTable table = getAnalyticsTable( getDataYears( params.getFromDate() ), getDimensionColumns(), getValueColumns() );
+        AnalyticsTable table = getAnalyticsTable( getDataYears( params ), getDimensionColumns(), getValueColumns() );
+
+        if ( params.isIncrementalUpdate() )
+        {
+            retainIncrementalPartitions( params, table );
+        }
 
         return table.hasPartitionTables() ? newArrayList( table ) : newArrayList();
     }
@@ -151,6 +156,12 @@ public class JdbcAnalyticsTableManager
         }
     }
 
+    @Override
+    public boolean supportsIncrementalUpdate()
+    {
+        return true;
+    }
+
     @Override
     protected List<String> getPartitionChecks( AnalyticsTablePartition partition )
     {
@@ -246,6 +257,11 @@ public class JdbcAnalyticsTableManager
             "and dv.value is not null " +
             "and dv.deleted is false ";
 
+        if ( params.isIncrementalUpdate() )
+        {
+            sql += "and " + getChangedDataCondition( params, "dv.lastupdated" );
+        }
+
         if ( respectStartEndDates )
         {
             sql +=
@@ -263,6 +279,29 @@ public class JdbcAnalyticsTableManager
         invokeTimeAndLog( sql, String.format( "Populate %s %s", tableName, valueTypes ) );
     }
 
+    /**
+     * Data values are identified in the analytics table by their data element,
+     * period, organisation unit, category option combo and attribute option
+     * combo, none of which can change for an existing data value.
+     */
+    @Override
+    protected String getChangedRowsDeleteSql( AnalyticsTableUpdateParams params, AnalyticsTablePartition partition )
+    {
+        return
+            "delete from " + partition.getTableName() + " ax using (" +
+                "select de.uid as dx, co.uid as co, ao.uid as ao, ps.iso as pe, ou.uid as ou " +
+                "from datavalue dv " +
+                "inner join _periodstructure ps on dv.periodid=ps.periodid " +
+                "inner join dataelement de on dv.dataelementid=de.dataelementid " +
+                "inner join organisationunit ou on dv.sourceid=ou.organisationunitid " +
+                "inner join categoryoptioncombo co on dv.categoryoptioncomboid=co.categoryoptioncomboid " +
+                "inner join categoryoptioncombo ao on dv.attributeoptioncomboid=ao.categoryoptioncomboid " +
+                "where ps.year = " + partition.getYear() + " " +
+                "and " + getChangedDataCondition( params, "dv.lastupdated" ) +
+            ") dvc " +
+            "where ax.dx=dvc.dx and ax.pe=dvc.pe and ax.ou=dvc.ou and ax.co=dvc.co and ax.ao=dvc.ao";
+    }
+
     /**
      * Returns sub-query for approval level. First looks for approval level in
      * data element resource table which will indicate level 0 (highest) if approval
@@ -393,8 +432,10 @@ public class JdbcAnalyticsTableManager
             new AnalyticsTableColumn( quote( "textvalue" ), TEXT, "textvalue" ) );
     }
 
-    private List<Integer> getDataYears( Date earliest )
+    private List<Integer> getDataYears( AnalyticsTableUpdateParams params )
     {
+        Date earliest = params.getFromDate();
+
         String sql =
             "select distinct(extract(year from pe.startdate)) " +
             "from datavalue dv " +
@@ -403,7 +444,12 @@ public class JdbcAnalyticsTableManager
 
         if ( earliest != null )
         {
-            sql += "and pe.startdate >= '" + DateUtils.getMediumDateString( earliest ) + "'";
+            sql += "and pe.startdate >= '" + DateUtils.getMediumDateString( earliest ) + "' ";
+        }
+
+        if ( params.isIncrementalUpdate() )
+        {
+            sql += "and " + getChangedDataCondition( params, "dv.lastupdated" );
         }
 
         return jdbcTemplate.queryForList( sql, Integer.class );
@@ -98,7 +98,7 @@ public class JdbcEventAnalyticsTableManager
 
         for ( Program program : programs )
         {
-            List<Integer> dataYears = getDataYears( program, earliest );
+            List<Integer> dataYears = getDataYears( params, program, earliest );
 
             Collections.sort( dataYears );
 
@@ -109,6 +109,11 @@ public class JdbcEventAnalyticsTableManager
                 table.addPartitionTable( year, PartitionUtils.getStartDate( calendar, year ), PartitionUtils.getEndDate( calendar, year ) );
             }
 
+            if ( params.isIncrementalUpdate() )
+            {
+                retainIncrementalPartitions( params, table );
+            }
+
             if ( table.hasPartitionTables() )
             {
                 tables.add( table );
@@ -118,6 +123,12 @@ public class JdbcEventAnalyticsTableManager
         return tables;
     }
 
+    @Override
+    public boolean supportsIncrementalUpdate()
+    {
+        return true;
+    }
+
     @Override
     protected List<String> getPartitionChecks( AnalyticsTablePartition partition )
     {
@@ -175,9 +186,38 @@ public class JdbcEventAnalyticsTableManager
             "and psi.executiondate is not null " +
             "and psi.deleted is false ";
 
+        if ( params.isIncrementalUpdate() )
+        {
+            sql += "and " + getChangedDataCondition( params, "psi.lastupdated" );
+        }
+
         invokeTimeAndLog( sql, String.format( "Populate %s", tableName ) );
     }
 
+    /**
+     * Deletes through the master table, as the execution date of a changed
+     * event might have moved it out of the partition it was last written to.
+     */
+    @Override
+    protected String getChangedRowsDeleteSql( AnalyticsTableUpdateParams params, AnalyticsTablePartition partition )
+    {
+        final Program program = partition.getMasterTable().getProgram();
+        final String start = DateUtils.getMediumDateString( partition.getStartDate() );
+        final String end = DateUtils.getMediumDateString( partition.getEndDate() );
+
+        return
+            "delete from " + partition.getMasterTable().getTableName() + " " +
+            "where psi in (" +
+                "select psi.uid " +
+                "from programstageinstance psi " +
+                "inner join programinstance pi on psi.programinstanceid=pi.programinstanceid " +
+                "where pi.programid=" + program.getId() + " " +
+                "and psi.executiondate >= '" + start + "' " +
+                "and psi.executiondate < '" + end + "' " +
+                "and " + getChangedDataCondition( params, "psi.lastupdated" ) +
+            ")";
+    }
+
     private List<AnalyticsTableColumn> getDimensionColumns( Program program )
     {
         final String numericClause = " and value " + statementBuilder.getRegexpMatch() + " '" + NUMERIC_LENIENT_REGEXP + "'";
@@ -347,15 +387,23 @@ public class JdbcEventAnalyticsTableManager
         return "";
     }
 
-    private List<Integer> getDataYears( Program program, Date earliest )
+    private List<Integer> getDataYears( AnalyticsTableUpdateParams params, Program program, Date earliest )
     {
         String sql =
             "select distinct(extract(year from psi.executiondate)) " +
             "from programstageinstance psi " +
             "inner join programinstance pi on psi.programinstanceid = pi.programinstanceid " +
             "where pi.programid = " + program.getId() + " " +
-            "and psi.executiondate is not null " +
-            "and psi.deleted is false ";
+            "and psi.executiondate is not null ";
+
+        if ( params.isIncrementalUpdate() )
+        {
+            sql += "and " + getChangedDataCondition( params, "psi.lastupdated" );
+        }
+        else
+        {
+            sql += "and psi.deleted is false ";
+        }
 
         if ( earliest != null )
         {
@@ -65,6 +65,7 @@ public class AnalyticsTableJob
             .withJobId( jobConfiguration )
             .withSkipTableTypes( parameters.getSkipTableTypes() )
             .withSkipResourceTables( parameters.isSkipResourceTables() )
+            .withIncremental( parameters.isIncremental() )
             .build();
 
         analyticsTableGenerator.generateTables( params );
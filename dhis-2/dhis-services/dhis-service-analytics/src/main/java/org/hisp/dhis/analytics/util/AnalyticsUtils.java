@@ -46,11 +46,14 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 import org.apache.commons.lang3.ObjectUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.math3.util.Precision;
 import org.hisp.dhis.analytics.DataQueryParams;
+import org.hisp.dhis.analytics.DimensionItemDictionary;
+import org.hisp.dhis.analytics.DimensionKey;
 import org.hisp.dhis.api.util.DateUtils;
 import org.hisp.dhis.calendar.Calendar;
 import org.hisp.dhis.calendar.DateTimeUnit;
@@ -251,54 +254,66 @@ public class AnalyticsUtils
     }
 
     /**
-     * Converts the data and option combo identifiers to an operand identifier,
-     * i.e. {@code deuid-cocuid} to {@code deuid.cocuid}. For {@link TotalType#AOC_ONLY}
-     * a {@link ExpressionService#SYMBOL_WILDCARD} symbol will be inserted after the data
-     * item.
+     * Converts the data and option combo ordinals of the given keys to the
+     * ordinal of the operand identifier, i.e. {@code deuid-cocuid} to
+     * {@code deuid.cocuid}. For {@link TotalType#AOC_ONLY} a
+     * {@link ExpressionService#SYMBOL_WILDCARD} symbol will be inserted after
+     * the data item. Operand identifiers are interned in the given dictionary
+     * once per distinct combination of data and option combo ordinals.
      *
      * @param valueMap the value map to convert.
      * @param totalType the {@link TotalType}.
+     * @param dictionary the {@link DimensionItemDictionary} of the map keys.
      * @return a value map.
      */
-    public static <T> Map<String, T> convertDxToOperand( Map<String, T> valueMap, TotalType totalType )
+    public static <T> Map<DimensionKey, T> convertDxToOperand( Map<DimensionKey, T> valueMap, TotalType totalType, DimensionItemDictionary dictionary )
     {
-        Map<String, T> map = Maps.newHashMap();
+        Map<DimensionKey, T> map = Maps.newHashMap();
+        Map<List<Integer>, Integer> operandOrdinals = new HashMap<>();
 
-        for ( Entry<String, T> entry : valueMap.entrySet() )
+        int operandSize = totalType.getPropertyCount() + 1;
+
+        for ( Entry<DimensionKey, T> entry : valueMap.entrySet() )
         {
-            List<String> items = Lists.newArrayList( entry.getKey().split( DimensionalObject.DIMENSION_SEP ) );
-            List<String> operands = Lists.newArrayList( items.subList( 0, totalType.getPropertyCount() + 1 ) );
-            List<String> dimensions = Lists.newArrayList( items.subList( totalType.getPropertyCount() + 1, items.size() ) );
+            DimensionKey key = entry.getKey();
 
-            // Add wild card in place of category option combination
+            List<Integer> operandKey = new ArrayList<>( operandSize );
 
-            if ( TotalType.AOC_ONLY == totalType )
+            for ( int i = 0; i < operandSize; i++ )
             {
-                operands.add( 1, SYMBOL_WILDCARD );
+                operandKey.add( key.getOrdinal( i ) );
             }
 
-            String operand = StringUtils.join( operands, DimensionalObjectUtils.COMPOSITE_DIM_OBJECT_PLAIN_SEP );
-            String dimension = StringUtils.join( dimensions, DimensionalObject.DIMENSION_SEP );
-            dimension = !dimension.isEmpty() ? ( DimensionalObject.DIMENSION_SEP + dimension ) : StringUtils.EMPTY;
-            String key = operand + dimension;
+            Integer operandOrdinal = operandOrdinals.computeIfAbsent( operandKey, k -> {
+                List<String> operands = k.stream().map( dictionary::getItem ).collect( Collectors.toCollection( ArrayList::new ) );
+
+                // Add wild card in place of category option combination
+
+                if ( TotalType.AOC_ONLY == totalType )
+                {
+                    operands.add( 1, SYMBOL_WILDCARD );
+                }
+
+                return dictionary.getOrdinal( StringUtils.join( operands, DimensionalObjectUtils.COMPOSITE_DIM_OBJECT_PLAIN_SEP ) );
+            } );
 
-            map.put( key, entry.getValue() );
+            map.put( key.withOrdinalRange( 0, operandSize, operandOrdinal ), entry.getValue() );
         }
 
         return map;
     }
 
     /**
-     * Converts a String, Object map into a specific String, Double map.
+     * Converts an Object valued map into a specific Double valued map.
      *
      * @param map the map to convert.
-     * @return a mapping between string and double values.
+     * @return a mapping between keys and double values.
      */
-    public static Map<String, Double> getDoubleMap( Map<String, Object> map )
+    public static <K> Map<K, Double> getDoubleMap( Map<K, Object> map )
     {
-        Map<String, Double> typedMap = new HashMap<>();
+        Map<K, Double> typedMap = new HashMap<>();
 
-        for ( Map.Entry<String, Object> entry : map.entrySet() )
+        for ( Map.Entry<K, Object> entry : map.entrySet() )
         {
             final Object value = entry.getValue();
 
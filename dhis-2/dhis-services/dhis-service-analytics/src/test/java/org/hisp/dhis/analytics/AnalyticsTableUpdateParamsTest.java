@@ -0,0 +1,95 @@
+package org.hisp.dhis.analytics;
+
+/*
+ * Copyright (c) 2004-2018, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import org.junit.Test;
+
+import com.google.common.collect.Sets;
+
+import java.util.Date;
+
+import static org.junit.Assert.*;
+
+public class AnalyticsTableUpdateParamsTest
+{
+    @Test
+    public void testIsIncrementalUpdate()
+    {
+        AnalyticsTableUpdateParams paramsA = AnalyticsTableUpdateParams.newBuilder()
+            .withIncremental( true )
+            .build();
+
+        AnalyticsTableUpdateParams paramsB = AnalyticsTableUpdateParams.newBuilder()
+            .withIncremental( true )
+            .withLastSuccessfulUpdate( new Date() )
+            .build();
+
+        AnalyticsTableUpdateParams paramsC = AnalyticsTableUpdateParams.newBuilder()
+            .withLastSuccessfulUpdate( new Date() )
+            .build();
+
+        assertFalse( paramsA.isIncrementalUpdate() );
+        assertTrue( paramsB.isIncrementalUpdate() );
+        assertFalse( paramsC.isIncrementalUpdate() );
+    }
+
+    @Test
+    public void testNewBuilderFromParams()
+    {
+        Date lastSuccessfulUpdate = new Date();
+
+        AnalyticsTableUpdateParams paramsA = AnalyticsTableUpdateParams.newBuilder()
+            .withLastYears( 2 )
+            .withIncremental( true )
+            .withSkipTableTypes( Sets.newHashSet( AnalyticsTableType.ENROLLMENT ) )
+            .build();
+
+        AnalyticsTableUpdateParams paramsB = AnalyticsTableUpdateParams.newBuilder( paramsA )
+            .withLastSuccessfulUpdate( lastSuccessfulUpdate )
+            .build();
+
+        assertNotSame( paramsA, paramsB );
+        assertNull( paramsA.getLastSuccessfulUpdate() );
+        assertEquals( lastSuccessfulUpdate, paramsB.getLastSuccessfulUpdate() );
+        assertEquals( Integer.valueOf( 2 ), paramsB.getLastYears() );
+        assertTrue( paramsB.isIncremental() );
+        assertEquals( paramsA.getStartTime(), paramsB.getStartTime() );
+        assertEquals( Sets.newHashSet( AnalyticsTableType.ENROLLMENT ), paramsB.getSkipTableTypes() );
+    }
+
+    @Test
+    public void testNewBuilderFromParamsWithoutSkipTableTypes()
+    {
+        AnalyticsTableUpdateParams paramsA = AnalyticsTableUpdateParams.newBuilder().build();
+
+        AnalyticsTableUpdateParams paramsB = AnalyticsTableUpdateParams.newBuilder( paramsA ).build();
+
+        assertNull( paramsB.getSkipTableTypes() );
+    }
+}
@@ -0,0 +1,102 @@
+package org.hisp.dhis.analytics;
+
+/*
+ * Copyright (c) 2004-2018, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+public class DimensionItemDictionaryTest
+{
+    @Test
+    public void testGetOrdinal()
+    {
+        DimensionItemDictionary dictionary = new DimensionItemDictionary();
+
+        int a = dictionary.getOrdinal( "fbfJHSPpUQD" );
+        int b = dictionary.getOrdinal( "201801" );
+
+        assertNotEquals( a, b );
+        assertEquals( a, dictionary.getOrdinal( "fbfJHSPpUQD" ) );
+        assertEquals( "fbfJHSPpUQD", dictionary.getItem( a ) );
+        assertEquals( "201801", dictionary.getItem( b ) );
+        assertEquals( "null", dictionary.getItem( dictionary.getOrdinal( null ) ) );
+        assertEquals( 3, dictionary.size() );
+    }
+
+    @Test
+    public void testGetDimensionKey()
+    {
+        DimensionItemDictionary dictionary = new DimensionItemDictionary();
+
+        DimensionKey keyA = dictionary.getDimensionKey( "fbfJHSPpUQD-201801-ImspTQPwCqd" );
+        DimensionKey keyB = dictionary.getDimensionKey( "fbfJHSPpUQD-201801-ImspTQPwCqd" );
+        DimensionKey keyC = dictionary.getDimensionKey( "fbfJHSPpUQD-201802-ImspTQPwCqd" );
+
+        assertEquals( keyA, keyB );
+        assertEquals( keyA.hashCode(), keyB.hashCode() );
+        assertNotEquals( keyA, keyC );
+        assertEquals( 3, keyA.size() );
+        assertArrayEquals( new String[] { "fbfJHSPpUQD", "201801", "ImspTQPwCqd" }, dictionary.getItems( keyA ) );
+        assertEquals( "fbfJHSPpUQD-201802-ImspTQPwCqd", dictionary.getKey( keyC ) );
+    }
+
+    @Test
+    public void testWithOrdinal()
+    {
+        DimensionItemDictionary dictionary = new DimensionItemDictionary();
+
+        DimensionKey key = dictionary.getDimensionKey( "fbfJHSPpUQD-201801-ImspTQPwCqd" );
+
+        assertEquals( "fbfJHSPpUQD-2018Q1-ImspTQPwCqd", dictionary.getKey( key.withOrdinal( 1, dictionary.getOrdinal( "2018Q1" ) ) ) );
+        assertEquals( "fbfJHSPpUQD.201801-ImspTQPwCqd", dictionary.getKey( key.withOrdinalRange( 0, 2, dictionary.getOrdinal( "fbfJHSPpUQD.201801" ) ) ) );
+        assertEquals( "fbfJHSPpUQD-201801-ImspTQPwCqd", dictionary.getKey( key ) );
+    }
+
+    @Test
+    public void testGetStringKeyMap()
+    {
+        DimensionItemDictionary dictionary = new DimensionItemDictionary();
+
+        Map<DimensionKey, Object> map = new HashMap<>();
+        map.put( dictionary.getDimensionKey( "fbfJHSPpUQD-201801" ), 1d );
+        map.put( dictionary.getDimensionKey( "fbfJHSPpUQD-201802" ), 2d );
+
+        Map<String, Object> stringKeyMap = dictionary.getStringKeyMap( map );
+
+        assertEquals( 2, stringKeyMap.size() );
+        assertEquals( 1d, stringKeyMap.get( "fbfJHSPpUQD-201801" ) );
+        assertEquals( 2d, stringKeyMap.get( "fbfJHSPpUQD-201802" ) );
+    }
+}
@@ -0,0 +1,218 @@
+package org.hisp.dhis.analytics.cache;
+
+/*
+ * Copyright (c) 2004-2018, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.hisp.dhis.analytics.AnalyticsTable;
+import org.hisp.dhis.analytics.AnalyticsTableType;
+import org.hisp.dhis.analytics.DimensionItemDictionary;
+import org.hisp.dhis.analytics.DimensionKey;
+import org.hisp.dhis.cache.Cache;
+import org.hisp.dhis.cache.CacheBuilder;
+import org.hisp.dhis.cache.CacheProvider;
+import org.hisp.dhis.external.conf.ConfigurationKey;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.core.env.Environment;
+
+import com.google.common.collect.Lists;
+
+@RunWith( MockitoJUnitRunner.Silent.class )
+public class DefaultSubQueryCacheTest
+{
+    @Mock
+    private DhisConfigurationProvider dhisConfig;
+
+    @Mock
+    private CacheProvider cacheProvider;
+
+    @Mock
+    private Environment environment;
+
+    private DefaultSubQueryCache subQueryCache;
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private final Map<String, Cache<?>> caches = new HashMap<>();
+
+    @Before
+    public void setUp()
+    {
+        when( dhisConfig.getAnalyticsCacheExpiration() ).thenReturn( 3600L );
+        when( dhisConfig.getProperty( ConfigurationKey.REDIS_ENABLED ) ).thenReturn( "false" );
+        when( environment.getActiveProfiles() ).thenReturn( new String[0] );
+        when( cacheProvider.newCacheBuilder( any() ) ).thenAnswer( invocation -> new SharedCacheBuilder<>() );
+
+        subQueryCache = newSubQueryCache();
+    }
+
+    @Test
+    public void testGetFromCacheWithOtherDictionary()
+    {
+        DimensionItemDictionary dictionaryA = new DimensionItemDictionary();
+        DimensionItemDictionary dictionaryB = new DimensionItemDictionary();
+
+        dictionaryB.getOrdinal( "padding" );
+
+        List<String> tables = Lists.newArrayList( "analytics_2018" );
+
+        Map<DimensionKey, Object> mapA = subQueryCache.get( "keyA", tables, dictionaryA, () -> load( dictionaryA ) );
+        Map<DimensionKey, Object> mapB = subQueryCache.get( "keyA", tables, dictionaryB, () -> load( dictionaryB ) );
+
+        assertEquals( 1, loads.get() );
+        assertNotSame( mapA, mapB );
+        assertEquals( dictionaryA.getStringKeyMap( mapA ), dictionaryB.getStringKeyMap( mapB ) );
+        assertEquals( 1, subQueryCache.getHitCount() );
+        assertEquals( 1, subQueryCache.getMissCount() );
+        assertEquals( 0.5, subQueryCache.getHitRatio(), 0.001 );
+    }
+
+    @Test
+    public void testInvalidatePartition()
+    {
+        DimensionItemDictionary dictionary = new DimensionItemDictionary();
+
+        List<String> tables2017 = Lists.newArrayList( "analytics_2017" );
+        List<String> tables2018 = Lists.newArrayList( "analytics_2018" );
+        List<String> tablesMaster = Lists.newArrayList( "analytics" );
+
+        subQueryCache.get( "keyA", tables2017, dictionary, () -> load( dictionary ) );
+        subQueryCache.get( "keyB", tables2018, dictionary, () -> load( dictionary ) );
+        subQueryCache.get( "keyC", tablesMaster, dictionary, () -> load( dictionary ) );
+
+        assertEquals( 3, loads.get() );
+
+        AnalyticsTable table = new AnalyticsTable( AnalyticsTableType.DATA_VALUE, Lists.newArrayList(), Lists.newArrayList() );
+        table.addPartitionTable( 2018, null, null );
+
+        subQueryCache.invalidate( table );
+
+        subQueryCache.get( "keyA", tables2017, dictionary, () -> load( dictionary ) );
+        subQueryCache.get( "keyB", tables2018, dictionary, () -> load( dictionary ) );
+        subQueryCache.get( "keyC", tablesMaster, dictionary, () -> load( dictionary ) );
+
+        assertEquals( 5, loads.get() );
+    }
+
+    @Test
+    public void testTableVersionsAreShared()
+    {
+        DimensionItemDictionary dictionary = new DimensionItemDictionary();
+
+        List<String> tables = Lists.newArrayList( "analytics_2018" );
+
+        subQueryCache.get( "keyA", tables, dictionary, () -> load( dictionary ) );
+
+        // Another node, or this node after a restart, reading the same store
+
+        DefaultSubQueryCache otherSubQueryCache = newSubQueryCache();
+
+        otherSubQueryCache.get( "keyA", tables, dictionary, () -> load( dictionary ) );
+
+        assertEquals( 1, loads.get() );
+
+        AnalyticsTable table = new AnalyticsTable( AnalyticsTableType.DATA_VALUE, Lists.newArrayList(), Lists.newArrayList() );
+        table.addPartitionTable( 2018, null, null );
+
+        subQueryCache.invalidate( table );
+
+        otherSubQueryCache.get( "keyA", tables, dictionary, () -> load( dictionary ) );
+
+        assertEquals( 2, loads.get() );
+    }
+
+    @Test
+    public void testInvalidateAll()
+    {
+        DimensionItemDictionary dictionary = new DimensionItemDictionary();
+
+        List<String> tables = Lists.newArrayList( "analytics_2018" );
+
+        subQueryCache.get( "keyA", tables, dictionary, () -> load( dictionary ) );
+        subQueryCache.get( "keyA", tables, dictionary, () -> load( dictionary ) );
+
+        assertEquals( 1, loads.get() );
+
+        newSubQueryCache().invalidateAll();
+
+        subQueryCache.get( "keyA", tables, dictionary, () -> load( dictionary ) );
+
+        assertEquals( 2, loads.get() );
+    }
+
+    private DefaultSubQueryCache newSubQueryCache()
+    {
+        DefaultSubQueryCache cache = new DefaultSubQueryCache( dhisConfig, cacheProvider, environment );
+        cache.init();
+        return cache;
+    }
+
+    private Map<DimensionKey, Object> load( DimensionItemDictionary dictionary )
+    {
+        loads.incrementAndGet();
+
+        Map<DimensionKey, Object> map = new HashMap<>();
+        map.put( dictionary.getDimensionKey( "deabcdefghA-2018-ouabcdefghA" ), 12d );
+        map.put( dictionary.getDimensionKey( "deabcdefghB-2018-ouabcdefghA" ), 7d );
+        return map;
+    }
+
+    /**
+     * Builder returning the same cache instance for a region, which stands in
+     * for a store shared by several nodes.
+     */
+    private class SharedCacheBuilder<V>
+        extends CacheBuilder<V>
+    {
+        SharedCacheBuilder()
+        {
+            super( null, dhisConfig );
+        }
+
+        @Override
+        @SuppressWarnings( "unchecked" )
+        public Cache<V> build()
+        {
+            return (Cache<V>) caches.computeIfAbsent( getRegion(), region -> super.build() );
+        }
+    }
+}
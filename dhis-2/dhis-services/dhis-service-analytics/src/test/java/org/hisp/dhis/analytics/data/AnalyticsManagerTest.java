@@ -43,6 +43,8 @@ import org.hisp.dhis.analytics.AnalyticsAggregationType;
 import org.hisp.dhis.analytics.AnalyticsManager;
 import org.hisp.dhis.analytics.DataQueryParams;
 import org.hisp.dhis.analytics.DataType;
+import org.hisp.dhis.analytics.DimensionItemDictionary;
+import org.hisp.dhis.analytics.DimensionKey;
 import org.hisp.dhis.common.DimensionalItemObject;
 import org.hisp.dhis.common.ListMap;
 import org.hisp.dhis.period.Period;
@@ -95,9 +97,11 @@ public class AnalyticsManagerTest
             Period y2018 = createPeriod( "2018" );
             Period finYear2017 = createPeriod( financialYear );
 
-            Map<String, Object> dataValueMap = new HashMap<>();
-            dataValueMap.put( BASE_UID + "-2018", 1.0 );
-            dataValueMap.put( BASE_UID + "-2017", 154.0 );
+            DimensionItemDictionary dictionary = new DimensionItemDictionary();
+
+            Map<DimensionKey, Object> dataValueMap = new HashMap<>();
+            dataValueMap.put( dictionary.getDimensionKey( BASE_UID + "-2018" ), 1.0 );
+            dataValueMap.put( dictionary.getDimensionKey( BASE_UID + "-2017" ), 154.0 );
 
             ListMap<DimensionalItemObject, DimensionalItemObject> dataPeriodAggregationPeriodMap = new ListMap<>();
             dataPeriodAggregationPeriodMap.putValue( y2017, finYear2017 );
@@ -110,11 +114,11 @@ public class AnalyticsManagerTest
                 .withAggregationType( aggregationType ).build();
 
 
-            analyticsManager.replaceDataPeriodsWithAggregationPeriods( dataValueMap, params, dataPeriodAggregationPeriodMap );
+            analyticsManager.replaceDataPeriodsWithAggregationPeriods( dataValueMap, params, dataPeriodAggregationPeriodMap, dictionary );
 
             assertEquals( 1, dataValueMap.size() );
 
-            assertThat( dataValueMap.get( BASE_UID + "-" + finYear2017.getIsoDate() ), is( weightedAverage ) );
+            assertThat( dictionary.getStringKeyMap( dataValueMap ).get( BASE_UID + "-" + finYear2017.getIsoDate() ), is( weightedAverage ) );
         }
     }
 
@@ -136,9 +140,11 @@ public class AnalyticsManagerTest
                 .withDataPeriodType( new YearlyPeriodType() )
                 .withAggregationType( aggregationType ).build();
 
-            Map<String, Object> dataValueMap = new HashMap<>();
-            dataValueMap.put( BASE_UID + "A-2012-" + BASE_UID + "A", 1d );
-            dataValueMap.put( BASE_UID + "B-2012-" + BASE_UID + "A", 1d );
+            DimensionItemDictionary dictionary = new DimensionItemDictionary();
+
+            Map<DimensionKey, Object> dataValueMap = new HashMap<>();
+            dataValueMap.put( dictionary.getDimensionKey( BASE_UID + "A-2012-" + BASE_UID + "A" ), 1d );
+            dataValueMap.put( dictionary.getDimensionKey( BASE_UID + "B-2012-" + BASE_UID + "A" ), 1d );
 
             ListMap<DimensionalItemObject, DimensionalItemObject> dataPeriodAggregationPeriodMap = new ListMap<>();
             dataPeriodAggregationPeriodMap.putValue( y2012, createPeriod( "2012Q1" ) );
@@ -146,18 +152,20 @@ public class AnalyticsManagerTest
             dataPeriodAggregationPeriodMap.putValue( y2012, createPeriod( "2012Q3" ) );
             dataPeriodAggregationPeriodMap.putValue( y2012, createPeriod( "2012Q4" ) );
 
-            analyticsManager.replaceDataPeriodsWithAggregationPeriods( dataValueMap, params, dataPeriodAggregationPeriodMap );
+            analyticsManager.replaceDataPeriodsWithAggregationPeriods( dataValueMap, params, dataPeriodAggregationPeriodMap, dictionary );
 
             assertEquals( 8, dataValueMap.size() );
 
-            assertTrue( dataValueMap.keySet().contains( BASE_UID + "A-2012Q1-" + BASE_UID + "A" ) );
-            assertTrue( dataValueMap.keySet().contains( BASE_UID + "A-2012Q2-" + BASE_UID + "A" ) );
-            assertTrue( dataValueMap.keySet().contains( BASE_UID + "A-2012Q3-" + BASE_UID + "A" ) );
-            assertTrue( dataValueMap.keySet().contains( BASE_UID + "A-2012Q4-" + BASE_UID + "A" ) );
-            assertTrue( dataValueMap.keySet().contains( BASE_UID + "B-2012Q1-" + BASE_UID + "A" ) );
-            assertTrue( dataValueMap.keySet().contains( BASE_UID + "B-2012Q2-" + BASE_UID + "A" ) );
-            assertTrue( dataValueMap.keySet().contains( BASE_UID + "B-2012Q3-" + BASE_UID + "A" ) );
-            assertTrue( dataValueMap.keySet().contains( BASE_UID + "B-2012Q4-" + BASE_UID + "A" ) );
+            Map<String, Object> stringKeyMap = dictionary.getStringKeyMap( dataValueMap );
+
+            assertTrue( stringKeyMap.keySet().contains( BASE_UID + "A-2012Q1-" + BASE_UID + "A" ) );
+            assertTrue( stringKeyMap.keySet().contains( BASE_UID + "A-2012Q2-" + BASE_UID + "A" ) );
+            assertTrue( stringKeyMap.keySet().contains( BASE_UID + "A-2012Q3-" + BASE_UID + "A" ) );
+            assertTrue( stringKeyMap.keySet().contains( BASE_UID + "A-2012Q4-" + BASE_UID + "A" ) );
+            assertTrue( stringKeyMap.keySet().contains( BASE_UID + "B-2012Q1-" + BASE_UID + "A" ) );
+            assertTrue( stringKeyMap.keySet().contains( BASE_UID + "B-2012Q2-" + BASE_UID + "A" ) );
+            assertTrue( stringKeyMap.keySet().contains( BASE_UID + "B-2012Q3-" + BASE_UID + "A" ) );
+            assertTrue( stringKeyMap.keySet().contains( BASE_UID + "B-2012Q4-" + BASE_UID + "A" ) );
         }
     }
 }
@@ -28,6 +28,10 @@
 
 package org.hisp.dhis.analytics.data;
 
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
 import org.hisp.dhis.analytics.*;
 import org.hisp.dhis.analytics.event.EventAnalyticsService;
 import org.hisp.dhis.cache.CacheProvider;
@@ -41,6 +45,7 @@ import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.Spy;
+import org.mockito.stubbing.Answer;
 import org.mockito.junit.MockitoJUnitRunner;
 import org.springframework.core.env.Environment;
 
@@ -65,7 +70,7 @@ public abstract class AnalyticsServiceBaseTest {
     private AnalyticsSecurityManager securityManager;
 
     @Mock
-    private QueryPlanner queryPlanner;
+    protected QueryPlanner queryPlanner;
 
     @Spy
     private DefaultQueryValidator queryValidator;
@@ -80,7 +85,7 @@ public abstract class AnalyticsServiceBaseTest {
     private OrganisationUnitService organisationUnitService;
 
     @Mock
-    private SystemSettingManager systemSettingManager;
+    protected SystemSettingManager systemSettingManager;
 
     @Mock
     private EventAnalyticsService eventAnalyticsService;
@@ -103,8 +108,9 @@ public abstract class AnalyticsServiceBaseTest {
     public void baseSetUp()
     {
         target = new DefaultAnalyticsService( analyticsManager, rawAnalyticsManager, securityManager, queryPlanner,
-                queryValidator, constantService, expressionService, organisationUnitService, systemSettingManager,
-                eventAnalyticsService, dataQueryService, dhisConfig, cacheProvider, environment );
+                queryValidator, new DefaultQueryAdmissionController( systemSettingManager ), constantService,
+                expressionService, organisationUnitService, systemSettingManager, eventAnalyticsService,
+                dataQueryService, dhisConfig, cacheProvider, environment );
 
         doNothing().when( queryValidator ).validateMaintenanceMode();
         when( dhisConfig.getAnalyticsCacheExpiration() ).thenReturn( 0L );
@@ -118,4 +124,20 @@ public abstract class AnalyticsServiceBaseTest {
         when( queryPlanner.planQuery( any( DataQueryParams.class ), any( QueryPlannerParams.class ) ) ).thenReturn(
                 DataQueryGroups.newBuilder().withQueries( newArrayList( DataQueryParams.newBuilder().build() ) ).build() );
     }
+
+    /**
+     * Returns an answer for {@link AnalyticsManager#getAggregatedDataValues} which
+     * interns the given string keyed values in the dictionary passed to the manager.
+     */
+    Answer<CompletableFuture<Map<DimensionKey, Object>>> aggregatedValues( Map<String, Object> values )
+    {
+        return invocation -> {
+            DimensionItemDictionary dictionary = invocation.getArgument( 3 );
+
+            Map<DimensionKey, Object> map = new HashMap<>();
+            values.forEach( ( key, value ) -> map.put( dictionary.getDimensionKey( key ), value ) );
+
+            return CompletableFuture.completedFuture( map );
+        };
+    }
 }
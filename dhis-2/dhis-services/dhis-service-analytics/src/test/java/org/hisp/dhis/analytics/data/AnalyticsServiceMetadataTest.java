@@ -32,6 +32,8 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
 import org.hisp.dhis.analytics.AnalyticsTableType;
 import org.hisp.dhis.analytics.DataQueryParams;
+import org.hisp.dhis.analytics.DimensionItemDictionary;
+import org.hisp.dhis.analytics.DimensionKey;
 import org.hisp.dhis.category.CategoryCombo;
 import org.hisp.dhis.common.*;
 import org.hisp.dhis.dataelement.DataElementGroup;
@@ -73,9 +75,9 @@ public class AnalyticsServiceMetadataTest extends AnalyticsServiceBaseTest
     @Before
     public void setUp()
     {
-        Map<String, Object> aggregatedValues = new HashMap<>();
+        Map<DimensionKey, Object> aggregatedValues = new HashMap<>();
         when( analyticsManager.getAggregatedDataValues( any( DataQueryParams.class ),
-                eq( AnalyticsTableType.DATA_VALUE ), eq( 0 ) ) )
+                eq( AnalyticsTableType.DATA_VALUE ), eq( 0 ), any( DimensionItemDictionary.class ) ) )
                 .thenReturn( CompletableFuture.completedFuture( aggregatedValues ) );
     }
 
@@ -0,0 +1,150 @@
+package org.hisp.dhis.analytics.data;
+
+/*
+ * Copyright (c) 2004-2018, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import static com.google.common.collect.Lists.newArrayList;
+import static org.hisp.dhis.DhisConvenienceTest.createDataElement;
+import static org.hisp.dhis.DhisConvenienceTest.createOrganisationUnit;
+import static org.hisp.dhis.DhisConvenienceTest.createPeriod;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.hisp.dhis.analytics.AnalyticsAggregationType;
+import org.hisp.dhis.analytics.AnalyticsMetaDataKey;
+import org.hisp.dhis.analytics.AnalyticsTableType;
+import org.hisp.dhis.analytics.DataQueryGroups;
+import org.hisp.dhis.analytics.DataQueryParams;
+import org.hisp.dhis.analytics.DimensionItemDictionary;
+import org.hisp.dhis.analytics.DimensionKey;
+import org.hisp.dhis.analytics.QueryPlannerParams;
+import org.hisp.dhis.common.Grid;
+import org.hisp.dhis.dataelement.DataElement;
+import org.hisp.dhis.organisationunit.OrganisationUnit;
+import org.hisp.dhis.period.Period;
+import org.hisp.dhis.setting.SettingKey;
+import org.junit.Test;
+
+public class AnalyticsServiceQueryExecutionTest
+    extends AnalyticsServiceBaseTest
+{
+    @Test
+    @SuppressWarnings( "unchecked" )
+    public void testQueryGroupsArePipelined()
+        throws Exception
+    {
+        DataElement deA = createDataElement( 'A' );
+        DataElement deB = createDataElement( 'B' );
+        Period peA = createPeriod( "2017" );
+        OrganisationUnit ouA = createOrganisationUnit( 'A' );
+
+        DataQueryParams params = DataQueryParams.newBuilder()
+            .withDataElements( newArrayList( deA, deB ) )
+            .withPeriods( newArrayList( peA ) )
+            .withOrganisationUnits( newArrayList( ouA ) )
+            .withIgnoreLimit( true )
+            .withIncludeQueryTimings( true ).build();
+
+        initMock( params );
+
+        // Two groups, where the single query of the first group completes last
+
+        when( systemSettingManager.getSystemSetting( SettingKey.DATABASE_SERVER_CPUS ) ).thenReturn( 3 );
+        when( queryPlanner.planQuery( any( DataQueryParams.class ), any( QueryPlannerParams.class ) ) ).thenReturn(
+            DataQueryGroups.newBuilder().withQueries( newArrayList(
+                DataQueryParams.newBuilder().withAggregationType( AnalyticsAggregationType.SUM ).build(),
+                DataQueryParams.newBuilder().withAggregationType( AnalyticsAggregationType.AVERAGE ).build(),
+                DataQueryParams.newBuilder().withAggregationType( AnalyticsAggregationType.AVERAGE ).build() ) ).build() );
+
+        CompletableFuture<Map<DimensionKey, Object>> sumQuery = new CompletableFuture<>();
+        AtomicInteger invocations = new AtomicInteger();
+        CountDownLatch allStarted = new CountDownLatch( 3 );
+
+        when( analyticsManager.getAggregatedDataValues( any( DataQueryParams.class ),
+            eq( AnalyticsTableType.DATA_VALUE ), eq( 0 ), any( DimensionItemDictionary.class ) ) ).thenAnswer( invocation -> {
+                DataQueryParams query = invocation.getArgument( 0 );
+                DimensionItemDictionary dictionary = invocation.getArgument( 3 );
+
+                invocations.incrementAndGet();
+                allStarted.countDown();
+
+                if ( AnalyticsAggregationType.SUM.equals( query.getAggregationType() ) )
+                {
+                    return sumQuery.thenApply( values -> {
+                        Map<DimensionKey, Object> map = new HashMap<>();
+                        map.put( dictionary.getDimensionKey( deA.getUid() + "-2017-" + ouA.getUid() ), 3d );
+                        return map;
+                    } );
+                }
+
+                Map<DimensionKey, Object> map = new HashMap<>();
+                map.put( dictionary.getDimensionKey( deB.getUid() + "-2017-" + ouA.getUid() ), 5d );
+                return CompletableFuture.completedFuture( map );
+            } );
+
+        AtomicBoolean startedBeforeCompletion = new AtomicBoolean();
+
+        Thread completer = new Thread( () -> {
+            try
+            {
+                startedBeforeCompletion.set( allStarted.await( 5, TimeUnit.SECONDS ) );
+            }
+            catch ( InterruptedException ignored )
+            {
+            }
+
+            sumQuery.complete( new HashMap<>() );
+        } );
+
+        completer.start();
+
+        Grid grid = target.getAggregatedDataValues( params );
+
+        completer.join();
+
+        assertTrue( startedBeforeCompletion.get() );
+        assertEquals( 3, invocations.get() );
+        assertEquals( 2, grid.getHeight() );
+
+        List<Map<String, Object>> timings = (List<Map<String, Object>>) grid.getMetaData().get( AnalyticsMetaDataKey.QUERY_TIMINGS.getKey() );
+
+        assertEquals( 3, timings.size() );
+    }
+}
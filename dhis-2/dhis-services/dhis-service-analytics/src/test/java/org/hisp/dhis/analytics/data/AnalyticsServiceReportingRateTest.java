@@ -30,6 +30,7 @@ package org.hisp.dhis.analytics.data;
 
 import org.hisp.dhis.analytics.AnalyticsTableType;
 import org.hisp.dhis.analytics.DataQueryParams;
+import org.hisp.dhis.analytics.DimensionItemDictionary;
 import org.hisp.dhis.common.*;
 import org.hisp.dhis.dataset.DataSet;
 import org.hisp.dhis.organisationunit.OrganisationUnit;
@@ -38,7 +39,6 @@ import org.joda.time.DateTime;
 import org.junit.Test;
 
 import java.util.*;
-import java.util.concurrent.CompletableFuture;
 import java.util.stream.Stream;
 
 import static com.google.common.collect.Lists.newArrayList;
@@ -87,15 +87,15 @@ public class AnalyticsServiceReportingRateTest extends AnalyticsServiceBaseTest
         actualReports.put( dataSetA.getUid() + "-" + ou.getUid(), 500D );
 
         when( analyticsManager.getAggregatedDataValues( any( DataQueryParams.class ),
-            eq( AnalyticsTableType.COMPLETENESS ), eq( 0 ) ) )
-                .thenReturn( CompletableFuture.completedFuture( actualReports ) );
+            eq( AnalyticsTableType.COMPLETENESS ), eq( 0 ), any( DimensionItemDictionary.class ) ) )
+                .thenAnswer( aggregatedValues( actualReports ) );
 
         Map<String, Object> reportingRate = new HashMap<>();
         reportingRate.put( dataSetA.getUid() + "-" + ou.getUid(), expectedReports );
 
         when( analyticsManager.getAggregatedDataValues( any( DataQueryParams.class ),
-            eq( AnalyticsTableType.COMPLETENESS_TARGET ), eq( 0 ) ) )
-                .thenReturn( CompletableFuture.completedFuture( reportingRate ) );
+            eq( AnalyticsTableType.COMPLETENESS_TARGET ), eq( 0 ), any( DimensionItemDictionary.class ) ) )
+                .thenAnswer( aggregatedValues( reportingRate ) );
 
         Grid grid = target.getAggregatedDataValues( params );
 
@@ -0,0 +1,255 @@
+package org.hisp.dhis.analytics.data;
+
+/*
+ * Copyright (c) 2004-2018, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.when;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import org.hisp.dhis.analytics.DataQueryParams;
+import org.hisp.dhis.analytics.QueryAdmissionController.QueryPermit;
+import org.hisp.dhis.common.IllegalQueryException;
+import org.hisp.dhis.common.QueryRejectedException;
+import org.hisp.dhis.common.QueryTimeoutException;
+import org.hisp.dhis.dataelement.DataElement;
+import org.hisp.dhis.organisationunit.OrganisationUnit;
+import org.hisp.dhis.period.PeriodType;
+import org.hisp.dhis.setting.SettingKey;
+import org.hisp.dhis.setting.SystemSettingManager;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import com.google.common.collect.Lists;
+
+@RunWith( MockitoJUnitRunner.Silent.class )
+public class DefaultQueryAdmissionControllerTest
+{
+    @Mock
+    private SystemSettingManager systemSettingManager;
+
+    private DefaultQueryAdmissionController admissionController;
+
+    private DataQueryParams query;
+
+    @Before
+    public void setUp()
+    {
+        when( systemSettingManager.getSystemSetting( SettingKey.ANALYTICS_MAX_CONCURRENT_QUERIES ) ).thenReturn( 2 );
+        when( systemSettingManager.getSystemSetting( SettingKey.ANALYTICS_MAX_CONCURRENT_QUERIES_PER_USER ) ).thenReturn( 1 );
+        when( systemSettingManager.getSystemSetting( SettingKey.ANALYTICS_MAX_QUERY_COST ) ).thenReturn( 100 );
+        when( systemSettingManager.getSystemSetting( SettingKey.ANALYTICS_MAX_QUEUED_QUERIES ) ).thenReturn( 10 );
+        when( systemSettingManager.getSystemSetting( SettingKey.ANALYTICS_MAX_QUERY_WAIT ) ).thenReturn( 60 );
+
+        admissionController = new DefaultQueryAdmissionController( systemSettingManager );
+
+        query = DataQueryParams.newBuilder()
+            .withDataElements( Lists.newArrayList( new DataElement( "A" ), new DataElement( "B" ) ) )
+            .withPeriods( Lists.newArrayList( PeriodType.getPeriodFromIsoString( "202001" ),
+                PeriodType.getPeriodFromIsoString( "202002" ), PeriodType.getPeriodFromIsoString( "202003" ) ) )
+            .withOrganisationUnits( Lists.newArrayList( new OrganisationUnit( "A" ) ) ).build();
+    }
+
+    @Test
+    public void testEstimateCost()
+    {
+        assertEquals( 6, admissionController.estimateCost( query ) );
+        assertEquals( 1, admissionController.estimateCost( DataQueryParams.newBuilder().build() ) );
+    }
+
+    @Test
+    public void testAdmitWithinLimits()
+    {
+        CompletableFuture<QueryPermit> permitA = admissionController.admit( query, "userA" );
+        CompletableFuture<QueryPermit> permitB = admissionController.admit( query, "userB" );
+
+        assertTrue( permitA.isDone() );
+        assertTrue( permitB.isDone() );
+        assertEquals( 2, admissionController.getStatistics().get( "running" ) );
+    }
+
+    @Test
+    public void testAdmitPerUserLimit()
+    {
+        CompletableFuture<QueryPermit> permitA1 = admissionController.admit( query, "userA" );
+        CompletableFuture<QueryPermit> permitA2 = admissionController.admit( query, "userA" );
+
+        assertTrue( permitA1.isDone() );
+        assertFalse( permitA2.isDone() );
+
+        permitA1.join().release();
+
+        assertTrue( permitA2.isDone() );
+    }
+
+    @Test
+    public void testAdmitFairQueue()
+    {
+        CompletableFuture<QueryPermit> permitA1 = admissionController.admit( query, "userA" );
+        CompletableFuture<QueryPermit> permitA2 = admissionController.admit( query, "userA" );
+        CompletableFuture<QueryPermit> permitB1 = admissionController.admit( query, "userB" );
+        CompletableFuture<QueryPermit> permitC1 = admissionController.admit( query, "userC" );
+
+        // Query of user B is not blocked by the waiting query of user A
+
+        assertTrue( permitA1.isDone() );
+        assertFalse( permitA2.isDone() );
+        assertTrue( permitB1.isDone() );
+        assertFalse( permitC1.isDone() );
+
+        // Waiting query of user A is still at the per-user limit, query of user C is admitted
+
+        permitB1.join().release();
+
+        assertFalse( permitA2.isDone() );
+        assertTrue( permitC1.isDone() );
+
+        permitA1.join().release();
+
+        assertTrue( permitA2.isDone() );
+    }
+
+    @Test
+    public void testReleaseIsIdempotent()
+    {
+        QueryPermit permit = admissionController.admit( query, "userA" ).join();
+
+        permit.release();
+        permit.release();
+
+        Map<String, Object> statistics = admissionController.getStatistics();
+
+        assertEquals( 0, statistics.get( "running" ) );
+        assertEquals( 1L, statistics.get( "completed" ) );
+    }
+
+    @Test( expected = IllegalQueryException.class )
+    public void testRejectOversizedQuery()
+    {
+        when( systemSettingManager.getSystemSetting( SettingKey.ANALYTICS_MAX_QUERY_COST ) ).thenReturn( 5 );
+
+        admissionController.admit( query, "userA" );
+    }
+
+    @Test( expected = QueryRejectedException.class )
+    public void testRejectWhenQueueIsFull()
+    {
+        when( systemSettingManager.getSystemSetting( SettingKey.ANALYTICS_MAX_QUEUED_QUERIES ) ).thenReturn( 1 );
+
+        admissionController.admit( query, "userA" );
+        admissionController.admit( query, "userA" );
+        admissionController.admit( query, "userA" );
+    }
+
+    @Test
+    public void testCancelRemovesFromQueue()
+    {
+        QueryPermit permitA1 = admissionController.admit( query, "userA" ).join();
+        CompletableFuture<QueryPermit> permitA2 = admissionController.admit( query, "userA" );
+
+        assertEquals( 1, admissionController.getStatistics().get( "queued" ) );
+
+        permitA2.cancel( false );
+
+        assertEquals( 0, admissionController.getStatistics().get( "queued" ) );
+
+        permitA1.release();
+
+        assertEquals( 0, admissionController.getStatistics().get( "running" ) );
+    }
+
+    @Test
+    public void testAcquire()
+    {
+        QueryPermit permit = admissionController.acquire( query, "userA" );
+
+        assertEquals( 1, admissionController.getStatistics().get( "running" ) );
+
+        permit.release();
+
+        assertEquals( 0, admissionController.getStatistics().get( "running" ) );
+    }
+
+    @Test
+    public void testAcquireTimesOut()
+    {
+        when( systemSettingManager.getSystemSetting( SettingKey.ANALYTICS_MAX_QUERY_WAIT ) ).thenReturn( 1 );
+
+        QueryPermit permit = admissionController.acquire( query, "userA" );
+
+        try
+        {
+            admissionController.acquire( query, "userA" );
+            fail( "Expected QueryTimeoutException" );
+        }
+        catch ( QueryTimeoutException ex )
+        {
+            // Expected
+        }
+
+        Map<String, Object> statistics = admissionController.getStatistics();
+
+        assertEquals( 1L, statistics.get( "timedOut" ) );
+        assertEquals( 0, statistics.get( "queued" ) );
+        assertEquals( 1, statistics.get( "running" ) );
+
+        permit.release();
+    }
+
+    @Test
+    public void testGetStatistics()
+    {
+        when( systemSettingManager.getSystemSetting( SettingKey.ANALYTICS_MAX_QUERY_COST ) ).thenReturn( 5 );
+
+        try
+        {
+            admissionController.admit( query, "userA" );
+        }
+        catch ( IllegalQueryException ex )
+        {
+            // Expected
+        }
+
+        admissionController.admit( DataQueryParams.newBuilder().build(), "userA" );
+
+        Map<String, Object> statistics = admissionController.getStatistics();
+
+        assertEquals( 1L, statistics.get( "admitted" ) );
+        assertEquals( 1L, statistics.get( "rejected" ) );
+        assertEquals( 1, statistics.get( "running" ) );
+        assertEquals( 0, statistics.get( "queued" ) );
+    }
+}
@@ -0,0 +1,79 @@
+package org.hisp.dhis.analytics.table;
+
+/*
+ * Copyright (c) 2004-2018, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Date;
+
+import org.hisp.dhis.analytics.AnalyticsTable;
+import org.hisp.dhis.analytics.AnalyticsTablePartition;
+import org.hisp.dhis.analytics.AnalyticsTableType;
+import org.hisp.dhis.analytics.AnalyticsTableUpdateParams;
+import org.joda.time.DateTime;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+
+public class JdbcAnalyticsTableManagerTest
+{
+    private final JdbcAnalyticsTableManager tableManager = new JdbcAnalyticsTableManager();
+
+    private final Date lastSuccessfulUpdate = new DateTime( 2019, 3, 10, 12, 0 ).toDate();
+
+    private final Date startTime = new DateTime( 2019, 3, 10, 13, 0 ).toDate();
+
+    private final AnalyticsTableUpdateParams params = AnalyticsTableUpdateParams.newBuilder()
+        .withIncremental( true )
+        .withLastSuccessfulUpdate( lastSuccessfulUpdate )
+        .withStartTime( startTime )
+        .build();
+
+    @Test
+    public void testGetChangedDataCondition()
+    {
+        assertEquals( "dv.lastupdated >= '2019-03-10T12:00:00' and dv.lastupdated <= '2019-03-10T13:00:00' ",
+            tableManager.getChangedDataCondition( params, "dv.lastupdated" ) );
+    }
+
+    @Test
+    public void testChangedRowsDeleteSqlUsesChangedDataWindow()
+    {
+        AnalyticsTable table = new AnalyticsTable( AnalyticsTableType.DATA_VALUE, Lists.newArrayList(), Lists.newArrayList() );
+        table.addPartitionTable( 2019, null, null );
+
+        AnalyticsTablePartition partition = table.getPartitionTables().get( 0 );
+
+        String sql = tableManager.getChangedRowsDeleteSql( params, partition );
+
+        assertTrue( sql.startsWith( "delete from analytics_2019 " ) );
+        assertTrue( sql.contains( tableManager.getChangedDataCondition( params, "dv.lastupdated" ) ) );
+    }
+}
@@ -32,6 +32,8 @@ import com.google.common.collect.Lists;
 
 import org.hisp.dhis.DhisConvenienceTest;
 import org.hisp.dhis.analytics.DataQueryParams;
+import org.hisp.dhis.analytics.DimensionItemDictionary;
+import org.hisp.dhis.analytics.DimensionKey;
 import org.hisp.dhis.analytics.util.AnalyticsUtils;
 import org.hisp.dhis.common.*;
 import org.hisp.dhis.dataelement.DataElement;
@@ -96,7 +98,7 @@ public class AnalyticsUtilsTest
         map.put( "YkRvCLedQa4-h1dJ9W4dWor-Zrd4DAf8M99", 11d );
         map.put( "PcfRp1HETO8-zqXKIEycBck-KBJBZopYMPV", 12d );
 
-        Map<String, Double> convertedMap = AnalyticsUtils.convertDxToOperand( map, TotalType.COC_ONLY );
+        Map<String, Double> convertedMap = convertDxToOperand( map, TotalType.COC_ONLY );
 
         assertTrue( convertedMap.containsKey( "GauDLAiXPKT.kC1OT9Q1n1j-R9U8q7X1aJG" ) );
         assertTrue( convertedMap.containsKey( "YkRvCLedQa4.h1dJ9W4dWor-Zrd4DAf8M99" ) );
@@ -111,7 +113,7 @@ public class AnalyticsUtilsTest
         map.put( "YkRvCLedQa4-h1dJ9W4dWor", 11d );
         map.put( "PcfRp1HETO8-zqXKIEycBck", 12d );
 
-        Map<String, Double> convertedMap = AnalyticsUtils.convertDxToOperand( map, TotalType.COC_ONLY );
+        Map<String, Double> convertedMap = convertDxToOperand( map, TotalType.COC_ONLY );
 
         assertTrue( convertedMap.containsKey( "GauDLAiXPKT.kC1OT9Q1n1j" ) );
         assertTrue( convertedMap.containsKey( "YkRvCLedQa4.h1dJ9W4dWor" ) );
@@ -126,11 +128,12 @@ public class AnalyticsUtilsTest
         map.put( "YkRvCLedQa4-h1dJ9W4dWor-2017", 11d );
         map.put( "w1G4l0cSxOi-gQhAMdimKO4-2017", 12d );
 
-        Map<String, Double> convertedMap = AnalyticsUtils.convertDxToOperand( map, TotalType.AOC_ONLY );
+        Map<String, Double> convertedMap = convertDxToOperand( map, TotalType.AOC_ONLY );
 
-        assertTrue( convertedMap.containsKey( "GauDLAiXPKT.*.kC1OT9Q1n1j-2016" ) );
-        assertTrue( convertedMap.containsKey( "YkRvCLedQa4.*.h1dJ9W4dWor-2017" ) );
-        assertTrue( convertedMap.containsKey( "w1G4l0cSxOi.*.gQhAMdimKO4-2017" ) );
+        assertEquals( 3, convertedMap.size() );
+        assertEquals( 10d, convertedMap.get( "GauDLAiXPKT.*.kC1OT9Q1n1j-2016" ), 0.01 );
+        assertEquals( 11d, convertedMap.get( "YkRvCLedQa4.*.h1dJ9W4dWor-2017" ), 0.01 );
+        assertEquals( 12d, convertedMap.get( "w1G4l0cSxOi.*.gQhAMdimKO4-2017" ), 0.01 );
     }
 
     @Test
@@ -141,7 +144,7 @@ public class AnalyticsUtilsTest
         map.put( "YkRvCLedQa4-h1dJ9W4dWor-Zrd4DAf8M99-201702", 11d );
         map.put( "PcfRp1HETO8-zqXKIEycBck-KBJBZopYMPV-201703", 12d );
 
-        Map<String, Double> convertedMap = AnalyticsUtils.convertDxToOperand( map, TotalType.COC_AND_AOC );
+        Map<String, Double> convertedMap = convertDxToOperand( map, TotalType.COC_AND_AOC );
 
         assertTrue( convertedMap.containsKey( "GauDLAiXPKT.kC1OT9Q1n1j.R9U8q7X1aJG-201701" ) );
         assertTrue( convertedMap.containsKey( "YkRvCLedQa4.h1dJ9W4dWor.Zrd4DAf8M99-201702" ) );
@@ -156,13 +159,32 @@ public class AnalyticsUtilsTest
         map.put( "YkRvCLedQa4-h1dJ9W4dWor-Zrd4DAf8M99", 11d );
         map.put( "PcfRp1HETO8-zqXKIEycBck-KBJBZopYMPV", 12d );
 
-        Map<String, Double> convertedMap = AnalyticsUtils.convertDxToOperand( map, TotalType.NONE );
+        Map<String, Double> convertedMap = convertDxToOperand( map, TotalType.NONE );
 
         assertTrue( convertedMap.containsKey( "GauDLAiXPKT-kC1OT9Q1n1j-R9U8q7X1aJG" ) );
         assertTrue( convertedMap.containsKey( "YkRvCLedQa4-h1dJ9W4dWor-Zrd4DAf8M99" ) );
         assertTrue( convertedMap.containsKey( "PcfRp1HETO8-zqXKIEycBck-KBJBZopYMPV" ) );
     }
 
+    @Test
+    public void testConvertDxToOperandDimensionKeyCocAndAoc()
+    {
+        DimensionItemDictionary dictionary = new DimensionItemDictionary();
+
+        Map<DimensionKey, Double> map = new HashMap<>();
+        map.put( dictionary.getDimensionKey( "GauDLAiXPKT-kC1OT9Q1n1j-R9U8q7X1aJG-201701" ), 10d );
+        map.put( dictionary.getDimensionKey( "GauDLAiXPKT-kC1OT9Q1n1j-R9U8q7X1aJG-201702" ), 11d );
+        map.put( dictionary.getDimensionKey( "PcfRp1HETO8-zqXKIEycBck-KBJBZopYMPV-201703" ), 12d );
+
+        Map<String, Double> convertedMap = dictionary.getStringKeyMap(
+            AnalyticsUtils.convertDxToOperand( map, TotalType.COC_AND_AOC, dictionary ) );
+
+        assertEquals( 3, convertedMap.size() );
+        assertTrue( convertedMap.containsKey( "GauDLAiXPKT.kC1OT9Q1n1j.R9U8q7X1aJG-201701" ) );
+        assertTrue( convertedMap.containsKey( "GauDLAiXPKT.kC1OT9Q1n1j.R9U8q7X1aJG-201702" ) );
+        assertTrue( convertedMap.containsKey( "PcfRp1HETO8.zqXKIEycBck.KBJBZopYMPV-201703" ) );
+    }
+
     @Test
     public void testGetRoundedValueObject()
     {
@@ -550,4 +572,19 @@ public class AnalyticsUtilsTest
         assertEquals( 10, AnalyticsUtils.getBaseMonth( new FinancialNovemberPeriodType() ), 0 ) ;
         assertEquals( 0, AnalyticsUtils.getBaseMonth( new DailyPeriodType() ), 0 );
     }
+
+    /**
+     * Converts the given map through dimension keys of a new dictionary and
+     * returns the result keyed on the resolved identifiers.
+     */
+    private Map<String, Double> convertDxToOperand( Map<String, Double> valueMap, TotalType totalType )
+    {
+        DimensionItemDictionary dictionary = new DimensionItemDictionary();
+
+        Map<DimensionKey, Double> map = new HashMap<>();
+
+        valueMap.forEach( ( key, value ) -> map.put( dictionary.getDimensionKey( key ), value ) );
+
+        return dictionary.getStringKeyMap( AnalyticsUtils.convertDxToOperand( map, totalType, dictionary ) );
+    }
 }
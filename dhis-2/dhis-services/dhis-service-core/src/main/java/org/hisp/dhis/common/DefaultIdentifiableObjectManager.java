@@ -215,6 +215,20 @@ public class DefaultIdentifiableObjectManager
         }
     }
 
+    @Override
+    public void delete( List<IdentifiableObject> objects, User user )
+    {
+        if ( objects == null || objects.isEmpty() )
+        {
+            return;
+        }
+
+        for ( IdentifiableObject object : objects )
+        {
+            delete( object, user );
+        }
+    }
+
     @Override
     @SuppressWarnings( "unchecked" )
     public <T extends IdentifiableObject> T get( String uid )
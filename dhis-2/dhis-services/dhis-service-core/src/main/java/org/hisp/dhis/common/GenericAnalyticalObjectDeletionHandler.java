@@ -36,7 +36,10 @@ import org.hisp.dhis.period.Period;
 import org.hisp.dhis.program.ProgramIndicator;
 import org.hisp.dhis.system.deletion.DeletionHandler;
 
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.function.BiConsumer;
 
 /**
@@ -59,6 +62,17 @@ public abstract class GenericAnalyticalObjectDeletionHandler<T extends Analytica
         removeItem( getAnalyticalObjectService().getAnalyticalObjects( dataElement ), dataElement, AnalyticalObject::removeDataDimensionItem );
     }
 
+    @Override
+    public void deleteDataElements( Collection<DataElement> dataElements )
+    {
+        for ( T analyticalObject : getAnalyticalObjectService().getAnalyticalObjectsByDataElements( dataElements ) )
+        {
+            dataElements.forEach( analyticalObject::removeDataDimensionItem );
+
+            getAnalyticalObjectService().update( analyticalObject );
+        }
+    }
+
     @Override
     public void deleteDataSet( DataSet dataSet )
     {
@@ -99,6 +113,19 @@ public abstract class GenericAnalyticalObjectDeletionHandler<T extends Analytica
         removeItem( getAnalyticalObjectService().getAnalyticalObjects( organisationUnit ), organisationUnit, ( ao, di ) -> ao.getOrganisationUnits().remove( di ) );
     }
 
+    @Override
+    public void deleteOrganisationUnits( Collection<OrganisationUnit> organisationUnits )
+    {
+        Set<OrganisationUnit> organisationUnitSet = new HashSet<>( organisationUnits );
+
+        for ( T analyticalObject : getAnalyticalObjectService().getAnalyticalObjectsByOrganisationUnits( organisationUnits ) )
+        {
+            analyticalObject.getOrganisationUnits().removeAll( organisationUnitSet );
+
+            getAnalyticalObjectService().update( analyticalObject );
+        }
+    }
+
     protected void removeItem( List<T> analyticalObjects, DimensionalItemObject itemObject, BiConsumer<AnalyticalObject, DimensionalItemObject> updateOperation )
     {
         for ( T analyticalObject : analyticalObjects )
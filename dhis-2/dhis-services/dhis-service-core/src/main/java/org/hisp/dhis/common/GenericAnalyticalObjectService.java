@@ -28,6 +28,7 @@ package org.hisp.dhis.common;
  * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
  */
 
+import java.util.Collection;
 import java.util.List;
 
 import org.hisp.dhis.category.CategoryOptionGroup;
@@ -101,6 +102,18 @@ public abstract class GenericAnalyticalObjectService<T extends AnalyticalObject>
         return getAnalyticalObjectStore().getAnalyticalObjects( organisationUnit );
     }
 
+    @Override
+    public List<T> getAnalyticalObjectsByDataElements( Collection<DataElement> dataElements )
+    {
+        return getAnalyticalObjectStore().getAnalyticalObjectsByDataElements( dataElements );
+    }
+
+    @Override
+    public List<T> getAnalyticalObjectsByOrganisationUnits( Collection<OrganisationUnit> organisationUnits )
+    {
+        return getAnalyticalObjectStore().getAnalyticalObjectsByOrganisationUnits( organisationUnits );
+    }
+
     @Override
     public List<T> getAnalyticalObjects( CategoryOptionGroup categoryOptionGroup )
     {
@@ -41,6 +41,7 @@ import org.hisp.dhis.period.Period;
 import org.hisp.dhis.program.ProgramIndicator;
 import org.hisp.dhis.trackedentity.TrackedEntityAttribute;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -107,6 +108,20 @@ public class HibernateAnalyticalObjectStore<T extends BaseAnalyticalObject>
         return getQuery( hql ).setParameter( "organisationUnit", organisationUnit ).list();
     }
 
+    @Override
+    public List<T> getAnalyticalObjectsByDataElements( Collection<DataElement> dataElements )
+    {
+        String hql = "select distinct c from " + clazz.getName() + " c join c.dataDimensionItems d where d.dataElement in (:dataElements)";
+        return getQuery( hql ).setParameterList( "dataElements", dataElements ).list();
+    }
+
+    @Override
+    public List<T> getAnalyticalObjectsByOrganisationUnits( Collection<OrganisationUnit> organisationUnits )
+    {
+        String hql = "select distinct c from " + clazz.getName() + " c join c.organisationUnits o where o in (:organisationUnits)";
+        return getQuery( hql ).setParameterList( "organisationUnits", organisationUnits ).list();
+    }
+
     @Override
     public List<T> getAnalyticalObjects( CategoryOptionGroup categoryOptionGroup )
     {
@@ -40,16 +40,22 @@ import org.hisp.dhis.dataapproval.exceptions.DataMayNotBeApprovedException;
 import org.hisp.dhis.dataapproval.exceptions.DataMayNotBeUnacceptedException;
 import org.hisp.dhis.dataapproval.exceptions.DataMayNotBeUnapprovedException;
 import org.hisp.dhis.category.CategoryCombo;
+import org.hisp.dhis.category.CategoryOption;
 import org.hisp.dhis.category.CategoryOptionCombo;
 import org.hisp.dhis.dataset.DataSet;
 import org.hisp.dhis.organisationunit.OrganisationUnit;
 import org.hisp.dhis.organisationunit.OrganisationUnitService;
 import org.hisp.dhis.period.Period;
 import org.hisp.dhis.period.PeriodService;
+import org.hisp.dhis.scheduling.JobConfiguration;
 import org.hisp.dhis.setting.SettingKey;
 import org.hisp.dhis.setting.SystemSettingManager;
+import org.hisp.dhis.system.notification.NotificationLevel;
+import org.hisp.dhis.system.notification.Notifier;
+import org.hisp.dhis.system.util.Clock;
 import org.hisp.dhis.user.CurrentUserService;
 import org.hisp.dhis.user.User;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
@@ -132,6 +138,9 @@ public class DefaultDataApprovalService
         this.systemSettingManager = systemSettingManager;
     }
 
+    @Autowired
+    private Notifier notifier;
+
     // -------------------------------------------------------------------------
     // Data approval workflow
     // -------------------------------------------------------------------------
@@ -148,11 +157,15 @@ public class DefaultDataApprovalService
     public void updateWorkflow( DataApprovalWorkflow dataApprovalWorkflow )
     {
         workflowStore.update( dataApprovalWorkflow );
+
+        dataApprovalStore.deleteDataApprovalStatuses( dataApprovalWorkflow );
     }
 
     @Override
     public void deleteWorkflow( DataApprovalWorkflow workflow )
     {
+        dataApprovalStore.deleteDataApprovalStatuses( workflow );
+
         workflowStore.delete( workflow );
     }
 
@@ -284,7 +297,9 @@ public class DefaultDataApprovalService
 
             dataApprovalStore.addDataApproval( da );
         }
-        
+
+        dataApprovalStore.refreshDataApprovalStatuses( checkedList );
+
         log.info( "Approvals saved: " + checkedList.size() );
     }
 
@@ -334,7 +349,9 @@ public class DefaultDataApprovalService
 
             dataApprovalStore.deleteDataApproval( da );
         }
-        
+
+        dataApprovalStore.refreshDataApprovalStatuses( foundApprovals );
+
         log.info( "Approvals deleted: " + dataApprovalList.size() );
     }
 
@@ -387,7 +404,9 @@ public class DefaultDataApprovalService
 
             dataApprovalStore.updateDataApproval( da );
         }
-        
+
+        dataApprovalStore.refreshDataApprovalStatuses( presentApprovals );
+
         log.info( "Accepts saved: " + dataApprovalList.size() );
     }
 
@@ -439,7 +458,9 @@ public class DefaultDataApprovalService
 
             dataApprovalStore.updateDataApproval( da );
         }
-        
+
+        dataApprovalStore.refreshDataApprovalStatuses( presentApprovals );
+
         log.info( "Accepts deleted: " + dataApprovalList.size() );
     }
 
@@ -558,6 +579,88 @@ public class DefaultDataApprovalService
         dataApprovalStore.deleteDataApprovals( organisationUnit );
     }
 
+    // -------------------------------------------------------------------------
+    // Data approval status table
+    // -------------------------------------------------------------------------
+
+    @Override
+    public void deleteDataApprovalStatuses()
+    {
+        dataApprovalStore.deleteDataApprovalStatuses();
+    }
+
+    @Override
+    public void deleteDataApprovalStatuses( DataApprovalWorkflow workflow )
+    {
+        dataApprovalStore.deleteDataApprovalStatuses( workflow );
+    }
+
+    @Override
+    public void deleteDataApprovalStatuses( OrganisationUnit organisationUnit )
+    {
+        dataApprovalStore.deleteDataApprovalStatuses( organisationUnit );
+    }
+
+    @Override
+    public void deleteDataApprovalStatuses( CategoryOption categoryOption )
+    {
+        dataApprovalStore.deleteDataApprovalStatuses( categoryOption );
+    }
+
+    @Override
+    public void deleteDataApprovalStatuses( DataApprovalLevel dataApprovalLevel )
+    {
+        dataApprovalStore.deleteDataApprovalStatuses( dataApprovalLevel );
+    }
+
+    @Override
+    public void deleteDataApprovalStatuses( CategoryCombo categoryCombo )
+    {
+        dataApprovalStore.deleteDataApprovalStatuses( categoryCombo );
+    }
+
+    @Override
+    public int rebuildDataApprovalStatuses( JobConfiguration jobId )
+    {
+        if ( !dataApprovalStore.isDataApprovalStatusTableEnabled() )
+        {
+            notifier.notify( jobId, "Data approval status table is not enabled" );
+            return 0;
+        }
+
+        Clock clock = new Clock( log ).startClock();
+
+        notifier.notify( jobId, "Rebuilding data approval status table" );
+
+        int rows = dataApprovalStore.rebuildDataApprovalStatuses();
+
+        clock.logTime( "Rebuilt data approval status table, rows: " + rows );
+
+        notifier.notify( jobId, NotificationLevel.INFO, "Data approval status table rebuilt, rows: " + rows, true );
+
+        return rows;
+    }
+
+    @Override
+    @Transactional( readOnly = true )
+    public int checkDataApprovalStatuses( JobConfiguration jobId )
+    {
+        if ( !dataApprovalStore.isDataApprovalStatusTableEnabled() )
+        {
+            notifier.notify( jobId, "Data approval status table is not enabled" );
+            return 0;
+        }
+
+        notifier.notify( jobId, "Checking data approval status table" );
+
+        int inconsistent = dataApprovalStore.checkDataApprovalStatuses();
+
+        notifier.notify( jobId, inconsistent == 0 ? NotificationLevel.INFO : NotificationLevel.WARN,
+            "Data approval status table checked, inconsistent rows: " + inconsistent, true );
+
+        return inconsistent;
+    }
+
     // -------------------------------------------------------------------------
     // Supportive methods
     // -------------------------------------------------------------------------
@@ -0,0 +1,254 @@
+package org.hisp.dhis.dataapproval.hibernate;
+
+/*
+ * Copyright (c) 2004-2018, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import org.apache.commons.lang3.ArrayUtils;
+import org.hibernate.SessionFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.AbstractCollectionEvent;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCollectionRecreateEvent;
+import org.hibernate.event.spi.PostCollectionRecreateEventListener;
+import org.hibernate.event.spi.PostCollectionRemoveEvent;
+import org.hibernate.event.spi.PostCollectionRemoveEventListener;
+import org.hibernate.event.spi.PostCollectionUpdateEvent;
+import org.hibernate.event.spi.PostCollectionUpdateEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hisp.dhis.category.CategoryCombo;
+import org.hisp.dhis.category.CategoryOption;
+import org.hisp.dhis.dataapproval.DataApprovalLevel;
+import org.hisp.dhis.dataapproval.DataApprovalStore;
+import org.hisp.dhis.dataapproval.DataApprovalWorkflow;
+import org.hisp.dhis.dataset.DataSet;
+import org.hisp.dhis.organisationunit.OrganisationUnit;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import javax.annotation.PostConstruct;
+
+/**
+ * Deletes the materialized data approval statuses affected by changes to the
+ * metadata which the statuses are computed from, in the same transaction as
+ * the change. The listener covers every change made through Hibernate, so
+ * services, the collection API and the metadata importer are all handled:
+ * changes to the org unit parent, data set workflow and org units, workflow
+ * levels, category combo and period type, approval level org unit level and
+ * category option group set, category option org units and category combo
+ * categories. Deleted statuses are computed from the data approvals until
+ * the status table is rebuilt.
+ */
+public class DataApprovalStatusEventListener
+    implements PostUpdateEventListener, PostCollectionRecreateEventListener, PostCollectionUpdateEventListener,
+    PostCollectionRemoveEventListener
+{
+    private static final String ROLE_DATASET_SOURCES = DataSet.class.getName() + ".sources";
+    private static final String ROLE_ORGUNIT_DATASETS = OrganisationUnit.class.getName() + ".dataSets";
+    private static final String ROLE_WORKFLOW_LEVELS = DataApprovalWorkflow.class.getName() + ".levels";
+    private static final String ROLE_CATEGORYOPTION_ORGUNITS = CategoryOption.class.getName() + ".organisationUnits";
+    private static final String ROLE_CATEGORYCOMBO_CATEGORIES = CategoryCombo.class.getName() + ".categories";
+
+    @Autowired
+    private SessionFactory sessionFactory;
+
+    @Autowired
+    private DataApprovalStore dataApprovalStore;
+
+    @PostConstruct
+    public void init()
+    {
+        EventListenerRegistry registry = sessionFactory.unwrap( SessionFactoryImplementor.class )
+            .getServiceRegistry().getService( EventListenerRegistry.class );
+
+        registry.appendListeners( EventType.POST_UPDATE, this );
+        registry.appendListeners( EventType.POST_COLLECTION_RECREATE, this );
+        registry.appendListeners( EventType.POST_COLLECTION_UPDATE, this );
+        registry.appendListeners( EventType.POST_COLLECTION_REMOVE, this );
+    }
+
+    @Override
+    public void onPostUpdate( PostUpdateEvent event )
+    {
+        Object entity = event.getEntity();
+
+        if ( !isHandled( entity ) || !dataApprovalStore.isDataApprovalStatusTableEnabled() )
+        {
+            return;
+        }
+
+        if ( entity instanceof OrganisationUnit && isChanged( event, "parent" ) )
+        {
+            if ( !hasOldState( event ) )
+            {
+                dataApprovalStore.deleteDataApprovalStatuses(); // Previous ancestors are unknown
+                return;
+            }
+
+            OrganisationUnit previousParent = (OrganisationUnit) getOldValue( event, "parent" );
+
+            if ( previousParent != null )
+            {
+                dataApprovalStore.deleteDataApprovalStatuses( previousParent );
+            }
+
+            dataApprovalStore.deleteDataApprovalStatuses( (OrganisationUnit) entity );
+        }
+        else if ( entity instanceof DataSet && isChanged( event, "workflow" ) )
+        {
+            if ( !hasOldState( event ) )
+            {
+                dataApprovalStore.deleteDataApprovalStatuses(); // Previous workflow is unknown
+                return;
+            }
+
+            deleteStatuses( (DataApprovalWorkflow) getOldValue( event, "workflow" ) );
+            deleteStatuses( ((DataSet) entity).getWorkflow() );
+        }
+        else if ( entity instanceof DataApprovalWorkflow && isChanged( event, "categoryCombo", "periodType" ) )
+        {
+            dataApprovalStore.deleteDataApprovalStatuses( (DataApprovalWorkflow) entity );
+        }
+        else if ( entity instanceof DataApprovalLevel && isChanged( event, "orgUnitLevel", "categoryOptionGroupSet" ) )
+        {
+            dataApprovalStore.deleteDataApprovalStatuses( (DataApprovalLevel) entity );
+        }
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding( EntityPersister persister )
+    {
+        return false;
+    }
+
+    @Override
+    public void onPostRecreateCollection( PostCollectionRecreateEvent event )
+    {
+        onCollectionChange( event );
+    }
+
+    @Override
+    public void onPostUpdateCollection( PostCollectionUpdateEvent event )
+    {
+        onCollectionChange( event );
+    }
+
+    @Override
+    public void onPostRemoveCollection( PostCollectionRemoveEvent event )
+    {
+        onCollectionChange( event );
+    }
+
+    // -------------------------------------------------------------------------
+    // Supportive methods
+    // -------------------------------------------------------------------------
+
+    private void onCollectionChange( AbstractCollectionEvent event )
+    {
+        Object owner = event.getAffectedOwnerOrNull();
+        String role = event.getCollection().getRole();
+
+        if ( !isHandled( owner ) || !dataApprovalStore.isDataApprovalStatusTableEnabled() )
+        {
+            return;
+        }
+
+        if ( owner instanceof DataSet && ROLE_DATASET_SOURCES.equals( role ) )
+        {
+            deleteStatuses( ((DataSet) owner).getWorkflow() );
+        }
+        else if ( owner instanceof OrganisationUnit && ROLE_ORGUNIT_DATASETS.equals( role ) )
+        {
+            dataApprovalStore.deleteDataApprovalStatuses( (OrganisationUnit) owner );
+        }
+        else if ( owner instanceof DataApprovalWorkflow && ROLE_WORKFLOW_LEVELS.equals( role ) )
+        {
+            dataApprovalStore.deleteDataApprovalStatuses( (DataApprovalWorkflow) owner );
+        }
+        else if ( owner instanceof CategoryOption && ROLE_CATEGORYOPTION_ORGUNITS.equals( role ) )
+        {
+            dataApprovalStore.deleteDataApprovalStatuses( (CategoryOption) owner );
+        }
+        else if ( owner instanceof CategoryCombo && ROLE_CATEGORYCOMBO_CATEGORIES.equals( role ) )
+        {
+            dataApprovalStore.deleteDataApprovalStatuses( (CategoryCombo) owner );
+        }
+    }
+
+    private void deleteStatuses( DataApprovalWorkflow workflow )
+    {
+        if ( workflow != null )
+        {
+            dataApprovalStore.deleteDataApprovalStatuses( workflow );
+        }
+    }
+
+    private static boolean isHandled( Object entity )
+    {
+        return entity instanceof OrganisationUnit || entity instanceof DataSet || entity instanceof DataApprovalWorkflow ||
+            entity instanceof DataApprovalLevel || entity instanceof CategoryOption || entity instanceof CategoryCombo;
+    }
+
+    private static boolean hasOldState( PostUpdateEvent event )
+    {
+        return event.getOldState() != null;
+    }
+
+    /**
+     * Indicates whether any of the given properties was changed by the update.
+     * Updates of detached objects carry no dirty properties, and are treated
+     * as changing all properties.
+     */
+    private static boolean isChanged( PostUpdateEvent event, String... propertyNames )
+    {
+        int[] dirtyProperties = event.getDirtyProperties();
+
+        if ( dirtyProperties == null )
+        {
+            return true;
+        }
+
+        String[] names = event.getPersister().getPropertyNames();
+
+        for ( int index : dirtyProperties )
+        {
+            if ( ArrayUtils.contains( propertyNames, names[index] ) )
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static Object getOldValue( PostUpdateEvent event, String propertyName )
+    {
+        return event.getOldState()[ArrayUtils.indexOf( event.getPersister().getPropertyNames(), propertyName )];
+    }
+}
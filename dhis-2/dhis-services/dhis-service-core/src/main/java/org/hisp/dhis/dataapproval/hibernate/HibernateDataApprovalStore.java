@@ -38,6 +38,7 @@ import static org.hisp.dhis.dataapproval.DataApprovalState.UNAPPROVED_WAITING;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -55,6 +56,7 @@ import org.hisp.dhis.api.util.DateUtils;
 import org.hisp.dhis.cache.Cache;
 import org.hisp.dhis.cache.CacheProvider;
 import org.hisp.dhis.category.CategoryCombo;
+import org.hisp.dhis.category.CategoryOption;
 import org.hisp.dhis.category.CategoryOptionCombo;
 import org.hisp.dhis.category.CategoryService;
 import org.hisp.dhis.common.IdentifiableObjectUtils;
@@ -66,6 +68,8 @@ import org.hisp.dhis.dataapproval.DataApprovalState;
 import org.hisp.dhis.dataapproval.DataApprovalStatus;
 import org.hisp.dhis.dataapproval.DataApprovalStore;
 import org.hisp.dhis.dataapproval.DataApprovalWorkflow;
+import org.hisp.dhis.external.conf.ConfigurationKey;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
 import org.hisp.dhis.hibernate.HibernateGenericStore;
 import org.hisp.dhis.jdbc.StatementBuilder;
 import org.hisp.dhis.organisationunit.OrganisationUnit;
@@ -93,7 +97,7 @@ public class HibernateDataApprovalStore
     private static final String SQL_CONCAT = "-";
     private static final String SQL_CAT = StatementBuilder.QUOTE + SQL_CONCAT + StatementBuilder.QUOTE;
 
-    private Cache<Boolean> IS_APPROVED_CACHE;
+    private Cache<Boolean> isApprovedCache;
 
     @Autowired
     private CacheProvider cacheProvider;
@@ -104,7 +108,7 @@ public class HibernateDataApprovalStore
     @PostConstruct
     public void init()
     {
-        IS_APPROVED_CACHE = cacheProvider.newCacheBuilder( Boolean.class )
+        isApprovedCache = cacheProvider.newCacheBuilder( Boolean.class )
             .forRegion( "isDataApproved" )
             .expireAfterAccess( 12, TimeUnit.HOURS )
             .withMaximumSize( SystemUtils.isTestRun(env.getActiveProfiles()) ? 0 : 20000 ).build();
@@ -152,6 +156,9 @@ public class HibernateDataApprovalStore
     @Autowired
     private StatementBuilder statementBuilder;
 
+    @Autowired
+    private DhisConfigurationProvider config;
+
     // -------------------------------------------------------------------------
     // DataApproval
     // -------------------------------------------------------------------------
@@ -159,7 +166,7 @@ public class HibernateDataApprovalStore
     @Override
     public void addDataApproval( DataApproval dataApproval )
     {
-        IS_APPROVED_CACHE.invalidateAll();
+        isApprovedCache.invalidateAll();
 
         dataApproval.setPeriod( periodService.reloadPeriod( dataApproval.getPeriod() ) );
 
@@ -169,7 +176,7 @@ public class HibernateDataApprovalStore
     @Override
     public void updateDataApproval( DataApproval dataApproval )
     {
-        IS_APPROVED_CACHE.invalidateAll();
+        isApprovedCache.invalidateAll();
 
         dataApproval.setPeriod( periodService.reloadPeriod( dataApproval.getPeriod() ) );
 
@@ -179,7 +186,7 @@ public class HibernateDataApprovalStore
     @Override
     public void deleteDataApproval( DataApproval dataApproval )
     {
-        IS_APPROVED_CACHE.invalidateAll();
+        isApprovedCache.invalidateAll();
 
         dataApproval.setPeriod( periodService.reloadPeriod( dataApproval.getPeriod() ) );
 
@@ -189,12 +196,14 @@ public class HibernateDataApprovalStore
     @Override
     public void deleteDataApprovals( OrganisationUnit organisationUnit )
     {
-        IS_APPROVED_CACHE.invalidateAll();
+        isApprovedCache.invalidateAll();
 
         String hql = "delete from DataApproval d where d.organisationUnit = :unit";
 
         getSession().createQuery( hql ).
             setParameter( "unit", organisationUnit ).executeUpdate();
+
+        deleteDataApprovalStatuses( organisationUnit );
     }
 
     @Override
@@ -239,7 +248,7 @@ public class HibernateDataApprovalStore
     @Override
     public boolean dataApprovalExists( DataApproval dataApproval )
     {
-        return IS_APPROVED_CACHE.get( dataApproval.getCacheKey(), key -> dataApprovalExistsInternal( dataApproval ) ).orElse( false );
+        return isApprovedCache.get( dataApproval.getCacheKey(), key -> dataApprovalExistsInternal( dataApproval ) ).orElse( false );
     }
 
     private boolean dataApprovalExistsInternal( DataApproval dataApproval )
@@ -446,34 +455,30 @@ public class HibernateDataApprovalStore
                 "and da.workflowid = " + workflow.getId() + " and da.attributeoptioncomboid = cocco.categoryoptioncomboid)";
         }
 
+        final int workflowPeriodId = getWorkflowPeriodId( workflow, endDate );
+
         String readyBelowSubquery = "true"; // Ready below if this is the lowest (highest number) approval orgUnit level.
 
         if ( approvalLevelBelowOrgUnit != null )
         {
             boolean acceptanceRequiredForApproval = (Boolean) systemSettingManager.getSystemSetting( SettingKey.ACCEPTANCE_REQUIRED_FOR_APPROVAL );
 
-            readyBelowSubquery = "not exists (select 1 from organisationunit dao " +
-                "where exists (select 1 from organisationunit child " +
-                    "where " + statementBuilder.position( "dao.uid", "child.path" ) + " <> 0 " +
-                    "and child.organisationunitid in (select distinct sourceid from datasetsource dss join dataset ds on ds.datasetid = dss.datasetid where ds.workflowid = " + workflow.getId() + ")) " +
-                "and not exists (select 1 from dataapproval da " +
-                    "join period p on p.periodid = da.periodid " +
-                    "where da.organisationunitid = dao.organisationunitid " +
-                    "and da.dataapprovallevelid = " + approvalLevelBelowOrgUnit.getId() + " " +
-                    "and '" + endDate + "' >= p.startdate and '" + endDate + "' <= p.enddate " +
-                    "and da.workflowid = " + workflow.getId() + " " +
-                    "and da.attributeoptioncomboid = cocco.categoryoptioncomboid " +
-                    ( acceptanceRequiredForApproval ? "and da.accepted " : "" ) +
-                ") " +
-                "and " + statementBuilder.position( "o.uid", "dao.path" ) + " = " + pathPositionAtLevel( orgUnitLevel ) + " " +
-                "and dao.hierarchylevel = " + approvalLevelBelowOrgUnit.getOrgUnitLevel() + " " +
-                ( isDefaultCombo ? "" :
-                    "and ( not exists ( select 1 from categoryoption_organisationunits c_o where c_o.categoryoptionid = cocco.categoryoptionid ) " +
-                        "or exists ( select 1 from categoryoption_organisationunits c_o " +
-                        "join organisationunit o2 on o2.organisationunitid = c_o.organisationunitid " +
-                        "where c_o.categoryoptionid = cocco.categoryoptionid and " + statementBuilder.position( "o2.uid", "dao.path" ) +
-                        " between 2 and " + pathPositionAtLevel( approvalLevelBelowOrgUnit ) + ") ) " ) +
-                ")";
+            readyBelowSubquery = getReadyBelowSubquery( workflow, endDate, approvalLevelBelowOrgUnit, orgUnitLevel,
+                isDefaultCombo, acceptanceRequiredForApproval );
+
+            if ( workflowPeriodId != 0 && isDataApprovalStatusTableEnabled() && isOrgUnitLevel( orgUnits, orgUnitLevel ) )
+            {
+                // Use the materialized status when present, otherwise evaluate the subquery
+
+                readyBelowSubquery = "coalesce((select s.readybelow from dataapprovalstatus s " +
+                    "where s.workflowid = " + workflow.getId() + " " +
+                    "and s.periodid = " + workflowPeriodId + " " +
+                    "and s.organisationunitid = o.organisationunitid " +
+                    "and s.attributeoptioncomboid = cocco.categoryoptioncomboid " +
+                    "and s.categoryoptionid = cocco.categoryoptionid " +
+                    "and s.acceptancerequired = " + acceptanceRequiredForApproval + "), " +
+                    readyBelowSubquery + ")";
+            }
         }
 
         final String sql =
@@ -483,7 +488,7 @@ public class HibernateDataApprovalStore
                 "join dataapprovallevel dal on dal.dataapprovallevelid = da.dataapprovallevelid " +
                 highestApprovedOrgUnitJoin +
                 "where da.workflowid = " + workflow.getId() + " " +
-                "and da.periodid = " + getWorkflowPeriodId( workflow, endDate ) + " " +
+                "and da.periodid = " + workflowPeriodId + " " +
                 "and da.attributeoptioncomboid = cocco.categoryoptioncomboid " +
                 "and " + highestApprovedOrgUnitCompare + userApprovalLevelRestrictions +
             ") as highest_approved, " +
@@ -575,6 +580,393 @@ public class HibernateDataApprovalStore
         return statusList;
     }
 
+    // -------------------------------------------------------------------------
+    // Data approval status table
+    // -------------------------------------------------------------------------
+
+    @Override
+    public boolean isDataApprovalStatusTableEnabled()
+    {
+        return config.isEnabled( ConfigurationKey.APPROVAL_STATUS_TABLE );
+    }
+
+    @Override
+    public void refreshDataApprovalStatuses( Collection<DataApproval> dataApprovals )
+    {
+        if ( !isDataApprovalStatusTableEnabled() || dataApprovals.isEmpty() )
+        {
+            return;
+        }
+
+        getSession().flush(); // Make pending approval changes visible to the status queries
+
+        lockWorkflows( dataApprovals );
+
+        final boolean acceptanceRequired = (Boolean) systemSettingManager.getSystemSetting( SettingKey.ACCEPTANCE_REQUIRED_FOR_APPROVAL );
+
+        Set<String> refreshed = new HashSet<>();
+
+        for ( DataApproval da : dataApprovals )
+        {
+            Period period = periodService.reloadPeriod( da.getPeriod() );
+
+            for ( OrganisationUnit ancestor : da.getOrganisationUnit().getAncestors() )
+            {
+                String key = da.getWorkflow().getId() + SQL_CONCAT + period.getId() + SQL_CONCAT +
+                    ancestor.getId() + SQL_CONCAT + da.getAttributeOptionCombo().getId();
+
+                if ( !refreshed.add( key ) )
+                {
+                    continue;
+                }
+
+                String restriction = "o.organisationunitid = " + ancestor.getId() + " " +
+                    "and cocco.categoryoptioncomboid = " + da.getAttributeOptionCombo().getId();
+
+                jdbcTemplate.update( "delete from dataapprovalstatus " +
+                    "where workflowid = " + da.getWorkflow().getId() + " " +
+                    "and periodid = " + period.getId() + " " +
+                    "and organisationunitid = " + ancestor.getId() + " " +
+                    "and attributeoptioncomboid = " + da.getAttributeOptionCombo().getId() );
+
+                insertDataApprovalStatuses( da.getWorkflow(), period, ancestor.getLevel(), acceptanceRequired, restriction );
+            }
+        }
+
+        log.debug( "Refreshed approval statuses: " + refreshed.size() );
+    }
+
+    @Override
+    public void deleteDataApprovalStatuses( DataApprovalWorkflow workflow )
+    {
+        if ( isDataApprovalStatusTableEnabled() )
+        {
+            jdbcTemplate.update( "delete from dataapprovalstatus where workflowid = " + workflow.getId() );
+        }
+    }
+
+    @Override
+    public void deleteDataApprovalStatuses( OrganisationUnit organisationUnit )
+    {
+        if ( isDataApprovalStatusTableEnabled() )
+        {
+            List<OrganisationUnit> orgUnits = new ArrayList<>( organisationUnit.getAncestors() );
+            orgUnits.add( organisationUnit );
+
+            jdbcTemplate.update( "delete from dataapprovalstatus where organisationunitid in (" +
+                StringUtils.join( IdentifiableObjectUtils.getIdentifiers( orgUnits ), "," ) + ") " +
+                "or organisationunitid in (select organisationunitid from organisationunit " +
+                "where path like '%/" + organisationUnit.getUid() + "/%')" );
+        }
+    }
+
+    @Override
+    public void deleteDataApprovalStatuses( CategoryOption categoryOption )
+    {
+        if ( isDataApprovalStatusTableEnabled() )
+        {
+            jdbcTemplate.update( "delete from dataapprovalstatus where categoryoptionid = " + categoryOption.getId() );
+        }
+    }
+
+    @Override
+    public void deleteDataApprovalStatuses( DataApprovalLevel dataApprovalLevel )
+    {
+        if ( isDataApprovalStatusTableEnabled() )
+        {
+            jdbcTemplate.update( "delete from dataapprovalstatus where workflowid in (" +
+                "select workflowid from dataapprovalworkflowlevels where dataapprovallevelid = " + dataApprovalLevel.getId() + ")" );
+        }
+    }
+
+    @Override
+    public void deleteDataApprovalStatuses( CategoryCombo categoryCombo )
+    {
+        if ( isDataApprovalStatusTableEnabled() )
+        {
+            jdbcTemplate.update( "delete from dataapprovalstatus where workflowid in (" +
+                "select workflowid from dataapprovalworkflow where categorycomboid = " + categoryCombo.getId() + ")" );
+        }
+    }
+
+    @Override
+    public void deleteDataApprovalStatuses()
+    {
+        if ( isDataApprovalStatusTableEnabled() )
+        {
+            jdbcTemplate.update( "delete from dataapprovalstatus" );
+        }
+    }
+
+    @Override
+    public int rebuildDataApprovalStatuses()
+    {
+        if ( !isDataApprovalStatusTableEnabled() )
+        {
+            return 0;
+        }
+
+        final boolean acceptanceRequired = (Boolean) systemSettingManager.getSystemSetting( SettingKey.ACCEPTANCE_REQUIRED_FOR_APPROVAL );
+
+        // Take the same workflow locks as refreshes, so that no refresh interleaves with the rebuild
+
+        lockWorkflows( "select workflowid from dataapprovalworkflow" );
+
+        jdbcTemplate.update( "delete from dataapprovalstatus" );
+
+        SqlRowSet rowSet = jdbcTemplate.queryForRowSet( "select distinct workflowid, periodid from dataapproval" );
+
+        int rows = 0;
+
+        while ( rowSet.next() )
+        {
+            DataApprovalWorkflow workflow = getSession().get( DataApprovalWorkflow.class, rowSet.getLong( 1 ) );
+            Period period = periodService.getPeriod( rowSet.getLong( 2 ) );
+
+            List<DataApprovalLevel> levels = workflow == null ? null : workflow.getSortedLevels();
+
+            if ( period == null || CollectionUtils.isEmpty( levels ) )
+            {
+                continue;
+            }
+
+            int lowestOrgUnitLevel = levels.get( levels.size() - 1 ).getOrgUnitLevel();
+
+            for ( int orgUnitLevel = 1; orgUnitLevel < lowestOrgUnitLevel; orgUnitLevel++ )
+            {
+                rows += insertDataApprovalStatuses( workflow, period, orgUnitLevel, acceptanceRequired, null );
+            }
+
+            log.debug( "Rebuilt approval statuses for workflow " + workflow.getName() + " period " + period.getIsoDate() );
+        }
+
+        return rows;
+    }
+
+    @Override
+    public int checkDataApprovalStatuses()
+    {
+        if ( !isDataApprovalStatusTableEnabled() )
+        {
+            return 0;
+        }
+
+        // Rows which no longer refer to an existing org unit or option combo
+
+        int inconsistent = jdbcTemplate.queryForObject( "select count(*) from dataapprovalstatus s " +
+            "where not exists (select 1 from organisationunit o where o.organisationunitid = s.organisationunitid) " +
+            "or not exists (select 1 from categoryoptioncombos_categoryoptions cocco " +
+                "where cocco.categoryoptioncomboid = s.attributeoptioncomboid and cocco.categoryoptionid = s.categoryoptionid)",
+            Integer.class );
+
+        SqlRowSet rowSet = jdbcTemplate.queryForRowSet( "select distinct s.workflowid, s.periodid, o.hierarchylevel, s.acceptancerequired " +
+            "from dataapprovalstatus s " +
+            "join organisationunit o on o.organisationunitid = s.organisationunitid" );
+
+        while ( rowSet.next() )
+        {
+            DataApprovalWorkflow workflow = getSession().get( DataApprovalWorkflow.class, rowSet.getLong( 1 ) );
+            Period period = periodService.getPeriod( rowSet.getLong( 2 ) );
+            int orgUnitLevel = rowSet.getInt( 3 );
+            boolean acceptanceRequired = rowSet.getBoolean( 4 );
+
+            String where = "where s.workflowid = " + rowSet.getLong( 1 ) + " " +
+                "and s.periodid = " + rowSet.getLong( 2 ) + " " +
+                "and o.hierarchylevel = " + orgUnitLevel + " " +
+                "and s.acceptancerequired = " + acceptanceRequired;
+
+            DataApprovalLevel approvalLevelBelow = workflow == null || period == null ? null :
+                getApprovalLevelBelow( workflow, orgUnitLevel );
+
+            String sql = "select count(*) from dataapprovalstatus s " +
+                "join organisationunit o on o.organisationunitid = s.organisationunitid " +
+                "join categoryoptioncombos_categoryoptions cocco on cocco.categoryoptioncomboid = s.attributeoptioncomboid " +
+                "and cocco.categoryoptionid = s.categoryoptionid " + where;
+
+            if ( approvalLevelBelow != null )
+            {
+                sql += " and s.readybelow <> (" + getReadyBelowSubquery( workflow,
+                    DateUtils.getMediumDateString( period.getEndDate() ), approvalLevelBelow, orgUnitLevel, false, acceptanceRequired ) + ")";
+            }
+
+            int count = jdbcTemplate.queryForObject( sql, Integer.class );
+
+            if ( count > 0 )
+            {
+                log.warn( "Approval status table has " + count + " inconsistent rows for workflow " + rowSet.getLong( 1 ) +
+                    ", period " + rowSet.getLong( 2 ) + ", org unit level " + orgUnitLevel );
+            }
+
+            inconsistent += count;
+        }
+
+        return inconsistent;
+    }
+
+    /**
+     * Locks the workflows of the given data approvals until the end of the
+     * transaction. Refreshes for the same workflow are serialized this way,
+     * so that a refresh computes the status of shared ancestors after any
+     * concurrent approval below them has been committed. Otherwise two
+     * sibling approvals could both materialize a parent as not ready below.
+     * Workflows are locked in id order to avoid deadlocks.
+     *
+     * @param dataApprovals the changed data approvals.
+     */
+    private void lockWorkflows( Collection<DataApproval> dataApprovals )
+    {
+        String workflowIds = dataApprovals.stream()
+            .map( da -> da.getWorkflow().getId() )
+            .distinct()
+            .sorted()
+            .map( String::valueOf )
+            .collect( Collectors.joining( "," ) );
+
+        lockWorkflows( "select workflowid from dataapprovalworkflow where workflowid in (" + workflowIds + ")" );
+    }
+
+    /**
+     * Locks the workflows selected by the given query until the end of the
+     * transaction, in id order.
+     *
+     * @param sql the query selecting the workflowid column of the workflows.
+     */
+    private void lockWorkflows( String sql )
+    {
+        jdbcTemplate.queryForList( sql + " order by workflowid for no key update", Long.class );
+    }
+
+    /**
+     * Materializes the ready below state for org units at the given level
+     * for the given workflow and workflow period. Org units without data sets
+     * of the workflow in their sub-hierarchy and category options which are
+     * not assigned to the org unit are skipped, as the status query never
+     * returns them.
+     *
+     * @param workflow the workflow.
+     * @param period the workflow period.
+     * @param orgUnitLevel the org unit level.
+     * @param acceptanceRequired whether acceptance is required for approval.
+     * @param restriction additional restriction on alias o (org unit) and
+     *        cocco (option combo option), can be null.
+     * @return the number of inserted rows.
+     */
+    private int insertDataApprovalStatuses( DataApprovalWorkflow workflow, Period period, int orgUnitLevel,
+        boolean acceptanceRequired, String restriction )
+    {
+        DataApprovalLevel approvalLevelBelow = getApprovalLevelBelow( workflow, orgUnitLevel );
+
+        if ( approvalLevelBelow == null )
+        {
+            return 0; // Always ready below the lowest approval level
+        }
+
+        CategoryCombo categoryCombo = workflow.getCategoryCombo() != null ?
+            workflow.getCategoryCombo() : categoryService.getDefaultCategoryCombo();
+
+        String endDate = DateUtils.getMediumDateString( period.getEndDate() );
+
+        String sql =
+            "insert into dataapprovalstatus (workflowid, periodid, organisationunitid, attributeoptioncomboid, " +
+                "categoryoptionid, acceptancerequired, readybelow, lastupdated) " +
+            "select " + workflow.getId() + ", " + period.getId() + ", o.organisationunitid, cocco.categoryoptioncomboid, " +
+                "cocco.categoryoptionid, " + acceptanceRequired + ", " +
+                getReadyBelowSubquery( workflow, endDate, approvalLevelBelow, orgUnitLevel, false, acceptanceRequired ) + ", now() " +
+            "from organisationunit o " +
+            "join categorycombos_optioncombos ccoc on ccoc.categorycomboid = " + categoryCombo.getId() + " " +
+            "join categoryoptioncombos_categoryoptions cocco on cocco.categoryoptioncomboid = ccoc.categoryoptioncomboid " +
+            "where o.hierarchylevel = " + orgUnitLevel + " " +
+            ( restriction == null ? "" : "and " + restriction + " " ) +
+            "and ( not exists (select 1 from categoryoption_organisationunits coo where coo.categoryoptionid = cocco.categoryoptionid) " +
+                "or exists (select 1 from categoryoption_organisationunits coo " +
+                "join organisationunit oc on oc.organisationunitid = coo.organisationunitid " +
+                "where coo.categoryoptionid = cocco.categoryoptionid " +
+                "and ( " + statementBuilder.position( "o.uid", "oc.path" ) + " <> 0 or " +
+                statementBuilder.position( "oc.uid", "o.path" ) + " <> 0 ) ) ) " +
+            "and exists (select 1 from organisationunit od where od.path like o.path || '%' and od.organisationunitid in " +
+                "(select distinct sourceid from datasetsource dss join dataset ds on ds.datasetid = dss.datasetid where ds.workflowid = " + workflow.getId() + ")) " +
+            "on conflict (workflowid, periodid, organisationunitid, attributeoptioncomboid, categoryoptionid, acceptancerequired) " +
+            "do update set readybelow = excluded.readybelow, lastupdated = excluded.lastupdated";
+
+        return jdbcTemplate.update( sql );
+    }
+
+    /**
+     * Returns the subquery which indicates whether data for an org unit with
+     * alias o and a category option combo option with alias cocco is approved
+     * at the approval level below the org unit for all org units at that level
+     * which have data sets of the workflow in their sub-hierarchy.
+     *
+     * @param workflow the workflow.
+     * @param endDate the end date of the period, formatted for SQL.
+     * @param approvalLevelBelowOrgUnit the approval level below the org unit.
+     * @param orgUnitLevel the org unit level.
+     * @param isDefaultCombo whether the query is for the default combo only.
+     * @param acceptanceRequiredForApproval whether acceptance is required.
+     * @return a boolean SQL subquery.
+     */
+    private String getReadyBelowSubquery( DataApprovalWorkflow workflow, String endDate, DataApprovalLevel approvalLevelBelowOrgUnit,
+        int orgUnitLevel, boolean isDefaultCombo, boolean acceptanceRequiredForApproval )
+    {
+        return "not exists (select 1 from organisationunit dao " +
+            "where exists (select 1 from organisationunit child " +
+                "where " + statementBuilder.position( "dao.uid", "child.path" ) + " <> 0 " +
+                "and child.organisationunitid in (select distinct sourceid from datasetsource dss join dataset ds on ds.datasetid = dss.datasetid where ds.workflowid = " + workflow.getId() + ")) " +
+            "and not exists (select 1 from dataapproval da " +
+                "join period p on p.periodid = da.periodid " +
+                "where da.organisationunitid = dao.organisationunitid " +
+                "and da.dataapprovallevelid = " + approvalLevelBelowOrgUnit.getId() + " " +
+                "and '" + endDate + "' >= p.startdate and '" + endDate + "' <= p.enddate " +
+                "and da.workflowid = " + workflow.getId() + " " +
+                "and da.attributeoptioncomboid = cocco.categoryoptioncomboid " +
+                ( acceptanceRequiredForApproval ? "and da.accepted " : "" ) +
+            ") " +
+            "and " + statementBuilder.position( "o.uid", "dao.path" ) + " = " + pathPositionAtLevel( orgUnitLevel ) + " " +
+            "and dao.hierarchylevel = " + approvalLevelBelowOrgUnit.getOrgUnitLevel() + " " +
+            ( isDefaultCombo ? "" :
+                "and ( not exists ( select 1 from categoryoption_organisationunits c_o where c_o.categoryoptionid = cocco.categoryoptionid ) " +
+                    "or exists ( select 1 from categoryoption_organisationunits c_o " +
+                    "join organisationunit o2 on o2.organisationunitid = c_o.organisationunitid " +
+                    "where c_o.categoryoptionid = cocco.categoryoptionid and " + statementBuilder.position( "o2.uid", "dao.path" ) +
+                    " between 2 and " + pathPositionAtLevel( approvalLevelBelowOrgUnit ) + ") ) " ) +
+            ")";
+    }
+
+    /**
+     * Returns the highest approval level of the workflow which is below the
+     * given org unit level, or null if there is no such level.
+     *
+     * @param workflow the workflow.
+     * @param orgUnitLevel the org unit level.
+     * @return the approval level below the org unit level, or null.
+     */
+    private DataApprovalLevel getApprovalLevelBelow( DataApprovalWorkflow workflow, int orgUnitLevel )
+    {
+        for ( DataApprovalLevel dal : workflow.getSortedLevels() )
+        {
+            if ( dal.getOrgUnitLevel() > orgUnitLevel )
+            {
+                return dal;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Indicates whether all of the given org units are at the given level.
+     * The materialized status is computed from the actual level of each org
+     * unit and can only be used when it matches the requested level.
+     *
+     * @param orgUnits the org units, null means all at the level.
+     * @param orgUnitLevel the requested org unit level.
+     * @return true if the org units are at the given level.
+     */
+    private boolean isOrgUnitLevel( Collection<OrganisationUnit> orgUnits, int orgUnitLevel )
+    {
+        return orgUnits == null || orgUnits.stream().allMatch( ou -> ou.getLevel() == orgUnitLevel );
+    }
+
     /**
      * Get the id for the workflow period that spans the given end date.
      * The workflow period may or may not be the same as the period for which
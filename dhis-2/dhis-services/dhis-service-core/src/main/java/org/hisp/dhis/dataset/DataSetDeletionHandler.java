@@ -41,9 +41,13 @@ import org.hisp.dhis.organisationunit.OrganisationUnit;
 import org.hisp.dhis.system.deletion.DeletionHandler;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import com.google.common.collect.Sets;
+
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
 
 import static org.hisp.dhis.category.CategoryCombo.DEFAULT_CATEGORY_COMBO_NAME;
 
@@ -74,6 +78,19 @@ public class DataSetDeletionHandler
 
     @Override
     public void deleteDataElement( DataElement dataElement )
+    {
+        removeDataSetElements( dataElement );
+        removeCompulsoryDataElementOperands( Sets.newHashSet( dataElement ) );
+    }
+
+    @Override
+    public void deleteDataElements( Collection<DataElement> dataElements )
+    {
+        dataElements.forEach( this::removeDataSetElements );
+        removeCompulsoryDataElementOperands( new HashSet<>( dataElements ) );
+    }
+
+    private void removeDataSetElements( DataElement dataElement )
     {
         Iterator<DataSetElement> elements = dataElement.getDataSetElements().iterator();
         
@@ -85,7 +102,14 @@ public class DataSetDeletionHandler
             dataElement.removeDataSetElement( element );
             idObjectManager.updateNoAcl( element.getDataSet() );
         }
-        
+    }
+
+    /**
+     * Removes compulsory operands referring to any of the given data elements
+     * with a single pass over all data sets.
+     */
+    private void removeCompulsoryDataElementOperands( Set<DataElement> dataElements )
+    {
         List<DataSet> dataSets = idObjectManager.getAllNoAcl( DataSet.class );
         
         for ( DataSet dataSet : dataSets )
@@ -98,7 +122,7 @@ public class DataSetDeletionHandler
             {
                 DataElementOperand operand = operands.next();
                 
-                if ( operand.getDataElement().equals( dataElement ) )
+                if ( dataElements.contains( operand.getDataElement() ) )
                 {
                     operands.remove();
                     update = true;
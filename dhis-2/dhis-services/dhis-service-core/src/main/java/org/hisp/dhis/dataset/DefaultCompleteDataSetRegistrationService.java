@@ -38,7 +38,6 @@ import org.hisp.dhis.dataset.notifications.DataSetNotificationEventPublisher;
 import org.hisp.dhis.datavalue.AggregateAccessManager;
 import org.hisp.dhis.datavalue.DataExportParams;
 import org.hisp.dhis.datavalue.DataValueService;
-import org.hisp.dhis.datavalue.DeflatedDataValue;
 import org.hisp.dhis.message.MessageService;
 import org.hisp.dhis.organisationunit.OrganisationUnit;
 import org.hisp.dhis.period.Period;
@@ -176,14 +175,10 @@ public class DefaultCompleteDataSetRegistrationService
             params.setAttributeOptionCombos( Sets.newHashSet( attributeOptionCombo ) );
             params.setOrganisationUnits( Sets.newHashSet( organisationUnit ) );
 
-            List<DeflatedDataValue> deflatedDataValues = dataValueService.getDeflatedDataValues( params );
-
             MapMapMap<Long, Long, Long, Boolean> dataPresent = new MapMapMap<>();
 
-            for ( DeflatedDataValue dv : deflatedDataValues )
-            {
-                dataPresent.putEntry( dv.getSourceId(), dv.getDataElementId(), dv.getCategoryOptionComboId(), true );
-            }
+            dataValueService.getDeflatedDataValues( params, dv ->
+                dataPresent.putEntry( dv.getSourceId(), dv.getDataElementId(), dv.getCategoryOptionComboId(), true ) );
 
             User currentUser = currentUserService.getCurrentUser();
 
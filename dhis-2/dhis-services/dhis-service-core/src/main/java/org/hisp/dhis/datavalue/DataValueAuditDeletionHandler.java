@@ -35,6 +35,11 @@ import org.hisp.dhis.period.Period;
 import org.hisp.dhis.system.deletion.DeletionHandler;
 import org.springframework.jdbc.core.JdbcTemplate;
 
+import java.util.Collection;
+
+import static org.hisp.dhis.common.IdentifiableObjectUtils.getIdentifiers;
+import static org.hisp.dhis.commons.util.TextUtils.getCommaDelimitedString;
+
 public class DataValueAuditDeletionHandler
     extends DeletionHandler
 {
@@ -66,6 +71,14 @@ public class DataValueAuditDeletionHandler
         
         return jdbcTemplate.queryForObject( sql, Integer.class ) == 0 ? null : ERROR;
     }
+
+    @Override
+    public String allowDeleteDataElements( Collection<DataElement> dataElements )
+    {
+        String sql = "SELECT COUNT(*) FROM datavalueaudit where dataelementid in (" + getCommaDelimitedString( getIdentifiers( dataElements ) ) + ")";
+
+        return jdbcTemplate.queryForObject( sql, Integer.class ) == 0 ? null : ERROR;
+    }
     
     @Override
     public String allowDeletePeriod( Period period )
@@ -82,6 +95,14 @@ public class DataValueAuditDeletionHandler
         
         return jdbcTemplate.queryForObject( sql, Integer.class ) == 0 ? null : ERROR;
     }
+
+    @Override
+    public String allowDeleteOrganisationUnits( Collection<OrganisationUnit> units )
+    {
+        String sql = "SELECT COUNT(*) FROM datavalueaudit where organisationunitid in (" + getCommaDelimitedString( getIdentifiers( units ) ) + ")";
+
+        return jdbcTemplate.queryForObject( sql, Integer.class ) == 0 ? null : ERROR;
+    }
     
     @Override
     public String allowDeleteCategoryOptionCombo( CategoryOptionCombo optionCombo )
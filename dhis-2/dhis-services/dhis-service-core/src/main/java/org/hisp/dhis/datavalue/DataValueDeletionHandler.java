@@ -35,6 +35,11 @@ import org.hisp.dhis.period.Period;
 import org.hisp.dhis.system.deletion.DeletionHandler;
 import org.springframework.jdbc.core.JdbcTemplate;
 
+import java.util.Collection;
+
+import static org.hisp.dhis.common.IdentifiableObjectUtils.getIdentifiers;
+import static org.hisp.dhis.commons.util.TextUtils.getCommaDelimitedString;
+
 /**
  * @author Lars Helge Overland
  * @version $Id$
@@ -70,6 +75,14 @@ public class DataValueDeletionHandler
         
         return jdbcTemplate.queryForObject( sql, Integer.class ) == 0 ? null : ERROR;
     }
+
+    @Override
+    public String allowDeleteDataElements( Collection<DataElement> dataElements )
+    {
+        String sql = "SELECT COUNT(*) FROM datavalue where dataelementid in (" + getCommaDelimitedString( getIdentifiers( dataElements ) ) + ")";
+
+        return jdbcTemplate.queryForObject( sql, Integer.class ) == 0 ? null : ERROR;
+    }
     
     @Override
     public String allowDeletePeriod( Period period )
@@ -86,6 +99,14 @@ public class DataValueDeletionHandler
         
         return jdbcTemplate.queryForObject( sql, Integer.class ) == 0 ? null : ERROR;
     }
+
+    @Override
+    public String allowDeleteOrganisationUnits( Collection<OrganisationUnit> units )
+    {
+        String sql = "SELECT COUNT(*) FROM datavalue where sourceid in (" + getCommaDelimitedString( getIdentifiers( units ) ) + ")";
+
+        return jdbcTemplate.queryForObject( sql, Integer.class ) == 0 ? null : ERROR;
+    }
     
     @Override
     public String allowDeleteCategoryOptionCombo( CategoryOptionCombo optionCombo )
@@ -30,6 +30,8 @@ package org.hisp.dhis.datavalue;
  *
  */
 
+import org.hisp.dhis.cache.Cache;
+import org.hisp.dhis.cache.CacheProvider;
 import org.hisp.dhis.category.CategoryOption;
 import org.hisp.dhis.category.CategoryOptionCombo;
 import org.hisp.dhis.commons.util.SystemUtils;
@@ -38,8 +40,6 @@ import org.hisp.dhis.dataset.DataSet;
 import org.hisp.dhis.security.acl.AclService;
 import org.hisp.dhis.user.User;
 
-import com.github.benmanes.caffeine.cache.Cache;
-import com.github.benmanes.caffeine.cache.Caffeine;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.env.Environment;
 
@@ -56,13 +56,16 @@ import java.util.concurrent.TimeUnit;
 public class DefaultAggregateAccessManager
     implements AggregateAccessManager
 {
-    private static Cache<String, List<String>> CAN_DATA_WRITE_COC_CACHE;
+    private Cache<List<String>> canDataWriteCocCache;
 
     private final AclService aclService;
 
     @Autowired
     private Environment env;
 
+    @Autowired
+    private CacheProvider cacheProvider;
+
     public DefaultAggregateAccessManager( AclService aclService )
     {
         this.aclService = aclService;
@@ -73,13 +76,13 @@ public class DefaultAggregateAccessManager
     // ---------------------------------------------------------------------
 
     @PostConstruct
+    @SuppressWarnings( "unchecked" )
     public void init()
     {
-
-        CAN_DATA_WRITE_COC_CACHE = Caffeine.newBuilder()
-                .expireAfterWrite( 3, TimeUnit.HOURS )
-                .initialCapacity( 1000 )
-                .maximumSize( SystemUtils.isTestRun( env.getActiveProfiles() ) ? 0 : 10000 ).build();
+        canDataWriteCocCache = (Cache<List<String>>) (Cache<?>) cacheProvider.newCacheBuilder( List.class )
+            .forRegion( "canDataWriteCocCache" )
+            .expireAfterWrite( 3, TimeUnit.HOURS )
+            .withMaximumSize( SystemUtils.isTestRun( env.getActiveProfiles() ) ? 0 : 10000 ).build();
     }
 
     @Override
@@ -182,7 +185,7 @@ public class DefaultAggregateAccessManager
     {
         String cacheKey = user.getUid() + "-" + optionCombo.getUid();
 
-        return CAN_DATA_WRITE_COC_CACHE.get( cacheKey, key -> canWrite( user, optionCombo ) );
+        return canDataWriteCocCache.get( cacheKey, key -> canWrite( user, optionCombo ) ).orElse( new ArrayList<>() );
     }
 
     @Override
@@ -35,6 +35,7 @@ import java.util.Calendar;
 import java.util.Collection;
 import java.util.Date;
 import java.util.List;
+import java.util.function.Consumer;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -323,12 +324,24 @@ public class DefaultDataValueService
         return dataValueStore.getDataValues( source, period, dataElements, attributeOptionCombo );
     }
 
+    @Override
+    public List<DataValue> getPersistedDataValues( Collection<DataValue> dataValues )
+    {
+        return dataValueStore.getPersistedDataValues( dataValues );
+    }
+
     @Override
     public List<DeflatedDataValue> getDeflatedDataValues( DataExportParams params )
     {
         return dataValueStore.getDeflatedDataValues( params );
     }
 
+    @Override
+    public void getDeflatedDataValues( DataExportParams params, Consumer<DeflatedDataValue> consumer )
+    {
+        dataValueStore.getDeflatedDataValues( params, consumer );
+    }
+
     @Override
     public int getDataValueCount( int days )
     {
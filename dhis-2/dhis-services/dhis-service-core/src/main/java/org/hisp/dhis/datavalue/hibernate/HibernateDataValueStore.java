@@ -32,11 +32,16 @@ import static org.hisp.dhis.common.IdentifiableObjectUtils.getIdentifiers;
 import static org.hisp.dhis.commons.util.TextUtils.getCommaDelimitedString;
 import static org.hisp.dhis.commons.util.TextUtils.removeLastOr;
 
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -44,6 +49,7 @@ import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.Predicate;
 import javax.persistence.criteria.Root;
 
+import org.apache.commons.lang3.mutable.MutableInt;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.hibernate.query.Query;
@@ -62,8 +68,9 @@ import org.hisp.dhis.organisationunit.OrganisationUnit;
 import org.hisp.dhis.period.Period;
 import org.hisp.dhis.period.PeriodStore;
 import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.jdbc.support.rowset.SqlRowSet;
+import org.springframework.jdbc.core.RowCallbackHandler;
 
+import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 
 /**
@@ -74,6 +81,12 @@ public class HibernateDataValueStore extends HibernateGenericStore<DataValue>
 {
     private static final Log log = LogFactory.getLog( HibernateDataValueStore.class );
 
+    private static final int FETCH_SIZE = 1000;
+
+    private static final int PERSISTED_BATCH_SIZE = 1000;
+
+    private static final int[] PERSISTED_BATCH_SIZES = { 10, 100, PERSISTED_BATCH_SIZE };
+
     // -------------------------------------------------------------------------
     // Dependencies
     // -------------------------------------------------------------------------
@@ -338,8 +351,126 @@ public class HibernateDataValueStore extends HibernateGenericStore<DataValue>
         return getList( query );
     }
 
+    @Override
+    public List<DataValue> getPersistedDataValues( Collection<DataValue> dataValues )
+    {
+        if ( dataValues.isEmpty() )
+        {
+            return new ArrayList<>();
+        }
+
+        Map<String, DataValue> keyMap = new HashMap<>();
+
+        for ( DataValue dataValue : dataValues )
+        {
+            keyMap.put( getIdKey( dataValue.getDataElement().getId(), dataValue.getPeriod().getId(), dataValue.getSource().getId(),
+                dataValue.getCategoryOptionCombo().getId(), dataValue.getAttributeOptionCombo().getId() ), dataValue );
+        }
+
+        // ---------------------------------------------------------------------
+        // Query the requested keys as row values in batches with bound
+        // parameters. Batches are padded with their last key to one of a few
+        // fixed sizes, so that only a few distinct query strings are prepared
+        // and cached. Row values are expanded into disjunctions for databases
+        // without support for row values in lists
+        // ---------------------------------------------------------------------
+
+        List<Object[]> rows = new ArrayList<>();
+
+        for ( List<DataValue> batch : Lists.partition( new ArrayList<>( keyMap.values() ), PERSISTED_BATCH_SIZE ) )
+        {
+            int batchSize = getPersistedBatchSize( batch.size() );
+
+            Query<Object[]> query = getSession().createQuery( getPersistedDataValuesHql( batchSize ), Object[].class );
+
+            for ( int i = 0; i < batchSize; i++ )
+            {
+                DataValue dataValue = batch.get( Math.min( i, batch.size() - 1 ) );
+
+                query.setParameter( "de" + i, dataValue.getDataElement().getId() )
+                    .setParameter( "pe" + i, dataValue.getPeriod().getId() )
+                    .setParameter( "ou" + i, dataValue.getSource().getId() )
+                    .setParameter( "co" + i, dataValue.getCategoryOptionCombo().getId() )
+                    .setParameter( "ao" + i, dataValue.getAttributeOptionCombo().getId() );
+            }
+
+            rows.addAll( query.list() );
+        }
+
+        List<DataValue> result = new ArrayList<>();
+
+        for ( Object[] row : rows )
+        {
+            DataValue match = keyMap.get( getIdKey( ( (Number) row[0] ).longValue(), ( (Number) row[1] ).longValue(),
+                ( (Number) row[2] ).longValue(), ( (Number) row[3] ).longValue(), ( (Number) row[4] ).longValue() ) );
+
+            if ( match != null )
+            {
+                DataValue persisted = new DataValue( match.getDataElement(), match.getPeriod(), match.getSource(),
+                    match.getCategoryOptionCombo(), match.getAttributeOptionCombo(), (String) row[5] );
+                persisted.setDeleted( (Boolean) row[6] );
+
+                result.add( persisted );
+            }
+        }
+
+        log.debug( String.format( "Found %d persisted data values for %d data values", result.size(), dataValues.size() ) );
+
+        return result;
+    }
+
     @Override
     public List<DeflatedDataValue> getDeflatedDataValues( DataExportParams params )
+    {
+        List<DeflatedDataValue> result = new ArrayList<>();
+
+        getDeflatedDataValues( params, result::add );
+
+        return result;
+    }
+
+    @Override
+    public void getDeflatedDataValues( DataExportParams params, Consumer<DeflatedDataValue> consumer )
+    {
+        final String sql = getDeflatedDataValuesSql( params );
+
+        final MutableInt count = new MutableInt();
+
+        jdbcTemplate.query( connection -> {
+            PreparedStatement statement = connection.prepareStatement( sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY );
+            statement.setFetchSize( FETCH_SIZE );
+            return statement;
+        }, (RowCallbackHandler) rs -> {
+            Integer dataElementId = rs.getInt( 1 );
+            Integer periodId = rs.getInt( 2 );
+            Integer organisationUnitId = rs.getInt( 3 );
+            Integer categoryOptionComboId = rs.getInt( 4 );
+            Integer attributeOptionComboId = rs.getInt( 5 );
+            String value = rs.getString( 6 );
+            String storedBy = rs.getString( 7 );
+            Date created = rs.getDate( 8 );
+            Date lastUpdated = rs.getDate( 9 );
+            String comment = rs.getString( 10 );
+            boolean followup = rs.getBoolean( 11 );
+
+            consumer.accept( new DeflatedDataValue( dataElementId, periodId,
+                organisationUnitId, categoryOptionComboId, attributeOptionComboId,
+                value, storedBy, created, lastUpdated, comment, followup ) );
+
+            count.increment();
+        } );
+
+        log.debug( count + " DeflatedDataValues returned from: " + sql );
+    }
+
+    /**
+     * Returns the SQL query selecting deflated data values for the given
+     * data export parameters.
+     *
+     * @param params the data export parameters.
+     * @return an SQL query.
+     */
+    private String getDeflatedDataValuesSql( DataExportParams params )
     {
         SqlHelper sqlHelper = new SqlHelper( true );
 
@@ -458,32 +589,7 @@ public class HibernateDataValueStore extends HibernateGenericStore<DataValue>
 
         sql += where;
 
-        SqlRowSet rowSet = jdbcTemplate.queryForRowSet( sql );
-
-        List<DeflatedDataValue> result = new ArrayList<>();
-
-        while ( rowSet.next() )
-        {
-            Integer dataElementId = rowSet.getInt( 1 );
-            Integer periodId = rowSet.getInt( 2 );
-            Integer organisationUnitId = rowSet.getInt( 3 );
-            Integer categoryOptionComboId = rowSet.getInt( 4 );
-            Integer attributeOptionComboId = rowSet.getInt( 5 );
-            String value = rowSet.getString( 6 );
-            String storedBy = rowSet.getString( 7 );
-            Date created = rowSet.getDate( 8 );
-            Date lastUpdated = rowSet.getDate( 9 );
-            String comment = rowSet.getString( 10 );
-            boolean followup = rowSet.getBoolean( 11 );
-
-            result.add( new DeflatedDataValue( dataElementId, periodId,
-                organisationUnitId, categoryOptionComboId, attributeOptionComboId,
-                value, storedBy, created, lastUpdated, comment, followup ) );
-        }
-
-        log.debug( result.size() + " DeflatedDataValues returned from: " + sql );
-
-        return result;
+        return sql;
     }
 
     @Override
@@ -557,4 +663,48 @@ public class HibernateDataValueStore extends HibernateGenericStore<DataValue>
             .filter( deo -> deo.getCategoryOptionCombo() == null || !wildDataElementIds.contains( deo.getDataElement().getId() ) )
             .collect( Collectors.toList() );
     }
+
+    /**
+     * Returns the smallest fixed batch size which fits the given number of
+     * data values.
+     */
+    private int getPersistedBatchSize( int size )
+    {
+        for ( int batchSize : PERSISTED_BATCH_SIZES )
+        {
+            if ( size <= batchSize )
+            {
+                return batchSize;
+            }
+        }
+
+        return PERSISTED_BATCH_SIZE;
+    }
+
+    /**
+     * Returns a query for persisted data values by the given number of row
+     * value keys, with named parameters for the identifiers of each key.
+     */
+    private String getPersistedDataValuesHql( int batchSize )
+    {
+        StringBuilder hql = new StringBuilder(
+            "select dv.dataElement.id, dv.period.id, dv.source.id, dv.categoryOptionCombo.id, dv.attributeOptionCombo.id, " +
+            "dv.value, dv.deleted " +
+            "from DataValue dv " +
+            "where (dv.dataElement.id, dv.period.id, dv.source.id, dv.categoryOptionCombo.id, dv.attributeOptionCombo.id) in (" );
+
+        for ( int i = 0; i < batchSize; i++ )
+        {
+            hql.append( i > 0 ? "," : "" )
+                .append( "(:de" ).append( i ).append( ",:pe" ).append( i ).append( ",:ou" ).append( i )
+                .append( ",:co" ).append( i ).append( ",:ao" ).append( i ).append( ")" );
+        }
+
+        return hql.append( ")" ).toString();
+    }
+
+    private String getIdKey( long dataElementId, long periodId, long orgUnitId, long categoryOptionComboId, long attributeOptionComboId )
+    {
+        return dataElementId + "-" + periodId + "-" + orgUnitId + "-" + categoryOptionComboId + "-" + attributeOptionComboId;
+    }
 }
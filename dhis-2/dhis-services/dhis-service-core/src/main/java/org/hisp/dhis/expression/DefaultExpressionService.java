@@ -36,6 +36,8 @@ import static org.hisp.dhis.system.util.MathUtils.calculateExpression;
 
 import java.util.*;
 import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -62,6 +64,10 @@ import org.hisp.dhis.indicator.IndicatorValue;
 import org.hisp.dhis.organisationunit.OrganisationUnitGroup;
 import org.hisp.dhis.organisationunit.OrganisationUnitGroupService;
 import org.hisp.dhis.parser.expression.AbstractVisitor;
+import org.hisp.dhis.parser.expression.CompiledExpression;
+import org.hisp.dhis.parser.expression.CompiledItem;
+import org.hisp.dhis.parser.expression.ExpressionCompiler;
+import org.hisp.dhis.parser.expression.ExpressionItemValues;
 import org.hisp.dhis.parser.expression.Parser;
 import org.hisp.dhis.parser.expression.ParserException;
 import org.hisp.dhis.period.Period;
@@ -200,9 +206,19 @@ public class DefaultExpressionService
         return groups;
     }
 
+    @Override
     public IndicatorValue getIndicatorValueObject( Indicator indicator, Period period,
         Map<DimensionalItemObject, Double> valueMap, Map<String, Double> constantMap,
         Map<String, Integer> orgUnitCountMap )
+    {
+        return getIndicatorValueObject( indicator, period, valueMap, getItemValueMap( valueMap ),
+            constantMap, orgUnitCountMap );
+    }
+
+    @Override
+    public IndicatorValue getIndicatorValueObject( Indicator indicator, Period period,
+        Map<DimensionalItemObject, Double> valueMap, Map<String, Double> itemValueMap,
+        Map<String, Double> constantMap, Map<String, Integer> orgUnitCountMap )
     {
         if ( indicator == null || indicator.getNumerator() == null || indicator.getDenominator() == null )
         {
@@ -211,11 +227,11 @@ public class DefaultExpressionService
 
         Integer days = period != null ? period.getDaysInPeriod() : null;
 
-        Double denominatorValue = getExpressionValue( indicator.getDenominator(),
-            valueMap, constantMap, orgUnitCountMap, days, MissingValueStrategy.NEVER_SKIP );
+        Double denominatorValue = getExpressionValue( indicator.getDenominator(), valueMap, itemValueMap,
+            constantMap, orgUnitCountMap, days, MissingValueStrategy.NEVER_SKIP );
 
-        Double numeratorValue = getExpressionValue( indicator.getNumerator(),
-            valueMap, constantMap, orgUnitCountMap, days, MissingValueStrategy.NEVER_SKIP );
+        Double numeratorValue = getExpressionValue( indicator.getNumerator(), valueMap, itemValueMap,
+            constantMap, orgUnitCountMap, days, MissingValueStrategy.NEVER_SKIP );
 
         if ( denominatorValue != null && denominatorValue != 0d && numeratorValue != null )
         {
@@ -325,20 +341,79 @@ public class DefaultExpressionService
         Map<DimensionalItemObject, Double> valueMap, Map<String, Double> constantMap,
         Map<String, Integer> orgUnitCountMap, Integer days,
         MissingValueStrategy missingValueStrategy )
+    {
+        return getExpressionValue( expression, valueMap, getItemValueMap( valueMap ),
+            constantMap, orgUnitCountMap, days, missingValueStrategy );
+    }
+
+    @Override
+    public Double getExpressionValue( String expression,
+        Map<DimensionalItemObject, Double> valueMap, Map<String, Double> itemValueMap,
+        Map<String, Double> constantMap, Map<String, Integer> orgUnitCountMap, Integer days,
+        MissingValueStrategy missingValueStrategy )
     {
         if ( expression == null )
         {
             return null;
         }
 
+        CompiledExpression compiledExpression = ExpressionCompiler.getCompiledExpression( expression );
+
+        if ( compiledExpression != null && !compiledExpression.isBooleanValue() )
+        {
+            ExpressionItemValues values = compiledExpression.newItemValues();
+
+            if ( setItemValues( compiledExpression, values, getItemValueFunction( itemValueMap ),
+                constantMap, orgUnitCountMap, days ) )
+            {
+                double value = compiledExpression.evaluate( values );
+
+                return applyMissingValueStrategy( value, values.getItemsFound(),
+                    values.getItemValuesFound(), missingValueStrategy );
+            }
+        }
+
         ExpressionEvaluator expressionEvaluator = new ExpressionEvaluator(
             valueMap, constantMap, orgUnitCountMap, days );
 
         Double value = visit ( expression, expressionEvaluator, true );
 
-        int itemsFound = expressionEvaluator.getItemsFound();
-        int itemValuesFound = expressionEvaluator.getItemValuesFound();
+        return applyMissingValueStrategy( value, expressionEvaluator.getItemsFound(),
+            expressionEvaluator.getItemValuesFound(), missingValueStrategy );
+    }
+
+    @Override
+    public Map<String, Double> getItemValueMap( Map<? extends DimensionalItemObject, Double> valueMap )
+    {
+        Map<String, Double> itemValueMap = new HashMap<>();
+
+        for ( Map.Entry<? extends DimensionalItemObject, Double> entry : valueMap.entrySet() )
+        {
+            if ( entry.getValue() != null )
+            {
+                itemValueMap.put( entry.getKey().getDimensionItem(), entry.getValue() );
+            }
+        }
+
+        return itemValueMap;
+    }
+
+    // -------------------------------------------------------------------------
+    // Supportive methods
+    // -------------------------------------------------------------------------
 
+    /**
+     * Applies a missing value strategy to an expression value.
+     *
+     * @param value the expression value.
+     * @param itemsFound the number of items found in the expression.
+     * @param itemValuesFound the number of items with values.
+     * @param missingValueStrategy the missing value strategy.
+     * @return the expression value, or null if it should be skipped.
+     */
+    private Double applyMissingValueStrategy( Double value, int itemsFound, int itemValuesFound,
+        MissingValueStrategy missingValueStrategy )
+    {
         switch ( missingValueStrategy )
         {
             case SKIP_IF_ANY_VALUE_MISSING:
@@ -363,9 +438,81 @@ public class DefaultExpressionService
         return value;
     }
 
-    // -------------------------------------------------------------------------
-    // Supportive methods
-    // -------------------------------------------------------------------------
+    /**
+     * Sets the values of the items of a compiled expression.
+     *
+     * @param compiledExpression the compiled expression.
+     * @param values the item values to set.
+     * @param itemValueFunction the item values by dimension item identifier,
+     *        NaN if missing.
+     * @param constantMap the constant values.
+     * @param orgUnitCountMap the organisation unit group counts.
+     * @param days the number of days.
+     * @return false if the value of a constant or organisation unit group
+     *         count is missing, otherwise true.
+     */
+    private boolean setItemValues( CompiledExpression compiledExpression, ExpressionItemValues values,
+        ToDoubleFunction<String> itemValueFunction, Map<String, Double> constantMap,
+        Map<String, Integer> orgUnitCountMap, Integer days )
+    {
+        List<CompiledItem> items = compiledExpression.getItems();
+
+        for ( int slot = 0; slot < items.size(); slot++ )
+        {
+            CompiledItem item = items.get( slot );
+
+            switch ( item.getType() )
+            {
+                case DIMENSIONAL_ITEM:
+                    values.setValue( slot, itemValueFunction.applyAsDouble( item.getKey() ) );
+                    break;
+
+                case CONSTANT:
+                    Double constant = constantMap != null ? constantMap.get( item.getKey() ) : null;
+
+                    if ( constant == null )
+                    {
+                        return false;
+                    }
+
+                    values.setValue( slot, constant );
+                    break;
+
+                case ORG_UNIT_GROUP_COUNT:
+                    Integer count = orgUnitCountMap != null ? orgUnitCountMap.get( item.getKey() ) : Integer.valueOf( 0 );
+
+                    if ( count == null )
+                    {
+                        return false;
+                    }
+
+                    values.setValue( slot, count.doubleValue() );
+                    break;
+
+                case DAYS:
+                    values.setValue( slot, days != null ? days.doubleValue() : null );
+                    break;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Returns a function reading item values from the given map, returning
+     * NaN for missing values.
+     *
+     * @param itemValueMap the values by dimension item identifier.
+     * @return the item value function.
+     */
+    private ToDoubleFunction<String> getItemValueFunction( Map<String, Double> itemValueMap )
+    {
+        return key -> {
+            Double value = itemValueMap.get( key );
+
+            return value != null ? value : Double.NaN;
+        };
+    }
 
     /**
      * Creates a new ExpressionItemsVisitor object.
@@ -416,6 +563,28 @@ public class DefaultExpressionService
         Map<String, Double> constantMap, Map<String, Integer> orgUnitCountMap, Integer days,
         ListMap<String, Double> aggregateMap )
     {
+        return getExpressionValueRegEx( expression, valueMap, getItemValueMap( valueMap ), constantMap,
+            orgUnitCountMap, days, aggregateMap );
+    }
+
+    @Override
+    public Double getExpressionValueRegEx( Expression expression, Map<? extends DimensionalItemObject, Double> valueMap,
+        Map<String, Double> itemValueMap, Map<String, Double> constantMap, Map<String, Integer> orgUnitCountMap,
+        Integer days, ListMap<String, Double> aggregateMap )
+    {
+        CompiledExpression compiledExpression = getCompiledExpression( expression );
+
+        if ( compiledExpression != null )
+        {
+            ExpressionItemValues values = compiledExpression.newItemValues();
+
+            if ( setItemValues( compiledExpression, values, getItemValueFunction( itemValueMap ),
+                constantMap, orgUnitCountMap, days ) )
+            {
+                return getCompiledExpressionValue( expression, compiledExpression, values );
+            }
+        }
+
         String expressionString = generateExpression( expression.getExpression(),
             valueMap, constantMap, orgUnitCountMap, days, expression.getMissingValueStrategy(),
             aggregateMap );
@@ -423,6 +592,56 @@ public class DefaultExpressionService
         return expressionString != null ? calculateExpression( expressionString ) : null;
     }
 
+    @Override
+    public Double getExpressionValueRegEx( Expression expression, ToDoubleFunction<String> itemValueFunction,
+        Supplier<Map<? extends DimensionalItemObject, Double>> valueMapSupplier,
+        Map<String, Double> constantMap, Map<String, Integer> orgUnitCountMap, Integer days )
+    {
+        CompiledExpression compiledExpression = getCompiledExpression( expression );
+
+        if ( compiledExpression != null )
+        {
+            ExpressionItemValues values = compiledExpression.newItemValues();
+
+            if ( setItemValues( compiledExpression, values, itemValueFunction, constantMap, orgUnitCountMap, days ) )
+            {
+                return getCompiledExpressionValue( expression, compiledExpression, values );
+            }
+        }
+
+        return getExpressionValueRegEx( expression, valueMapSupplier.get(), constantMap, orgUnitCountMap, days, null );
+    }
+
+    /**
+     * Gets the compiled form of an expression.
+     *
+     * @param expression the expression.
+     * @return the compiled expression, or null if it cannot be compiled.
+     */
+    private CompiledExpression getCompiledExpression( Expression expression )
+    {
+        return expression.getExpression() != null
+            ? ExpressionCompiler.getCompiledExpression( expression.getExpression() ) : null;
+    }
+
+    /**
+     * Evaluates a compiled expression and applies the missing value strategy
+     * of the expression.
+     *
+     * @param expression the expression.
+     * @param compiledExpression the compiled form of the expression.
+     * @param values the item values.
+     * @return the expression value, or null if it should be skipped.
+     */
+    private Double getCompiledExpressionValue( Expression expression, CompiledExpression compiledExpression,
+        ExpressionItemValues values )
+    {
+        double value = compiledExpression.evaluate( values );
+
+        return applyMissingValueStrategy( value, values.getItemsFound(), values.getItemValuesFound(),
+            ObjectUtils.firstNonNull( expression.getMissingValueStrategy(), NEVER_SKIP ) );
+    }
+
     @Override
     public Set<DataElement> getDataElementsInExpression( String expression )
     {
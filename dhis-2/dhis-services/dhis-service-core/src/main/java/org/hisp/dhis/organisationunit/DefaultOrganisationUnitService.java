@@ -1,8 +1,5 @@
 package org.hisp.dhis.organisationunit;
 
-import com.github.benmanes.caffeine.cache.Cache;
-import com.github.benmanes.caffeine.cache.Caffeine;
-
 /*
  * Copyright (c) 2004-2018, University of Oslo
  * All rights reserved.
@@ -34,6 +31,8 @@ import com.github.benmanes.caffeine.cache.Caffeine;
 import com.google.common.collect.Sets;
 
 import org.apache.commons.lang3.ObjectUtils;
+import org.hisp.dhis.cache.Cache;
+import org.hisp.dhis.cache.CacheProvider;
 import org.hisp.dhis.commons.collection.ListUtils;
 import org.hisp.dhis.commons.filter.FilterUtils;
 import org.hisp.dhis.commons.util.SystemUtils;
@@ -49,8 +48,11 @@ import org.hisp.dhis.system.util.ValidationUtils;
 import org.hisp.dhis.user.CurrentUserService;
 import org.hisp.dhis.user.User;
 import org.hisp.dhis.version.VersionService;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.env.Environment;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import javax.annotation.PostConstruct;
 import java.awt.geom.Point2D;
@@ -69,11 +71,20 @@ public class DefaultOrganisationUnitService
 {
     private static final String LEVEL_PREFIX = "Level ";
 
-    private static Cache<String, Boolean> IN_USER_ORG_UNIT_HIERARCHY_CACHE;
+    private static final String HIERARCHY_CACHE_KEY = "hierarchy";
+
+    private static final Object HIERARCHY_CACHE_SYNCHRONIZATION = DefaultOrganisationUnitService.class.getName() + ".hierarchyCache";
+
+    private Cache<Boolean> inUserOrgUnitHierarchyCache;
+
+    private Cache<OrganisationUnitHierarchy> orgUnitHierarchyCache;
 
     // -------------------------------------------------------------------------
     // Dependencies
     // -------------------------------------------------------------------------
+    @Autowired
+    private CacheProvider cacheProvider;
+
     private Environment env;
 
     public void setEnv(Environment env) {
@@ -125,11 +136,16 @@ public class DefaultOrganisationUnitService
     @PostConstruct
     public void init()
     {
+        inUserOrgUnitHierarchyCache = cacheProvider.newCacheBuilder( Boolean.class )
+            .forRegion( "inUserOuHierarchy" )
+            .expireAfterWrite( 3, TimeUnit.HOURS )
+            .withMaximumSize( SystemUtils.isTestRun( env.getActiveProfiles() ) ? 0 : 20000 ).build();
 
-        IN_USER_ORG_UNIT_HIERARCHY_CACHE = Caffeine.newBuilder()
-                .expireAfterWrite( 3, TimeUnit.HOURS )
-                .initialCapacity( 1000 )
-                .maximumSize( SystemUtils.isTestRun(env.getActiveProfiles() ) ? 0 : 20000 ).build();
+        orgUnitHierarchyCache = cacheProvider.newCacheBuilder( OrganisationUnitHierarchy.class )
+            .forRegion( "orgUnitHierarchy" )
+            .expireAfterWrite( 15, TimeUnit.MINUTES )
+            .forceInMemory()
+            .withMaximumSize( SystemUtils.isTestRun( env.getActiveProfiles() ) ? 0 : 1 ).build();
     }
 
     // -------------------------------------------------------------------------
@@ -140,6 +156,7 @@ public class DefaultOrganisationUnitService
     public long addOrganisationUnit( OrganisationUnit organisationUnit )
     {
         organisationUnitStore.save( organisationUnit );
+        invalidateOrganisationUnitHierarchyCache();
         User user = currentUserService.getCurrentUser();
 
         if ( organisationUnit.getParent() == null && user != null )
@@ -155,6 +172,7 @@ public class DefaultOrganisationUnitService
     public void updateOrganisationUnit( OrganisationUnit organisationUnit )
     {
         organisationUnitStore.update( organisationUnit );
+        invalidateOrganisationUnitHierarchyCache();
     }
 
     @Override
@@ -190,6 +208,7 @@ public class DefaultOrganisationUnitService
         }
 
         organisationUnitStore.delete( organisationUnit );
+        invalidateOrganisationUnitHierarchyCache();
     }
 
     @Override
@@ -433,7 +452,7 @@ public class DefaultOrganisationUnitService
     {
         String cacheKey = joinHyphen( currentUserService.getCurrentUsername(), organisationUnit.getUid() );
 
-        return IN_USER_ORG_UNIT_HIERARCHY_CACHE.get( cacheKey, ou -> isInUserHierarchy( organisationUnit ) );
+        return inUserOrgUnitHierarchyCache.get( cacheKey, ou -> isInUserHierarchy( organisationUnit ) ).orElse( false );
     }
 
     @Override
@@ -444,7 +463,7 @@ public class DefaultOrganisationUnitService
             return false;
         }
 
-        return organisationUnit.isDescendant( user.getOrganisationUnits() );
+        return isDescendant( organisationUnit, user.getOrganisationUnits() );
     }
 
     @Override
@@ -452,7 +471,39 @@ public class DefaultOrganisationUnitService
     {
         OrganisationUnit organisationUnit = organisationUnitStore.getByUid( uid );
 
-        return organisationUnit != null ? organisationUnit.isDescendant( organisationUnits ) : false;
+        return organisationUnit != null ? isDescendant( organisationUnit, organisationUnits ) : false;
+    }
+
+    /**
+     * Indicates whether the given organisation unit is equal to or a
+     * descendant of any of the given ancestors. Uses range checks on the
+     * cached hierarchy if the organisation unit is part of it, and otherwise
+     * walks the parents of the organisation unit.
+     */
+    private boolean isDescendant( OrganisationUnit organisationUnit, Set<OrganisationUnit> ancestors )
+    {
+        if ( ancestors == null || ancestors.isEmpty() )
+        {
+            return false;
+        }
+
+        OrganisationUnitHierarchy hierarchy = orgUnitHierarchyCache.get( HIERARCHY_CACHE_KEY,
+            key -> organisationUnitStore.getOrganisationUnitHierarchy() ).get();
+
+        if ( !hierarchy.contains( organisationUnit.getId() ) )
+        {
+            return organisationUnit.isDescendant( ancestors );
+        }
+
+        for ( OrganisationUnit ancestor : ancestors )
+        {
+            if ( hierarchy.isDescendant( organisationUnit.getId(), ancestor.getId() ) )
+            {
+                return true;
+            }
+        }
+
+        return false;
     }
 
     // -------------------------------------------------------------------------
@@ -469,6 +520,41 @@ public class DefaultOrganisationUnitService
     public void updateOrganisationUnitParent( long organisationUnitId, long parentId )
     {
         organisationUnitStore.updateOrganisationUnitParent( organisationUnitId, parentId );
+        invalidateOrganisationUnitHierarchyCache();
+    }
+
+    /**
+     * Invalidates the hierarchy caches now, so that the current transaction
+     * sees its own changes, and again when the transaction completes, so that
+     * a hierarchy loaded concurrently from the state before the commit, or
+     * from uncommitted changes which are rolled back, is not kept. The
+     * completion callback is registered once per transaction.
+     */
+    @Override
+    public void invalidateOrganisationUnitHierarchyCache()
+    {
+        invalidateHierarchyCaches();
+
+        if ( TransactionSynchronizationManager.isSynchronizationActive() &&
+            !TransactionSynchronizationManager.hasResource( HIERARCHY_CACHE_SYNCHRONIZATION ) )
+        {
+            TransactionSynchronizationManager.bindResource( HIERARCHY_CACHE_SYNCHRONIZATION, Boolean.TRUE );
+            TransactionSynchronizationManager.registerSynchronization( new TransactionSynchronizationAdapter()
+            {
+                @Override
+                public void afterCompletion( int status )
+                {
+                    TransactionSynchronizationManager.unbindResourceIfPossible( HIERARCHY_CACHE_SYNCHRONIZATION );
+                    invalidateHierarchyCaches();
+                }
+            } );
+        }
+    }
+
+    private void invalidateHierarchyCaches()
+    {
+        orgUnitHierarchyCache.invalidateAll();
+        inUserOrgUnitHierarchyCache.invalidateAll();
     }
 
     // -------------------------------------------------------------------------
@@ -298,12 +298,16 @@ public class HibernateOrganisationUnitStore
     @Override
     public void updateOrganisationUnitParent( long organisationUnitId, long parentId )
     {
-        Timestamp now = new Timestamp( new Date().getTime() );
+        // Update through the session so that path and level are recomputed and entity listeners are notified
 
-        final String sql = "update organisationunit " + "set parentid=" + parentId + ", lastupdated='"
-            + now + "' " + "where organisationunitid=" + organisationUnitId;
+        OrganisationUnit organisationUnit = getSession().get( OrganisationUnit.class, organisationUnitId );
 
-        jdbcTemplate.execute( sql );
+        Assert.notNull( organisationUnit, "Organisation unit does not exist: " + organisationUnitId );
+
+        organisationUnit.setParent( getSession().load( OrganisationUnit.class, parentId ) );
+        organisationUnit.setLastUpdated( new Date() );
+
+        getSession().update( organisationUnit );
     }
 
     @Override
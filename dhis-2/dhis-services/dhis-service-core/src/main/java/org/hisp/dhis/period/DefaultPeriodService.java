@@ -34,12 +34,15 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
+import com.google.common.collect.Lists;
 import org.hisp.dhis.api.util.DateUtils;
 import org.hisp.dhis.i18n.I18nFormat;
 import org.springframework.transaction.annotation.Transactional;
@@ -117,6 +120,37 @@ public class DefaultPeriodService
         return periodStore.getPeriodsByPeriodType( periodType );
     }
 
+    @Override
+    public List<Period> getPeriodsByIsoPeriods( Collection<String> isoPeriods )
+    {
+        Set<String> isoPeriodSet = new HashSet<>( isoPeriods );
+        Map<PeriodType, Set<Date>> startDateMap = new HashMap<>();
+
+        for ( String isoPeriod : isoPeriodSet )
+        {
+            Period period = PeriodType.getPeriodFromIsoString( isoPeriod );
+
+            if ( period != null )
+            {
+                startDateMap.computeIfAbsent( period.getPeriodType(), pt -> new HashSet<>() ).add( period.getStartDate() );
+            }
+        }
+
+        List<Period> periods = new ArrayList<>();
+
+        for ( Map.Entry<PeriodType, Set<Date>> entry : startDateMap.entrySet() )
+        {
+            for ( List<Date> startDates : Lists.partition( new ArrayList<>( entry.getValue() ), 20000 ) )
+            {
+                periodStore.getPeriodsByStartDates( entry.getKey(), startDates ).stream()
+                    .filter( period -> isoPeriodSet.contains( period.getIsoDate() ) )
+                    .forEach( periods::add );
+            }
+        }
+
+        return periods;
+    }
+
     @Override
     public List<Period> getPeriodsBetweenDates( Date startDate, Date endDate )
     {
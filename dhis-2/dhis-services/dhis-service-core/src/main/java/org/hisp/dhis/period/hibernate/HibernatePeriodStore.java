@@ -30,6 +30,8 @@ package org.hisp.dhis.period.hibernate;
 
 import org.hibernate.Session;
 import org.hibernate.query.Query;
+import org.hisp.dhis.cache.Cache;
+import org.hisp.dhis.cache.CacheProvider;
 import org.hisp.dhis.common.exception.InvalidIdentifierReferenceException;
 import org.hisp.dhis.common.hibernate.HibernateIdentifiableObjectStore;
 import org.hisp.dhis.commons.util.SystemUtils;
@@ -38,14 +40,14 @@ import org.hisp.dhis.period.PeriodStore;
 import org.hisp.dhis.period.PeriodType;
 import org.hisp.dhis.period.RelativePeriods;
 
-import com.github.benmanes.caffeine.cache.Cache;
-import com.github.benmanes.caffeine.cache.Caffeine;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.env.Environment;
 
 import javax.annotation.PostConstruct;
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
@@ -63,8 +65,11 @@ public class HibernatePeriodStore
     @Autowired
     private Environment env;
 
-    private static Cache<String, Long> PERIOD_ID_CACHE;
-    
+    @Autowired
+    private CacheProvider cacheProvider;
+
+    private Cache<Long> periodIdCache;
+
     // -------------------------------------------------------------------------
     // Period
     // -------------------------------------------------------------------------
@@ -72,11 +77,10 @@ public class HibernatePeriodStore
     @PostConstruct
     public void init()
     {
-
-        PERIOD_ID_CACHE =  Caffeine.newBuilder()
-                .expireAfterWrite( 24, TimeUnit.HOURS )
-                .initialCapacity( 200 )
-                .maximumSize( SystemUtils.isTestRun(env.getActiveProfiles()) ? 0 : 10000 ).build();
+        periodIdCache = cacheProvider.newCacheBuilder( Long.class )
+            .forRegion( "periodIdCache" )
+            .expireAfterWrite( 24, TimeUnit.HOURS )
+            .withMaximumSize( SystemUtils.isTestRun( env.getActiveProfiles() ) ? 0 : 10000 ).build();
     }
 
     @Override
@@ -162,6 +166,24 @@ public class HibernatePeriodStore
         return getList( typedQuery );
     }
 
+    @Override
+    public List<Period> getPeriodsByStartDates( PeriodType periodType, Collection<Date> startDates )
+    {
+        PeriodType storedPeriodType = getPeriodType( periodType.getClass() );
+
+        if ( storedPeriodType == null || startDates.isEmpty() )
+        {
+            return new ArrayList<>();
+        }
+
+        String query = "from Period p where p.periodType.id =:periodType and p.startDate in (:startDates)";
+
+        Query<Period> typedQuery = getQuery( query )
+            .setParameter( "periodType", storedPeriodType.getId() )
+            .setParameterList( "startDates", startDates );
+        return getList( typedQuery );
+    }
+
     @Override
     public Period getPeriodFromDates( Date startDate, Date endDate, PeriodType periodType )
     {
@@ -184,7 +206,7 @@ public class HibernatePeriodStore
             return period; // Already in session, no reload needed
         }
 
-        Long id = PERIOD_ID_CACHE.get( period.getCacheKey(), key -> getPeriodId( period.getStartDate(), period.getEndDate(), period.getPeriodType() ) );
+        Long id = periodIdCache.get( period.getCacheKey(), key -> getPeriodId( period.getStartDate(), period.getEndDate(), period.getPeriodType() ) ).orElse( null );
         
         Period storedPeriod = id != null ? getSession().get( Period.class, id ) : null;
 
@@ -75,9 +75,11 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 /**
@@ -117,6 +119,8 @@ public class DefaultPreheatService implements PreheatService
     public Preheat preheat( PreheatParams params )
     {
         Timer timer = new SystemTimer().start();
+        Timer phaseTimer = new SystemTimer().start();
+        Map<String, Long> phaseTimes = new LinkedHashMap<>();
 
         Preheat preheat = new Preheat();
         preheat.setUser( params.getUser() );
@@ -139,9 +143,14 @@ public class DefaultPreheatService implements PreheatService
 
         Map<Class<? extends IdentifiableObject>, List<IdentifiableObject>> uniqueCollectionMap = new HashMap<>();
         Set<Class<? extends IdentifiableObject>> klasses = new HashSet<>( params.getObjects().keySet() );
+        Set<String> periodReferences = new HashSet<>();
 
         if ( PreheatMode.ALL == params.getPreheatMode() )
         {
+            periodReferences = removePeriodReferences( collectReferences( params.getObjects() ) );
+
+            phaseTimer = endPhase( phaseTimes, "references", phaseTimer );
+
             if ( params.getClasses().isEmpty() )
             {
                 schemaService.getMetadataSchemas().stream().filter( Schema::isIdentifiableObject )
@@ -168,11 +177,16 @@ public class DefaultPreheatService implements PreheatService
                 {
                     uniqueCollectionMap.put( klass, new ArrayList<>( objects ) );
                 }
+
+                phaseTimer = endPhase( phaseTimes, klass.getSimpleName(), phaseTimer );
             }
         }
         else if ( PreheatMode.REFERENCE == params.getPreheatMode() )
         {
             Map<PreheatIdentifier, Map<Class<? extends IdentifiableObject>, Set<String>>> references = collectReferences( params.getObjects() );
+            periodReferences = removePeriodReferences( references );
+
+            phaseTimer = endPhase( phaseTimes, "references", phaseTimer );
 
             Map<Class<? extends IdentifiableObject>, Set<String>> uidMap = references.get( PreheatIdentifier.UID );
             Map<Class<? extends IdentifiableObject>, Set<String>> codeMap = references.get( PreheatIdentifier.CODE );
@@ -194,6 +208,8 @@ public class DefaultPreheatService implements PreheatService
                             preheat.put( PreheatIdentifier.UID, objects );
                         }
                     }
+
+                    phaseTimer = endPhase( phaseTimes, "UID:" + klass.getSimpleName(), phaseTimer );
                 }
             }
 
@@ -214,6 +230,8 @@ public class DefaultPreheatService implements PreheatService
                             preheat.put( PreheatIdentifier.CODE, objects );
                         }
                     }
+
+                    phaseTimer = endPhase( phaseTimes, "CODE:" + klass.getSimpleName(), phaseTimer );
                 }
             }
 
@@ -228,6 +246,8 @@ public class DefaultPreheatService implements PreheatService
                     uniqueCollectionMap.put( klass, new ArrayList<>( objects ) );
                 }
             }
+
+            phaseTimer = endPhase( phaseTimes, "uniqueObjects", phaseTimer );
         }
 
         if ( uniqueCollectionMap.containsKey( User.class ) )
@@ -249,6 +269,8 @@ public class DefaultPreheatService implements PreheatService
 
         preheat.setUniquenessMap( collectUniqueness( uniqueCollectionMap ) );
 
+        phaseTimer = endPhase( phaseTimes, "uniqueness", phaseTimer );
+
         // add preheat placeholders for objects that will be created and set mandatory/unique attributes
         for ( Class<? extends IdentifiableObject> klass : params.getObjects().keySet() )
         {
@@ -257,13 +279,28 @@ public class DefaultPreheatService implements PreheatService
         }
 
         handleAttributes( params.getObjects(), preheat );
+
+        phaseTimer = endPhase( phaseTimes, "attributes", phaseTimer );
+
         handleSecurity( params.getObjects(), params.getPreheatIdentifier(), preheat );
 
-        periodStore.getAll().forEach( period -> preheat.getPeriodMap().put( period.getName(), period ) );
+        phaseTimer = endPhase( phaseTimes, "security", phaseTimer );
+
+        // only periods referenced by the objects are loaded, others are loaded on demand when connecting references
+        periodService.getPeriodsByIsoPeriods( periodReferences ).forEach( period -> preheat.getPeriodMap().put( period.getName(), period ) );
         periodStore.getAllPeriodTypes().forEach( periodType -> preheat.getPeriodTypeMap().put( periodType.getName(), periodType ) );
 
+        endPhase( phaseTimes, "periods", phaseTimer );
+
         log.info( "(" + preheat.getUsername() + ") Import:Preheat[" + params.getPreheatMode() + "] took " + timer.toString() );
 
+        if ( log.isDebugEnabled() )
+        {
+            log.debug( "(" + preheat.getUsername() + ") Import:Preheat[" + params.getPreheatMode() + "] phases: " + phaseTimes.entrySet().stream()
+                .map( entry -> entry.getKey() + "=" + TimeUnit.NANOSECONDS.toMillis( entry.getValue() ) + "ms" )
+                .collect( Collectors.joining( ", " ) ) );
+        }
+
         return preheat;
     }
 
@@ -904,6 +941,42 @@ public class DefaultPreheatService implements PreheatService
         return ref;
     }
 
+    /**
+     * Records the duration of a preheat phase.
+     *
+     * @return a new timer for the next phase.
+     */
+    private Timer endPhase( Map<String, Long> phaseTimes, String phase, Timer phaseTimer )
+    {
+        phaseTimes.merge( phase, phaseTimer.duration(), Long::sum );
+
+        return new SystemTimer().start();
+    }
+
+    /**
+     * Removes period references from the collected references. Periods are
+     * referenced by ISO period, and are fetched by ISO period rather than
+     * through the query service.
+     *
+     * @return the referenced ISO periods.
+     */
+    private Set<String> removePeriodReferences( Map<PreheatIdentifier, Map<Class<? extends IdentifiableObject>, Set<String>>> references )
+    {
+        Set<String> periods = new HashSet<>();
+
+        references.values().forEach( map ->
+        {
+            Set<String> identifiers = map.remove( Period.class );
+
+            if ( identifiers != null )
+            {
+                periods.addAll( identifiers );
+            }
+        } );
+
+        return periods;
+    }
+
     private void cleanEmptyEntries( Map<Class<? extends IdentifiableObject>, Set<String>> map )
     {
         Set<Class<? extends IdentifiableObject>> classes = new HashSet<>( map.keySet() );
@@ -40,7 +40,9 @@ import org.hisp.dhis.user.UserAuthorityGroup;
 import org.springframework.beans.factory.annotation.Autowired;
 
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import static org.hisp.dhis.category.CategoryCombo.DEFAULT_CATEGORY_COMBO_NAME;
 
@@ -105,6 +107,22 @@ public class ProgramDeletionHandler
         }
     }
 
+    @Override
+    public void deleteOrganisationUnits( Collection<OrganisationUnit> units )
+    {
+        Set<OrganisationUnit> unitSet = new HashSet<>( units );
+
+        Collection<Program> programs = idObjectManager.getAllNoAcl( Program.class );
+
+        for ( Program program : programs )
+        {
+            if ( program.getOrganisationUnits().removeAll( unitSet ) )
+            {
+                idObjectManager.updateNoAcl( program );
+            }
+        }
+    }
+
     @Override
     public void deleteUserAuthorityGroup( UserAuthorityGroup group )
     {
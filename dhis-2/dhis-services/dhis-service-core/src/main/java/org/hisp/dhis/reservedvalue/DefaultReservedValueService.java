@@ -32,6 +32,8 @@ import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.hisp.dhis.external.conf.ConfigurationKey;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
 import org.hisp.dhis.textpattern.TextPattern;
 import org.hisp.dhis.textpattern.TextPatternGenerationException;
 import org.hisp.dhis.textpattern.TextPatternMethod;
@@ -40,13 +42,19 @@ import org.hisp.dhis.textpattern.TextPatternSegment;
 import org.hisp.dhis.textpattern.TextPatternService;
 import org.hisp.dhis.textpattern.TextPatternValidationUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
-import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
@@ -59,6 +67,8 @@ public class DefaultReservedValueService
 
     private static final long GENERATION_TIMEOUT = (1000 * 30); // 30 sec
 
+    private static final int FORECAST_DAYS = 30;
+
     @Autowired
     private TextPatternService textPatternService;
 
@@ -68,9 +78,26 @@ public class DefaultReservedValueService
     @Autowired
     private SequentialNumberCounterStore sequentialNumberCounterStore;
 
+    @Autowired
+    private DhisConfigurationProvider config;
+
     private final Log log = LogFactory.getLog( DefaultReservedValueService.class );
 
+    /**
+     * Number of reservations served from the pool and number of reservations
+     * which found the pool exhausted, keyed on owner uid.
+     */
+    private final Map<String, AtomicLong> poolRequests = new ConcurrentHashMap<>();
+
+    private final Map<String, AtomicLong> poolExhaustions = new ConcurrentHashMap<>();
+
+    /**
+     * Values taken from the pool and generated values are reserved in one
+     * transaction, so that pooled values are returned to the pool if the
+     * reservation as a whole cannot be fulfilled.
+     */
     @Override
+    @Transactional( rollbackFor = ReserveValueException.class )
     public List<ReservedValue> reserve( TextPattern textPattern, int numberOfReservations, Map<String, String> values, Date expires )
         throws ReserveValueException, TextPatternGenerationException
     {
@@ -83,20 +110,31 @@ public class DefaultReservedValueService
 
         String key = textPatternService.resolvePattern( textPattern, values );
 
-        // Used for searching value tables
-        String valueKey = (generatedSegment != null ?
-            key.replaceAll( Pattern.quote( generatedSegment.getRawSegment() ), "%" ) :
-            key);
-
         ReservedValue reservedValue = new ReservedValue( textPattern.getOwnerObject().name(), textPattern.getOwnerUid(),
             key,
-            valueKey,
+            getValueKey( key, generatedSegment ),
             expires );
 
+        if ( generatedSegment != null && getPoolSize() > 0 )
+        {
+            resultList.addAll( reserveFromPool( reservedValue, numberOfReservations ) );
+
+            if ( resultList.size() == numberOfReservations )
+            {
+                return resultList;
+            }
+        }
+
         if ( !hasEnoughValuesLeft( reservedValue,
             TextPatternValidationUtils.getTotalValuesPotential( generatedSegment ),
-            numberOfReservations ) )
+            numberOfReservations - resultList.size() ) )
         {
+            if ( !resultList.isEmpty() )
+            {
+                throw new ReserveValueException( "Not enough values left to reserve " + numberOfReservations +
+                    " values, only " + resultList.size() + " values were available in the pool." );
+            }
+
             throw new ReserveValueException( "Not enough values left to reserve " + numberOfReservations + " values." );
         }
 
@@ -108,7 +146,7 @@ public class DefaultReservedValueService
 
         List<String> usedGeneratedValues = new ArrayList<>();
 
-        int numberOfValuesLeftToGenerate = numberOfReservations;
+        int numberOfValuesLeftToGenerate = numberOfReservations - resultList.size();
 
         try
         {
@@ -170,8 +208,152 @@ public class DefaultReservedValueService
         return reservedValueStore.isReserved( textPattern.getOwnerObject().name(), textPattern.getOwnerUid(), value );
     }
 
+    @Override
+    public int fillPool( TextPattern textPattern, String key, int poolSize )
+    {
+        TextPatternSegment generatedSegment = getGeneratedSegment( textPattern );
+
+        if ( generatedSegment == null || poolSize < 1 )
+        {
+            return 0;
+        }
+
+        ReservedValue reservedValue = new ReservedValue( textPattern.getOwnerObject().name(), textPattern.getOwnerUid(),
+            key, getValueKey( key, generatedSegment ), null );
+
+        int pooledValues = reservedValueStore.getNumberOfPooledValues( reservedValue );
+
+        long availableValues = TextPatternValidationUtils.getTotalValuesPotential( generatedSegment ) -
+            reservedValueStore.getNumberOfUsedValues( reservedValue ) - pooledValues;
+
+        int missingValues = (int) Math.min( poolSize - pooledValues, availableValues );
+
+        int addedValues = 0;
+        int attemptsLeft = 10;
+
+        while ( addedValues < missingValues && attemptsLeft-- > 0 )
+        {
+            List<String> values = generateValues( textPattern, key, missingValues - addedValues )
+                .stream()
+                .map( value -> resolveGeneratedValue( key, generatedSegment, value ) )
+                .distinct()
+                .collect( Collectors.toList() );
+
+            addedValues += reservedValueStore.addPooledValues( reservedValue, values );
+        }
+
+        if ( addedValues < missingValues )
+        {
+            log.warn( String.format( "Could only add %d of %d values to pool for %s with uid %s and key %s",
+                addedValues, missingValues, textPattern.getOwnerObject().name(), textPattern.getOwnerUid(), key ) );
+        }
+
+        return addedValues;
+    }
+
+    @Override
+    public ReservedValuePoolStatistics getPoolStatistics( TextPattern textPattern, Map<String, String> values )
+        throws TextPatternGenerationException
+    {
+        TextPatternSegment generatedSegment = getGeneratedSegment( textPattern );
+
+        String key = textPatternService.resolvePattern( textPattern, values );
+
+        ReservedValue reservedValue = new ReservedValue( textPattern.getOwnerObject().name(), textPattern.getOwnerUid(),
+            key, getValueKey( key, generatedSegment ), null );
+
+        ReservedValuePoolStatistics statistics = new ReservedValuePoolStatistics(
+            reservedValue.getOwnerObject(), reservedValue.getOwnerUid(), key );
+
+        statistics.setTotalValues( TextPatternValidationUtils.getTotalValuesPotential( generatedSegment ) );
+        statistics.setUsedValues( reservedValueStore.getNumberOfUsedValues( reservedValue ) );
+        statistics.setPoolRequests( getCount( poolRequests, textPattern.getOwnerUid() ) );
+        statistics.setPoolExhaustions( getCount( poolExhaustions, textPattern.getOwnerUid() ) );
+
+        if ( generatedSegment != null && getPoolSize() > 0 )
+        {
+            statistics.setPooledValues( reservedValueStore.getNumberOfPooledValues( reservedValue ) );
+        }
+
+        // Forecast exhaustion from the average daily reservations of the last period
+
+        Date since = Date.from( Instant.now().minus( FORECAST_DAYS, ChronoUnit.DAYS ) );
+
+        double reservationsPerDay = (double) reservedValueStore.getNumberOfReservedValues( reservedValue, since ) / FORECAST_DAYS;
+
+        statistics.setReservationsPerDay( reservationsPerDay );
+
+        if ( reservationsPerDay > 0 )
+        {
+            statistics.setDaysUntilExhausted( statistics.getRemainingValues() / reservationsPerDay );
+        }
+
+        return statistics;
+    }
+
     // Helper methods
 
+    /**
+     * Reserves up to the given number of values from the pool of pre-generated
+     * values. Pooled values are checked for collisions once more as part of
+     * the reservation, and values which have been taken by other means since
+     * they were pooled are dropped.
+     */
+    private List<ReservedValue> reserveFromPool( ReservedValue reservedValue, int numberOfReservations )
+    {
+        List<String> pooledValues = reservedValueStore.takePooledValues( reservedValue, numberOfReservations );
+
+        List<ReservedValue> result = pooledValues.isEmpty() ? new ArrayList<>() :
+            reservedValueStore.reserveValues( reservedValue, pooledValues );
+
+        poolRequests.computeIfAbsent( reservedValue.getOwnerUid(), uid -> new AtomicLong() ).incrementAndGet();
+
+        if ( result.size() < numberOfReservations )
+        {
+            poolExhaustions.computeIfAbsent( reservedValue.getOwnerUid(), uid -> new AtomicLong() ).incrementAndGet();
+
+            log.debug( String.format( "Pool for %s with uid %s and key %s served %d of %d values",
+                reservedValue.getOwnerObject(), reservedValue.getOwnerUid(), reservedValue.getKey(), result.size(), numberOfReservations ) );
+        }
+
+        return result;
+    }
+
+    private int getPoolSize()
+    {
+        return Integer.parseInt( config.getProperty( ConfigurationKey.RESERVED_VALUE_POOL_SIZE ) );
+    }
+
+    private long getCount( Map<String, AtomicLong> counters, String ownerUid )
+    {
+        AtomicLong counter = counters.get( ownerUid );
+
+        return counter != null ? counter.get() : 0;
+    }
+
+    /**
+     * Returns the key with the generated segment replaced by a wildcard, used
+     * for searching value tables.
+     */
+    private String getValueKey( String key, TextPatternSegment generatedSegment )
+    {
+        return generatedSegment != null ?
+            key.replaceAll( Pattern.quote( generatedSegment.getRawSegment() ), "%" ) :
+            key;
+    }
+
+    /**
+     * Returns the key with the generated segment replaced by the given
+     * generated value.
+     */
+    private String resolveGeneratedValue( String key, TextPatternSegment generatedSegment, String generatedValue )
+    {
+        String formattedValue = generatedSegment.getMethod().getType()
+            .getFormattedText( generatedSegment.getParameter(), generatedValue );
+
+        return key.replaceFirst( Pattern.quote( generatedSegment.getRawSegment() ), Matcher.quoteReplacement( formattedValue ) );
+    }
+
     private TextPatternSegment getGeneratedSegment( TextPattern textPattern )
     {
         return textPattern.getSegments()
@@ -198,7 +380,7 @@ public class DefaultReservedValueService
         {
             for ( int i = 0; i < numberOfValues; i++ )
             {
-                generatedValues.add( TextPatternMethodUtils.generateRandom( new Random(), segment.getParameter() ) );
+                generatedValues.add( TextPatternMethodUtils.generateRandom( ThreadLocalRandom.current(), segment.getParameter() ) );
             }
         }
 
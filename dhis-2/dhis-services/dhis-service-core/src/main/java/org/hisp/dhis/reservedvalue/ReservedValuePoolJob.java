@@ -0,0 +1,126 @@
+package org.hisp.dhis.reservedvalue;
+
+/*
+ * Copyright (c) 2004-2018, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.hisp.dhis.common.Objects;
+import org.hisp.dhis.external.conf.ConfigurationKey;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
+import org.hisp.dhis.scheduling.AbstractJob;
+import org.hisp.dhis.scheduling.JobConfiguration;
+import org.hisp.dhis.scheduling.JobType;
+import org.hisp.dhis.trackedentity.TrackedEntityAttribute;
+import org.hisp.dhis.trackedentity.TrackedEntityAttributeService;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+
+/**
+ * Job which tops up the pools of pre-generated reserved values. Pools are
+ * filled for the text pattern keys which have seen reservations recently, and
+ * pooled values of keys which are no longer in use, eg. keys including a past
+ * date, are removed. The job does nothing unless a pool size is configured.
+ * <p>
+ * Values of sequential text patterns are drawn from the sequential number
+ * counter when they are pooled. Removing unused pooled values therefore burns
+ * those sequence numbers, which leaves gaps in the sequence.
+ */
+public class ReservedValuePoolJob
+    extends AbstractJob
+{
+    private static final Log log = LogFactory.getLog( ReservedValuePoolJob.class );
+
+    private static final int RECENT_RESERVATION_DAYS = 7;
+
+    private static final int UNUSED_POOL_DAYS = 30;
+
+    @Autowired
+    private ReservedValueService reservedValueService;
+
+    @Autowired
+    private ReservedValueStore reservedValueStore;
+
+    @Autowired
+    private TrackedEntityAttributeService trackedEntityAttributeService;
+
+    @Autowired
+    private DhisConfigurationProvider config;
+
+    @Override
+    public JobType getJobType()
+    {
+        return JobType.RESERVED_VALUE_POOL;
+    }
+
+    @Override
+    public void execute( JobConfiguration jobConfiguration )
+        throws Exception
+    {
+        int poolSize = Integer.parseInt( config.getProperty( ConfigurationKey.RESERVED_VALUE_POOL_SIZE ) );
+
+        if ( poolSize < 1 )
+        {
+            log.debug( "Reserved value pool is disabled" );
+            return;
+        }
+
+        reservedValueStore.removeUnusedPooledValues( getDaysAgo( UNUSED_POOL_DAYS ) );
+
+        int keys = 0;
+        int addedValues = 0;
+
+        for ( ReservedValue key : reservedValueStore.getReservedValueKeys( getDaysAgo( RECENT_RESERVATION_DAYS ) ) )
+        {
+            if ( !Objects.TRACKEDENTITYATTRIBUTE.name().equals( key.getOwnerObject() ) )
+            {
+                continue;
+            }
+
+            TrackedEntityAttribute attribute = trackedEntityAttributeService.getTrackedEntityAttribute( key.getOwnerUid() );
+
+            if ( attribute == null || attribute.getTextPattern() == null )
+            {
+                continue;
+            }
+
+            addedValues += reservedValueService.fillPool( attribute.getTextPattern(), key.getKey(), poolSize );
+            keys++;
+        }
+
+        log.info( String.format( "Added %d values to reserved value pools for %d keys", addedValues, keys ) );
+    }
+
+    private Date getDaysAgo( int days )
+    {
+        return Date.from( Instant.now().minus( days, ChronoUnit.DAYS ) );
+    }
+}
@@ -43,6 +43,7 @@ import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static org.hisp.dhis.common.Objects.TRACKEDENTITYATTRIBUTE;
 
@@ -172,6 +173,91 @@ public class HibernateReservedValueStore
             .isEmpty();
     }
 
+    @Override
+    public int getNumberOfReservedValues( ReservedValue reservedValue, Date since )
+    {
+        Integer count = jdbcTemplate.queryForObject(
+            "select count(*) from reservedvalue where owneruid = ? and key = ? and created >= ?",
+            Integer.class, reservedValue.getOwnerUid(), reservedValue.getKey(), since );
+
+        if ( Objects.valueOf( reservedValue.getOwnerObject() ).equals( TRACKEDENTITYATTRIBUTE ) )
+        {
+            count += jdbcTemplate.queryForObject(
+                "select count(*) from trackedentityattributevalue where trackedentityattributeid = " +
+                "(select trackedentityattributeid from trackedentityattribute where uid = ?) " +
+                "and value like ? and created >= ?",
+                Integer.class, reservedValue.getOwnerUid(), reservedValue.getValue(), since );
+        }
+
+        return count;
+    }
+
+    @Override
+    public List<ReservedValue> getReservedValueKeys( Date since )
+    {
+        String sql = "select distinct ownerobject, owneruid, key from reservedvalue where created >= ?";
+
+        return jdbcTemplate.query( sql, ( rs, i ) -> new ReservedValue(
+            rs.getString( "ownerobject" ), rs.getString( "owneruid" ), rs.getString( "key" ), null, null ), since );
+    }
+
+    @Override
+    public List<String> takePooledValues( ReservedValue reservedValue, int numberOfValues )
+    {
+        // Skip locked rows so that concurrent reservations are served disjoint values without waiting
+
+        String sql =
+            "delete from reservedvaluepool where (ownerobject, owneruid, key, value) in (" +
+                "select ownerobject, owneruid, key, value from reservedvaluepool " +
+                "where ownerobject = ? and owneruid = ? and key = ? " +
+                "order by created, value limit ? for update skip locked) " +
+            "returning value";
+
+        return jdbcTemplate.queryForList( sql, String.class, reservedValue.getOwnerObject(),
+            reservedValue.getOwnerUid(), reservedValue.getKey(), numberOfValues );
+    }
+
+    @Override
+    public int addPooledValues( ReservedValue reservedValue, List<String> values )
+    {
+        List<String> availableValues = getIfAvailable( reservedValue, new ArrayList<>( values ) );
+
+        if ( availableValues.isEmpty() )
+        {
+            return 0;
+        }
+
+        String sql = "insert into reservedvaluepool (ownerobject, owneruid, key, value, created) " +
+            "values (?, ?, ?, ?, ?) on conflict do nothing";
+
+        Date now = new Date();
+
+        List<Object[]> batchArgs = availableValues.stream()
+            .map( value -> new Object[] { reservedValue.getOwnerObject(), reservedValue.getOwnerUid(),
+                reservedValue.getKey(), value, now } )
+            .collect( Collectors.toList() );
+
+        return IntStream.of( jdbcTemplate.batchUpdate( sql, batchArgs ) ).filter( count -> count > 0 ).sum();
+    }
+
+    @Override
+    public int getNumberOfPooledValues( ReservedValue reservedValue )
+    {
+        return jdbcTemplate.queryForObject(
+            "select count(*) from reservedvaluepool where ownerobject = ? and owneruid = ? and key = ?",
+            Integer.class, reservedValue.getOwnerObject(), reservedValue.getOwnerUid(), reservedValue.getKey() );
+    }
+
+    @Override
+    public void removeUnusedPooledValues( Date since )
+    {
+        String sql = "delete from reservedvaluepool p where p.created < ? and not exists (" +
+            "select 1 from reservedvalue rv where rv.ownerobject = p.ownerobject and rv.owneruid = p.owneruid " +
+            "and rv.key = p.key and rv.created >= ?)";
+
+        jdbcTemplate.update( sql, since, since );
+    }
+
     // Helper methods
 
     private List<String> getIfAvailable( ReservedValue reservedValue, List<String> values )
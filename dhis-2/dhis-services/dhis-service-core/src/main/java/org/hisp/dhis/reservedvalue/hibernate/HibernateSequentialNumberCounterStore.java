@@ -28,6 +28,7 @@ package org.hisp.dhis.reservedvalue.hibernate;
  * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
  */
 
+import org.hibernate.LockMode;
 import org.hibernate.Session;
 import org.hibernate.SessionFactory;
 import org.hisp.dhis.reservedvalue.SequentialNumberCounter;
@@ -59,10 +60,13 @@ public class HibernateSequentialNumberCounterStore
 
         int count;
 
+        // Lock the counter row so that concurrent requests are allocated disjoint ranges
+
         SequentialNumberCounter counter = (SequentialNumberCounter) session
-            .createQuery( "FROM SequentialNumberCounter WHERE owneruid = ? AND key = ?" )
+            .createQuery( "FROM SequentialNumberCounter c WHERE owneruid = ? AND key = ?" )
             .setParameter( 0, uid )
             .setParameter( 1, key )
+            .setLockMode( "c", LockMode.PESSIMISTIC_WRITE )
             .uniqueResult();
 
         if ( counter == null )
@@ -0,0 +1,462 @@
+package org.hisp.dhis.scheduling;
+
+/*
+ * Copyright (c) 2004-2018, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.hisp.dhis.common.CodeGenerator;
+import org.hisp.dhis.external.conf.ConfigurationKey;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
+import org.hisp.dhis.system.notification.Notifier;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.rowset.SqlRowSet;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link WorkQueue} backed by the jobtask table. Tasks are claimed with
+ * <code>select for update skip locked</code>, which lets every node of the
+ * cluster pull tasks from the same table without blocking each other.
+ * Running tasks are kept alive through heartbeats, and tasks of nodes which
+ * stopped sending heartbeats are claimed again until the maximum number of
+ * attempts is reached.
+ * <p>
+ * All queue operations run in separate transactions so that tasks submitted
+ * from within a transaction are visible to the other nodes immediately.
+ * <p>
+ * Requires PostgreSQL and is enabled through the <code>cluster.work_queue</code>
+ * configuration property.
+ */
+public class JdbcWorkQueue
+    implements WorkQueue
+{
+    private static final Log log = LogFactory.getLog( JdbcWorkQueue.class );
+
+    private static final String STATUS_QUEUED = "QUEUED";
+
+    private static final String STATUS_RUNNING = "RUNNING";
+
+    private static final String STATUS_COMPLETED = "COMPLETED";
+
+    private static final String STATUS_FAILED = "FAILED";
+
+    private static final int MAX_ATTEMPTS = 3;
+
+    private static final int ABANDONED_TIMEOUT_SECONDS = 60;
+
+    private static final int HEARTBEAT_INTERVAL_SECONDS = 10;
+
+    private static final int RETENTION_HOURS = 24;
+
+    private static final long POLL_INTERVAL_MILLIS = 1000;
+
+    private static final int MAX_ERROR_LENGTH = 4000;
+
+    private static final String CLAIM_SQL =
+        "update jobtask set status = '" + STATUS_RUNNING + "', nodeid = ?, attempts = attempts + 1, heartbeat = now() " +
+        "where jobtaskid = (" +
+            "select jobtaskid from jobtask " +
+            "where (status = '" + STATUS_QUEUED + "' " +
+            "or (status = '" + STATUS_RUNNING + "' and heartbeat < now() - ? * interval '1 second')) " +
+            "and attempts < maxattempts " +
+            "order by jobtaskid " +
+            "limit 1 " +
+            "for update skip locked) " +
+        "returning jobtaskid, tasktype, payload";
+
+    // -------------------------------------------------------------------------
+    // Dependencies
+    // -------------------------------------------------------------------------
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private Notifier notifier;
+
+    @Autowired
+    private DhisConfigurationProvider config;
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // -------------------------------------------------------------------------
+    // State
+    // -------------------------------------------------------------------------
+
+    private String nodeId;
+
+    private TransactionTemplate newTransaction;
+
+    private volatile boolean running;
+
+    private final List<Thread> workers = new ArrayList<>();
+
+    private ScheduledExecutorService heartbeatExecutor;
+
+    private volatile Map<String, WorkTaskHandler> handlers;
+
+    // -------------------------------------------------------------------------
+    // Lifecycle
+    // -------------------------------------------------------------------------
+
+    @PostConstruct
+    public void init()
+    {
+        newTransaction = new TransactionTemplate( transactionManager );
+        newTransaction.setPropagationBehavior( TransactionDefinition.PROPAGATION_REQUIRES_NEW );
+
+        if ( !isEnabled() )
+        {
+            return;
+        }
+
+        String configuredNodeId = config.getProperty( ConfigurationKey.NODE_ID );
+        nodeId = StringUtils.isNotBlank( configuredNodeId ) ? configuredNodeId : UUID.randomUUID().toString();
+
+        int workerCount = Math.max( 0, Integer.parseInt( config.getProperty( ConfigurationKey.CLUSTER_WORK_QUEUE_WORKERS ) ) );
+
+        running = true;
+
+        for ( int i = 0; i < workerCount; i++ )
+        {
+            Thread worker = new Thread( this::pollTasks, "dhis2-work-queue-" + i );
+            worker.setDaemon( true );
+            worker.start();
+            workers.add( worker );
+        }
+
+        heartbeatExecutor = Executors.newSingleThreadScheduledExecutor( runnable -> {
+            Thread thread = new Thread( runnable, "dhis2-work-queue-heartbeat" );
+            thread.setDaemon( true );
+            return thread;
+        } );
+
+        heartbeatExecutor.scheduleWithFixedDelay( this::heartbeat,
+            HEARTBEAT_INTERVAL_SECONDS, HEARTBEAT_INTERVAL_SECONDS, TimeUnit.SECONDS );
+
+        log.info( String.format( "Work queue started on node: '%s' with %d workers", nodeId, workerCount ) );
+    }
+
+    @PreDestroy
+    public void shutdown()
+    {
+        running = false;
+
+        workers.forEach( Thread::interrupt );
+        workers.clear();
+
+        if ( heartbeatExecutor != null )
+        {
+            heartbeatExecutor.shutdownNow();
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // WorkQueue implementation
+    // -------------------------------------------------------------------------
+
+    @Override
+    public boolean isEnabled()
+    {
+        return config.isEnabled( ConfigurationKey.CLUSTER_WORK_QUEUE );
+    }
+
+    @Override
+    public WorkQueueResult execute( JobConfiguration jobId, String taskType, List<String> payloads )
+    {
+        WorkQueueResult result = new WorkQueueResult();
+
+        if ( payloads.isEmpty() )
+        {
+            return result;
+        }
+
+        String groupId = CodeGenerator.generateUid();
+
+        List<Object[]> batchArgs = new ArrayList<>();
+
+        for ( String payload : payloads )
+        {
+            batchArgs.add( new Object[]{ groupId, taskType, payload, STATUS_QUEUED, MAX_ATTEMPTS } );
+        }
+
+        newTransaction.execute( status -> jdbcTemplate.batchUpdate( "insert into jobtask " +
+            "(groupid, tasktype, payload, status, attempts, maxattempts, created) " +
+            "values (?, ?, ?, ?, 0, ?, now())", batchArgs ) );
+
+        log.info( String.format( "Submitted %d tasks of type: '%s' in group: '%s'", payloads.size(), taskType, groupId ) );
+
+        int total = payloads.size();
+        int lastFinished = -1;
+
+        while ( true )
+        {
+            Map<String, Integer> counts = getStatusCounts( groupId );
+
+            int finished = counts.getOrDefault( STATUS_COMPLETED, 0 ) + counts.getOrDefault( STATUS_FAILED, 0 );
+            int present = counts.values().stream().mapToInt( Integer::intValue ).sum();
+
+            if ( present < total )
+            {
+                result.addError( String.format( "%d of %d tasks in group: '%s' were removed from the queue",
+                    total - present, total, groupId ) );
+                break;
+            }
+
+            if ( finished != lastFinished )
+            {
+                lastFinished = finished;
+
+                if ( jobId != null )
+                {
+                    notifier.notify( jobId, String.format( "Completed %d of %d tasks of type: '%s', running: %d",
+                        finished, total, taskType, counts.getOrDefault( STATUS_RUNNING, 0 ) ) );
+                }
+            }
+
+            if ( finished >= total )
+            {
+                break;
+            }
+
+            if ( !processNextTask() )
+            {
+                failExhaustedTasks();
+
+                sleep( POLL_INTERVAL_MILLIS );
+            }
+        }
+
+        SqlRowSet rowSet = newTransaction.execute( status -> {
+            SqlRowSet rs = jdbcTemplate.queryForRowSet( "select status, result, error from jobtask " +
+                "where groupid = ? order by jobtaskid", groupId );
+            jdbcTemplate.update( "delete from jobtask where groupid = ?", groupId );
+            return rs;
+        } );
+
+        while ( rowSet.next() )
+        {
+            if ( STATUS_COMPLETED.equals( rowSet.getString( "status" ) ) )
+            {
+                String taskResult = rowSet.getString( "result" );
+
+                if ( taskResult != null )
+                {
+                    result.addResult( taskResult );
+                }
+            }
+            else
+            {
+                result.addError( rowSet.getString( "error" ) );
+            }
+        }
+
+        log.info( String.format( "Tasks of type: '%s' in group: '%s' finished: %s", taskType, groupId, result ) );
+
+        return result;
+    }
+
+    // -------------------------------------------------------------------------
+    // Supportive methods
+    // -------------------------------------------------------------------------
+
+    private void pollTasks()
+    {
+        while ( running )
+        {
+            try
+            {
+                if ( !processNextTask() )
+                {
+                    sleep( POLL_INTERVAL_MILLIS );
+                }
+            }
+            catch ( Exception ex )
+            {
+                log.error( "Work queue polling failed", ex );
+
+                sleep( POLL_INTERVAL_MILLIS );
+            }
+        }
+    }
+
+    /**
+     * Claims and executes the next available task.
+     *
+     * @return true if a task was executed, false if no task was available.
+     */
+    private boolean processNextTask()
+    {
+        SqlRowSet rowSet = newTransaction.execute( status ->
+            jdbcTemplate.queryForRowSet( CLAIM_SQL, nodeId, ABANDONED_TIMEOUT_SECONDS ) );
+
+        if ( !rowSet.next() )
+        {
+            return false;
+        }
+
+        long taskId = rowSet.getLong( "jobtaskid" );
+        String taskType = rowSet.getString( "tasktype" );
+        String payload = rowSet.getString( "payload" );
+
+        WorkTaskHandler handler = getHandlers().get( taskType );
+
+        if ( handler == null )
+        {
+            markFailed( taskId, "No handler for task type: " + taskType );
+            return true;
+        }
+
+        try
+        {
+            String result = handler.execute( payload );
+
+            newTransaction.execute( status -> jdbcTemplate.update( "update jobtask set status = ?, result = ?, finished = now() " +
+                "where jobtaskid = ? and nodeid = ?", STATUS_COMPLETED, result, taskId, nodeId ) );
+        }
+        catch ( Exception ex )
+        {
+            log.error( String.format( "Task: %d of type: '%s' failed", taskId, taskType ), ex );
+
+            markFailed( taskId, StringUtils.left( StringUtils.defaultString( ex.getMessage(), ex.getClass().getName() ), MAX_ERROR_LENGTH ) );
+        }
+
+        return true;
+    }
+
+    private void markFailed( long taskId, String error )
+    {
+        newTransaction.execute( status -> jdbcTemplate.update( "update jobtask set status = ?, error = ?, finished = now() " +
+            "where jobtaskid = ? and nodeid = ?", STATUS_FAILED, error, taskId, nodeId ) );
+    }
+
+    private void heartbeat()
+    {
+        try
+        {
+            jdbcTemplate.update( "update jobtask set heartbeat = now() where status = ? and nodeid = ?",
+                STATUS_RUNNING, nodeId );
+
+            failExhaustedTasks();
+
+            deleteExpiredTasks();
+        }
+        catch ( Exception ex )
+        {
+            log.error( "Work queue heartbeat failed", ex );
+        }
+    }
+
+    /**
+     * Deletes finished tasks left behind by nodes which stopped while waiting
+     * for their group. Queued and running tasks are never deleted, as the
+     * submitting node may still be waiting for them however long they take.
+     */
+    private void deleteExpiredTasks()
+    {
+        newTransaction.execute( status -> jdbcTemplate.update( "delete from jobtask " +
+            "where status in (?, ?) and finished < now() - ? * interval '1 hour'",
+            STATUS_COMPLETED, STATUS_FAILED, RETENTION_HOURS ) );
+    }
+
+    /**
+     * Marks abandoned tasks which reached the maximum number of attempts as failed.
+     */
+    private void failExhaustedTasks()
+    {
+        newTransaction.execute( status -> jdbcTemplate.update( "update jobtask set status = ?, error = ?, finished = now() " +
+            "where status = ? and attempts >= maxattempts and heartbeat < now() - ? * interval '1 second'",
+            STATUS_FAILED, "Task abandoned after maximum number of attempts", STATUS_RUNNING, ABANDONED_TIMEOUT_SECONDS ) );
+    }
+
+    private Map<String, Integer> getStatusCounts( String groupId )
+    {
+        Map<String, Integer> counts = new HashMap<>();
+
+        SqlRowSet rowSet = newTransaction.execute( status -> jdbcTemplate.queryForRowSet(
+            "select status, count(*) as cnt from jobtask where groupid = ? group by status", groupId ) );
+
+        while ( rowSet.next() )
+        {
+            counts.put( rowSet.getString( "status" ), rowSet.getInt( "cnt" ) );
+        }
+
+        return counts;
+    }
+
+    /**
+     * Handlers are looked up lazily as they typically depend on services
+     * which in turn depend on the work queue.
+     */
+    private Map<String, WorkTaskHandler> getHandlers()
+    {
+        if ( handlers == null )
+        {
+            Map<String, WorkTaskHandler> map = new HashMap<>();
+
+            applicationContext.getBeansOfType( WorkTaskHandler.class ).values()
+                .forEach( handler -> map.put( handler.getTaskType(), handler ) );
+
+            handlers = map;
+        }
+
+        return handlers;
+    }
+
+    private static void sleep( long millis )
+    {
+        try
+        {
+            Thread.sleep( millis );
+        }
+        catch ( InterruptedException ex )
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -28,11 +28,18 @@ package org.hisp.dhis.sqlview.hibernate;
  * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
  */
 
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.hisp.dhis.common.Grid;
+import org.hisp.dhis.common.GridHeader;
+import org.hisp.dhis.common.GridWriter;
 import org.hisp.dhis.common.hibernate.HibernateIdentifiableObjectStore;
 import org.hisp.dhis.jdbc.StatementBuilder;
 import org.hisp.dhis.setting.SettingKey;
@@ -43,6 +50,7 @@ import org.hisp.dhis.sqlview.SqlViewType;
 import org.springframework.jdbc.BadSqlGrammarException;
 import org.springframework.jdbc.UncategorizedSQLException;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.StatementCallback;
 import org.springframework.jdbc.support.rowset.SqlRowSet;
 
 import com.google.common.collect.ImmutableMap;
@@ -140,6 +148,76 @@ public class HibernateSqlViewStore
         grid.addRows( rs, maxLimit );
     }
 
+    @Override
+    public void writeSqlViewData( String sql, GridWriter writer )
+    {
+        int maxLimit = (Integer) systemSettingManager.getSystemSetting( SettingKey.SQL_VIEW_MAX_LIMIT );
+
+        log.debug( "Write view SQL: " + sql + ", max limit: " + maxLimit );
+
+        readOnlyJdbcTemplate.execute( (StatementCallback<Void>) statement -> {
+            // Stream in a read-only transaction, PostgreSQL ignores the fetch size in auto-commit mode
+
+            Connection connection = statement.getConnection();
+
+            boolean autoCommit = connection.getAutoCommit();
+
+            if ( autoCommit )
+            {
+                connection.setReadOnly( true );
+                connection.setAutoCommit( false );
+            }
+
+            try ( ResultSet rs = statement.executeQuery( sql ) )
+            {
+                ResultSetMetaData rsmd = rs.getMetaData();
+
+                int cols = rsmd.getColumnCount();
+
+                List<GridHeader> headers = new ArrayList<>();
+
+                for ( int i = 1; i <= cols; i++ )
+                {
+                    headers.add( new GridHeader( rsmd.getColumnLabel( i ), false, false ) );
+                }
+
+                writer.writeHeaders( headers );
+
+                int rows = 0;
+
+                while ( rs.next() )
+                {
+                    if ( maxLimit > 0 && ++rows > maxLimit )
+                    {
+                        throw new IllegalStateException( "Number of rows produced by query is larger than the max limit: " + maxLimit );
+                    }
+
+                    List<Object> row = new ArrayList<>( cols );
+
+                    for ( int i = 1; i <= cols; i++ )
+                    {
+                        row.add( rs.getObject( i ) );
+                    }
+
+                    writer.writeRow( row );
+                }
+
+                writer.flush();
+            }
+            finally
+            {
+                if ( autoCommit )
+                {
+                    connection.rollback();
+                    connection.setAutoCommit( true );
+                    connection.setReadOnly( false );
+                }
+            }
+
+            return null;
+        } );
+    }
+
     @Override
     public String testSqlGrammar( String sql )
     {
@@ -75,6 +75,12 @@ public class SchedulerStart extends AbstractStartupRoutine
     private final String DEFAULT_DATA_SET_NOTIFICATION = "Dataset notification";
     private final String DEFAULT_REMOVE_EXPIRED_RESERVED_VALUES_UID = "uwWCT2BMmlq";
     private final String DEFAULT_REMOVE_EXPIRED_RESERVED_VALUES = "Remove expired reserved values";
+    private final String DEFAULT_TRACKED_ENTITY_ATTRIBUTE_SEARCH_INDEX_UID = "Hq5bUkVpzPx";
+    private final String DEFAULT_TRACKED_ENTITY_ATTRIBUTE_SEARCH_INDEX = "Tracked entity attribute search index";
+    private final String DEFAULT_DATA_APPROVAL_STATUS_UID = "Rn3GsAqKe7w";
+    private final String DEFAULT_DATA_APPROVAL_STATUS = "Data approval status table";
+    private final String DEFAULT_RESERVED_VALUE_POOL_UID = "Wt5fHsKcE2n";
+    private final String DEFAULT_RESERVED_VALUE_POOL = "Reserved value pool";
     private final String DEFAULT_LEADER_ELECTION_UID = "MoUd5BTQ3lY";
     private final String DEFAULT_LEADER_ELECTION = "Leader election in cluster";
 
@@ -219,6 +225,33 @@ public class SchedulerStart extends AbstractStartupRoutine
             addAndScheduleJob( removeExpiredReservedValues );
         }
 
+        if ( verifyNoJobExist( DEFAULT_TRACKED_ENTITY_ATTRIBUTE_SEARCH_INDEX, jobConfigurations ) )
+        {
+            JobConfiguration searchIndex = new JobConfiguration( DEFAULT_TRACKED_ENTITY_ATTRIBUTE_SEARCH_INDEX,
+                TRACKED_ENTITY_ATTRIBUTE_SEARCH_INDEX, CRON_DAILY_2AM, null, false, true );
+            searchIndex.setLeaderOnlyJob( true );
+            searchIndex.setUid( DEFAULT_TRACKED_ENTITY_ATTRIBUTE_SEARCH_INDEX_UID );
+            addAndScheduleJob( searchIndex );
+        }
+
+        if ( verifyNoJobExist( DEFAULT_DATA_APPROVAL_STATUS, jobConfigurations ) )
+        {
+            JobConfiguration dataApprovalStatus = new JobConfiguration( DEFAULT_DATA_APPROVAL_STATUS,
+                DATA_APPROVAL_STATUS, CRON_DAILY_2AM, null, false, true );
+            dataApprovalStatus.setLeaderOnlyJob( true );
+            dataApprovalStatus.setUid( DEFAULT_DATA_APPROVAL_STATUS_UID );
+            addAndScheduleJob( dataApprovalStatus );
+        }
+
+        if ( verifyNoJobExist( DEFAULT_RESERVED_VALUE_POOL, jobConfigurations ) )
+        {
+            JobConfiguration reservedValuePool = new JobConfiguration( DEFAULT_RESERVED_VALUE_POOL,
+                RESERVED_VALUE_POOL, CRON_HOURLY, null, false, true );
+            reservedValuePool.setLeaderOnlyJob( true );
+            reservedValuePool.setUid( DEFAULT_RESERVED_VALUE_POOL_UID );
+            addAndScheduleJob( reservedValuePool );
+        }
+
         if ( verifyNoJobExist( DEFAULT_LEADER_ELECTION, jobConfigurations ) && "true".equalsIgnoreCase( redisEnabled ) )
         {
             JobConfiguration leaderElectionJobConfiguration = new JobConfiguration( DEFAULT_LEADER_ELECTION,
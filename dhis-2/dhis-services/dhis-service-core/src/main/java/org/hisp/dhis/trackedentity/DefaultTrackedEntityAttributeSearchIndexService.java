@@ -0,0 +1,257 @@
+package org.hisp.dhis.trackedentity;
+
+/*
+ * Copyright (c) 2004-2018, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import com.google.common.collect.ImmutableSet;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.hisp.dhis.common.ValueType;
+import org.hisp.dhis.jdbc.StatementBuilder;
+import org.hisp.dhis.scheduling.JobConfiguration;
+import org.hisp.dhis.system.notification.Notifier;
+import org.hisp.dhis.system.util.Clock;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.rowset.SqlRowSet;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.hisp.dhis.commons.util.TextUtils.getQuotedCommaDelimitedString;
+
+/**
+ * Search index service which maintains one partial PostgreSQL pg_trgm GIN
+ * index per searchable attribute on the lower-cased attribute values. The
+ * index expression matches the <code>lower(value)</code> filter expression
+ * used by tracked entity instance queries. Indexes are created concurrently
+ * and hence without blocking attribute value writes.
+ */
+public class DefaultTrackedEntityAttributeSearchIndexService
+    implements TrackedEntityAttributeSearchIndexService
+{
+    private static final Log log = LogFactory.getLog( DefaultTrackedEntityAttributeSearchIndexService.class );
+
+    private static final String INDEX_PREFIX = "in_teav_search_";
+
+    private static final long INDEXED_ATTRIBUTES_MAX_AGE_MILLIS = 5 * 60 * 1000;
+
+    // -------------------------------------------------------------------------
+    // Dependencies
+    // -------------------------------------------------------------------------
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private StatementBuilder statementBuilder;
+
+    @Autowired
+    private Notifier notifier;
+
+    // -------------------------------------------------------------------------
+    // State
+    // -------------------------------------------------------------------------
+
+    private volatile Set<Long> indexedAttributes;
+
+    private volatile long indexedAttributesLoaded;
+
+    // -------------------------------------------------------------------------
+    // TrackedEntityAttributeSearchIndexService implementation
+    // -------------------------------------------------------------------------
+
+    @Override
+    public boolean isSearchIndexSupported()
+    {
+        return statementBuilder.supportsPartialIndexes();
+    }
+
+    @Override
+    public Set<Long> getIndexedAttributes()
+    {
+        if ( !isSearchIndexSupported() )
+        {
+            return ImmutableSet.of();
+        }
+
+        if ( indexedAttributes == null || System.currentTimeMillis() - indexedAttributesLoaded > INDEXED_ATTRIBUTES_MAX_AGE_MILLIS )
+        {
+            indexedAttributes = getSearchIndexes().entrySet().stream()
+                .filter( Map.Entry::getValue )
+                .map( Map.Entry::getKey )
+                .collect( Collectors.collectingAndThen( Collectors.toSet(), ImmutableSet::copyOf ) );
+
+            indexedAttributesLoaded = System.currentTimeMillis();
+        }
+
+        return indexedAttributes;
+    }
+
+    @Override
+    public int updateSearchIndexes( JobConfiguration jobId )
+    {
+        if ( !isSearchIndexSupported() )
+        {
+            notifier.notify( jobId, "Search indexes are not supported by the database" );
+            return 0;
+        }
+
+        if ( !hasTrigramExtension() )
+        {
+            notifier.notify( jobId, "Search indexes require the pg_trgm extension, which could not be created" );
+            return 0;
+        }
+
+        Clock clock = new Clock( log ).startClock();
+
+        Set<Long> searchableAttributes = getSearchableAttributes();
+        Map<Long, Boolean> searchIndexes = getSearchIndexes();
+
+        for ( Map.Entry<Long, Boolean> index : searchIndexes.entrySet() )
+        {
+            if ( !searchableAttributes.contains( index.getKey() ) || !index.getValue() )
+            {
+                jdbcTemplate.execute( getDropIndexSql( index.getKey() ) );
+
+                clock.logTime( "Dropped search index for attribute: " + index.getKey() );
+            }
+        }
+
+        int created = 0;
+
+        for ( Long attribute : searchableAttributes )
+        {
+            if ( !Boolean.TRUE.equals( searchIndexes.get( attribute ) ) )
+            {
+                notifier.notify( jobId, "Creating search index for attribute: " + attribute );
+
+                jdbcTemplate.execute( getCreateIndexSql( attribute ) );
+
+                clock.logTime( "Created search index for attribute: " + attribute );
+
+                created++;
+            }
+        }
+
+        indexedAttributes = null;
+
+        notifier.notify( jobId, String.format( "Search indexes updated, created: %d, searchable attributes: %d",
+            created, searchableAttributes.size() ) );
+
+        return created;
+    }
+
+    // -------------------------------------------------------------------------
+    // Supportive methods
+    // -------------------------------------------------------------------------
+
+    /**
+     * Indicates whether the pg_trgm extension is installed, and attempts to
+     * create it if not. Creating the extension requires sufficient privileges.
+     */
+    private boolean hasTrigramExtension()
+    {
+        try
+        {
+            jdbcTemplate.execute( "create extension if not exists pg_trgm" );
+        }
+        catch ( DataAccessException ex )
+        {
+            log.warn( "Could not create pg_trgm extension: " + ex.getMessage() );
+        }
+
+        Integer count = jdbcTemplate.queryForObject( "select count(*) from pg_extension where extname = 'pg_trgm'", Integer.class );
+
+        return count != null && count > 0;
+    }
+
+    /**
+     * Returns the identifiers of searchable attributes with a text value type.
+     */
+    private Set<Long> getSearchableAttributes()
+    {
+        Set<String> valueTypes = ValueType.TEXT_TYPES.stream().map( ValueType::name ).collect( Collectors.toSet() );
+
+        String sql = "select tea.trackedentityattributeid from trackedentityattribute tea " +
+            "where tea.valuetype in (" + getQuotedCommaDelimitedString( valueTypes ) + ") " +
+            "and (tea.uniquefield = true " +
+            "or exists (select 1 from program_attributes pa where pa.trackedentityattributeid = tea.trackedentityattributeid and pa.searchable = true) " +
+            "or exists (select 1 from trackedentitytypeattribute ta where ta.trackedentityattributeid = tea.trackedentityattributeid and ta.searchable = true))";
+
+        return new HashSet<>( jdbcTemplate.queryForList( sql, Long.class ) );
+    }
+
+    /**
+     * Returns the existing search indexes as a mapping from attribute
+     * identifier to whether the index is valid. Indexes which failed to be
+     * created concurrently are left invalid by the database.
+     */
+    private Map<Long, Boolean> getSearchIndexes()
+    {
+        String sql = "select c.relname as indexname, i.indisvalid as valid from pg_index i " +
+            "inner join pg_class c on i.indexrelid = c.oid " +
+            "inner join pg_class t on i.indrelid = t.oid " +
+            "where t.relname = 'trackedentityattributevalue' " +
+            "and c.relname like '" + INDEX_PREFIX + "%'";
+
+        Map<Long, Boolean> indexes = new HashMap<>();
+
+        SqlRowSet rowSet = jdbcTemplate.queryForRowSet( sql );
+
+        while ( rowSet.next() )
+        {
+            String attribute = StringUtils.removeStart( rowSet.getString( "indexname" ), INDEX_PREFIX );
+
+            if ( NumberUtils.isDigits( attribute ) )
+            {
+                indexes.put( Long.valueOf( attribute ), rowSet.getBoolean( "valid" ) );
+            }
+        }
+
+        return indexes;
+    }
+
+    static String getCreateIndexSql( long attribute )
+    {
+        return "create index concurrently if not exists " + INDEX_PREFIX + attribute + " " +
+            "on trackedentityattributevalue using gin (lower(value) gin_trgm_ops) " +
+            "where trackedentityattributeid = " + attribute;
+    }
+
+    static String getDropIndexSql( long attribute )
+    {
+        return "drop index concurrently if exists " + INDEX_PREFIX + attribute;
+    }
+}
@@ -28,6 +28,7 @@ package org.hisp.dhis.trackedentity;
  * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
  */
 
+import org.hisp.dhis.hibernate.HibernateUtils;
 import org.hisp.dhis.organisationunit.OrganisationUnit;
 import org.hisp.dhis.organisationunit.OrganisationUnitService;
 import org.hisp.dhis.program.Program;
@@ -105,6 +106,14 @@ public class DefaultTrackedEntityProgramOwnerService implements TrackedEntityPro
         {
             teiProgramOwner.setCreatedBy( user.getUsername() );
         }
+
+        // Keep loaded program owners complete, as ownership checks rely on them
+
+        if ( HibernateUtils.isInitialized( entityInstance.getProgramOwners() ) )
+        {
+            entityInstance.getProgramOwners().add( teiProgramOwner );
+        }
+
         return teiProgramOwner;
     }
 
@@ -37,6 +37,7 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.hisp.dhis.cache.Cache;
 import org.hisp.dhis.cache.CacheProvider;
+import org.hisp.dhis.hibernate.HibernateUtils;
 import org.hisp.dhis.organisationunit.OrganisationUnit;
 import org.hisp.dhis.organisationunit.OrganisationUnitService;
 import org.hisp.dhis.program.Program;
@@ -340,6 +341,22 @@ public class DefaultTrackerOwnershipManager implements TrackerOwnershipManager
      */
     private OrganisationUnit getOwner( TrackedEntityInstance entityInstance, Program program )
     {
+        // Use program owners already loaded with the instance, if any, which
+        // are complete, so no owner for the program means the registered OU
+
+        if ( HibernateUtils.isInitialized( entityInstance.getProgramOwners() ) )
+        {
+            for ( TrackedEntityProgramOwner programOwner : entityInstance.getProgramOwners() )
+            {
+                if ( programOwner.getProgram().getId() == program.getId() )
+                {
+                    return programOwner.getOrganisationUnit();
+                }
+            }
+
+            return entityInstance.getOrganisationUnit();
+        }
+
         OrganisationUnit ou = null;
         TrackedEntityProgramOwner trackedEntityProgramOwner = trackedEntityProgramOwnerService.getTrackedEntityProgramOwner( entityInstance.getId(),
             program.getId() );
@@ -54,7 +54,9 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.Predicate;
@@ -75,6 +77,9 @@ import org.hisp.dhis.commons.util.SqlHelper;
 import org.hisp.dhis.event.EventStatus;
 import org.hisp.dhis.jdbc.StatementBuilder;
 import org.hisp.dhis.organisationunit.OrganisationUnit;
+import org.hisp.dhis.program.ProgramInstance;
+import org.hisp.dhis.program.ProgramStageInstance;
+import org.hisp.dhis.trackedentity.TrackedEntityAttributeSearchIndexService;
 import org.hisp.dhis.trackedentity.TrackedEntityInstance;
 import org.hisp.dhis.trackedentity.TrackedEntityInstanceQueryParams;
 import org.hisp.dhis.trackedentity.TrackedEntityInstanceStore;
@@ -82,6 +87,8 @@ import org.hisp.dhis.user.User;
 import org.springframework.jdbc.support.rowset.SqlRowSet;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.google.common.collect.Lists;
+
 /**
  * @author Abyot Asalefew Gizaw
  */
@@ -92,6 +99,12 @@ public class HibernateTrackedEntityInstanceStore
 {
     private static final Log log = LogFactory.getLog( HibernateTrackedEntityInstanceStore.class );
 
+    private static final int ASSOCIATION_PAGE_SIZE = 1000;
+
+    private static final String RELATIONSHIP_FETCH = "left join fetch ri.relationship r " +
+        "left join fetch r.from rf left join fetch rf.trackedEntityInstance left join fetch rf.programInstance left join fetch rf.programStageInstance " +
+        "left join fetch r.to rt left join fetch rt.trackedEntityInstance left join fetch rt.programInstance left join fetch rt.programStageInstance ";
+
     // -------------------------------------------------------------------------
     // Dependencies
     // -------------------------------------------------------------------------
@@ -103,6 +116,13 @@ public class HibernateTrackedEntityInstanceStore
         this.statementBuilder = statementBuilder;
     }
 
+    private TrackedEntityAttributeSearchIndexService searchIndexService;
+
+    public void setSearchIndexService( TrackedEntityAttributeSearchIndexService searchIndexService )
+    {
+        this.searchIndexService = searchIndexService;
+    }
+
     // -------------------------------------------------------------------------
     // Implementation methods
     // -------------------------------------------------------------------------
@@ -500,6 +520,8 @@ public class HibernateTrackedEntityInstanceStore
 
         sql += "inner join organisationunit ou on tei.organisationunitid = ou.organisationunitid ";
 
+        final Set<Long> indexedAttributes = searchIndexService.getIndexedAttributes();
+
         for ( QueryItem item : params.getAttributesAndFilters() )
         {
             final String col = statementBuilder.columnQuote( item.getItemId() );
@@ -520,6 +542,13 @@ public class HibernateTrackedEntityInstanceStore
 
                     sql += "and " + queryCol + " " + filter.getSqlOperator() + " "
                         + StringUtils.lowerCase( filter.getSqlFilter( encodedFilter ) ) + " ";
+
+                    // Equivalent like restriction which can use the trigram search index
+
+                    if ( QueryOperator.EQ == filter.getOperator() && !item.isNumeric() && indexedAttributes.contains( item.getItem().getId() ) )
+                    {
+                        sql += "and " + queryCol + " like '" + StringUtils.lowerCase( escapeLikeWildcards( encodedFilter ) ) + "' ";
+                    }
                 }
             }
         }
@@ -688,6 +717,15 @@ public class HibernateTrackedEntityInstanceStore
         return sql;
     }
 
+    /**
+     * Escapes the like wildcard and escape characters of the given value, so
+     * that a like restriction matches the value literally.
+     */
+    static String escapeLikeWildcards( String value )
+    {
+        return value.replace( "\\", "\\\\" ).replace( "%", "\\%" ).replace( "_", "\\_" );
+    }
+
     @Override
     public boolean exists( String uid )
     {
@@ -721,6 +759,90 @@ public class HibernateTrackedEntityInstanceStore
             .list();
     }
 
+    @Override
+    public void loadAssociations( List<TrackedEntityInstance> instances, boolean includeProgramOwners,
+        boolean includeEnrollments, boolean includeEvents, boolean includeRelationships )
+    {
+        for ( List<TrackedEntityInstance> page : Lists.partition( instances, ASSOCIATION_PAGE_SIZE ) )
+        {
+            List<Long> ids = page.stream().map( TrackedEntityInstance::getId ).collect( Collectors.toList() );
+
+            fetchAssociations( "select distinct tei from TrackedEntityInstance tei " +
+                "left join fetch tei.trackedEntityAttributeValues where tei.id in (:ids)", ids );
+
+            if ( includeProgramOwners )
+            {
+                fetchAssociations( "select distinct tei from TrackedEntityInstance tei " +
+                    "left join fetch tei.programOwners po left join fetch po.organisationUnit where tei.id in (:ids)", ids );
+            }
+
+            if ( includeRelationships )
+            {
+                fetchAssociations( "select distinct tei from TrackedEntityInstance tei " +
+                    "left join fetch tei.relationshipItems ri " + RELATIONSHIP_FETCH + "where tei.id in (:ids)", ids );
+            }
+
+            if ( includeEnrollments )
+            {
+                fetchAssociations( "select distinct tei from TrackedEntityInstance tei " +
+                    "left join fetch tei.programInstances where tei.id in (:ids)", ids );
+
+                List<ProgramInstance> programInstances = page.stream()
+                    .flatMap( tei -> tei.getProgramInstances().stream() )
+                    .collect( Collectors.toList() );
+
+                loadProgramInstanceAssociations( programInstances, includeEvents, includeRelationships );
+            }
+        }
+    }
+
+    private void loadProgramInstanceAssociations( List<ProgramInstance> programInstances, boolean includeEvents,
+        boolean includeRelationships )
+    {
+        for ( List<ProgramInstance> page : Lists.partition( programInstances, ASSOCIATION_PAGE_SIZE ) )
+        {
+            List<Long> ids = page.stream().map( ProgramInstance::getId ).collect( Collectors.toList() );
+
+            fetchAssociations( "select distinct pi from ProgramInstance pi " +
+                "left join fetch pi.comments where pi.id in (:ids)", ids );
+
+            if ( includeRelationships )
+            {
+                fetchAssociations( "select distinct pi from ProgramInstance pi " +
+                    "left join fetch pi.relationshipItems ri " + RELATIONSHIP_FETCH + "where pi.id in (:ids)", ids );
+            }
+
+            if ( includeEvents )
+            {
+                fetchAssociations( "select distinct pi from ProgramInstance pi " +
+                    "left join fetch pi.programStageInstances where pi.id in (:ids)", ids );
+
+                List<Long> eventIds = page.stream()
+                    .flatMap( pi -> pi.getProgramStageInstances().stream() )
+                    .map( ProgramStageInstance::getId )
+                    .collect( Collectors.toList() );
+
+                for ( List<Long> eventPage : Lists.partition( eventIds, ASSOCIATION_PAGE_SIZE ) )
+                {
+                    fetchAssociations( "select distinct psi from ProgramStageInstance psi " +
+                        "left join fetch psi.comments where psi.id in (:ids)", eventPage );
+                }
+            }
+        }
+    }
+
+    /**
+     * Runs the given fetch query. The fetched associations are initialized on
+     * the instances attached to the session, hence the result is discarded.
+     */
+    private void fetchAssociations( String hql, List<Long> ids )
+    {
+        if ( !ids.isEmpty() )
+        {
+            getSession().createQuery( hql ).setParameterList( "ids", ids ).list();
+        }
+    }
+
     @Override
     protected void preProcessPredicates( CriteriaBuilder builder, List<Function<Root<TrackedEntityInstance>, Predicate>> predicates )
     {
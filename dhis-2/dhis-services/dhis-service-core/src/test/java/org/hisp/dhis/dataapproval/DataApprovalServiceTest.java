@@ -40,6 +40,8 @@ import org.hisp.dhis.category.CategoryService;
 import org.hisp.dhis.dataapproval.exceptions.DataMayNotBeApprovedException;
 import org.hisp.dhis.dataset.DataSet;
 import org.hisp.dhis.dataset.DataSetService;
+import org.hisp.dhis.external.conf.ConfigurationKey;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
 import org.hisp.dhis.mock.MockCurrentUserService;
 import org.hisp.dhis.organisationunit.OrganisationUnit;
 import org.hisp.dhis.organisationunit.OrganisationUnitService;
@@ -54,10 +56,13 @@ import org.hisp.dhis.user.UserService;
 import org.junit.Ignore;
 import org.junit.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
 
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import java.util.Set;
 
 import static com.google.common.collect.Lists.newArrayList;
@@ -106,6 +111,12 @@ public class DataApprovalServiceTest
     @Autowired
     private SystemSettingManager systemSettingManager;
 
+    @Autowired
+    private DhisConfigurationProvider config;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     // -------------------------------------------------------------------------
     // Supporting data
     // -------------------------------------------------------------------------
@@ -410,6 +421,8 @@ public class DataApprovalServiceTest
         setDependency( organisationUnitService, "currentUserService", currentUserService, CurrentUserService.class );
         setDependency( dataApprovalStore, "currentUserService", currentUserService, CurrentUserService.class );
 
+        setStatusTableEnabled( false );
+
         DataApprovalPermissionsEvaluator.invalidateCache();
     }
 
@@ -1586,6 +1599,228 @@ public class DataApprovalServiceTest
         assertEquals( "APPROVED_ABOVE level=level4 approve=F unapprove=F accept=F unaccept=F read=T", statusString( map.get( dataApprovalF ) ) );
     }
 
+    // -------------------------------------------------------------------------
+    // Data approval status table
+    // -------------------------------------------------------------------------
+
+    @Test
+    public void testStatusTableApproveAndUnapprove()
+    {
+        setStatusTableEnabled( true );
+        setCurrentUserServiceDependencies( newApprovingUserService() );
+
+        Date date = new Date();
+
+        DataApproval dataApprovalF = new DataApproval( level4, workflow1234, periodA, organisationUnitF, defaultOptionCombo, NOT_ACCEPTED, date, userA );
+        DataApproval dataApprovalD = new DataApproval( level4, workflow1234, periodA, organisationUnitD, defaultOptionCombo, NOT_ACCEPTED, date, userA );
+        DataApproval dataApprovalE = new DataApproval( level3, workflow1234, periodA, organisationUnitE, defaultOptionCombo, NOT_ACCEPTED, date, userA );
+        DataApproval dataApprovalC = new DataApproval( level3, workflow1234, periodA, organisationUnitC, defaultOptionCombo, NOT_ACCEPTED, date, userA );
+
+        assertStatusTableConsistent( workflow1234, periodA );
+
+        dataApprovalService.approveData( newArrayList( dataApprovalF ) );
+
+        assertStatusTableConsistent( workflow1234, periodA );
+        assertEquals( Boolean.TRUE, getReadyBelow( workflow1234, organisationUnitE ) );
+        assertEquals( Boolean.FALSE, getReadyBelow( workflow1234, organisationUnitB ) );
+
+        dataApprovalService.approveData( newArrayList( dataApprovalD, dataApprovalE ) );
+
+        assertStatusTableConsistent( workflow1234, periodA );
+        assertEquals( Boolean.TRUE, getReadyBelow( workflow1234, organisationUnitC ) );
+
+        dataApprovalService.approveData( newArrayList( dataApprovalC ) );
+
+        assertStatusTableConsistent( workflow1234, periodA );
+        assertEquals( Boolean.TRUE, getReadyBelow( workflow1234, organisationUnitB ) );
+        assertEquals( DataApprovalState.UNAPPROVED_READY, dataApprovalService.getDataApprovalStatus( workflow1234, periodA, organisationUnitB, defaultOptionCombo ).getState() );
+
+        dataApprovalService.unapproveData( newArrayList( dataApprovalE ) );
+
+        assertStatusTableConsistent( workflow1234, periodA );
+        assertEquals( Boolean.FALSE, getReadyBelow( workflow1234, organisationUnitB ) );
+        assertEquals( DataApprovalState.UNAPPROVED_WAITING, dataApprovalService.getDataApprovalStatus( workflow1234, periodA, organisationUnitB, defaultOptionCombo ).getState() );
+    }
+
+    @Test
+    public void testStatusTableAcceptAndUnaccept()
+    {
+        systemSettingManager.saveSystemSetting( SettingKey.ACCEPTANCE_REQUIRED_FOR_APPROVAL, true );
+
+        setStatusTableEnabled( true );
+        setCurrentUserServiceDependencies( newApprovingUserService() );
+
+        DataApproval dataApprovalD = new DataApproval( level4, workflow1234, periodA, organisationUnitD, defaultOptionCombo, NOT_ACCEPTED, new Date(), userA );
+
+        dataApprovalService.approveData( newArrayList( dataApprovalD ) );
+
+        assertStatusTableConsistent( workflow1234, periodA );
+        assertEquals( Boolean.FALSE, getReadyBelow( workflow1234, organisationUnitC ) );
+
+        dataApprovalService.acceptData( newArrayList( dataApprovalD ) );
+
+        assertStatusTableConsistent( workflow1234, periodA );
+        assertEquals( Boolean.TRUE, getReadyBelow( workflow1234, organisationUnitC ) );
+        assertEquals( DataApprovalState.UNAPPROVED_READY, dataApprovalService.getDataApprovalStatus( workflow1234, periodA, organisationUnitC, defaultOptionCombo ).getState() );
+
+        dataApprovalService.unacceptData( newArrayList( dataApprovalD ) );
+
+        assertStatusTableConsistent( workflow1234, periodA );
+        assertEquals( Boolean.FALSE, getReadyBelow( workflow1234, organisationUnitC ) );
+        assertEquals( DataApprovalState.UNAPPROVED_WAITING, dataApprovalService.getDataApprovalStatus( workflow1234, periodA, organisationUnitC, defaultOptionCombo ).getState() );
+    }
+
+    @Test
+    public void testStatusTableFallbackWithoutRows()
+    {
+        setStatusTableEnabled( true );
+        setCurrentUserServiceDependencies( newApprovingUserService() );
+
+        Date date = new Date();
+
+        dataApprovalService.approveData( newArrayList(
+            new DataApproval( level4, workflow1234, periodA, organisationUnitD, defaultOptionCombo, NOT_ACCEPTED, date, userA ),
+            new DataApproval( level4, workflow1234, periodA, organisationUnitF, defaultOptionCombo, NOT_ACCEPTED, date, userA ) ) );
+
+        assertEquals( Boolean.TRUE, getReadyBelow( workflow1234, organisationUnitC ) );
+
+        dataApprovalService.deleteDataApprovalStatuses();
+
+        assertNull( getReadyBelow( workflow1234, organisationUnitC ) );
+
+        // Statuses are computed from the data approvals when no row is present
+
+        assertStatusTableConsistent( workflow1234, periodA );
+        assertEquals( DataApprovalState.UNAPPROVED_READY, dataApprovalService.getDataApprovalStatus( workflow1234, periodA, organisationUnitC, defaultOptionCombo ).getState() );
+        assertEquals( DataApprovalState.UNAPPROVED_READY, dataApprovalService.getDataApprovalStatus( workflow1234, periodA, organisationUnitE, defaultOptionCombo ).getState() );
+    }
+
+    @Test
+    public void testStatusTableDataSetOrgUnitChange()
+    {
+        setStatusTableEnabled( true );
+        setCurrentUserServiceDependencies( newApprovingUserService() );
+
+        Date date = new Date();
+
+        dataApprovalService.approveData( newArrayList(
+            new DataApproval( level4, workflow1234, periodA, organisationUnitD, defaultOptionCombo, NOT_ACCEPTED, date, userA ),
+            new DataApproval( level4, workflow1234, periodA, organisationUnitF, defaultOptionCombo, NOT_ACCEPTED, date, userA ) ) );
+
+        assertEquals( Boolean.TRUE, getReadyBelow( workflow1234, organisationUnitC ) );
+
+        // Changes outside of the metadata importer delete the affected statuses
+
+        dataSetG.removeOrganisationUnit( organisationUnitF );
+        dataSetService.updateDataSet( dataSetG );
+
+        assertNull( getReadyBelow( workflow1234, organisationUnitC ) );
+        assertNull( getReadyBelow( workflow1234, organisationUnitE ) );
+        assertStatusTableConsistent( workflow1234, periodA );
+    }
+
+    @Test
+    public void testStatusTableOrgUnitParentChange()
+    {
+        setStatusTableEnabled( true );
+        setCurrentUserServiceDependencies( newApprovingUserService() );
+
+        Date date = new Date();
+
+        dataApprovalService.approveData( newArrayList(
+            new DataApproval( level4, workflow1234, periodA, organisationUnitD, defaultOptionCombo, NOT_ACCEPTED, date, userA ),
+            new DataApproval( level4, workflow1234, periodA, organisationUnitF, defaultOptionCombo, NOT_ACCEPTED, date, userA ) ) );
+
+        assertEquals( Boolean.TRUE, getReadyBelow( workflow1234, organisationUnitC ) );
+        assertEquals( Boolean.TRUE, getReadyBelow( workflow1234, organisationUnitE ) );
+
+        organisationUnitService.updateOrganisationUnitParent( organisationUnitF.getId(), organisationUnitC.getId() );
+
+        assertNull( getReadyBelow( workflow1234, organisationUnitC ) );
+        assertNull( getReadyBelow( workflow1234, organisationUnitE ) );
+        assertStatusTableConsistent( workflow1234, periodA );
+    }
+
+    @Test
+    public void testStatusTableRebuildAndCheck()
+    {
+        setStatusTableEnabled( true );
+
+        Date date = new Date();
+
+        // Approvals added through the store do not refresh the status table
+
+        dataApprovalStore.addDataApproval( new DataApproval( level4, workflow1234, periodA, organisationUnitD, defaultOptionCombo, NOT_ACCEPTED, date, userA ) );
+        dataApprovalStore.addDataApproval( new DataApproval( level4, workflow1234, periodA, organisationUnitF, defaultOptionCombo, NOT_ACCEPTED, date, userA ) );
+        dataApprovalStore.addDataApproval( new DataApproval( level3, workflow1234, periodA, organisationUnitE, defaultOptionCombo, NOT_ACCEPTED, date, userA ) );
+
+        assertNull( getReadyBelow( workflow1234, organisationUnitC ) );
+
+        assertTrue( dataApprovalStore.rebuildDataApprovalStatuses() > 0 );
+
+        assertEquals( Boolean.TRUE, getReadyBelow( workflow1234, organisationUnitC ) );
+        assertEquals( Boolean.FALSE, getReadyBelow( workflow1234, organisationUnitB ) );
+        assertStatusTableConsistent( workflow1234, periodA );
+
+        jdbcTemplate.update( "update dataapprovalstatus set readybelow = not readybelow " +
+            "where workflowid = " + workflow1234.getId() + " and organisationunitid = " + organisationUnitB.getId() );
+
+        assertTrue( dataApprovalStore.checkDataApprovalStatuses() > 0 );
+
+        dataApprovalStore.rebuildDataApprovalStatuses();
+
+        assertEquals( 0, dataApprovalStore.checkDataApprovalStatuses() );
+    }
+
+    /**
+     * Asserts that the statuses of all org units are the same when computed
+     * with and without the status table, and that the status table is
+     * consistent with the data approvals.
+     */
+    private void assertStatusTableConsistent( DataApprovalWorkflow workflow, Period period )
+    {
+        String tableStates = getStates( workflow, period );
+
+        setStatusTableEnabled( false );
+
+        String liveStates = getStates( workflow, period );
+
+        setStatusTableEnabled( true );
+
+        assertEquals( liveStates, tableStates );
+        assertEquals( 0, dataApprovalStore.checkDataApprovalStatuses() );
+    }
+
+    private String getStates( DataApprovalWorkflow workflow, Period period )
+    {
+        return Stream.of( organisationUnitA, organisationUnitB, organisationUnitC, organisationUnitD, organisationUnitE, organisationUnitF )
+            .map( ou -> ou.getName() + "=" + dataApprovalService.getDataApprovalStatus( workflow, period, ou, defaultOptionCombo ).getState() )
+            .collect( Collectors.joining( " " ) );
+    }
+
+    private Boolean getReadyBelow( DataApprovalWorkflow workflow, OrganisationUnit organisationUnit )
+    {
+        List<Boolean> readyBelow = jdbcTemplate.queryForList( "select readybelow from dataapprovalstatus " +
+            "where workflowid = " + workflow.getId() + " and organisationunitid = " + organisationUnit.getId() +
+            " and attributeoptioncomboid = " + defaultOptionCombo.getId(), Boolean.class );
+
+        return readyBelow.isEmpty() ? null : readyBelow.get( 0 );
+    }
+
+    private CurrentUserService newApprovingUserService()
+    {
+        CurrentUserService currentUserService = new MockCurrentUserService( newHashSet( organisationUnitA ), null,
+            DataApproval.AUTH_APPROVE, DataApproval.AUTH_APPROVE_LOWER_LEVELS, DataApproval.AUTH_ACCEPT_LOWER_LEVELS );
+        userService.addUser( currentUserService.getCurrentUser() );
+
+        return currentUserService;
+    }
+
+    private void setStatusTableEnabled( boolean enabled )
+    {
+        config.getProperties().put( ConfigurationKey.APPROVAL_STATUS_TABLE.getKey(), enabled ? "on" : "off" );
+    }
+
     // -------------------------------------------------------------------------
     // Test with Categories
     // -------------------------------------------------------------------------
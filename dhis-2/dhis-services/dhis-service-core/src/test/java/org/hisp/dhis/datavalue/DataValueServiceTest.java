@@ -41,7 +41,10 @@ import org.hisp.dhis.period.Period;
 import org.junit.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.Assert.*;
 
@@ -342,6 +345,45 @@ public class DataValueServiceTest
         assertEquals( 1, dataValueService.getDataValues( new DataExportParams()
             .setDataElements( Sets.newHashSet( dataElementA ) ).setPeriods( Sets.newHashSet( periodA ) ).setOrganisationUnits( Sets.newHashSet( sourceB ) ) ).size() );
     }
+
+    @Test
+    public void testGetDeflatedDataValues()
+    {
+        dataValueService.addDataValue( new DataValue( dataElementA, periodA, sourceA, optionCombo, optionCombo, "1" ) );
+        dataValueService.addDataValue( new DataValue( dataElementA, periodA, sourceB, optionCombo, optionCombo, "2" ) );
+        dataValueService.addDataValue( new DataValue( dataElementA, periodB, sourceA, optionCombo, optionCombo, "3" ) );
+        dataValueService.addDataValue( new DataValue( dataElementB, periodA, sourceA, optionCombo, optionCombo, "4" ) );
+        dataValueService.addDataValue( new DataValue( dataElementB, periodB, sourceB, optionCombo, optionCombo, "5" ) );
+
+        DataExportParams params = new DataExportParams()
+            .setDataElements( Sets.newHashSet( dataElementA ) )
+            .setOrganisationUnits( Sets.newHashSet( sourceA, sourceB ) );
+
+        List<DeflatedDataValue> values = dataValueService.getDeflatedDataValues( params );
+
+        assertEquals( 3, values.size() );
+
+        List<DeflatedDataValue> streamed = new ArrayList<>();
+
+        dataValueService.getDeflatedDataValues( params, streamed::add );
+
+        assertEquals( 3, streamed.size() );
+
+        for ( DeflatedDataValue value : streamed )
+        {
+            assertEquals( dataElementA.getId(), value.getDataElementId() );
+        }
+
+        Map<Long, Double> sumBySource = new HashMap<>();
+
+        dataValueService.getDeflatedDataValues( new DataExportParams()
+            .setDataElements( Sets.newHashSet( dataElementA, dataElementB ) ), dv ->
+                sumBySource.merge( dv.getSourceId(), Double.valueOf( dv.getValue() ), Double::sum ) );
+
+        assertEquals( 2, sumBySource.size() );
+        assertEquals( 8d, sumBySource.get( sourceA.getId() ), DELTA );
+        assertEquals( 7d, sumBySource.get( sourceB.getId() ), DELTA );
+    }
     
     @Test
     public void testGetAllDataValues()
@@ -365,6 +407,37 @@ public class DataValueServiceTest
         assertEquals( 4, dataValues.size() );
     }
 
+    @Test
+    public void testGetPersistedDataValues()
+    {
+        DataValue dataValueA = new DataValue( dataElementA, periodA, sourceA, optionCombo, optionCombo, "1" );
+        DataValue dataValueB = new DataValue( dataElementB, periodA, sourceA, optionCombo, optionCombo, "2" );
+        DataValue dataValueC = new DataValue( dataElementA, periodA, sourceB, optionCombo, optionCombo, "3" );
+
+        dataValueService.addDataValue( dataValueA );
+        dataValueService.addDataValue( dataValueB );
+        dataValueService.addDataValue( dataValueC );
+        dataValueService.deleteDataValue( dataValueB );
+
+        DataValue lookupA = new DataValue( dataElementA, periodA, sourceA, optionCombo, optionCombo );
+        DataValue lookupB = new DataValue( dataElementB, periodA, sourceA, optionCombo, optionCombo );
+        DataValue lookupD = new DataValue( dataElementB, periodA, sourceB, optionCombo, optionCombo );
+
+        List<DataValue> dataValues = dataValueService.getPersistedDataValues( Lists.newArrayList( lookupA, lookupB, lookupD ) );
+
+        assertEquals( 2, dataValues.size() );
+        assertTrue( dataValues.contains( dataValueA ) );
+        assertTrue( dataValues.contains( dataValueB ) );
+        assertFalse( dataValues.contains( dataValueC ) );
+
+        for ( DataValue dataValue : dataValues )
+        {
+            assertEquals( dataValue.equals( dataValueB ), dataValue.isDeleted() );
+        }
+
+        assertTrue( dataValueService.getPersistedDataValues( Lists.newArrayList() ).isEmpty() );
+    }
+
     @Test
     public void testGetDataValuesDataElementsPeriodsOrgUnits()
     {
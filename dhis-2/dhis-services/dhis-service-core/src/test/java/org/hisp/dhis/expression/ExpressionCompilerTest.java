@@ -0,0 +1,266 @@
+package org.hisp.dhis.expression;
+
+/*
+ * Copyright (c) 2004-2018, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import org.hisp.dhis.category.CategoryService;
+import org.hisp.dhis.common.DimensionService;
+import org.hisp.dhis.common.DimensionalItemObject;
+import org.hisp.dhis.common.GenericStore;
+import org.hisp.dhis.common.IdentifiableObjectManager;
+import org.hisp.dhis.constant.ConstantService;
+import org.hisp.dhis.dataelement.DataElementService;
+import org.hisp.dhis.organisationunit.OrganisationUnitGroupService;
+import org.hisp.dhis.parser.expression.ExpressionCompiler;
+import org.hisp.dhis.parser.expression.Parser;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.hisp.dhis.DhisConvenienceTest.createDataElement;
+import static org.hisp.dhis.expression.MissingValueStrategy.*;
+import static org.hisp.dhis.parser.expression.ParserUtils.castDouble;
+import static org.junit.Assert.*;
+
+/**
+ * Tests that expressions evaluated through their compiled form give the
+ * same values as when evaluated with the ExpressionEvaluator visitor.
+ */
+public class ExpressionCompilerTest
+{
+    private static final String CONSTANT = "C{xxxxxxxxx05}";
+
+    private static final String ORG_UNIT_GROUP = "OUG{orgUnitGrpA}";
+
+    private static final Integer DAYS = 31;
+
+    @Mock
+    private GenericStore<Expression> expressionStore;
+
+    @Mock
+    private DataElementService dataElementService;
+
+    @Mock
+    private ConstantService constantService;
+
+    @Mock
+    private CategoryService categoryService;
+
+    @Mock
+    private OrganisationUnitGroupService organisationUnitGroupService;
+
+    @Mock
+    private DimensionService dimensionService;
+
+    @Mock
+    private IdentifiableObjectManager idObjectManager;
+
+    @Rule
+    public MockitoRule mockitoRule = MockitoJUnit.rule();
+
+    private DefaultExpressionService expressionService;
+
+    private Map<DimensionalItemObject, Double> valueMap;
+
+    private Map<String, Double> constantMap;
+
+    private Map<String, Integer> orgUnitCountMap;
+
+    private String deA;
+    private String deB;
+    private String deC;
+    private String deD;
+
+    @Before
+    public void setUp()
+    {
+        expressionService = new DefaultExpressionService( expressionStore, dataElementService, constantService,
+            categoryService, organisationUnitGroupService, dimensionService, idObjectManager );
+
+        valueMap = new HashMap<>();
+        valueMap.put( createDataElement( 'A' ), 4d );
+        valueMap.put( createDataElement( 'B' ), -3d );
+
+        constantMap = new HashMap<>();
+        constantMap.put( "xxxxxxxxx05", 5d );
+
+        orgUnitCountMap = new HashMap<>();
+        orgUnitCountMap.put( "orgUnitGrpA", 3 );
+
+        // Data elements C and D have no values
+
+        deA = "#{" + createDataElement( 'A' ).getUid() + "}";
+        deB = "#{" + createDataElement( 'B' ).getUid() + "}";
+        deC = "#{" + createDataElement( 'C' ).getUid() + "}";
+        deD = "#{" + createDataElement( 'D' ).getUid() + "}";
+    }
+
+    // -------------------------------------------------------------------------
+    // Tests
+    // -------------------------------------------------------------------------
+
+    @Test
+    public void testArithmeticOperators()
+    {
+        assertParity( deA + " + " + deB );
+        assertParity( deA + " - " + deB + " * " + deA );
+        assertParity( "-" + deA + " + +" + deB );
+        assertParity( deA + " ^ 2" );
+        assertParity( deA + " / " + deB );
+        assertParity( deA + " % 3" );
+        assertParity( "( " + deA + " + " + deB + " ) * " + CONSTANT );
+        assertParity( deA + " * " + ORG_UNIT_GROUP );
+        assertParity( "2 * ( 1.5 - " + deB + " ) / 4" );
+    }
+
+    @Test
+    public void testLogicalAndComparisonOperators()
+    {
+        assertParity( deA + " > " + deB );
+        assertParity( deA + " < " + deB );
+        assertParity( deA + " >= 4" );
+        assertParity( deA + " <= 3.5" );
+        assertParity( deA + " == 4" );
+        assertParity( deA + " != " + deB );
+        assertParity( deA + " < " + deB + " || " + deB + " < 0" );
+        assertParity( deA + " > 0 and not ( " + deB + " > 0 )" );
+        assertParity( deA + " > 0 && !( " + deB + " < 0 ) or false" );
+        assertParity( "( " + deA + " > " + deB + " ) == true" );
+    }
+
+    @Test
+    public void testFunctions()
+    {
+        assertParity( "if( " + deA + " > 0, " + deB + ", " + deA + " )" );
+        assertParity( "if( " + deA + " < 0, " + deB + ", " + deA + " )" );
+        assertParity( "greatest( " + deA + ", " + deB + ", " + deC + " )" );
+        assertParity( "least( " + deA + ", " + deB + ", " + deC + " )" );
+        assertParity( "firstNonNull( " + deC + ", " + deB + ", " + deA + " )" );
+        assertParity( "isNull( " + deC + " )" );
+        assertParity( "isNull( " + deA + " )" );
+        assertParity( "isNotNull( " + deC + " )" );
+        assertParity( "if( isNotNull( " + deA + " ), 1, 2 ) + " + deA );
+    }
+
+    @Test
+    public void testMissingValues()
+    {
+        assertParity( deC );
+        assertParity( deC + " + " + deA );
+        assertParity( deC + " + " + deD );
+        assertParity( deA + " / " + deC );
+        assertParity( deC + " / " + deD );
+        assertParity( "-" + deC );
+        assertParity( "firstNonNull( " + deC + ", " + deD + " )" );
+        assertParity( "if( isNull( " + deC + " ), " + deA + ", " + deC + " )" );
+        assertParity( deC + " == 0" );
+    }
+
+    @Test
+    public void testDays()
+    {
+        assertParity( "[days]" );
+        assertParity( deA + " * [days]" );
+        assertParity( "isNull( [days] )" );
+        assertParity( "firstNonNull( [days], " + deA + " )" );
+
+        assertParity( "[days]", null );
+        assertParity( "isNull( [days] )", null );
+        assertParity( "firstNonNull( [days], " + deA + " )", null );
+
+        // The visitor fails on a missing number of days within arithmetic
+
+        for ( MissingValueStrategy strategy : MissingValueStrategy.values() )
+        {
+            assertEquals( 0d, getCompiledValue( deA + " * [days]", null, strategy ), 0d );
+            assertEquals( 5d, getCompiledValue( "[days] + 5", null, strategy ), 0d );
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Supportive methods
+    // -------------------------------------------------------------------------
+
+    private void assertParity( String expression )
+    {
+        assertParity( expression, DAYS );
+    }
+
+    /**
+     * Asserts that an expression compiles, and that its compiled value is the
+     * same as its value from the ExpressionEvaluator visitor, for each missing
+     * value strategy.
+     */
+    private void assertParity( String expression, Integer days )
+    {
+        assertNotNull( "Not compiled: " + expression, ExpressionCompiler.getCompiledExpression( expression ) );
+
+        for ( MissingValueStrategy strategy : MissingValueStrategy.values() )
+        {
+            assertEquals( expression + " with " + strategy + " and days " + days,
+                getInterpretedValue( expression, days, strategy ),
+                getCompiledValue( expression, days, strategy ) );
+        }
+    }
+
+    private Double getCompiledValue( String expression, Integer days, MissingValueStrategy strategy )
+    {
+        return expressionService.getExpressionValueRegEx( new Expression( expression, "Expression", strategy ),
+            valueMap, constantMap, orgUnitCountMap, days );
+    }
+
+    private Double getInterpretedValue( String expression, Integer days, MissingValueStrategy strategy )
+    {
+        ExpressionEvaluator evaluator = new ExpressionEvaluator( valueMap, constantMap, orgUnitCountMap, days );
+
+        Object result = Parser.visit( expression, evaluator );
+
+        Double value = result instanceof Boolean ? ( (Boolean) result ? 1d : 0d ) : castDouble( result );
+
+        int itemsFound = evaluator.getItemsFound();
+        int itemValuesFound = evaluator.getItemValuesFound();
+
+        if ( strategy == SKIP_IF_ANY_VALUE_MISSING && itemValuesFound < itemsFound )
+        {
+            return null;
+        }
+
+        if ( strategy != NEVER_SKIP && itemsFound != 0 && itemValuesFound == 0 )
+        {
+            return null;
+        }
+
+        return value != null ? value : 0d;
+    }
+}
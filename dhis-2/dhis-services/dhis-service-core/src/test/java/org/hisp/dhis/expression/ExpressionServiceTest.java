@@ -1027,6 +1027,22 @@ public class ExpressionServiceTest
         assertEquals( "0 DeE", eval( "#{dataElemenE}", NEVER_SKIP ) );
     }
 
+    @Test
+    public void testGetExpressionValueRegEx()
+    {
+        Expression expressionA = new Expression( "#{dataElemenA} + #{dataElemenC} * C{xxxxxxxxx05}", "A", SKIP_IF_ANY_VALUE_MISSING );
+        Expression expressionB = new Expression( "#{dataElemenA} + #{dataElemenC} * C{xxxxxxxxx05}", "B", SKIP_IF_ALL_VALUES_MISSING );
+        Expression expressionC = new Expression( "#{dataElemenC} + #{dataElemenD}", "C", SKIP_IF_ALL_VALUES_MISSING );
+        Expression expressionD = new Expression( "#{dataElemenC} + #{dataElemenD}", "D", NEVER_SKIP );
+        Expression expressionE = new Expression( "#{dataElemenB} * C{xxxxxxxxx05} > #{dataElemenA}", "E", NEVER_SKIP );
+
+        assertNull( expressionService.getExpressionValueRegEx( expressionA, valueMap, constantMap, ORG_UNIT_COUNT_MAP, DAYS ) );
+        assertEquals( 3.0, expressionService.getExpressionValueRegEx( expressionB, valueMap, constantMap, ORG_UNIT_COUNT_MAP, DAYS ), DELTA );
+        assertNull( expressionService.getExpressionValueRegEx( expressionC, valueMap, constantMap, ORG_UNIT_COUNT_MAP, DAYS ) );
+        assertEquals( 0.0, expressionService.getExpressionValueRegEx( expressionD, valueMap, constantMap, ORG_UNIT_COUNT_MAP, DAYS ), DELTA );
+        assertEquals( 1.0, expressionService.getExpressionValueRegEx( expressionE, valueMap, constantMap, ORG_UNIT_COUNT_MAP, DAYS ), DELTA );
+    }
+
     @Test
     public void testGetExpressionOrgUnitGroups()
     {
@@ -1148,4 +1164,26 @@ public class ExpressionServiceTest
         assertEquals( 1, value.getDivisor(), DELTA );
         assertEquals( 146000.0, value.getValue(), DELTA );
     }
+
+    @Test
+    public void testGetIndicatorValueObjectWithItemValueMap()
+    {
+        Indicator indicatorA = createIndicator( 'A', indicatorTypeA );
+        indicatorA.setNumerator( "#{dataElemenA.catOptCombB}*C{xxxxxxxxx05}" );
+        indicatorA.setDenominator( "#{dataElemenA.catOptCombB}" );
+
+        Indicator indicatorB = createIndicator( 'B', indicatorTypeA );
+        indicatorB.setNumerator( "#{dataElemenA.catOptCombB} + #{dataElemenB.catOptCombA}" );
+        indicatorB.setDenominator( "#{dataElemenA.catOptCombB}" );
+
+        Period period = createPeriod( "20010101" );
+
+        Map<String, Double> itemValueMap = expressionService.getItemValueMap( valueMap );
+
+        IndicatorValue valueA = expressionService.getIndicatorValueObject( indicatorA, period, valueMap, itemValueMap, constantMap, null );
+        IndicatorValue valueB = expressionService.getIndicatorValueObject( indicatorB, period, valueMap, itemValueMap, constantMap, null );
+
+        assertEquals( 50.0, valueA.getValue(), DELTA );
+        assertEquals( 400.0, valueB.getValue(), DELTA );
+    }
 }
@@ -34,6 +34,7 @@ import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.Iterator;
 import java.util.List;
@@ -421,6 +422,26 @@ public class PeriodServiceTest
         assertEquals( 0, periodsC.size() );
     }
 
+    @Test
+    public void testGetPeriodsByIsoPeriods()
+    {
+        Period periodA = createPeriod( "201801" );
+        Period periodB = createPeriod( "201802" );
+        Period periodC = createPeriod( "2018Q1" );
+
+        periodService.addPeriod( periodA );
+        periodService.addPeriod( periodB );
+        periodService.addPeriod( periodC );
+
+        List<Period> periods = periodService.getPeriodsByIsoPeriods( Arrays.asList( "201801", "2018Q1", "201803", "2018W1", "invalid" ) );
+
+        assertEquals( 2, periods.size() );
+        assertTrue( periods.contains( periodA ) );
+        assertTrue( periods.contains( periodC ) );
+
+        assertTrue( periodService.getPeriodsByIsoPeriods( new ArrayList<>() ).isEmpty() );
+    }
+
     @Test
     public void testGetBoundaryPeriods()
     {
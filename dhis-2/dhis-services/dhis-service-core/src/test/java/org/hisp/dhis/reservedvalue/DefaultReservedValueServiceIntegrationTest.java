@@ -0,0 +1,257 @@
+package org.hisp.dhis.reservedvalue;
+
+/*
+ * Copyright (c) 2004-2018, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import org.hisp.dhis.IntegrationTest;
+import org.hisp.dhis.IntegrationTestBase;
+import org.hisp.dhis.common.Objects;
+import org.hisp.dhis.external.conf.ConfigurationKey;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
+import org.hisp.dhis.textpattern.TextPattern;
+import org.hisp.dhis.textpattern.TextPatternParser;
+import org.hisp.dhis.textpattern.TextPatternService;
+import org.hisp.dhis.trackedentity.TrackedEntityAttribute;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.Calendar;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static java.util.Calendar.DATE;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests of reservations served from the reserved value pool, which relies on
+ * PostgreSQL specific syntax and therefore runs against PostgreSQL.
+ */
+@Category( IntegrationTest.class )
+public class DefaultReservedValueServiceIntegrationTest
+    extends IntegrationTestBase
+{
+    @Autowired
+    private ReservedValueService reservedValueService;
+
+    @Autowired
+    private TextPatternService textPatternService;
+
+    @Autowired
+    private DhisConfigurationProvider config;
+
+    private TextPattern textPattern;
+
+    private String key;
+
+    private Date future;
+
+    @Override
+    public boolean emptyDatabaseAfterTest()
+    {
+        return true;
+    }
+
+    @Override
+    protected void setUpTest()
+        throws Exception
+    {
+        // A new attribute per test, as pool counters are kept per owner
+
+        TrackedEntityAttribute attribute = createTrackedEntityAttribute( 'A' );
+
+        textPattern = TextPatternParser.parse( "\"TEST-\"+SEQUENTIAL(###)" );
+        textPattern.setOwnerObject( Objects.TRACKEDENTITYATTRIBUTE );
+        textPattern.setOwnerUid( attribute.getUid() );
+
+        key = textPatternService.resolvePattern( textPattern, new HashMap<>() );
+
+        Calendar calendar = Calendar.getInstance();
+        calendar.add( DATE, 10 );
+        future = calendar.getTime();
+
+        setPoolSize( 10 );
+    }
+
+    @Override
+    protected void tearDownTest()
+    {
+        setPoolSize( 0 );
+    }
+
+    @Test
+    public void testFillPool()
+        throws Exception
+    {
+        assertEquals( 10, reservedValueService.fillPool( textPattern, key, 10 ) );
+        assertEquals( 10, getStatistics().getPooledValues() );
+
+        assertEquals( 0, reservedValueService.fillPool( textPattern, key, 10 ) );
+        assertEquals( 5, reservedValueService.fillPool( textPattern, key, 15 ) );
+        assertEquals( 15, getStatistics().getPooledValues() );
+    }
+
+    @Test
+    public void testReserveFromPool()
+        throws Exception
+    {
+        reservedValueService.fillPool( textPattern, key, 10 );
+
+        List<ReservedValue> reservedValues = reservedValueService.reserve( textPattern, 4, new HashMap<>(), future );
+
+        assertEquals( "TEST-001,TEST-002,TEST-003,TEST-004", getValues( reservedValues ) );
+
+        ReservedValuePoolStatistics statistics = getStatistics();
+
+        assertEquals( 6, statistics.getPooledValues() );
+        assertEquals( 1, statistics.getPoolRequests() );
+        assertEquals( 0, statistics.getPoolExhaustions() );
+    }
+
+    @Test
+    public void testReserveFallsBackToGeneration()
+        throws Exception
+    {
+        reservedValueService.fillPool( textPattern, key, 3 );
+
+        List<ReservedValue> reservedValues = reservedValueService.reserve( textPattern, 5, new HashMap<>(), future );
+
+        assertEquals( "TEST-001,TEST-002,TEST-003,TEST-004,TEST-005", getValues( reservedValues ) );
+
+        ReservedValuePoolStatistics statistics = getStatistics();
+
+        assertEquals( 0, statistics.getPooledValues() );
+        assertEquals( 1, statistics.getPoolRequests() );
+        assertEquals( 1, statistics.getPoolExhaustions() );
+    }
+
+    @Test
+    public void testReserveWithoutPool()
+        throws Exception
+    {
+        setPoolSize( 0 );
+
+        reservedValueService.fillPool( textPattern, key, 3 );
+
+        assertEquals( 2, reservedValueService.reserve( textPattern, 2, new HashMap<>(), future ).size() );
+
+        ReservedValuePoolStatistics statistics = getStatistics();
+
+        assertEquals( 0, statistics.getPoolRequests() );
+        assertEquals( 0, statistics.getPoolExhaustions() );
+    }
+
+    @Test
+    public void testExhaustedPoolIsCounted()
+        throws Exception
+    {
+        reservedValueService.reserve( textPattern, 2, new HashMap<>(), future );
+        reservedValueService.reserve( textPattern, 2, new HashMap<>(), future );
+
+        ReservedValuePoolStatistics statistics = getStatistics();
+
+        assertEquals( 2, statistics.getPoolRequests() );
+        assertEquals( 2, statistics.getPoolExhaustions() );
+        assertEquals( 4, statistics.getUsedValues() );
+    }
+
+    @Test
+    public void testPartialPoolIsReturnedWhenNotEnoughValuesLeft()
+        throws Exception
+    {
+        textPattern = TextPatternParser.parse( "\"TEST-\"+SEQUENTIAL(#)" );
+        textPattern.setOwnerObject( Objects.TRACKEDENTITYATTRIBUTE );
+        textPattern.setOwnerUid( createTrackedEntityAttribute( 'B' ).getUid() );
+
+        key = textPatternService.resolvePattern( textPattern, new HashMap<>() );
+
+        reservedValueService.fillPool( textPattern, key, 3 );
+
+        try
+        {
+            reservedValueService.reserve( textPattern, 12, new HashMap<>(), future );
+            fail( "Expected ReserveValueException" );
+        }
+        catch ( ReserveValueException ex )
+        {
+            assertEquals( "Could not reserve value: Not enough values left to reserve 12 values, " +
+                "only 3 values were available in the pool.", ex.getMessage() );
+        }
+
+        ReservedValuePoolStatistics statistics = getStatistics();
+
+        assertEquals( 3, statistics.getPooledValues() );
+        assertEquals( 0, statistics.getUsedValues() );
+    }
+
+    @Test
+    public void testPoolStatisticsForecast()
+        throws Exception
+    {
+        ReservedValuePoolStatistics statistics = getStatistics();
+
+        assertEquals( 999, statistics.getTotalValues() );
+        assertEquals( 0d, statistics.getReservationsPerDay(), 0.001 );
+        assertNull( statistics.getDaysUntilExhausted() );
+
+        reservedValueService.reserve( textPattern, 30, new HashMap<>(), future );
+
+        statistics = getStatistics();
+
+        assertEquals( 30, statistics.getUsedValues() );
+        assertEquals( 969, statistics.getRemainingValues() );
+        assertEquals( 1d, statistics.getReservationsPerDay(), 0.001 );
+        assertEquals( 969d, statistics.getDaysUntilExhausted(), 0.001 );
+    }
+
+    private ReservedValuePoolStatistics getStatistics()
+        throws Exception
+    {
+        return reservedValueService.getPoolStatistics( textPattern, new HashMap<>() );
+    }
+
+    private String getValues( List<ReservedValue> reservedValues )
+    {
+        Set<String> values = reservedValues.stream().map( ReservedValue::getValue ).collect( Collectors.toSet() );
+
+        assertEquals( reservedValues.size(), values.size() );
+
+        return values.stream().sorted().collect( Collectors.joining( "," ) );
+    }
+
+    private void setPoolSize( int poolSize )
+    {
+        config.getProperties().put( ConfigurationKey.RESERVED_VALUE_POOL_SIZE.getKey(), String.valueOf( poolSize ) );
+    }
+}
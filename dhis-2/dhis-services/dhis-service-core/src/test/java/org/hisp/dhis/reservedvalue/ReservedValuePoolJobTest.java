@@ -0,0 +1,193 @@
+package org.hisp.dhis.reservedvalue;
+
+/*
+ * Copyright (c) 2004-2018, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import com.google.common.collect.Lists;
+import org.hisp.dhis.IntegrationTest;
+import org.hisp.dhis.IntegrationTestBase;
+import org.hisp.dhis.common.Objects;
+import org.hisp.dhis.external.conf.ConfigurationKey;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
+import org.hisp.dhis.textpattern.TextPattern;
+import org.hisp.dhis.textpattern.TextPatternParser;
+import org.hisp.dhis.textpattern.TextPatternService;
+import org.hisp.dhis.trackedentity.TrackedEntityAttribute;
+import org.hisp.dhis.trackedentity.TrackedEntityAttributeService;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.HashMap;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests of the job filling the reserved value pools, which relies on
+ * PostgreSQL specific syntax and therefore runs against PostgreSQL.
+ */
+@Category( IntegrationTest.class )
+public class ReservedValuePoolJobTest
+    extends IntegrationTestBase
+{
+    @Autowired
+    private ReservedValuePoolJob reservedValuePoolJob;
+
+    @Autowired
+    private ReservedValueService reservedValueService;
+
+    @Autowired
+    private ReservedValueStore reservedValueStore;
+
+    @Autowired
+    private TrackedEntityAttributeService trackedEntityAttributeService;
+
+    @Autowired
+    private TextPatternService textPatternService;
+
+    @Autowired
+    private DhisConfigurationProvider config;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private TextPattern textPattern;
+
+    private ReservedValue reservedValue;
+
+    @Override
+    public boolean emptyDatabaseAfterTest()
+    {
+        return true;
+    }
+
+    @Override
+    protected void setUpTest()
+        throws Exception
+    {
+        TrackedEntityAttribute attribute = createTrackedEntityAttribute( 'A' );
+
+        textPattern = TextPatternParser.parse( "\"TEST-\"+SEQUENTIAL(###)" );
+        textPattern.setOwnerObject( Objects.TRACKEDENTITYATTRIBUTE );
+        textPattern.setOwnerUid( attribute.getUid() );
+
+        attribute.setGenerated( true );
+        attribute.setPattern( "\"TEST-\"+SEQUENTIAL(###)" );
+        attribute.setTextPattern( textPattern );
+
+        trackedEntityAttributeService.addTrackedEntityAttribute( attribute );
+
+        String key = textPatternService.resolvePattern( textPattern, new HashMap<>() );
+
+        reservedValue = new ReservedValue( Objects.TRACKEDENTITYATTRIBUTE.name(), attribute.getUid(), key, "TEST-%", getDaysAgo( -10 ) );
+
+        setPoolSize( 5 );
+    }
+
+    @Override
+    protected void tearDownTest()
+    {
+        setPoolSize( 0 );
+    }
+
+    @Test
+    public void testFillPoolForRecentReservations()
+        throws Exception
+    {
+        reservedValueService.reserve( textPattern, 2, new HashMap<>(), getDaysAgo( -10 ) );
+
+        reservedValuePoolJob.execute( null );
+
+        assertEquals( 5, reservedValueStore.getNumberOfPooledValues( reservedValue ) );
+
+        reservedValueService.reserve( textPattern, 3, new HashMap<>(), getDaysAgo( -10 ) );
+
+        assertEquals( 2, reservedValueStore.getNumberOfPooledValues( reservedValue ) );
+
+        reservedValuePoolJob.execute( null );
+
+        assertEquals( 5, reservedValueStore.getNumberOfPooledValues( reservedValue ) );
+    }
+
+    @Test
+    public void testNoPoolWithoutRecentReservations()
+        throws Exception
+    {
+        reservedValuePoolJob.execute( null );
+
+        assertEquals( 0, reservedValueStore.getNumberOfPooledValues( reservedValue ) );
+
+        reservedValueStore.reserveValues( reservedValue, Lists.newArrayList( "TEST-001" ) );
+
+        jdbcTemplate.update( "update reservedvalue set created = ?", getDaysAgo( 10 ) );
+
+        reservedValuePoolJob.execute( null );
+
+        assertEquals( 0, reservedValueStore.getNumberOfPooledValues( reservedValue ) );
+    }
+
+    @Test
+    public void testNoPoolWhenDisabled()
+        throws Exception
+    {
+        setPoolSize( 0 );
+
+        reservedValueService.reserve( textPattern, 2, new HashMap<>(), getDaysAgo( -10 ) );
+
+        reservedValuePoolJob.execute( null );
+
+        assertEquals( 0, reservedValueStore.getNumberOfPooledValues( reservedValue ) );
+    }
+
+    @Test
+    public void testRemoveUnusedPool()
+        throws Exception
+    {
+        reservedValueService.fillPool( textPattern, reservedValue.getKey(), 5 );
+
+        jdbcTemplate.update( "update reservedvaluepool set created = ?", getDaysAgo( 40 ) );
+
+        reservedValuePoolJob.execute( null );
+
+        assertEquals( 0, reservedValueStore.getNumberOfPooledValues( reservedValue ) );
+    }
+
+    private Date getDaysAgo( int days )
+    {
+        return Date.from( Instant.now().minus( days, ChronoUnit.DAYS ) );
+    }
+
+    private void setPoolSize( int poolSize )
+    {
+        config.getProperties().put( ConfigurationKey.RESERVED_VALUE_POOL_SIZE.getKey(), String.valueOf( poolSize ) );
+    }
+}
@@ -0,0 +1,191 @@
+package org.hisp.dhis.reservedvalue.hibernate;
+
+/*
+ * Copyright (c) 2004-2018, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import com.google.common.collect.Lists;
+import org.hisp.dhis.IntegrationTest;
+import org.hisp.dhis.IntegrationTestBase;
+import org.hisp.dhis.common.Objects;
+import org.hisp.dhis.reservedvalue.ReservedValue;
+import org.hisp.dhis.reservedvalue.ReservedValueStore;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests of the reserved value pool, which relies on PostgreSQL specific
+ * syntax and therefore runs against PostgreSQL.
+ */
+@Category( IntegrationTest.class )
+public class HibernateReservedValueStoreIntegrationTest
+    extends IntegrationTestBase
+{
+    private final ReservedValue reservedValueA = new ReservedValue( Objects.TRACKEDENTITYATTRIBUTE.name(), "A",
+        "TEST-SEQUENTIAL(###)", "TEST-%", getDaysAgo( -10 ) );
+
+    private final ReservedValue reservedValueB = new ReservedValue( Objects.TRACKEDENTITYATTRIBUTE.name(), "A",
+        "OTHER-SEQUENTIAL(###)", "OTHER-%", getDaysAgo( -10 ) );
+
+    @Autowired
+    private ReservedValueStore reservedValueStore;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Override
+    public boolean emptyDatabaseAfterTest()
+    {
+        return true;
+    }
+
+    @Test
+    public void testAddPooledValues()
+    {
+        assertEquals( 3, reservedValueStore.addPooledValues( reservedValueA, Lists.newArrayList( "TEST-001", "TEST-002", "TEST-003" ) ) );
+        assertEquals( 1, reservedValueStore.addPooledValues( reservedValueA, Lists.newArrayList( "TEST-003", "TEST-004" ) ) );
+
+        reservedValueStore.reserveValues( reservedValueA, Lists.newArrayList( "TEST-005" ) );
+
+        assertEquals( 0, reservedValueStore.addPooledValues( reservedValueA, Lists.newArrayList( "TEST-005" ) ) );
+        assertEquals( 4, reservedValueStore.getNumberOfPooledValues( reservedValueA ) );
+        assertEquals( 0, reservedValueStore.getNumberOfPooledValues( reservedValueB ) );
+    }
+
+    @Test
+    public void testTakePooledValues()
+    {
+        reservedValueStore.addPooledValues( reservedValueA, Lists.newArrayList( "TEST-003", "TEST-001", "TEST-002" ) );
+        reservedValueStore.addPooledValues( reservedValueB, Lists.newArrayList( "OTHER-001" ) );
+
+        assertEquals( "TEST-001,TEST-002", getValues( reservedValueStore.takePooledValues( reservedValueA, 2 ) ) );
+        assertEquals( "TEST-003", getValues( reservedValueStore.takePooledValues( reservedValueA, 2 ) ) );
+        assertTrue( reservedValueStore.takePooledValues( reservedValueA, 2 ).isEmpty() );
+        assertEquals( 1, reservedValueStore.getNumberOfPooledValues( reservedValueB ) );
+    }
+
+    @Test
+    public void testTakePooledValuesSkipsLockedValues()
+        throws Exception
+    {
+        reservedValueStore.addPooledValues( reservedValueA, Lists.newArrayList( "TEST-001", "TEST-002", "TEST-003" ) );
+
+        // Lock the first value in another transaction, as a concurrent reservation would
+
+        try ( Connection connection = dataSource.getConnection() )
+        {
+            connection.setAutoCommit( false );
+
+            try ( PreparedStatement statement = connection.prepareStatement(
+                "select value from reservedvaluepool where key = ? and value = ? for update" ) )
+            {
+                statement.setString( 1, reservedValueA.getKey() );
+                statement.setString( 2, "TEST-001" );
+
+                try ( ResultSet resultSet = statement.executeQuery() )
+                {
+                    assertTrue( resultSet.next() );
+                }
+            }
+
+            assertEquals( "TEST-002,TEST-003", getValues( reservedValueStore.takePooledValues( reservedValueA, 3 ) ) );
+
+            connection.rollback();
+        }
+
+        assertEquals( "TEST-001", getValues( reservedValueStore.takePooledValues( reservedValueA, 3 ) ) );
+    }
+
+    @Test
+    public void testRemoveUnusedPooledValues()
+    {
+        reservedValueStore.addPooledValues( reservedValueA, Lists.newArrayList( "TEST-001", "TEST-002" ) );
+        reservedValueStore.addPooledValues( reservedValueB, Lists.newArrayList( "OTHER-001", "OTHER-002" ) );
+
+        jdbcTemplate.update( "update reservedvaluepool set created = ?", getDaysAgo( 40 ) );
+
+        reservedValueStore.reserveValues( reservedValueA, Lists.newArrayList( "TEST-003" ) );
+
+        reservedValueStore.removeUnusedPooledValues( getDaysAgo( 30 ) );
+
+        assertEquals( 2, reservedValueStore.getNumberOfPooledValues( reservedValueA ) );
+        assertEquals( 0, reservedValueStore.getNumberOfPooledValues( reservedValueB ) );
+    }
+
+    @Test
+    public void testGetNumberOfReservedValues()
+    {
+        reservedValueStore.reserveValues( reservedValueA, Lists.newArrayList( "TEST-001", "TEST-002" ) );
+        reservedValueStore.reserveValues( reservedValueB, Lists.newArrayList( "OTHER-001" ) );
+
+        assertEquals( 2, reservedValueStore.getNumberOfReservedValues( reservedValueA, getDaysAgo( 1 ) ) );
+        assertEquals( 1, reservedValueStore.getNumberOfReservedValues( reservedValueB, getDaysAgo( 1 ) ) );
+        assertEquals( 0, reservedValueStore.getNumberOfReservedValues( reservedValueA, getDaysAgo( -1 ) ) );
+    }
+
+    @Test
+    public void testGetReservedValueKeys()
+    {
+        reservedValueStore.reserveValues( reservedValueA, Lists.newArrayList( "TEST-001", "TEST-002" ) );
+        reservedValueStore.reserveValues( reservedValueB, Lists.newArrayList( "OTHER-001" ) );
+
+        List<ReservedValue> keys = reservedValueStore.getReservedValueKeys( getDaysAgo( 1 ) );
+
+        assertEquals( 2, keys.size() );
+        assertTrue( keys.stream().anyMatch( key -> reservedValueA.getKey().equals( key.getKey() ) ) );
+        assertTrue( keys.stream().anyMatch( key -> reservedValueB.getKey().equals( key.getKey() ) ) );
+        assertTrue( reservedValueStore.getReservedValueKeys( getDaysAgo( -1 ) ).isEmpty() );
+    }
+
+    private String getValues( List<String> values )
+    {
+        return values.stream().sorted().collect( Collectors.joining( "," ) );
+    }
+
+    private static Date getDaysAgo( int days )
+    {
+        return Date.from( Instant.now().minus( days, ChronoUnit.DAYS ) );
+    }
+}
@@ -35,15 +35,19 @@ import org.hisp.dhis.common.OrganisationUnitSelectionMode;
 import org.hisp.dhis.common.QueryItem;
 import org.hisp.dhis.common.QueryOperator;
 import org.hisp.dhis.common.ValueType;
+import org.hisp.dhis.dbms.DbmsManager;
 import org.hisp.dhis.organisationunit.OrganisationUnit;
 import org.hisp.dhis.organisationunit.OrganisationUnitService;
 import org.hisp.dhis.program.Program;
 import org.hisp.dhis.program.ProgramInstanceService;
 import org.hisp.dhis.trackedentityattributevalue.TrackedEntityAttributeValue;
 import org.hisp.dhis.trackedentityattributevalue.TrackedEntityAttributeValueService;
+import org.hibernate.Hibernate;
 import org.junit.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import com.google.common.collect.Lists;
+
 import java.util.Date;
 import java.util.List;
 
@@ -70,6 +74,9 @@ public class TrackedEntityInstanceStoreTest
     @Autowired
     private ProgramInstanceService programInstanceService;
 
+    @Autowired
+    private DbmsManager dbmsManager;
+
     private TrackedEntityInstance teiA;
     private TrackedEntityInstance teiB;
     private TrackedEntityInstance teiC;
@@ -186,6 +193,44 @@ public class TrackedEntityInstanceStoreTest
         assertTrue( equals( teiStore.getAll(), teiA, teiB ) );
     }
 
+    @Test
+    public void testLoadAssociations()
+    {
+        teiStore.save( teiA );
+        teiStore.save( teiB );
+
+        attributeValueService.addTrackedEntityAttributeValue( new TrackedEntityAttributeValue( atA, teiA, "Male" ) );
+
+        programInstanceService.enrollTrackedEntityInstance( teiB, prA, new Date(), new Date(), ouB );
+
+        dbmsManager.flushSession();
+        dbmsManager.clearSession();
+
+        TrackedEntityInstance a = teiStore.getByUid( teiA.getUid() );
+        TrackedEntityInstance b = teiStore.getByUid( teiB.getUid() );
+
+        assertNotNull( a );
+        assertNotNull( b );
+        assertFalse( Hibernate.isInitialized( a.getTrackedEntityAttributeValues() ) );
+        assertFalse( Hibernate.isInitialized( b.getProgramInstances() ) );
+
+        teiStore.loadAssociations( Lists.newArrayList( a, b ), true, true, true, true );
+        teiStore.loadAssociations( Lists.newArrayList(), true, true, true, true );
+
+        for ( TrackedEntityInstance tei : Lists.newArrayList( a, b ) )
+        {
+            assertTrue( Hibernate.isInitialized( tei.getTrackedEntityAttributeValues() ) );
+            assertTrue( Hibernate.isInitialized( tei.getProgramInstances() ) );
+            assertTrue( Hibernate.isInitialized( tei.getProgramOwners() ) );
+            assertTrue( Hibernate.isInitialized( tei.getRelationshipItems() ) );
+        }
+
+        assertEquals( 1, a.getTrackedEntityAttributeValues().size() );
+        assertEquals( 0, a.getProgramInstances().size() );
+        assertEquals( 0, b.getTrackedEntityAttributeValues().size() );
+        assertEquals( 1, b.getProgramInstances().size() );
+    }
+
     @Test
     public void testQuery()
     {
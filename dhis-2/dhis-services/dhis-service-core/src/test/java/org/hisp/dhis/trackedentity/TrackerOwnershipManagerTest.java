@@ -31,6 +31,11 @@ package org.hisp.dhis.trackedentity;
 import static com.google.common.collect.Sets.newHashSet;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 
 import org.hisp.dhis.DhisSpringTest;
 import org.hisp.dhis.common.AccessLevel;
@@ -66,6 +71,9 @@ public class TrackerOwnershipManagerTest extends DhisSpringTest
     @Autowired
     private ProgramService programService;
 
+    @Autowired
+    private TrackedEntityProgramOwnerService trackedEntityProgramOwnerService;
+
     private TrackedEntityInstance entityInstanceA1;
 
     private TrackedEntityInstance entityInstanceB1;
@@ -146,4 +154,24 @@ public class TrackerOwnershipManagerTest extends DhisSpringTest
         assertTrue(trackerOwnershipAccessManager.hasAccess( userB,entityInstanceA1, programA ));
 
     }
+
+    @Test
+    public void testHasAccessWithLoadedProgramOwners()
+    {
+        TrackedEntityProgramOwnerService mockOwnerService = mock( TrackedEntityProgramOwnerService.class );
+        setDependency( trackerOwnershipAccessManager, "trackedEntityProgramOwnerService", mockOwnerService, TrackedEntityProgramOwnerService.class );
+
+        try
+        {
+            assertTrue( trackerOwnershipAccessManager.hasAccess( userA, entityInstanceA1, programA ) );
+            assertFalse( trackerOwnershipAccessManager.hasAccess( userB, entityInstanceA1, programA ) );
+
+            verify( mockOwnerService, never() ).getTrackedEntityProgramOwner( anyLong(), anyLong() );
+            verify( mockOwnerService, never() ).getTrackedEntityProgramOwner( anyString(), anyString() );
+        }
+        finally
+        {
+            setDependency( trackerOwnershipAccessManager, "trackedEntityProgramOwnerService", trackedEntityProgramOwnerService, TrackedEntityProgramOwnerService.class );
+        }
+    }
 }
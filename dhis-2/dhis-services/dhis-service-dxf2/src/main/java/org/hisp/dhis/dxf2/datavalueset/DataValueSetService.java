@@ -102,6 +102,22 @@ public interface DataValueSetService
     void writeDataValueSetJson( Date lastUpdated, OutputStream outputStream, IdSchemes idSchemes, int pageSize,
         int page );
 
+    /**
+     * Query for the page of {@link DataValueSet DataValueSets} following the
+     * given keyset position and write result as JSON. Data values are ordered
+     * by last updated time and primary key, so consecutive pages can be read
+     * without offsets by passing the last key of the previous page.
+     *
+     * @param lastUpdated specifies the date to filter data values last updated after
+     * @param after the key to continue after, null to start from the beginning
+     * @param outputStream the stream to write to
+     * @param idSchemes idSchemes
+     * @param pageSize pageSize
+     * @return the number of written data values and the key of the last one
+     */
+    DataValueSyncPage writeDataValueSetJson( Date lastUpdated, DataValueSyncKey after, OutputStream outputStream,
+        IdSchemes idSchemes, int pageSize );
+
     void writeDataValueSetCsv( DataExportParams params, Writer writer );
 
     RootNode getDataValueSetTemplate( DataSet dataSet, Period period, List<String> orgUnits, boolean writeComments,
@@ -0,0 +1,208 @@
+package org.hisp.dhis.dxf2.datavalueset;
+
+/*
+ * Copyright (c) 2004-2018, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import java.sql.Timestamp;
+import java.util.Objects;
+
+import org.apache.commons.lang3.StringUtils;
+
+import com.google.common.base.MoreObjects;
+
+/**
+ * Position of a data value in the keyset ordering used by data value
+ * synchronization. Data values are walked in order of last updated time
+ * followed by the columns of the data value primary key, which makes the
+ * position unique and stable across pages.
+ */
+public class DataValueSyncKey
+{
+    private static final String SEPARATOR = ";";
+
+    private final Timestamp lastUpdated;
+
+    private final long dataElementId;
+
+    private final long periodId;
+
+    private final long sourceId;
+
+    private final long categoryOptionComboId;
+
+    private final long attributeOptionComboId;
+
+    public DataValueSyncKey( Timestamp lastUpdated, long dataElementId, long periodId, long sourceId,
+        long categoryOptionComboId, long attributeOptionComboId )
+    {
+        this.lastUpdated = lastUpdated;
+        this.dataElementId = dataElementId;
+        this.periodId = periodId;
+        this.sourceId = sourceId;
+        this.categoryOptionComboId = categoryOptionComboId;
+        this.attributeOptionComboId = attributeOptionComboId;
+    }
+
+    // -------------------------------------------------------------------------
+    // Logic
+    // -------------------------------------------------------------------------
+
+    /**
+     * Returns a SQL condition matching data values positioned after this key.
+     * The last updated timestamp keeps its sub-millisecond precision so that
+     * values sharing the same millisecond are not skipped.
+     *
+     * @param alias the alias of the data value table.
+     * @return a SQL condition.
+     */
+    public String getSqlCondition( String alias )
+    {
+        return "(" + alias + ".lastupdated, " + alias + ".dataelementid, " + alias + ".periodid, " +
+            alias + ".sourceid, " + alias + ".categoryoptioncomboid, " + alias + ".attributeoptioncomboid) > " +
+            "('" + lastUpdated + "', " + dataElementId + ", " + periodId + ", " + sourceId + ", " +
+            categoryOptionComboId + ", " + attributeOptionComboId + ") ";
+    }
+
+    /**
+     * Returns a string representation of this key which can be parsed with
+     * {@link #fromString(String)}.
+     */
+    public String asString()
+    {
+        return StringUtils.join( new Object[] { lastUpdated, dataElementId, periodId, sourceId,
+            categoryOptionComboId, attributeOptionComboId }, SEPARATOR );
+    }
+
+    /**
+     * Parses a key from the given string representation.
+     *
+     * @param key the string representation, as returned by {@link #asString()}.
+     * @return a key, or null if the string is blank or malformed.
+     */
+    public static DataValueSyncKey fromString( String key )
+    {
+        String[] parts = StringUtils.split( key, SEPARATOR );
+
+        if ( parts == null || parts.length != 6 )
+        {
+            return null;
+        }
+
+        try
+        {
+            return new DataValueSyncKey( Timestamp.valueOf( parts[0] ), Long.parseLong( parts[1] ),
+                Long.parseLong( parts[2] ), Long.parseLong( parts[3] ), Long.parseLong( parts[4] ),
+                Long.parseLong( parts[5] ) );
+        }
+        catch ( IllegalArgumentException ex )
+        {
+            return null;
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Getters
+    // -------------------------------------------------------------------------
+
+    public Timestamp getLastUpdated()
+    {
+        return lastUpdated;
+    }
+
+    public long getDataElementId()
+    {
+        return dataElementId;
+    }
+
+    public long getPeriodId()
+    {
+        return periodId;
+    }
+
+    public long getSourceId()
+    {
+        return sourceId;
+    }
+
+    public long getCategoryOptionComboId()
+    {
+        return categoryOptionComboId;
+    }
+
+    public long getAttributeOptionComboId()
+    {
+        return attributeOptionComboId;
+    }
+
+    // -------------------------------------------------------------------------
+    // Object
+    // -------------------------------------------------------------------------
+
+    @Override
+    public boolean equals( Object object )
+    {
+        if ( this == object )
+        {
+            return true;
+        }
+
+        if ( object == null || getClass() != object.getClass() )
+        {
+            return false;
+        }
+
+        DataValueSyncKey other = (DataValueSyncKey) object;
+
+        return Objects.equals( lastUpdated, other.lastUpdated ) &&
+            dataElementId == other.dataElementId &&
+            periodId == other.periodId &&
+            sourceId == other.sourceId &&
+            categoryOptionComboId == other.categoryOptionComboId &&
+            attributeOptionComboId == other.attributeOptionComboId;
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Objects.hash( lastUpdated, dataElementId, periodId, sourceId, categoryOptionComboId,
+            attributeOptionComboId );
+    }
+
+    @Override
+    public String toString()
+    {
+        return MoreObjects.toStringHelper( this )
+            .add( "lastUpdated", lastUpdated )
+            .add( "dataElementId", dataElementId )
+            .add( "periodId", periodId )
+            .add( "sourceId", sourceId )
+            .add( "categoryOptionComboId", categoryOptionComboId )
+            .add( "attributeOptionComboId", attributeOptionComboId )
+            .toString();
+    }
+}
@@ -34,14 +34,21 @@ import static org.hisp.dhis.system.notification.NotificationLevel.ERROR;
 import static org.hisp.dhis.system.notification.NotificationLevel.INFO;
 import static org.hisp.dhis.system.notification.NotificationLevel.WARN;
 
+import java.io.BufferedInputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.Writer;
 import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -102,7 +109,6 @@ import org.hisp.dhis.organisationunit.OrganisationUnitService;
 import org.hisp.dhis.period.Period;
 import org.hisp.dhis.period.PeriodService;
 import org.hisp.dhis.period.PeriodType;
-import org.hisp.dhis.render.DefaultRenderService;
 import org.hisp.dhis.scheduling.JobConfiguration;
 import org.hisp.dhis.security.Authorities;
 import org.hisp.dhis.security.acl.AclService;
@@ -137,6 +143,7 @@ public class DefaultDataValueSetService
 
     private static final String ERROR_OBJECT_NEEDED_TO_COMPLETE = "Must be provided to complete data set";
     private static final int CACHE_MISS_THRESHOLD = 250;
+    private static final int IMPORT_CHUNK_SIZE = 1000;
 
     @Autowired
     private IdentifiableObjectManager identifiableObjectManager;
@@ -378,6 +385,13 @@ public class DefaultDataValueSetService
         dataValueSetStore.writeDataValueSetJson( lastUpdated, outputStream, idSchemes, pageSize, page );
     }
 
+    @Override
+    public DataValueSyncPage writeDataValueSetJson( Date lastUpdated, DataValueSyncKey after,
+        OutputStream outputStream, IdSchemes idSchemes, int pageSize )
+    {
+        return dataValueSetStore.writeDataValueSetJson( lastUpdated, after, outputStream, idSchemes, pageSize );
+    }
+
     @Override
     public void writeDataValueSetCsv( DataExportParams params, Writer writer )
     {
@@ -564,11 +578,43 @@ public class DefaultDataValueSetService
     @Override
     public ImportSummary saveDataValueSetJson( InputStream in, ImportOptions importOptions, JobConfiguration id )
     {
+        Path file = null;
+
         try
         {
-            in = StreamUtils.wrapAndCheckCompressionFormat( in );
-            DataValueSet dataValueSet = DefaultRenderService.getJsonMapper().readValue( in, DataValueSet.class );
-            return saveDataValueSet( importOptions, id, dataValueSet );
+            // -----------------------------------------------------------------
+            // Spool to file so that properties after the data values, such as
+            // dryRun, can be detected before any data value is written
+            // -----------------------------------------------------------------
+
+            file = Files.createTempFile( "dataValueSet", ".json" );
+
+            Files.copy( StreamUtils.wrapAndCheckCompressionFormat( in ), file, StandardCopyOption.REPLACE_EXISTING );
+
+            List<String> ignoredProperties;
+
+            try ( InputStream scan = new BufferedInputStream( Files.newInputStream( file ) ) )
+            {
+                ignoredProperties = StreamingJsonDataValueSet.getPropertiesAfterDataValues( scan );
+            }
+
+            if ( !ignoredProperties.isEmpty() )
+            {
+                ImportSummary summary = new ImportSummary( ImportStatus.ERROR, "Data value set properties must appear before data values" );
+                summary.getConflicts().add( new ImportConflict( "dataValueSet", "Properties must appear before data values: " +
+                    String.join( ", ", ignoredProperties ) ) );
+
+                notifier.notify( id, ERROR, "Import failed, properties must appear before data values", true )
+                    .addJobSummary( id, ERROR, summary, ImportSummary.class );
+
+                return summary;
+            }
+
+            try ( InputStream data = new BufferedInputStream( Files.newInputStream( file ) ) )
+            {
+                DataValueSet dataValueSet = new StreamingJsonDataValueSet( data );
+                return saveDataValueSet( importOptions, id, dataValueSet );
+            }
         }
         catch ( Exception ex )
         {
@@ -576,6 +622,10 @@ public class DefaultDataValueSetService
             notifier.notify( id, ERROR, "Process failed: " + ex.getMessage(), true );
             return new ImportSummary( ImportStatus.ERROR, "The import process failed: " + ex.getMessage() );
         }
+        finally
+        {
+            deleteQuietly( file );
+        }
     }
 
     @Override
@@ -835,9 +885,8 @@ public class DefaultDataValueSetService
         BatchHandler<DataValue> dataValueBatchHandler = batchHandlerFactory.createBatchHandler( DataValueBatchHandler.class ).init();
         BatchHandler<DataValueAudit> auditBatchHandler = batchHandlerFactory.createBatchHandler( DataValueAuditBatchHandler.class ).init();
 
-        int importCount = 0;
-        int updateCount = 0;
-        int deleteCount = 0;
+        ImportCount importCount = new ImportCount();
+        List<PendingDataValue> pendingValues = new ArrayList<>();
         int totalCount = 0;
 
         // ---------------------------------------------------------------------
@@ -1186,11 +1235,91 @@ public class DefaultDataValueSetService
             internalValue.setFollowup( dataValue.getFollowup() );
             internalValue.setDeleted( BooleanUtils.isTrue( dataValue.getDeleted() ) );
 
-            // -----------------------------------------------------------------
-            // Save, update or delete data value
-            // -----------------------------------------------------------------
+            pendingValues.add( new PendingDataValue( internalValue, actualDataValue ) );
+
+            if ( pendingValues.size() >= IMPORT_CHUNK_SIZE )
+            {
+                saveDataValues( pendingValues, strategy, dryRun, skipExistingCheck, skipAudit, dataValueBatchHandler, auditBatchHandler, importCount );
+                pendingValues.clear();
+            }
+        }
+
+        saveDataValues( pendingValues, strategy, dryRun, skipExistingCheck, skipAudit, dataValueBatchHandler, auditBatchHandler, importCount );
+
+        dataValueBatchHandler.flush();
+        auditBatchHandler.flush();
+
+        importCount.setIgnored( totalCount - importCount.getImported() - importCount.getUpdated() - importCount.getDeleted() );
+
+        summary.setImportCount( importCount );
+        summary.setStatus( summary.getConflicts().isEmpty() ? ImportStatus.SUCCESS : ImportStatus.WARNING );
+        summary.setDescription( "Import process completed successfully" );
+
+        clock.logTime( "Data value import done, total: " + totalCount + ", import: " + importCount.getImported() +
+            ", update: " + importCount.getUpdated() + ", delete: " + importCount.getDeleted() );
+        notifier.notify( id, notificationLevel, "Import done", true ).addJobSummary( id, notificationLevel, summary, ImportSummary.class );
+
+        dataValueSet.close();
+
+        return summary;
+    }
+
+    // -------------------------------------------------------------------------
+    // Supportive methods
+    // -------------------------------------------------------------------------
+
+    private void deleteQuietly( Path file )
+    {
+        if ( file == null )
+        {
+            return;
+        }
+
+        try
+        {
+            Files.deleteIfExists( file );
+        }
+        catch ( IOException ex )
+        {
+            log.warn( "Failed to delete temporary data value set file: " + file, ex );
+        }
+    }
 
-            DataValue existingValue = !skipExistingCheck ? dataValueBatchHandler.findObject( internalValue ) : null;
+    /**
+     * Saves, updates or deletes the given chunk of validated data values. The
+     * existing data values for the chunk are resolved with a single query
+     * rather than a query per data value. Existing values are updated in
+     * place as the chunk is processed so that duplicate values within the
+     * chunk are handled as if they were looked up individually.
+     */
+    private void saveDataValues( List<PendingDataValue> pendingValues, ImportStrategy strategy, boolean dryRun,
+        boolean skipExistingCheck, boolean skipAudit, BatchHandler<DataValue> dataValueBatchHandler,
+        BatchHandler<DataValueAudit> auditBatchHandler, ImportCount importCount )
+    {
+        if ( pendingValues.isEmpty() )
+        {
+            return;
+        }
+
+        Map<DataValue, DataValue> existingValues = new HashMap<>();
+
+        if ( !skipExistingCheck )
+        {
+            List<DataValue> internalValues = pendingValues.stream()
+                .map( PendingDataValue::getInternalValue )
+                .collect( Collectors.toList() );
+
+            dataValueService.getPersistedDataValues( internalValues ).forEach( dv -> existingValues.put( dv, dv ) );
+        }
+
+        for ( PendingDataValue pendingValue : pendingValues )
+        {
+            DataValue internalValue = pendingValue.getInternalValue();
+            DataValue actualDataValue = pendingValue.getActualDataValue();
+            DataElement dataElement = internalValue.getDataElement();
+            String storedBy = internalValue.getStoredBy();
+
+            DataValue existingValue = existingValues.get( internalValue );
 
             // -----------------------------------------------------------------
             // Check soft deleted data values on update and import
@@ -1208,16 +1337,17 @@ public class DefaultDataValueSetService
 
                         auditType = AuditType.DELETE;
 
-                        deleteCount++;
+                        importCount.incrementDeleted();
                     }
                     else
                     {
-                        updateCount++;
+                        importCount.incrementUpdated();
                     }
 
                     if ( !dryRun )
                     {
                         dataValueBatchHandler.updateObject( internalValue );
+                        existingValues.put( internalValue, internalValue );
 
                         if ( !skipAudit )
                         {
@@ -1241,7 +1371,7 @@ public class DefaultDataValueSetService
                 {
                     internalValue.setDeleted( true );
 
-                    deleteCount++;
+                    importCount.incrementDeleted();
 
                     if ( !dryRun )
                     {
@@ -1255,6 +1385,7 @@ public class DefaultDataValueSetService
                         }
 
                         dataValueBatchHandler.updateObject( internalValue );
+                        existingValues.put( internalValue, internalValue );
 
                         if ( !skipAudit )
                         {
@@ -1273,11 +1404,12 @@ public class DefaultDataValueSetService
                     {
                         if ( existingValue != null && existingValue.isDeleted() )
                         {
-                            importCount++;
+                            importCount.incrementImported();
 
                             if ( !dryRun )
                             {
                                 dataValueBatchHandler.updateObject( internalValue );
+                                existingValues.put( internalValue, internalValue );
 
                                 if ( dataElement.isFileType() )
                                 {
@@ -1309,35 +1441,15 @@ public class DefaultDataValueSetService
 
                             if ( dryRun || added )
                             {
-                                importCount++;
+                                importCount.incrementImported();
                             }
                         }
                     }
                 }
             }
         }
-
-        dataValueBatchHandler.flush();
-        auditBatchHandler.flush();
-
-        int ignores = totalCount - importCount - updateCount - deleteCount;
-
-        summary.setImportCount( new ImportCount( importCount, updateCount, ignores, deleteCount ) );
-        summary.setStatus( summary.getConflicts().isEmpty() ? ImportStatus.SUCCESS : ImportStatus.WARNING );
-        summary.setDescription( "Import process completed successfully" );
-
-        clock.logTime( "Data value import done, total: " + totalCount + ", import: " + importCount + ", update: " + updateCount + ", delete: " + deleteCount );
-        notifier.notify( id, notificationLevel, "Import done", true ).addJobSummary( id, notificationLevel, summary, ImportSummary.class );
-
-        dataValueSet.close();
-
-        return summary;
     }
 
-    // -------------------------------------------------------------------------
-    // Supportive methods
-    // -------------------------------------------------------------------------
-
     private void handleComplete( DataSet dataSet, Date completeDate, Period period, OrganisationUnit orgUnit,
         CategoryOptionCombo attributeOptionCombo, String currentUserName, ImportSummary summary )
     {
@@ -1392,4 +1504,33 @@ public class DefaultDataValueSetService
     {
         return dataSet.isLocked( user, period, null ) && (skipLockExceptionCheck || lockExceptionStore.getCount( dataSet, period, organisationUnit ) == 0L);
     }
+
+    /**
+     * Data value which passed validation and is pending to be saved.
+     */
+    private static class PendingDataValue
+    {
+        private final DataValue internalValue;
+
+        /**
+         * Persisted data value, only resolved for deletion of file type values.
+         */
+        private final DataValue actualDataValue;
+
+        PendingDataValue( DataValue internalValue, DataValue actualDataValue )
+        {
+            this.internalValue = internalValue;
+            this.actualDataValue = actualDataValue;
+        }
+
+        DataValue getInternalValue()
+        {
+            return internalValue;
+        }
+
+        DataValue getActualDataValue()
+        {
+            return actualDataValue;
+        }
+    }
 }
@@ -127,6 +127,35 @@ public class SpringDataValueSetStore
         writeDataValueSet( sql, new DataExportParams(), null, dataValueSet );
     }
 
+    @Override
+    public DataValueSyncPage writeDataValueSetJson( Date lastUpdated, DataValueSyncKey after,
+        OutputStream outputStream, IdSchemes idSchemes, int pageSize )
+    {
+        final DataValueSet dataValueSet = new StreamingJsonDataValueSet( outputStream );
+        final Calendar calendar = PeriodType.getCalendar();
+
+        final String sql = buildDataValueSql( lastUpdated, idSchemes ) +
+            ( after != null ? "and " + after.getSqlCondition( "dv" ) : "" ) +
+            "order by dv.lastupdated, dv.dataelementid, dv.periodid, dv.sourceid, " +
+            "dv.categoryoptioncomboid, dv.attributeoptioncomboid limit " + pageSize;
+
+        final int[] values = { 0 };
+        final DataValueSyncKey[] lastKey = { null };
+
+        jdbcTemplate.query( sql, ( ResultSet rs ) -> {
+            writeDataValue( rs, dataValueSet, calendar );
+
+            values[0]++;
+            lastKey[0] = new DataValueSyncKey( rs.getTimestamp( "lastupdated" ), rs.getLong( "dataelementid" ),
+                rs.getLong( "periodid" ), rs.getLong( "sourceid" ), rs.getLong( "categoryoptioncomboid" ),
+                rs.getLong( "attributeoptioncomboid" ) );
+        } );
+
+        dataValueSet.close();
+
+        return new DataValueSyncPage( lastKey[0], values[0] );
+    }
+
     private String buildDataValueSql( Date lastUpdated, IdSchemes idSchemes )
     {
         String deScheme = idSchemes.getDataElementIdScheme().getIdentifiableString().toLowerCase();
@@ -136,7 +165,8 @@ public class SpringDataValueSetStore
         final String sql =
             "select de." + deScheme + " as deid, pe.startdate as pestart, pt.name as ptname, ou." + ouScheme + " as ouid, " +
                 "coc." + ocScheme + " as cocid, aoc." + ocScheme + " as aocid, " +
-                "dv.value, dv.storedby, dv.created, dv.lastupdated, dv.comment, dv.followup, dv.deleted " +
+                "dv.value, dv.storedby, dv.created, dv.lastupdated, dv.comment, dv.followup, dv.deleted, " +
+                "dv.dataelementid, dv.periodid, dv.sourceid, dv.categoryoptioncomboid, dv.attributeoptioncomboid " +
                 "from datavalue dv " +
                 "join dataelement de on (dv.dataelementid=de.dataelementid) " +
                 "join period pe on (dv.periodid=pe.periodid) " +
@@ -170,34 +200,39 @@ public class SpringDataValueSetStore
             @Override
             public void processRow( ResultSet rs ) throws SQLException
             {
-                DataValue dataValue = dataValueSet.getDataValueInstance();
-                PeriodType pt = PeriodType.getPeriodTypeByName( rs.getString( "ptname" ) );
-                boolean deleted = rs.getBoolean( "deleted" );
-
-                dataValue.setDataElement( rs.getString( "deid" ) );
-                dataValue.setPeriod( pt.createPeriod( rs.getDate( "pestart" ), calendar ).getIsoDate() );
-                dataValue.setOrgUnit( rs.getString( "ouid" ) );
-                dataValue.setCategoryOptionCombo( rs.getString( "cocid" ) );
-                dataValue.setAttributeOptionCombo( rs.getString( "aocid" ) );
-                dataValue.setValue( rs.getString( "value" ) );
-                dataValue.setStoredBy( rs.getString( "storedby" ) );
-                dataValue.setCreated( getLongGmtDateString( rs.getTimestamp( "created" ) ) );
-                dataValue.setLastUpdated( getLongGmtDateString( rs.getTimestamp( "lastupdated" ) ) );
-                dataValue.setComment( rs.getString( "comment" ) );
-                dataValue.setFollowup( rs.getBoolean( "followup" ) );
-
-                if ( deleted )
-                {
-                    dataValue.setDeleted( deleted );
-                }
-
-                dataValue.close();
+                writeDataValue( rs, dataValueSet, calendar );
             }
         } );
 
         dataValueSet.close();
     }
 
+    private void writeDataValue( ResultSet rs, DataValueSet dataValueSet, Calendar calendar ) throws SQLException
+    {
+        DataValue dataValue = dataValueSet.getDataValueInstance();
+        PeriodType pt = PeriodType.getPeriodTypeByName( rs.getString( "ptname" ) );
+        boolean deleted = rs.getBoolean( "deleted" );
+
+        dataValue.setDataElement( rs.getString( "deid" ) );
+        dataValue.setPeriod( pt.createPeriod( rs.getDate( "pestart" ), calendar ).getIsoDate() );
+        dataValue.setOrgUnit( rs.getString( "ouid" ) );
+        dataValue.setCategoryOptionCombo( rs.getString( "cocid" ) );
+        dataValue.setAttributeOptionCombo( rs.getString( "aocid" ) );
+        dataValue.setValue( rs.getString( "value" ) );
+        dataValue.setStoredBy( rs.getString( "storedby" ) );
+        dataValue.setCreated( getLongGmtDateString( rs.getTimestamp( "created" ) ) );
+        dataValue.setLastUpdated( getLongGmtDateString( rs.getTimestamp( "lastupdated" ) ) );
+        dataValue.setComment( rs.getString( "comment" ) );
+        dataValue.setFollowup( rs.getBoolean( "followup" ) );
+
+        if ( deleted )
+        {
+            dataValue.setDeleted( deleted );
+        }
+
+        dataValue.close();
+    }
+
     //--------------------------------------------------------------------------
     // Supportive methods
     //--------------------------------------------------------------------------
@@ -29,23 +29,79 @@ package org.hisp.dhis.dxf2.datavalueset;
  */
 
 import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.google.common.collect.ImmutableSet;
 import org.apache.commons.io.IOUtils;
 import org.hisp.dhis.dxf2.datavalue.DataValue;
 import org.hisp.dhis.dxf2.datavalue.StreamingJsonDataValue;
 import org.hisp.dhis.render.DefaultRenderService;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
 
 /**
+ * Streaming JSON data value set. When created with an output stream, values
+ * are written through a {@link JsonGenerator}. When created with an input
+ * stream, the data value set properties are read up front and data values
+ * are read one at a time from the "dataValues" array through a
+ * {@link JsonParser}, which means that data value set properties must appear
+ * before the "dataValues" array in the document. Documents should be checked
+ * with {@link #getPropertiesAfterDataValues(InputStream)} before import, as
+ * properties which appear after the array cannot be applied to the data
+ * values already read.
+ *
  * @author Morten Olav Hansen <mortenoh@gmail.com>
  */
 public class StreamingJsonDataValueSet extends DataValueSet
 {
+    private static final String FIELD_DATAVALUES = "dataValues";
+    private static final String FIELD_STRATEGY = "strategy";
+    private static final String FIELD_ATTRIBUTE_CATEGORY_OPTIONS = "attributeCategoryOptions";
+
+    private static final Set<String> PROPERTIES = ImmutableSet.of( FIELD_DATAVALUES, FIELD_STRATEGY,
+        FIELD_ATTRIBUTE_CATEGORY_OPTIONS, FIELD_IDSCHEME, FIELD_DATAELEMENTIDSCHEME, FIELD_ORGUNITIDSCHEME,
+        FIELD_CATEGORYOPTCOMBOIDSCHEME, FIELD_DATASETIDSCHEME, FIELD_DRYRUN, FIELD_IMPORTSTRATEGY, FIELD_DATASET,
+        FIELD_COMPLETEDATE, FIELD_PERIOD, FIELD_ORGUNIT, FIELD_ATTRIBUTE_OPTION_COMBO );
+
     private JsonGenerator generator;
 
+    private JsonParser parser;
+
     private boolean startedArray;
 
+    /**
+     * Indicates whether the parser is positioned inside the "dataValues" array.
+     */
+    private boolean inArray;
+
+    //--------------------------------------------------------------------------
+    // Constructors
+    //--------------------------------------------------------------------------
+
+    public StreamingJsonDataValueSet( InputStream in )
+    {
+        try
+        {
+            parser = DefaultRenderService.getJsonMapper().getFactory().createParser( in );
+
+            if ( parser.nextToken() != JsonToken.START_OBJECT )
+            {
+                throw new IllegalArgumentException( "Data value set JSON must start with an object" );
+            }
+
+            readProperties();
+        }
+        catch ( IOException ex )
+        {
+            throw new RuntimeException( "Failed to read JSON data value set", ex );
+        }
+    }
+
     public StreamingJsonDataValueSet( OutputStream out )
     {
         try
@@ -58,6 +114,51 @@ public class StreamingJsonDataValueSet extends DataValueSet
         }
     }
 
+    /**
+     * Scans the given JSON data value set document without reading the data
+     * values, and returns the names of known data value set properties which
+     * appear after the "dataValues" array. Such properties cannot be applied
+     * by the streaming reader and the document must be rejected before any
+     * data value is imported.
+     *
+     * @param in the JSON document, which is consumed but not closed.
+     * @return the names of the properties in document order, or an empty list.
+     */
+    public static List<String> getPropertiesAfterDataValues( InputStream in )
+        throws IOException
+    {
+        List<String> properties = new ArrayList<>();
+
+        JsonParser parser = DefaultRenderService.getJsonMapper().getFactory().createParser( in );
+
+        if ( parser.nextToken() != JsonToken.START_OBJECT )
+        {
+            return properties;
+        }
+
+        boolean afterDataValues = false;
+
+        while ( parser.nextToken() == JsonToken.FIELD_NAME )
+        {
+            String fieldName = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+
+            parser.skipChildren();
+
+            if ( afterDataValues && PROPERTIES.contains( fieldName ) )
+            {
+                properties.add( fieldName );
+            }
+
+            if ( FIELD_DATAVALUES.equals( fieldName ) && token == JsonToken.START_ARRAY )
+            {
+                afterDataValues = true;
+            }
+        }
+
+        return properties;
+    }
+
     @Override
     public void setDataElementIdScheme( String dataElementIdScheme )
     {
@@ -112,6 +213,46 @@ public class StreamingJsonDataValueSet extends DataValueSet
         writeObjectField( FIELD_ATTRIBUTE_OPTION_COMBO, attributeOptionCombo );
     }
 
+    @Override
+    public boolean hasNextDataValue()
+    {
+        if ( !inArray )
+        {
+            return false;
+        }
+
+        try
+        {
+            JsonToken token = parser.nextToken();
+
+            if ( token == JsonToken.START_OBJECT )
+            {
+                return true;
+            }
+
+            inArray = false;
+
+            return false;
+        }
+        catch ( IOException ex )
+        {
+            throw new RuntimeException( "Failed to read JSON data value", ex );
+        }
+    }
+
+    @Override
+    public DataValue getNextDataValue()
+    {
+        try
+        {
+            return parser.readValueAs( DataValue.class );
+        }
+        catch ( IOException ex )
+        {
+            throw new RuntimeException( "Failed to read JSON data value", ex );
+        }
+    }
+
     @Override
     public DataValue getDataValueInstance()
     {
@@ -133,6 +274,11 @@ public class StreamingJsonDataValueSet extends DataValueSet
     @Override
     public void close()
     {
+        if ( parser != null )
+        {
+            IOUtils.closeQuietly( parser );
+        }
+
         if ( generator == null )
         {
             return;
@@ -171,4 +317,88 @@ public class StreamingJsonDataValueSet extends DataValueSet
         {
         }
     }
+
+    /**
+     * Reads data value set properties until the start of the "dataValues"
+     * array or the end of the data value set object is reached. Values of
+     * unknown properties are skipped.
+     */
+    private void readProperties()
+        throws IOException
+    {
+        while ( parser.nextToken() == JsonToken.FIELD_NAME )
+        {
+            String fieldName = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+
+            if ( FIELD_DATAVALUES.equals( fieldName ) && token == JsonToken.START_ARRAY )
+            {
+                inArray = true;
+                return;
+            }
+
+            switch ( fieldName )
+            {
+                case FIELD_IDSCHEME:
+                    idScheme = parser.getValueAsString();
+                    break;
+                case FIELD_DATAELEMENTIDSCHEME:
+                    dataElementIdScheme = parser.getValueAsString();
+                    break;
+                case FIELD_ORGUNITIDSCHEME:
+                    orgUnitIdScheme = parser.getValueAsString();
+                    break;
+                case FIELD_CATEGORYOPTCOMBOIDSCHEME:
+                    categoryOptionComboIdScheme = parser.getValueAsString();
+                    break;
+                case FIELD_DATASETIDSCHEME:
+                    dataSetIdScheme = parser.getValueAsString();
+                    break;
+                case FIELD_DRYRUN:
+                    dryRun = token == JsonToken.VALUE_NULL ? null : parser.getValueAsBoolean();
+                    break;
+                case FIELD_STRATEGY:
+                case FIELD_IMPORTSTRATEGY:
+                    strategy = parser.getValueAsString();
+                    break;
+                case FIELD_DATASET:
+                    dataSet = parser.getValueAsString();
+                    break;
+                case FIELD_COMPLETEDATE:
+                    completeDate = parser.getValueAsString();
+                    break;
+                case FIELD_PERIOD:
+                    period = parser.getValueAsString();
+                    break;
+                case FIELD_ORGUNIT:
+                    orgUnit = parser.getValueAsString();
+                    break;
+                case FIELD_ATTRIBUTE_OPTION_COMBO:
+                    attributeOptionCombo = parser.getValueAsString();
+                    break;
+                case FIELD_ATTRIBUTE_CATEGORY_OPTIONS:
+                    readAttributeCategoryOptions( token );
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+    }
+
+    private void readAttributeCategoryOptions( JsonToken token )
+        throws IOException
+    {
+        if ( token != JsonToken.START_ARRAY )
+        {
+            parser.skipChildren();
+            return;
+        }
+
+        attributeCategoryOptions = new ArrayList<>();
+
+        while ( parser.nextToken() != JsonToken.END_ARRAY )
+        {
+            attributeCategoryOptions.add( parser.getValueAsString() );
+        }
+    }
 }
@@ -59,6 +59,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import org.apache.commons.logging.Log;
@@ -150,6 +151,7 @@ import org.hisp.dhis.user.CurrentUserService;
 import org.hisp.dhis.user.User;
 import org.hisp.dhis.user.UserCredentials;
 import org.hisp.dhis.user.UserService;
+import org.hisp.dhis.util.ObjectUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.transaction.annotation.Transactional;
@@ -615,6 +617,21 @@ public abstract class AbstractEventService
 
         Events events = new Events();
 
+        if ( params.isKeysetPaging() )
+        {
+            if ( !params.isPaging() )
+            {
+                params.setDefaultPaging();
+            }
+
+            List<Event> eventList = eventStore.getEvents( params, organisationUnits, Collections.emptyMap() );
+
+            events.getEvents().addAll( getOwnershipAccessibleEvents( eventList ) );
+            events.setNextPageToken( params.getNextPageToken() );
+
+            return events;
+        }
+
         if ( params.isPaging() )
         {
             int count = 0;
@@ -630,17 +647,31 @@ public abstract class AbstractEventService
 
         List<Event> eventList = eventStore.getEvents( params, organisationUnits, Collections.emptyMap() );
 
-        User user = currentUserService.getCurrentUser();
+        events.getEvents().addAll( getOwnershipAccessibleEvents( eventList ) );
+
+        return events;
+    }
+
+    @Override
+    public void streamEvents( EventSearchParams params, Consumer<Event> consumer )
+    {
+        validate( params );
+
+        List<OrganisationUnit> organisationUnits = getOrganisationUnits( params );
+
+        params.setSkipPaging( false );
+        params.setPage( null );
+        params.setPageSize( params.getPageSizeWithDefault() );
+        params.setPageToken( ObjectUtils.firstNonNull( params.getPageToken(), 0L ) );
 
-        for ( Event event : eventList )
+        while ( params.getPageToken() != null )
         {
-            if ( trackerOwnershipAccessManager.hasAccess( user, event.getTrackedEntityInstance(), event.getProgram() ) )
-            {
-                events.getEvents().add( event );
-            }
-        }
+            List<Event> eventList = eventStore.getEvents( params, organisationUnits, Collections.emptyMap() );
 
-        return events;
+            getOwnershipAccessibleEvents( eventList ).forEach( consumer );
+
+            params.setPageToken( params.getNextPageToken() );
+        }
     }
 
     @Override
@@ -1562,6 +1593,15 @@ public abstract class AbstractEventService
         }
     }
 
+    private List<Event> getOwnershipAccessibleEvents( List<Event> eventList )
+    {
+        User user = currentUserService.getCurrentUser();
+
+        return eventList.stream()
+            .filter( event -> trackerOwnershipAccessManager.hasAccess( user, event.getTrackedEntityInstance(), event.getProgram() ) )
+            .collect( Collectors.toList() );
+    }
+
     private List<OrganisationUnit> getOrganisationUnits( EventSearchParams params )
     {
         List<OrganisationUnit> organisationUnits = new ArrayList<>();
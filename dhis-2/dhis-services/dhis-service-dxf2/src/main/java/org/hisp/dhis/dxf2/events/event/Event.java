@@ -50,6 +50,8 @@ import java.util.Set;
 public class Event
     extends BaseLinkableObject
 {
+    private long id;
+
     private String uid;
 
     private String event;
@@ -126,6 +128,16 @@ public class Event
         this.setNotes( null );
     }
 
+    public long getId()
+    {
+        return id;
+    }
+
+    public void setId( long id )
+    {
+        this.id = id;
+    }
+
     public String getUid()
     {
         return uid;
@@ -152,6 +152,19 @@ public class EventSearchParams
      */
     private Date skipChangedBefore;
 
+    /**
+     * Internal identifier of the last event of the previous page. When set,
+     * events are paged by keyset on the internal identifier instead of by
+     * offset, and the page property is ignored. Zero requests the first page.
+     */
+    private Long pageToken;
+
+    /**
+     * Page token for the page following the one returned by the last keyset
+     * query, or null if there are no more events. Set by the event store.
+     */
+    private Long nextPageToken;
+
     // -------------------------------------------------------------------------
     // Constructors
     // -------------------------------------------------------------------------
@@ -179,6 +192,14 @@ public class EventSearchParams
         return pageSize != null && pageSize >= 0 ? pageSize : DEFAULT_PAGE_SIZE;
     }
 
+    /**
+     * Indicates whether events should be paged by keyset rather than by offset.
+     */
+    public boolean isKeysetPaging()
+    {
+        return pageToken != null;
+    }
+
     public int getOffset()
     {
         return (getPageWithDefault() - 1) * getPageSizeWithDefault();
@@ -576,4 +597,24 @@ public class EventSearchParams
     {
         this.skipChangedBefore = skipChangedBefore;
     }
+
+    public Long getPageToken()
+    {
+        return pageToken;
+    }
+
+    public void setPageToken( Long pageToken )
+    {
+        this.pageToken = pageToken;
+    }
+
+    public Long getNextPageToken()
+    {
+        return nextPageToken;
+    }
+
+    public void setNextPageToken( Long nextPageToken )
+    {
+        this.nextPageToken = nextPageToken;
+    }
 }
@@ -34,6 +34,7 @@ import java.util.Date;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Consumer;
 
 import org.hisp.dhis.category.CategoryOptionCombo;
 import org.hisp.dhis.common.Grid;
@@ -60,6 +61,18 @@ public interface EventService
 
     Events getEvents( EventSearchParams params );
 
+    /**
+     * Passes all events matching the given parameters to the given consumer,
+     * walking the events in pages of the page size of the parameters using
+     * keyset paging on the internal event identifier. Only a single page of
+     * events is held in memory at any time. If a page token is set on the
+     * parameters, events following that token are processed.
+     *
+     * @param params the event search parameters.
+     * @param consumer the consumer of events.
+     */
+    void streamEvents( EventSearchParams params, Consumer<Event> consumer );
+
     EventRows getEventRows( EventSearchParams params );
 
     EventSearchParams getFromUrl( String program, String programStage, ProgramStatus programStatus, Boolean followUp,
@@ -56,6 +56,8 @@ public class Events
     private Map<Object, Object> metaData;
 
     private Pager pager;
+
+    private Long nextPageToken;
     
     public Events()
     {
@@ -124,6 +126,19 @@ public class Events
         this.pager = pager;
     }
 
+    @JsonProperty
+    @JacksonXmlProperty( namespace = DxfNamespaces.DXF_2_0 )
+    public Long getNextPageToken()
+    {
+        return nextPageToken;
+    }
+
+    @JsonIgnore
+    public void setNextPageToken( Long nextPageToken )
+    {
+        this.nextPageToken = nextPageToken;
+    }
+
     @Override
     public String toString()
     {
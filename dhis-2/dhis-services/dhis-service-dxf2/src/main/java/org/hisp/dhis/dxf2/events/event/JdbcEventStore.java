@@ -146,6 +146,11 @@ public class JdbcEventStore
 
         List<Event> events = new ArrayList<>();
 
+        if ( params.isKeysetPaging() && !setKeysetPageBounds( params, organisationUnits, user ) )
+        {
+            return events;
+        }
+
         String sql = buildSql( params, organisationUnits, user );
 
         SqlRowSet rowSet = jdbcTemplate.queryForRowSet( sql );
@@ -171,6 +176,7 @@ public class JdbcEventStore
             {
                 event = new Event();
 
+                event.setId( rowSet.getLong( "psi_id" ) );
                 event.setUid( rowSet.getString( "psi_uid" ) );
 
                 event.setEvent( IdSchemes.getValue( rowSet.getString( "psi_uid" ), rowSet.getString( "psi_code" ),
@@ -562,7 +568,10 @@ public class JdbcEventStore
 
         sql += getOrderQuery( params );
 
-        sql += getEventPagingQuery( params );
+        if ( !params.isKeysetPaging() )
+        {
+            sql += getEventPagingQuery( params );
+        }
 
         sql += ") as event left join (";
 
@@ -582,6 +591,41 @@ public class JdbcEventStore
         return sql;
     }
 
+    /**
+     * Finds the range of internal event identifiers covered by the next keyset
+     * page and sets the page token for the following page on the given params.
+     * The page is limited by distinct events rather than rows, so that events
+     * spanning several rows are never split across pages. The events of the
+     * page are subsequently fetched by identifier range without an offset,
+     * making deep pages as cheap as the first one.
+     *
+     * @return true if the page contains any events, false if not.
+     */
+    private boolean setKeysetPageBounds( EventSearchParams params, List<OrganisationUnit> organisationUnits, User user )
+    {
+        params.setNextPageToken( null );
+
+        int pageSize = params.getPageSizeWithDefault();
+
+        String sql = "select distinct psi_id from (" + getEventSelectQuery( params, organisationUnits, user ) + ") as ev "
+            + "order by psi_id asc limit " + pageSize;
+
+        log.debug( "Event keyset page SQL: " + sql );
+
+        List<Long> eventIds = jdbcTemplate.queryForList( sql, Long.class );
+
+        if ( eventIds.isEmpty() )
+        {
+            return false;
+        }
+
+        Long lastEventId = eventIds.get( eventIds.size() - 1 );
+
+        params.setNextPageToken( eventIds.size() == pageSize ? lastEventId : null );
+
+        return true;
+    }
+
     private String getEventSelectQuery( EventSearchParams params, List<OrganisationUnit> organisationUnits, User user )
     {
         List<Long> orgUnitIds = getIdentifiers( organisationUnits );
@@ -811,6 +855,16 @@ public class JdbcEventStore
             sql += hlp.whereAnd() + " psi.lastupdated > psi.lastsynchronized ";
         }
 
+        if ( params.isKeysetPaging() )
+        {
+            sql += hlp.whereAnd() + " psi.programstageinstanceid > " + params.getPageToken() + " ";
+
+            if ( params.getNextPageToken() != null )
+            {
+                sql += hlp.whereAnd() + " psi.programstageinstanceid <= " + params.getNextPageToken() + " ";
+            }
+        }
+
         return sql;
     }
 
@@ -1082,6 +1136,11 @@ public class JdbcEventStore
 
     private String getOrderQuery( EventSearchParams params )
     {
+        if ( params.isKeysetPaging() )
+        {
+            return "order by psi_id asc ";
+        }
+
         ArrayList<String> orderFields = new ArrayList<String>();
 
         if ( params.getGridOrders() != null )
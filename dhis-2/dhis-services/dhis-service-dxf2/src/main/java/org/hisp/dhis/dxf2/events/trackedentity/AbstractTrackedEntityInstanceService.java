@@ -85,6 +85,7 @@ import org.hisp.dhis.textpattern.TextPatternValidationUtils;
 import org.hisp.dhis.trackedentity.TrackedEntityAttribute;
 import org.hisp.dhis.trackedentity.TrackedEntityAttributeService;
 import org.hisp.dhis.trackedentity.TrackedEntityInstanceQueryParams;
+import org.hisp.dhis.trackedentity.TrackedEntityInstanceStore;
 import org.hisp.dhis.trackedentity.TrackedEntityProgramOwner;
 import org.hisp.dhis.trackedentity.TrackedEntityType;
 import org.hisp.dhis.trackedentity.TrackerOwnershipManager;
@@ -165,6 +166,9 @@ public abstract class AbstractTrackedEntityInstanceService
     @Autowired
     protected Notifier notifier;
 
+    @Autowired
+    protected TrackedEntityInstanceStore trackedEntityInstanceStore;
+
     private final CachingMap<String, OrganisationUnit> organisationUnitCache = new CachingMap<>();
 
     private final CachingMap<String, Program> programCache = new CachingMap<>();
@@ -185,6 +189,11 @@ public abstract class AbstractTrackedEntityInstanceService
         List<org.hisp.dhis.trackedentity.TrackedEntityInstance> daoTEIs = teiService
             .getTrackedEntityInstances( queryParams, skipAccessValidation );
 
+        // Program owners are always loaded as they are used for ownership checks
+
+        trackedEntityInstanceStore.loadAssociations( daoTEIs, true, params.isIncludeEnrollments(),
+            params.isIncludeEvents(), params.isIncludeRelationships() );
+
         List<TrackedEntityInstance> dtoTeis = new ArrayList<>();
         User user = currentUserService.getCurrentUser();
 
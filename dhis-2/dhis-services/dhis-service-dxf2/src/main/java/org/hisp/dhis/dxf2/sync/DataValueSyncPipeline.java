@@ -0,0 +1,387 @@
+package org.hisp.dhis.dxf2.sync;
+
+/*
+ * Copyright (c) 2004-2018, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.hisp.dhis.common.IdSchemes;
+import org.hisp.dhis.dxf2.common.ImportSummaryResponseExtractor;
+import org.hisp.dhis.dxf2.datavalueset.DataValueSetService;
+import org.hisp.dhis.dxf2.datavalueset.DataValueSyncKey;
+import org.hisp.dhis.dxf2.datavalueset.DataValueSyncPage;
+import org.hisp.dhis.dxf2.importsummary.ImportSummary;
+import org.hisp.dhis.dxf2.synch.SystemInstance;
+import org.hisp.dhis.dxf2.webmessage.WebMessageParseException;
+import org.hisp.dhis.dxf2.webmessage.utils.WebMessageParseUtils;
+import org.hisp.dhis.system.util.CodecUtils;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.RequestCallback;
+import org.springframework.web.client.RestTemplate;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Pushes data values changed after a point in time to a remote instance.
+ * Data values are walked by keyset, each page is compressed with GZIP and up
+ * to a configurable number of pages are in flight at once while the next page
+ * is being read. The key of the last page for which the remote instance and
+ * all preceding pages were acknowledged is handed to a checkpoint consumer,
+ * so that a failed synchronization can be resumed from that key.
+ * <p>
+ * Instances are meant for a single run.
+ */
+public class DataValueSyncPipeline
+{
+    private static final Log log = LogFactory.getLog( DataValueSyncPipeline.class );
+
+    private final DataValueSetService dataValueSetService;
+
+    private final RestTemplate restTemplate;
+
+    private final SystemInstance instance;
+
+    private final Date lastUpdatedAfter;
+
+    private final int pageSize;
+
+    private final int pagesInFlight;
+
+    private final int maxSyncAttempts;
+
+    private final AtomicBoolean failed = new AtomicBoolean();
+
+    private final AtomicLong values = new AtomicLong();
+
+    private final AtomicLong pages = new AtomicLong();
+
+    private final AtomicLong bytes = new AtomicLong();
+
+    /**
+     * Acknowledged pages which cannot be checkpointed yet as a preceding page
+     * is still in flight, mapped by page number.
+     */
+    private final Map<Integer, DataValueSyncKey> acknowledged = new HashMap<>();
+
+    private int nextPageToCheckpoint = 0;
+
+    private DataValueSyncKey checkpoint;
+
+    private Consumer<DataValueSyncKey> checkpointConsumer;
+
+    private long time = 0;
+
+    public DataValueSyncPipeline( DataValueSetService dataValueSetService, RestTemplate restTemplate,
+        SystemInstance instance, Date lastUpdatedAfter, int pageSize, int pagesInFlight, int maxSyncAttempts )
+    {
+        this.dataValueSetService = dataValueSetService;
+        this.restTemplate = restTemplate;
+        this.instance = instance;
+        this.lastUpdatedAfter = lastUpdatedAfter;
+        this.pageSize = pageSize;
+        this.pagesInFlight = Math.max( 1, pagesInFlight );
+        this.maxSyncAttempts = maxSyncAttempts;
+    }
+
+    // -------------------------------------------------------------------------
+    // Run
+    // -------------------------------------------------------------------------
+
+    /**
+     * Synchronizes the data values positioned after the given key.
+     *
+     * @param after the key to resume after, null to start from the beginning.
+     * @param checkpointConsumer consumer of the key up to which all data values
+     *        were acknowledged by the remote instance, invoked as pages complete.
+     * @return true if all pages were acknowledged, false otherwise.
+     */
+    public boolean run( DataValueSyncKey after, Consumer<DataValueSyncKey> checkpointConsumer )
+    {
+        this.checkpoint = after;
+        this.checkpointConsumer = checkpointConsumer;
+
+        final long startTime = System.currentTimeMillis();
+
+        final ExecutorService executor = Executors.newFixedThreadPool( pagesInFlight, new ThreadFactoryBuilder()
+            .setNameFormat( "data-value-sync-%d" )
+            .setDaemon( true )
+            .build() );
+
+        final Semaphore slots = new Semaphore( pagesInFlight );
+
+        try
+        {
+            DataValueSyncKey position = after;
+            int pageNumber = 0;
+
+            while ( !failed.get() )
+            {
+                slots.acquire();
+
+                final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+                final DataValueSyncPage page;
+
+                try ( GZIPOutputStream out = new GZIPOutputStream( buffer ) )
+                {
+                    page = dataValueSetService.writeDataValueSetJson( lastUpdatedAfter, position, out,
+                        new IdSchemes(), pageSize );
+                }
+                catch ( IOException ex )
+                {
+                    throw new UncheckedIOException( ex );
+                }
+
+                final byte[] body = buffer.toByteArray();
+
+                if ( page.isEmpty() )
+                {
+                    slots.release();
+                    break;
+                }
+
+                final int currentPageNumber = pageNumber++;
+
+                executor.execute( () -> {
+                    try
+                    {
+                        sendPage( currentPageNumber, page, body );
+                    }
+                    finally
+                    {
+                        slots.release();
+                    }
+                } );
+
+                position = page.getLastKey();
+
+                if ( page.getValues() < pageSize )
+                {
+                    break;
+                }
+            }
+
+            // Wait for all pages in flight to complete
+
+            slots.acquire( pagesInFlight );
+        }
+        catch ( InterruptedException ex )
+        {
+            Thread.currentThread().interrupt();
+            failed.set( true );
+        }
+        finally
+        {
+            executor.shutdownNow();
+            time = System.currentTimeMillis() - startTime;
+        }
+
+        log.info( String.format( "Synchronized %d data values in %d pages and %d compressed bytes in %d ms, %d values per second",
+            getValues(), getPages(), getBytes(), time, getValuesPerSecond() ) );
+
+        return !failed.get();
+    }
+
+    // -------------------------------------------------------------------------
+    // Supportive methods
+    // -------------------------------------------------------------------------
+
+    private void sendPage( int pageNumber, DataValueSyncPage page, byte[] body )
+    {
+        boolean success;
+
+        try
+        {
+            log.debug( String.format( "Synchronizing page %d with %d data values and %d compressed bytes",
+                pageNumber, page.getValues(), body.length ) );
+
+            success = sendSyncRequest( body );
+        }
+        catch ( RuntimeException ex )
+        {
+            log.error( "Exception during DataValues data push of page " + pageNumber + ": " + ex.getMessage(), ex );
+            success = false;
+        }
+
+        if ( success )
+        {
+            bytes.addAndGet( body.length );
+            acknowledge( pageNumber, page );
+        }
+        else
+        {
+            failed.set( true );
+        }
+    }
+
+    private boolean sendSyncRequest( byte[] body )
+    {
+        // The remote instance detects the GZIP signature of the payload, hence
+        // no content encoding header which intermediaries could act upon
+
+        final RequestCallback requestCallback = request -> {
+            request.getHeaders().setContentType( MediaType.APPLICATION_JSON );
+            request.getHeaders().add( SyncUtils.HEADER_AUTHORIZATION,
+                CodecUtils.getBasicAuthString( instance.getUsername(), instance.getPassword() ) );
+            request.getBody().write( body );
+        };
+
+        boolean networkErrorOccurred = true;
+        int syncAttemptsDone = 0;
+
+        ImportSummaryResponseExtractor responseExtractor = new ImportSummaryResponseExtractor();
+        ImportSummary summary = null;
+
+        while ( networkErrorOccurred )
+        {
+            networkErrorOccurred = false;
+            syncAttemptsDone++;
+            try
+            {
+                summary = restTemplate.execute( instance.getUrl(), HttpMethod.POST, requestCallback,
+                    responseExtractor );
+            }
+            catch ( HttpClientErrorException ex )
+            {
+                String responseBody = ex.getResponseBodyAsString();
+                try
+                {
+                    summary = WebMessageParseUtils.fromWebMessageResponse( responseBody, ImportSummary.class );
+                }
+                catch ( WebMessageParseException e )
+                {
+                    log.error( "Parsing WebMessageResponse failed.", e );
+                    return false;
+                }
+            }
+            catch ( HttpServerErrorException ex )
+            {
+                String responseBody = ex.getResponseBodyAsString();
+                log.error( "Internal error happened during DataValues push: " + responseBody, ex );
+
+                if ( syncAttemptsDone <= maxSyncAttempts )
+                {
+                    networkErrorOccurred = true;
+                }
+                else
+                {
+                    throw ex;
+                }
+            }
+        }
+
+        log.info( "Sync summary: " + summary );
+
+        return summary != null && SyncUtils.checkSummaryStatus( summary, SyncEndpoint.DATA_VALUE_SETS );
+    }
+
+    /**
+     * Records the given page as acknowledged and advances the checkpoint over
+     * all pages acknowledged without gaps.
+     */
+    private synchronized void acknowledge( int pageNumber, DataValueSyncPage page )
+    {
+        values.addAndGet( page.getValues() );
+        pages.incrementAndGet();
+        acknowledged.put( pageNumber, page.getLastKey() );
+
+        DataValueSyncKey contiguous = null;
+
+        while ( acknowledged.containsKey( nextPageToCheckpoint ) )
+        {
+            contiguous = acknowledged.remove( nextPageToCheckpoint++ );
+        }
+
+        if ( contiguous != null )
+        {
+            checkpoint = contiguous;
+            checkpointConsumer.accept( contiguous );
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Getters
+    // -------------------------------------------------------------------------
+
+    /**
+     * Returns the key up to which all data values were acknowledged, or the
+     * key the run was started after if no page was acknowledged.
+     */
+    public synchronized DataValueSyncKey getCheckpoint()
+    {
+        return checkpoint;
+    }
+
+    /**
+     * Returns the number of acknowledged data values.
+     */
+    public long getValues()
+    {
+        return values.get();
+    }
+
+    /**
+     * Returns the number of acknowledged pages.
+     */
+    public long getPages()
+    {
+        return pages.get();
+    }
+
+    /**
+     * Returns the number of compressed bytes of acknowledged pages.
+     */
+    public long getBytes()
+    {
+        return bytes.get();
+    }
+
+    /**
+     * Returns the number of acknowledged data values per second of the run.
+     */
+    public long getValuesPerSecond()
+    {
+        return time > 0 ? ( values.get() * 1000 ) / time : values.get();
+    }
+}
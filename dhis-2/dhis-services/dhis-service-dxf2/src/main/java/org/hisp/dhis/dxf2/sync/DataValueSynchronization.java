@@ -31,26 +31,14 @@ import java.util.Date;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
-import org.hisp.dhis.common.IdSchemes;
 import org.hisp.dhis.datavalue.DataValueService;
-import org.hisp.dhis.dxf2.common.ImportSummaryResponseExtractor;
 import org.hisp.dhis.dxf2.datavalueset.DataValueSetService;
-import org.hisp.dhis.dxf2.importsummary.ImportSummary;
+import org.hisp.dhis.dxf2.datavalueset.DataValueSyncKey;
 import org.hisp.dhis.dxf2.synch.SystemInstance;
-import org.hisp.dhis.dxf2.webmessage.WebMessageParseException;
-import org.hisp.dhis.dxf2.webmessage.utils.WebMessageParseUtils;
 import org.hisp.dhis.setting.SettingKey;
 import org.hisp.dhis.setting.SystemSettingManager;
 import org.hisp.dhis.system.util.Clock;
-import org.hisp.dhis.system.util.CodecUtils;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.http.HttpMethod;
-import org.springframework.http.MediaType;
-import org.springframework.web.client.HttpClientErrorException;
-import org.springframework.web.client.HttpServerErrorException;
-import org.springframework.web.client.RequestCallback;
-import org.springframework.web.client.ResourceAccessException;
-import org.springframework.web.client.ResponseExtractor;
 import org.springframework.web.client.RestTemplate;
 
 /**
@@ -60,6 +48,8 @@ public class DataValueSynchronization
 {
     private static final Log log = LogFactory.getLog( DataValueSynchronization.class );
 
+    private static final String CHECKPOINT_SEPARATOR = "|";
+
     private final DataValueService dataValueService;
 
     private final DataValueSetService dataValueSetService;
@@ -116,102 +106,69 @@ public class DataValueSynchronization
         final SystemInstance instance = new SystemInstance( syncUrl, username, password );
 
         final int pageSize = (int) systemSettingManager.getSystemSetting( SettingKey.DATA_VALUES_SYNC_PAGE_SIZE );
-
-        // Using this approach as (int) Match.ceil doesn't work until I cast int to double
-        final int pages = (objectsToSynchronize / pageSize) + ((objectsToSynchronize % pageSize == 0) ? 0 : 1);
+        final int pagesInFlight = (int) systemSettingManager.getSystemSetting( SettingKey.DATA_VALUES_SYNC_PAGES_IN_FLIGHT );
+        final int maxSyncAttempts = (int) systemSettingManager.getSystemSetting( SettingKey.MAX_SYNC_ATTEMPTS );
 
         log.info( objectsToSynchronize + " DataValues to synchronize were found." );
         log.info( "Remote server URL for DataValues POST sync: " + instance.getUrl() );
-        log.info( "DataValueSynchronization job has " + pages + " pages to sync. With page size: " + pageSize );
+        log.info( "DataValueSynchronization job has page size: " + pageSize + " and pages in flight: " + pagesInFlight );
 
-        boolean syncResult = true;
+        // ---------------------------------------------------------------------
+        // Resume after the last acknowledged data value if a previous run over
+        // the same window failed half way
+        // ---------------------------------------------------------------------
 
-        for ( int i = 1; i <= pages; i++ )
-        {
-            log.info( String.format( "Synchronizing page %d with page size %d", i, pageSize ) );
+        final DataValueSyncKey resumeAfter = getCheckpoint( lastUpdatedAfter );
 
-            if ( !sendDataValueSyncRequest( instance, lastUpdatedAfter, pageSize, i, SyncEndpoint.DATA_VALUE_SETS ) )
-            {
-                syncResult = false;
-            }
+        if ( resumeAfter != null )
+        {
+            log.info( "Resuming DataValueSynchronization after checkpoint: " + resumeAfter );
         }
 
+        final DataValueSyncPipeline pipeline = new DataValueSyncPipeline( dataValueSetService, restTemplate, instance,
+            lastUpdatedAfter, pageSize, pagesInFlight, maxSyncAttempts );
+
+        final boolean syncResult = pipeline.run( resumeAfter, key -> setCheckpoint( lastUpdatedAfter, key ) );
+
+        final String throughput = String.format( "Synchronized %d DataValues in %d pages at %d values per second.",
+            pipeline.getValues(), pipeline.getPages(), pipeline.getValuesPerSecond() );
+
         if ( syncResult )
         {
             clock.logTime( "SUCCESS! DataValueSynchronization job is done. It took" );
             SyncUtils.setLastSyncSuccess( systemSettingManager, SettingKey.LAST_SUCCESSFUL_DATA_VALUE_SYNC, new Date( clock.getStartTime() ));
+            systemSettingManager.deleteSystemSetting( SettingKey.DATA_VALUES_SYNC_CHECKPOINT );
             return SynchronizationResult
-                .newSuccessResultWithMessage( "DataValueSynchronization done. It took " + clock.getTime() + " ms." );
+                .newSuccessResultWithMessage( "DataValueSynchronization done. It took " + clock.getTime() + " ms. " + throughput );
         }
 
-        return SynchronizationResult.newFailureResultWithMessage( "DataValueSynchronization failed." );
+        return SynchronizationResult.newFailureResultWithMessage( "DataValueSynchronization failed. " + throughput );
     }
 
-    private boolean sendDataValueSyncRequest( SystemInstance instance, Date lastUpdatedAfter, int syncPageSize,
-        int page, SyncEndpoint endpoint )
-    {
-        final RequestCallback requestCallback = request -> {
-            request.getHeaders().setContentType( MediaType.APPLICATION_JSON );
-            request.getHeaders().add( SyncUtils.HEADER_AUTHORIZATION,
-                CodecUtils.getBasicAuthString( instance.getUsername(), instance.getPassword() ) );
-
-            dataValueSetService.writeDataValueSetJson( lastUpdatedAfter, request.getBody(), new IdSchemes(),
-                syncPageSize, page );
-        };
-
-        final int maxSyncAttempts = (int) systemSettingManager.getSystemSetting( SettingKey.MAX_SYNC_ATTEMPTS );
+    // -------------------------------------------------------------------------
+    // Supportive methods
+    // -------------------------------------------------------------------------
 
-        boolean networkErrorOccurred = true;
-        int syncAttemptsDone = 0;
-
-        ResponseExtractor<ImportSummary> responseExtractor = new ImportSummaryResponseExtractor();
-        ImportSummary summary = null;
+    /**
+     * Returns the checkpoint of a previous run over the window of data values
+     * last updated after the given date, or null if there is none.
+     */
+    private DataValueSyncKey getCheckpoint( Date lastUpdatedAfter )
+    {
+        final String checkpoint = (String) systemSettingManager.getSystemSetting( SettingKey.DATA_VALUES_SYNC_CHECKPOINT );
+        final String windowPrefix = lastUpdatedAfter.getTime() + CHECKPOINT_SEPARATOR;
 
-        while ( networkErrorOccurred )
+        if ( checkpoint == null || !checkpoint.startsWith( windowPrefix ) )
         {
-            networkErrorOccurred = false;
-            syncAttemptsDone++;
-            try
-            {
-                summary = restTemplate.execute( instance.getUrl(), HttpMethod.POST, requestCallback,
-                    responseExtractor );
-            }
-            catch ( HttpClientErrorException ex )
-            {
-                String responseBody = ex.getResponseBodyAsString();
-                try
-                {
-                    summary = WebMessageParseUtils.fromWebMessageResponse( responseBody, ImportSummary.class );
-                }
-                catch ( WebMessageParseException e )
-                {
-                    log.error( "Parsing WebMessageResponse failed.", e );
-                    return false;
-                }
-            }
-            catch ( HttpServerErrorException ex )
-            {
-                String responseBody = ex.getResponseBodyAsString();
-                log.error( "Internal error happened during DataValues push: " + responseBody, ex );
-
-                if ( syncAttemptsDone <= maxSyncAttempts )
-                {
-                    networkErrorOccurred = true;
-                }
-                else
-                {
-                    throw ex;
-                }
-            }
-            catch ( ResourceAccessException ex )
-            {
-                log.error( "Exception during DataValues data push: " + ex.getMessage(), ex );
-                throw ex;
-            }
+            return null;
         }
 
-        log.info( "Sync summary: " + summary );
+        return DataValueSyncKey.fromString( checkpoint.substring( windowPrefix.length() ) );
+    }
 
-        return SyncUtils.checkSummaryStatus( summary, endpoint );
+    private void setCheckpoint( Date lastUpdatedAfter, DataValueSyncKey key )
+    {
+        systemSettingManager.saveSystemSetting( SettingKey.DATA_VALUES_SYNC_CHECKPOINT,
+            lastUpdatedAfter.getTime() + CHECKPOINT_SEPARATOR + key.asString() );
     }
-}
\ No newline at end of file
+}
@@ -49,6 +49,7 @@ import org.springframework.web.client.RestTemplate;
 import java.util.Date;
 import java.util.List;
 import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * @author David Katuscak
@@ -160,7 +161,11 @@ public class TrackerSynchronization
         {
             request.getHeaders().setContentType( MediaType.APPLICATION_JSON );
             request.getHeaders().add( SyncUtils.HEADER_AUTHORIZATION, CodecUtils.getBasicAuthString( instance.getUsername(), instance.getPassword() ) );
-            renderService.toJson( request.getBody(), teis );
+
+            try ( GZIPOutputStream out = new GZIPOutputStream( request.getBody() ) )
+            {
+                renderService.toJson( out, teis );
+            }
         };
 
         return SyncUtils.sendSyncRequest( systemSettingManager, restTemplate, requestCallback, instance, SyncEndpoint.TRACKED_ENTITY_INSTANCES );
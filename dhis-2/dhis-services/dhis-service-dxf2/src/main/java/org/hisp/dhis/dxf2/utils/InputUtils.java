@@ -28,6 +28,8 @@ package org.hisp.dhis.dxf2.utils;
  * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
  */
 
+import org.hisp.dhis.cache.Cache;
+import org.hisp.dhis.cache.CacheProvider;
 import org.hisp.dhis.common.IdScheme;
 import org.hisp.dhis.common.IdentifiableObjectManager;
 import org.hisp.dhis.common.IllegalQueryException;
@@ -40,8 +42,6 @@ import org.hisp.dhis.category.CategoryOptionCombo;
 import org.hisp.dhis.category.CategoryService;
 import org.springframework.beans.factory.annotation.Autowired;
 
-import com.github.benmanes.caffeine.cache.Cache;
-import com.github.benmanes.caffeine.cache.Caffeine;
 import org.springframework.core.env.Environment;
 
 import javax.annotation.PostConstruct;
@@ -53,7 +53,7 @@ import java.util.concurrent.TimeUnit;
  */
 public class InputUtils
 {
-    private static Cache<String, Long> ATTR_OPTION_COMBO_ID_CACHE;
+    private Cache<Long> attrOptionComboIdCache;
 
     @Autowired
     private CategoryService categoryService;
@@ -64,14 +64,16 @@ public class InputUtils
     @Autowired
     private Environment env;
 
+    @Autowired
+    private CacheProvider cacheProvider;
+
     @PostConstruct
     public void init()
     {
-
-        ATTR_OPTION_COMBO_ID_CACHE = Caffeine.newBuilder()
-                .expireAfterWrite( 3, TimeUnit.HOURS )
-                .initialCapacity( 1000 )
-                .maximumSize( SystemUtils.isTestRun(env.getActiveProfiles() ) ? 0 : 10000 ).build();
+        attrOptionComboIdCache = cacheProvider.newCacheBuilder( Long.class )
+            .forRegion( "attrOptionComboIdCache" )
+            .expireAfterWrite( 3, TimeUnit.HOURS )
+            .withMaximumSize( SystemUtils.isTestRun( env.getActiveProfiles() ) ? 0 : 10000 ).build();
     }
 
     /**
@@ -90,7 +92,7 @@ public class InputUtils
     {
         String cacheKey = TextUtils.joinHyphen( cc, cp, String.valueOf( skipFallback ) );
 
-        Long id = ATTR_OPTION_COMBO_ID_CACHE.getIfPresent( cacheKey );
+        Long id = attrOptionComboIdCache.getIfPresent( cacheKey ).orElse( null );
 
         if ( id != null )
         {
@@ -102,7 +104,7 @@ public class InputUtils
 
             if ( aoc != null )
             {
-                ATTR_OPTION_COMBO_ID_CACHE.put( cacheKey, aoc.getId() );
+                attrOptionComboIdCache.put( cacheKey, aoc.getId() );
             }
 
             return aoc;
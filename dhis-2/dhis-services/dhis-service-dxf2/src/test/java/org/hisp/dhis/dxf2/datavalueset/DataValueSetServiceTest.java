@@ -47,6 +47,7 @@ import org.hisp.dhis.dataset.DataSet;
 import org.hisp.dhis.dataset.DataSetService;
 import org.hisp.dhis.datavalue.DataValue;
 import org.hisp.dhis.datavalue.DataValueAudit;
+import org.hisp.dhis.datavalue.DataValueService;
 import org.hisp.dhis.dxf2.common.ImportOptions;
 import org.hisp.dhis.dxf2.importsummary.ImportStatus;
 import org.hisp.dhis.dxf2.importsummary.ImportSummary;
@@ -110,6 +111,9 @@ public class DataValueSetServiceTest
     @Autowired
     private DataValueSetService dataValueSetService;
 
+    @Autowired
+    private DataValueService dataValueService;
+
     @Autowired
     private CompleteDataSetRegistrationService registrationService;
 
@@ -424,6 +428,25 @@ public class DataValueSetServiceTest
         assertImportDataValues( summary );
     }
 
+    @Test
+    public void testImportDataValuesJsonWithPropertiesAfterDataValues()
+    {
+        String json = "{\"dataValues\":[" +
+            "{\"dataElement\":\"f7n9E0hX8qk\",\"period\":\"201201\",\"orgUnit\":\"DiszpKrYNg8\",\"value\":\"10001\"}," +
+            "{\"dataElement\":\"f7n9E0hX8qk\",\"period\":\"201201\",\"orgUnit\":\"BdfsJfj87js\",\"value\":\"10002\"}]," +
+            "\"dryRun\":true}";
+
+        in = new ByteArrayInputStream( json.getBytes( StandardCharsets.UTF_8 ) );
+
+        ImportSummary summary = dataValueSetService.saveDataValueSetJson( in );
+
+        assertEquals( ImportStatus.ERROR, summary.getStatus() );
+        assertEquals( summary.getConflicts().toString(), 1, summary.getConflicts().size() );
+        assertTrue( summary.getConflicts().iterator().next().getValue().contains( "dryRun" ) );
+        assertTrue( mockDataValueBatchHandler.getInserts().isEmpty() );
+        assertTrue( mockDataValueBatchHandler.getUpdates().isEmpty() );
+    }
+
     @Test
     public void testImportDataValuesXmlWithCodeB()
         throws Exception
@@ -938,7 +961,9 @@ public class DataValueSetServiceTest
     public void testImportDataValuesUpdatedAudit()
         throws Exception
     {
-        mockDataValueBatchHandler.withFindSelf( true );
+        dataValueService.addDataValue( new DataValue( deA, peA, ouA, ocDef, ocDef, "10000" ) );
+        dataValueService.addDataValue( new DataValue( deA, peA, ouB, ocDef, ocDef, "10000" ) );
+        dataValueService.addDataValue( new DataValue( deA, peB, ouA, ocDef, ocDef, "10000" ) );
 
         in = new ClassPathResource( "datavalueset/dataValueSetA.xml" ).getInputStream();
 
@@ -965,7 +990,9 @@ public class DataValueSetServiceTest
     public void testImportDataValuesUpdatedSkipAudit()
         throws Exception
     {
-        mockDataValueBatchHandler.withFindSelf( true );
+        dataValueService.addDataValue( new DataValue( deA, peA, ouA, ocDef, ocDef, "10000" ) );
+        dataValueService.addDataValue( new DataValue( deA, peA, ouB, ocDef, ocDef, "10000" ) );
+        dataValueService.addDataValue( new DataValue( deA, peB, ouA, ocDef, ocDef, "10000" ) );
 
         in = new ClassPathResource( "datavalueset/dataValueSetA.xml" ).getInputStream();
 
@@ -0,0 +1,146 @@
+package org.hisp.dhis.dxf2.datavalueset;
+
+/*
+ * Copyright (c) 2004-2018, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import org.hisp.dhis.dxf2.datavalue.DataValue;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests for reading data value sets with {@link StreamingJsonDataValueSet}.
+ */
+public class StreamingJsonDataValueSetTest
+{
+    @Test
+    public void testReadDataValueSet()
+    {
+        String json = "{\"dataSet\":\"pBOMPrpg1QX\",\"completeDate\":\"2012-01-09\",\"period\":\"201201\"," +
+            "\"orgUnit\":\"DiszpKrYNg8\",\"dryRun\":true,\"unknown\":{\"a\":[1,2]},\"dataValues\":[" +
+            "{\"dataElement\":\"f7n9E0hX8qk\",\"categoryOptionCombo\":\"bRowv6yZOF2\",\"value\":\"10\",\"followup\":true}," +
+            "{\"dataElement\":\"Ix2HsbDMLea\",\"value\":\"20\",\"comment\":\"Comment\"}]}";
+
+        DataValueSet dataValueSet = new StreamingJsonDataValueSet( toStream( json ) );
+
+        assertEquals( "pBOMPrpg1QX", dataValueSet.getDataSet() );
+        assertEquals( "2012-01-09", dataValueSet.getCompleteDate() );
+        assertEquals( "201201", dataValueSet.getPeriod() );
+        assertEquals( "DiszpKrYNg8", dataValueSet.getOrgUnit() );
+        assertTrue( dataValueSet.getDryRun() );
+
+        assertTrue( dataValueSet.hasNextDataValue() );
+        DataValue dataValueA = dataValueSet.getNextDataValue();
+        assertEquals( "f7n9E0hX8qk", dataValueA.getDataElement() );
+        assertEquals( "bRowv6yZOF2", dataValueA.getCategoryOptionCombo() );
+        assertEquals( "10", dataValueA.getValue() );
+        assertTrue( dataValueA.getFollowup() );
+
+        assertTrue( dataValueSet.hasNextDataValue() );
+        DataValue dataValueB = dataValueSet.getNextDataValue();
+        assertEquals( "Ix2HsbDMLea", dataValueB.getDataElement() );
+        assertNull( dataValueB.getCategoryOptionCombo() );
+        assertEquals( "20", dataValueB.getValue() );
+        assertEquals( "Comment", dataValueB.getComment() );
+
+        assertFalse( dataValueSet.hasNextDataValue() );
+        assertFalse( dataValueSet.hasNextDataValue() );
+
+        dataValueSet.close();
+    }
+
+    @Test
+    public void testGetPropertiesAfterDataValues()
+        throws IOException
+    {
+        String json = "{\"dataSet\":\"pBOMPrpg1QX\",\"dataValues\":[" +
+            "{\"dataElement\":\"f7n9E0hX8qk\",\"value\":\"10\",\"dryRun\":true}]," +
+            "\"orgUnit\":\"DiszpKrYNg8\",\"unknown\":[1,2],\"dryRun\":true}";
+
+        assertEquals( Lists.newArrayList( "orgUnit", "dryRun" ), StreamingJsonDataValueSet.getPropertiesAfterDataValues( toStream( json ) ) );
+    }
+
+    @Test
+    public void testGetPropertiesAfterDataValuesNone()
+        throws IOException
+    {
+        String json = "{\"dataSet\":\"pBOMPrpg1QX\",\"dryRun\":true,\"dataValues\":[" +
+            "{\"dataElement\":\"f7n9E0hX8qk\",\"value\":\"10\"}],\"unknown\":[1,2]}";
+
+        assertTrue( StreamingJsonDataValueSet.getPropertiesAfterDataValues( toStream( json ) ).isEmpty() );
+    }
+
+    @Test
+    public void testReadDataValueSetWithPropertiesAfterDataValues()
+    {
+        String json = "{\"dataSet\":\"pBOMPrpg1QX\",\"dataValues\":[" +
+            "{\"dataElement\":\"f7n9E0hX8qk\",\"value\":\"10\"}]," +
+            "\"orgUnit\":\"DiszpKrYNg8\",\"unknown\":[1,2],\"dryRun\":true}";
+
+        DataValueSet dataValueSet = new StreamingJsonDataValueSet( toStream( json ) );
+
+        assertEquals( "pBOMPrpg1QX", dataValueSet.getDataSet() );
+
+        assertTrue( dataValueSet.hasNextDataValue() );
+        assertEquals( "f7n9E0hX8qk", dataValueSet.getNextDataValue().getDataElement() );
+        assertFalse( dataValueSet.hasNextDataValue() );
+
+        assertNull( dataValueSet.getOrgUnit() );
+        assertNull( dataValueSet.getDryRun() );
+
+        dataValueSet.close();
+    }
+
+    @Test
+    public void testReadDataValueSetWithoutDataValues()
+    {
+        String json = "{\"idScheme\":\"CODE\",\"attributeCategoryOptions\":[\"A\",\"B\"]}";
+
+        DataValueSet dataValueSet = new StreamingJsonDataValueSet( toStream( json ) );
+
+        assertEquals( "CODE", dataValueSet.getIdScheme() );
+        assertEquals( 2, dataValueSet.getAttributeCategoryOptions().size() );
+        assertFalse( dataValueSet.hasNextDataValue() );
+
+        dataValueSet.close();
+    }
+
+    private ByteArrayInputStream toStream( String json )
+    {
+        return new ByteArrayInputStream( json.getBytes( StandardCharsets.UTF_8 ) );
+    }
+}
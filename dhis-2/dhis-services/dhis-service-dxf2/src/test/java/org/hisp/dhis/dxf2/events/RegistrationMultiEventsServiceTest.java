@@ -42,6 +42,7 @@ import org.hisp.dhis.dxf2.events.event.DataValue;
 import org.hisp.dhis.dxf2.events.event.Event;
 import org.hisp.dhis.dxf2.events.event.EventSearchParams;
 import org.hisp.dhis.dxf2.events.event.EventService;
+import org.hisp.dhis.dxf2.events.event.Events;
 import org.hisp.dhis.dxf2.events.trackedentity.TrackedEntityInstance;
 import org.hisp.dhis.dxf2.events.trackedentity.TrackedEntityInstanceService;
 import org.hisp.dhis.dxf2.importsummary.ImportStatus;
@@ -60,11 +61,16 @@ import org.junit.Test;
 import org.junit.experimental.categories.Category;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashSet;
+import java.util.List;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
 
 /**
  * @author Morten Olav Hansen <mortenoh@gmail.com>
@@ -288,6 +294,49 @@ public class RegistrationMultiEventsServiceTest
         assertEquals( 2, eventService.getEvents( params ).getEvents().size() );
     }
 
+    @Test
+    public void testGetEventsWithKeysetPaging()
+    {
+        Enrollment enrollment = createEnrollment( programA.getUid(), trackedEntityInstanceMaleA.getTrackedEntityInstance() );
+        ImportSummary importSummary = enrollmentService.addEnrollment( enrollment, null, null );
+        assertEquals( ImportStatus.SUCCESS, importSummary.getStatus() );
+
+        for ( int i = 0; i < 3; i++ )
+        {
+            Event event = createEvent( programA.getUid(), programStageB.getUid(), organisationUnitA.getUid(),
+                trackedEntityInstanceMaleA.getTrackedEntityInstance(), dataElementB.getUid() );
+            importSummary = eventService.addEvent( event, null, false );
+            assertEquals( ImportStatus.SUCCESS, importSummary.getStatus() );
+        }
+
+        EventSearchParams params = new EventSearchParams();
+        params.setProgram( programA );
+        params.setOrgUnit( organisationUnitA );
+        params.setOrgUnitSelectionMode( OrganisationUnitSelectionMode.SELECTED );
+        params.setPageSize( 2 );
+        params.setPageToken( 0L );
+
+        Events firstPage = eventService.getEvents( params );
+
+        assertEquals( 2, firstPage.getEvents().size() );
+        assertNotNull( firstPage.getNextPageToken() );
+
+        params.setPageToken( firstPage.getNextPageToken() );
+
+        Events secondPage = eventService.getEvents( params );
+
+        assertEquals( 1, secondPage.getEvents().size() );
+        assertNull( secondPage.getNextPageToken() );
+        assertTrue( secondPage.getEvents().get( 0 ).getId() > firstPage.getEvents().get( 1 ).getId() );
+
+        params.setPageToken( null );
+
+        List<Event> streamed = new ArrayList<>();
+        eventService.streamEvents( params, streamed::add );
+
+        assertEquals( 3, streamed.size() );
+    }
+
     // -------------------------------------------------------------------------
     // Supportive tests
     // -------------------------------------------------------------------------
@@ -0,0 +1,257 @@
+package org.hisp.dhis.dxf2.sync;
+
+/*
+ * Copyright (c) 2004-2018, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.zip.GZIPInputStream;
+
+import org.apache.commons.io.IOUtils;
+import org.hisp.dhis.common.IdSchemes;
+import org.hisp.dhis.dxf2.datavalueset.DataValueSetService;
+import org.hisp.dhis.dxf2.datavalueset.DataValueSyncKey;
+import org.hisp.dhis.dxf2.datavalueset.DataValueSyncPage;
+import org.hisp.dhis.dxf2.synch.SystemInstance;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.web.client.RestTemplate;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Runs the data value synchronization pipeline against a local stub server.
+ */
+public class DataValueSyncPipelineTest
+{
+    private static final int PAGES = 5;
+
+    private static final int PAGE_SIZE = 2;
+
+    private static final int LAST_PAGE_SIZE = 1;
+
+    private static final Timestamp LAST_UPDATED = Timestamp.valueOf( "2018-06-01 10:15:30.123456" );
+
+    private HttpServer server;
+
+    private SystemInstance instance;
+
+    private DataValueSetService dataValueSetService;
+
+    private final List<Integer> receivedPages = new CopyOnWriteArrayList<>();
+
+    private final Set<Integer> failingPages = ConcurrentHashMap.newKeySet();
+
+    @Before
+    public void setUp() throws Exception
+    {
+        server = HttpServer.create( new InetSocketAddress( "localhost", 0 ), 0 );
+        server.createContext( "/api/dataValueSets", this::handle );
+        server.start();
+
+        instance = new SystemInstance( "http://localhost:" + server.getAddress().getPort() + "/api/dataValueSets",
+            "admin", "district" );
+
+        dataValueSetService = mock( DataValueSetService.class );
+
+        when( dataValueSetService.writeDataValueSetJson( any( Date.class ), any(), any( OutputStream.class ),
+            any( IdSchemes.class ), anyInt() ) ).thenAnswer( invocation -> writePage( invocation.getArgument( 1 ),
+            invocation.getArgument( 2 ) ) );
+    }
+
+    @After
+    public void tearDown()
+    {
+        server.stop( 0 );
+    }
+
+    // -------------------------------------------------------------------------
+    // Tests
+    // -------------------------------------------------------------------------
+
+    @Test
+    public void testSyncAllPages()
+    {
+        List<DataValueSyncKey> checkpoints = new CopyOnWriteArrayList<>();
+
+        DataValueSyncPipeline pipeline = getPipeline( 3 );
+
+        assertTrue( pipeline.run( null, checkpoints::add ) );
+
+        List<Integer> pages = new ArrayList<>( receivedPages );
+        Collections.sort( pages );
+
+        assertEquals( getPageNumbers( 0, PAGES ), pages );
+        assertEquals( getKey( PAGES - 1 ), pipeline.getCheckpoint() );
+        assertEquals( getKey( PAGES - 1 ), checkpoints.get( checkpoints.size() - 1 ) );
+        assertEquals( ( PAGES - 1 ) * PAGE_SIZE + LAST_PAGE_SIZE, pipeline.getValues() );
+        assertEquals( PAGES, pipeline.getPages() );
+    }
+
+    @Test
+    public void testCheckpointStopsBeforeFailedPage()
+    {
+        failingPages.add( 2 );
+
+        List<DataValueSyncKey> checkpoints = new CopyOnWriteArrayList<>();
+
+        DataValueSyncPipeline pipeline = getPipeline( 3 );
+
+        assertFalse( pipeline.run( null, checkpoints::add ) );
+        assertEquals( getKey( 1 ), pipeline.getCheckpoint() );
+        assertEquals( getKey( 1 ), checkpoints.get( checkpoints.size() - 1 ) );
+    }
+
+    @Test
+    public void testResumeAfterCheckpoint()
+    {
+        DataValueSyncPipeline pipeline = getPipeline( 2 );
+
+        assertTrue( pipeline.run( getKey( 2 ), key -> {} ) );
+
+        List<Integer> pages = new ArrayList<>( receivedPages );
+        Collections.sort( pages );
+
+        assertEquals( getPageNumbers( 3, PAGES ), pages );
+        assertEquals( getKey( PAGES - 1 ), pipeline.getCheckpoint() );
+    }
+
+    @Test
+    public void testKeyRoundTrip()
+    {
+        DataValueSyncKey key = getKey( 3 );
+
+        assertEquals( key, DataValueSyncKey.fromString( key.asString() ) );
+        assertNull( DataValueSyncKey.fromString( "" ) );
+        assertNull( DataValueSyncKey.fromString( "2018-06-01;a;b" ) );
+    }
+
+    // -------------------------------------------------------------------------
+    // Supportive methods
+    // -------------------------------------------------------------------------
+
+    private DataValueSyncPipeline getPipeline( int pagesInFlight )
+    {
+        return new DataValueSyncPipeline( dataValueSetService, new RestTemplate(), instance,
+            new Date( 0 ), PAGE_SIZE, pagesInFlight, 1 );
+    }
+
+    /**
+     * Writes the page following the given key, using the data element
+     * identifier of the key as page number.
+     */
+    private DataValueSyncPage writePage( DataValueSyncKey after, OutputStream out ) throws IOException
+    {
+        int page = after == null ? 0 : (int) after.getDataElementId() + 1;
+
+        if ( page >= PAGES )
+        {
+            IOUtils.write( "{\"dataValues\":[]}", out, StandardCharsets.UTF_8 );
+            return new DataValueSyncPage( null, 0 );
+        }
+
+        IOUtils.write( "{\"dataValues\":[{\"value\":\"page-" + page + "\"}]}", out, StandardCharsets.UTF_8 );
+
+        return new DataValueSyncPage( getKey( page ), page == PAGES - 1 ? LAST_PAGE_SIZE : PAGE_SIZE );
+    }
+
+    private void handle( HttpExchange exchange ) throws IOException
+    {
+        byte[] body = IOUtils.toByteArray( exchange.getRequestBody() );
+
+        try ( InputStream in = new GZIPInputStream( new ByteArrayInputStream( body ) ) )
+        {
+            String json = IOUtils.toString( in, StandardCharsets.UTF_8 );
+            int page = Integer.parseInt( json.replaceAll( "(?s).*page-(\\d+).*", "$1" ) );
+
+            receivedPages.add( page );
+
+            if ( failingPages.contains( page ) )
+            {
+                respond( exchange, 409, "{\"response\":{\"status\":\"ERROR\"}}" );
+            }
+            else
+            {
+                respond( exchange, 200, "{\"status\":\"SUCCESS\"}" );
+            }
+        }
+    }
+
+    private void respond( HttpExchange exchange, int status, String response ) throws IOException
+    {
+        byte[] bytes = response.getBytes( StandardCharsets.UTF_8 );
+
+        exchange.getResponseHeaders().add( "Content-Type", "application/json" );
+        exchange.sendResponseHeaders( status, bytes.length );
+
+        try ( OutputStream out = exchange.getResponseBody() )
+        {
+            out.write( bytes );
+        }
+    }
+
+    private static DataValueSyncKey getKey( int page )
+    {
+        return new DataValueSyncKey( LAST_UPDATED, page, 11, 12, 13, 14 );
+    }
+
+    private static List<Integer> getPageNumbers( int from, int to )
+    {
+        List<Integer> pages = new ArrayList<>();
+
+        for ( int i = from; i < to; i++ )
+        {
+            pages.add( i );
+        }
+
+        return pages;
+    }
+}
@@ -38,12 +38,18 @@ import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import org.apache.commons.lang.StringUtils;
 import org.hisp.dhis.setting.SettingKey;
 import org.hisp.dhis.setting.SystemSettingManager;
+import org.hisp.dhis.setting.SystemSettingUpdatedEvent;
 import org.springframework.beans.factory.InitializingBean;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.ApplicationEventPublisherAware;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 /**
  * @author Morten Olav Hansen <mortenoh@gmail.com>
@@ -54,6 +60,17 @@ public class LoggingManager implements ApplicationEventPublisherAware, Initializ
     public final static ObjectMapper objectMapper = new ObjectMapper();
     private static LoggingManager instance;
 
+    private static final Set<SettingKey> LOGGING_SETTINGS = EnumSet.of( SettingKey.LOGGING_LEVEL, SettingKey.LOGGING_FORMAT,
+        SettingKey.LOGGING_ADAPTER_CONSOLE, SettingKey.LOGGING_ADAPTER_CONSOLE_LEVEL, SettingKey.LOGGING_ADAPTER_CONSOLE_FORMAT,
+        SettingKey.LOGGING_ADAPTER_FILE, SettingKey.LOGGING_ADAPTER_FILE_NAME, SettingKey.LOGGING_ADAPTER_FILE_LEVEL,
+        SettingKey.LOGGING_ADAPTER_FILE_FORMAT );
+
+    /**
+     * Upper bound for the age of the cached logging config, covering setting
+     * changes made on other nodes of a cluster.
+     */
+    private static final long CONFIG_MAX_AGE_MILLIS = TimeUnit.MINUTES.toMillis( 1 );
+
     static
     {
         objectMapper.setSerializationInclusion( JsonInclude.Include.NON_EMPTY );
@@ -74,6 +91,10 @@ public class LoggingManager implements ApplicationEventPublisherAware, Initializ
 
     private ApplicationEventPublisher publisher;
 
+    private volatile LoggingConfig loggingConfig;
+
+    private volatile long loggingConfigLoaded;
+
     public LoggingManager( SystemSettingManager systemSettingManager )
     {
         this.systemSettingManager = systemSettingManager;
@@ -120,7 +141,39 @@ public class LoggingManager implements ApplicationEventPublisherAware, Initializ
         return instance;
     }
 
+    /**
+     * Discards the cached logging config when a logging setting was updated.
+     * Runs after commit so that the updated setting is visible when the config
+     * is reloaded.
+     */
+    @TransactionalEventListener( fallbackExecution = true )
+    public void handleSystemSettingUpdated( SystemSettingUpdatedEvent event )
+    {
+        if ( event.getSettingKey() == null || LOGGING_SETTINGS.contains( event.getSettingKey() ) )
+        {
+            loggingConfig = null;
+        }
+    }
+
+    /**
+     * Returns the logging config. The config is cached, and reloaded from the
+     * system settings when a logging setting is updated.
+     */
     public LoggingConfig getLoggingConfig()
+    {
+        LoggingConfig config = loggingConfig;
+
+        if ( config == null || System.currentTimeMillis() - loggingConfigLoaded > CONFIG_MAX_AGE_MILLIS )
+        {
+            config = loadLoggingConfig();
+            loggingConfigLoaded = System.currentTimeMillis();
+            loggingConfig = config;
+        }
+
+        return config;
+    }
+
+    private LoggingConfig loadLoggingConfig()
     {
         return new LoggingConfig(
             LogLevel.valueOf( ((String) systemSettingManager.getSystemSetting( SettingKey.LOGGING_LEVEL )).toUpperCase() ),
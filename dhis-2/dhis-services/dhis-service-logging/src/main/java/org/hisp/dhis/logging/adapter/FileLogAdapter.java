@@ -28,42 +28,50 @@ package org.hisp.dhis.logging.adapter;
  * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
  */
 
+import org.hisp.dhis.external.conf.ConfigurationKey;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
 import org.hisp.dhis.external.location.LocationManager;
 import org.hisp.dhis.logging.Log;
 import org.hisp.dhis.logging.LogAdapter;
 import org.hisp.dhis.logging.LogEvent;
 import org.hisp.dhis.logging.LoggingConfig;
-import org.hisp.dhis.logging.LoggingManager;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.stereotype.Component;
 
 import java.io.File;
-import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.Map;
 
 /**
+ * Writes logs to files in the logs directory of the external directory. Logs
+ * are written asynchronously by a {@link LogFileWriter}, rotated according to
+ * the {@code logging.file.max_size} and {@code logging.file.max_archives}
+ * configuration properties.
+ *
  * @author Morten Olav Hansen <mortenoh@gmail.com>
  */
 @Component
-public class FileLogAdapter implements LogAdapter
+public class FileLogAdapter implements LogAdapter, DisposableBean
 {
-    private String logDirectory;
+    private LogFileWriter writer;
 
-    public FileLogAdapter( LocationManager locationManager )
+    public FileLogAdapter( LocationManager locationManager, DhisConfigurationProvider configurationProvider )
     {
         if ( locationManager.externalDirectorySet() )
         {
             File externalDirectory = locationManager.getExternalDirectory();
-            this.logDirectory = externalDirectory.getAbsolutePath() + "/logs";
+
+            this.writer = new LogFileWriter( new File( externalDirectory, "logs" ).toPath(),
+                LogFileWriter.parseFileSize( configurationProvider.getProperty( ConfigurationKey.LOGGING_FILE_MAX_SIZE ) ),
+                Integer.parseInt( configurationProvider.getProperty( ConfigurationKey.LOGGING_FILE_MAX_ARCHIVES ) ),
+                LogFileWriter.DEFAULT_CAPACITY );
         }
     }
 
     @Override
     public boolean isEnabled( LogEvent event )
     {
-        if ( logDirectory == null )
+        if ( writer == null )
         {
             return false;
         }
@@ -74,28 +82,24 @@ public class FileLogAdapter implements LogAdapter
     @Override
     public void log( Log log, LoggingConfig config )
     {
-        Path path = Paths.get( logDirectory, config.getFileName() );
-        String logText = logFormat( log, config );
+        writer.append( config.getFileName(), log, config.getFileFormat() );
+    }
 
-        try
-        {
-            Files.write( path, logText.getBytes(), StandardOpenOption.CREATE, StandardOpenOption.APPEND );
-        }
-        catch ( IOException ignored )
+    @Override
+    public void destroy()
+    {
+        if ( writer != null )
         {
+            writer.close();
         }
     }
 
-    private String logFormat( Log log, LoggingConfig config )
+    /**
+     * Returns statistics of the asynchronous log file writer, such as the
+     * number of written and dropped log lines.
+     */
+    public Map<String, Object> getStatistics()
     {
-        switch ( config.getFileFormat() )
-        {
-            case TEXT:
-                return log.toString() + "\n";
-            case JSON:
-                return LoggingManager.toJson( log ) + "\n";
-            default:
-                return LoggingManager.toJson( log ) + "\n";
-        }
+        return writer != null ? writer.getStatistics() : Collections.emptyMap();
     }
 }
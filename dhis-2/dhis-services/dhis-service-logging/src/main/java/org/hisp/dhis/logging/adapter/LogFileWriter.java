@@ -0,0 +1,548 @@
+package org.hisp.dhis.logging.adapter;
+
+/*
+ * Copyright (c) 2004-2018, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import org.apache.commons.logging.LogFactory;
+import org.hisp.dhis.logging.Log;
+import org.hisp.dhis.logging.LogFormat;
+import org.hisp.dhis.logging.LoggingManager;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Asynchronous writer of log files. Log lines are appended to a bounded queue
+ * by the logging threads and drained by a single writer thread, which writes
+ * them in batches to long-lived file channels. When the queue is full, the
+ * logging thread waits for a short while before the line is dropped.
+ * <p>
+ * Files are rotated when exceeding the maximum file size, and when the first
+ * line of a new day is written. Rotated files are renamed with a numeric
+ * suffix, where {@code .1} is the most recent archive. When no archives are
+ * kept, files are appended to across days and restarts and only truncated
+ * when exceeding the maximum file size.
+ */
+public class LogFileWriter
+{
+    private static final org.apache.commons.logging.Log log = LogFactory.getLog( LogFileWriter.class );
+
+    public static final int DEFAULT_CAPACITY = 8192;
+
+    private static final int BATCH_SIZE = 512;
+
+    private static final long OFFER_TIMEOUT_MILLIS = 10;
+
+    private static final long POLL_TIMEOUT_MILLIS = 1000;
+
+    private static final long CLOSE_TIMEOUT_MILLIS = 5000;
+
+    private final Path directory;
+
+    private final long maxFileSize;
+
+    private final int maxArchives;
+
+    private final BlockingQueue<LogLine> queue;
+
+    private final Thread writerThread;
+
+    private volatile boolean running = true;
+
+    /**
+     * Open files by file name, only accessed by the writer thread.
+     */
+    private final Map<String, LogFile> files = new HashMap<>();
+
+    private final AtomicLong appendedCount = new AtomicLong();
+
+    private final AtomicLong writtenCount = new AtomicLong();
+
+    private final AtomicLong droppedCount = new AtomicLong();
+
+    private final AtomicLong backpressureCount = new AtomicLong();
+
+    private final AtomicLong batchCount = new AtomicLong();
+
+    private final AtomicLong rotationCount = new AtomicLong();
+
+    private final AtomicLong errorCount = new AtomicLong();
+
+    /**
+     * @param directory the directory of the log files.
+     * @param maxFileSize the maximum size of a log file in bytes before it is
+     *        rotated, 0 means no limit.
+     * @param maxArchives the number of rotated files to keep, 0 means that the
+     *        log file is not rotated by day and is truncated when exceeding
+     *        the maximum file size.
+     * @param capacity the capacity of the queue of lines to write.
+     */
+    public LogFileWriter( Path directory, long maxFileSize, int maxArchives, int capacity )
+    {
+        this.directory = directory;
+        this.maxFileSize = maxFileSize;
+        this.maxArchives = maxArchives;
+        this.queue = new ArrayBlockingQueue<>( capacity );
+        this.writerThread = new Thread( this::run, "dhis2-log-file-writer" );
+        this.writerThread.setDaemon( true );
+        this.writerThread.start();
+    }
+
+    // -------------------------------------------------------------------------
+    // Public methods
+    // -------------------------------------------------------------------------
+
+    /**
+     * Appends the given log to the given file. Formatting and writing happens
+     * on the writer thread.
+     *
+     * @param fileName the name of the log file.
+     * @param logEntry the log.
+     * @param format the format of the log line.
+     * @return true if the log was queued, false if it was dropped.
+     */
+    public boolean append( String fileName, Log logEntry, LogFormat format )
+    {
+        if ( !running )
+        {
+            droppedCount.incrementAndGet();
+            return false;
+        }
+
+        LogLine line = new LogLine( fileName, logEntry, format );
+
+        boolean queued = queue.offer( line );
+
+        if ( !queued )
+        {
+            backpressureCount.incrementAndGet();
+
+            try
+            {
+                queued = queue.offer( line, OFFER_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS );
+            }
+            catch ( InterruptedException ex )
+            {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        if ( queued )
+        {
+            appendedCount.incrementAndGet();
+        }
+        else
+        {
+            droppedCount.incrementAndGet();
+        }
+
+        return queued;
+    }
+
+    /**
+     * Stops accepting lines, writes the queued lines and closes the files.
+     */
+    public void close()
+    {
+        running = false;
+
+        try
+        {
+            writerThread.join( CLOSE_TIMEOUT_MILLIS );
+        }
+        catch ( InterruptedException ex )
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public Map<String, Object> getStatistics()
+    {
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put( "queued", queue.size() );
+        statistics.put( "appended", appendedCount.get() );
+        statistics.put( "written", writtenCount.get() );
+        statistics.put( "dropped", droppedCount.get() );
+        statistics.put( "backpressure", backpressureCount.get() );
+        statistics.put( "batches", batchCount.get() );
+        statistics.put( "rotations", rotationCount.get() );
+        statistics.put( "errors", errorCount.get() );
+        return statistics;
+    }
+
+    // -------------------------------------------------------------------------
+    // Writer thread
+    // -------------------------------------------------------------------------
+
+    private void run()
+    {
+        List<LogLine> batch = new ArrayList<>( BATCH_SIZE );
+
+        while ( running || !queue.isEmpty() )
+        {
+            try
+            {
+                LogLine first = queue.poll( POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS );
+
+                if ( first == null )
+                {
+                    continue;
+                }
+
+                batch.add( first );
+                queue.drainTo( batch, BATCH_SIZE - 1 );
+
+                write( batch );
+            }
+            catch ( InterruptedException ex )
+            {
+                running = false;
+            }
+            catch ( RuntimeException ex )
+            {
+                errorCount.incrementAndGet();
+                log.warn( "Failed to write log lines", ex );
+            }
+            finally
+            {
+                batch.clear();
+            }
+        }
+
+        files.values().forEach( LogFile::close );
+        files.clear();
+    }
+
+    /**
+     * Writes the given batch, grouping lines of the same file into a single
+     * write.
+     */
+    private void write( List<LogLine> batch )
+    {
+        Map<String, List<LogLine>> linesByFile = new LinkedHashMap<>();
+
+        for ( LogLine line : batch )
+        {
+            linesByFile.computeIfAbsent( line.fileName, f -> new ArrayList<>() ).add( line );
+        }
+
+        for ( Map.Entry<String, List<LogLine>> entry : linesByFile.entrySet() )
+        {
+            List<ByteBuffer> buffers = new ArrayList<>( entry.getValue().size() );
+
+            entry.getValue().forEach( line -> buffers.add( ByteBuffer.wrap( ( line.format() + '\n' ).getBytes( StandardCharsets.UTF_8 ) ) ) );
+
+            try
+            {
+                getFile( entry.getKey() ).write( buffers );
+
+                writtenCount.addAndGet( entry.getValue().size() );
+            }
+            catch ( IOException ex )
+            {
+                errorCount.incrementAndGet();
+                droppedCount.addAndGet( entry.getValue().size() );
+                log.warn( String.format( "Failed to write log file: '%s'", entry.getKey() ), ex );
+
+                LogFile file = files.remove( entry.getKey() );
+
+                if ( file != null )
+                {
+                    file.close();
+                }
+            }
+        }
+
+        batchCount.incrementAndGet();
+    }
+
+    private LogFile getFile( String fileName )
+        throws IOException
+    {
+        LogFile file = files.get( fileName );
+
+        if ( file == null )
+        {
+            Files.createDirectories( directory );
+
+            file = new LogFile( directory.resolve( fileName ) );
+            file.open();
+            files.put( fileName, file );
+        }
+
+        return file;
+    }
+
+    // -------------------------------------------------------------------------
+    // Supportive classes
+    // -------------------------------------------------------------------------
+
+    private static class LogLine
+    {
+        private final String fileName;
+
+        private final Log logEntry;
+
+        private final LogFormat format;
+
+        LogLine( String fileName, Log logEntry, LogFormat format )
+        {
+            this.fileName = fileName;
+            this.logEntry = logEntry;
+            this.format = format;
+        }
+
+        String format()
+        {
+            return LogFormat.TEXT == format ? logEntry.toString() : LoggingManager.toJson( logEntry );
+        }
+    }
+
+    /**
+     * A log file with a long-lived channel, rotated by size and by day.
+     */
+    private class LogFile
+    {
+        private final Path path;
+
+        private FileChannel channel;
+
+        private long size;
+
+        private LocalDate day;
+
+        LogFile( Path path )
+        {
+            this.path = path;
+        }
+
+        void open()
+            throws IOException
+        {
+            if ( isRotateByDay() && Files.exists( path ) && Files.size( path ) > 0 && toDate( Files.getLastModifiedTime( path ).toInstant() ).isBefore( LocalDate.now() ) )
+            {
+                archive();
+            }
+
+            channel = FileChannel.open( path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND );
+            size = channel.size();
+            day = LocalDate.now();
+        }
+
+        /**
+         * Writes the given lines using gathering writes, rotating the file
+         * before a line which would exceed the maximum file size.
+         */
+        void write( List<ByteBuffer> lines )
+            throws IOException
+        {
+            if ( isRotateByDay() && !day.equals( LocalDate.now() ) )
+            {
+                rotate();
+            }
+
+            int start = 0;
+            long pending = 0;
+
+            for ( int i = 0; i < lines.size(); i++ )
+            {
+                int length = lines.get( i ).remaining();
+
+                if ( maxFileSize > 0 && size + pending > 0 && size + pending + length > maxFileSize )
+                {
+                    write( lines, start, i );
+                    rotate();
+                    start = i;
+                    pending = 0;
+                }
+
+                pending += length;
+            }
+
+            write( lines, start, lines.size() );
+        }
+
+        private void write( List<ByteBuffer> lines, int fromIndex, int toIndex )
+            throws IOException
+        {
+            if ( fromIndex == toIndex )
+            {
+                return;
+            }
+
+            ByteBuffer[] buffers = lines.subList( fromIndex, toIndex ).toArray( new ByteBuffer[0] );
+
+            ByteBuffer last = buffers[buffers.length - 1];
+
+            while ( last.hasRemaining() )
+            {
+                size += channel.write( buffers );
+            }
+        }
+
+        private void rotate()
+            throws IOException
+        {
+            close();
+            archive();
+            open();
+            rotationCount.incrementAndGet();
+        }
+
+        /**
+         * Moves the file to the first archive, shifting existing archives and
+         * discarding the oldest. Deletes the file if no archives are kept,
+         * which only happens when the maximum file size is exceeded.
+         */
+        void archive()
+            throws IOException
+        {
+            if ( maxArchives <= 0 )
+            {
+                Files.deleteIfExists( path );
+                return;
+            }
+
+            Files.deleteIfExists( archivePath( maxArchives ) );
+
+            for ( int i = maxArchives - 1; i >= 1; i-- )
+            {
+                Path archive = archivePath( i );
+
+                if ( Files.exists( archive ) )
+                {
+                    Files.move( archive, archivePath( i + 1 ), StandardCopyOption.REPLACE_EXISTING );
+                }
+            }
+
+            if ( Files.exists( path ) )
+            {
+                Files.move( path, archivePath( 1 ), StandardCopyOption.REPLACE_EXISTING );
+            }
+        }
+
+        void close()
+        {
+            if ( channel == null )
+            {
+                return;
+            }
+
+            try
+            {
+                channel.close();
+            }
+            catch ( IOException ex )
+            {
+                log.warn( String.format( "Failed to close log file: '%s'", path ), ex );
+            }
+
+            channel = null;
+        }
+
+        /**
+         * Rotating by day is only done when archives are kept, as the log of
+         * the previous day would otherwise be discarded.
+         */
+        private boolean isRotateByDay()
+        {
+            return maxArchives > 0;
+        }
+
+        private Path archivePath( int index )
+        {
+            return path.resolveSibling( path.getFileName() + "." + index );
+        }
+
+        private LocalDate toDate( Instant instant )
+        {
+            return instant.atZone( ZoneId.systemDefault() ).toLocalDate();
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Supportive methods
+    // -------------------------------------------------------------------------
+
+    /**
+     * Parses a file size such as {@code 100MB}, {@code 512KB} or {@code 1GB}
+     * into bytes. A value without unit is interpreted as bytes.
+     *
+     * @param value the file size.
+     * @return the number of bytes.
+     * @throws IllegalArgumentException if the value is not a valid file size.
+     */
+    public static long parseFileSize( String value )
+    {
+        String size = value.trim().toUpperCase();
+
+        long multiplier = 1;
+
+        if ( size.endsWith( "KB" ) )
+        {
+            multiplier = 1024;
+        }
+        else if ( size.endsWith( "MB" ) )
+        {
+            multiplier = 1024 * 1024;
+        }
+        else if ( size.endsWith( "GB" ) )
+        {
+            multiplier = 1024 * 1024 * 1024;
+        }
+
+        String number = multiplier > 1 ? size.substring( 0, size.length() - 2 ).trim() : size;
+
+        try
+        {
+            return Long.parseLong( number ) * multiplier;
+        }
+        catch ( NumberFormatException ex )
+        {
+            throw new IllegalArgumentException( "Invalid file size: " + value, ex );
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package org.hisp.dhis.logging.adapter;
+
+/*
+ * Copyright (c) 2004-2018, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import org.hisp.dhis.logging.Log;
+import org.hisp.dhis.logging.LogFormat;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class LogFileWriterTest
+{
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path directory;
+
+    private LogFileWriter writer;
+
+    @Before
+    public void before()
+    {
+        directory = folder.getRoot().toPath().resolve( "logs" );
+    }
+
+    @After
+    public void after()
+    {
+        if ( writer != null )
+        {
+            writer.close();
+        }
+    }
+
+    @Test
+    public void testAppendAndClose()
+        throws IOException
+    {
+        writer = new LogFileWriter( directory, 0, 0, 100 );
+
+        for ( int i = 0; i < 50; i++ )
+        {
+            assertTrue( writer.append( "dhis2.log", new Log( "Message " + i ), LogFormat.TEXT ) );
+        }
+
+        writer.append( "audit.log", new Log( "Audit" ), LogFormat.TEXT );
+        writer.close();
+
+        List<String> lines = readLines( "dhis2.log" );
+
+        assertEquals( 50, lines.size() );
+        assertTrue( lines.get( 0 ).endsWith( "Message 0" ) );
+        assertTrue( lines.get( 49 ).endsWith( "Message 49" ) );
+        assertEquals( 1, readLines( "audit.log" ).size() );
+        assertEquals( 51L, writer.getStatistics().get( "written" ) );
+        assertEquals( 0L, writer.getStatistics().get( "dropped" ) );
+    }
+
+    @Test
+    public void testAppendAfterClose()
+    {
+        writer = new LogFileWriter( directory, 0, 0, 100 );
+        writer.close();
+
+        assertFalse( writer.append( "dhis2.log", new Log( "Message" ), LogFormat.TEXT ) );
+        assertEquals( 1L, writer.getStatistics().get( "dropped" ) );
+    }
+
+    @Test
+    public void testRotateBySize()
+        throws IOException
+    {
+        writer = new LogFileWriter( directory, 200, 2, 1000 );
+
+        for ( int i = 0; i < 20; i++ )
+        {
+            writer.append( "dhis2.log", new Log( "Message with some length " + i ), LogFormat.TEXT );
+        }
+
+        writer.close();
+
+        assertTrue( Files.size( directory.resolve( "dhis2.log" ) ) <= 200 );
+        assertTrue( Files.exists( directory.resolve( "dhis2.log.1" ) ) );
+        assertTrue( Files.exists( directory.resolve( "dhis2.log.2" ) ) );
+        assertFalse( Files.exists( directory.resolve( "dhis2.log.3" ) ) );
+        assertTrue( (Long) writer.getStatistics().get( "rotations" ) > 0 );
+    }
+
+    @Test
+    public void testKeepPreviousDayWithoutArchives()
+        throws IOException
+    {
+        Files.createDirectories( directory );
+        Path path = directory.resolve( "dhis2.log" );
+        Files.write( path, "Yesterday\n".getBytes( StandardCharsets.UTF_8 ) );
+        Files.setLastModifiedTime( path, FileTime.from( Instant.now().minus( 2, ChronoUnit.DAYS ) ) );
+
+        writer = new LogFileWriter( directory, 0, 0, 100 );
+        writer.append( "dhis2.log", new Log( "Today" ), LogFormat.TEXT );
+        writer.close();
+
+        List<String> lines = readLines( "dhis2.log" );
+
+        assertEquals( 2, lines.size() );
+        assertEquals( "Yesterday", lines.get( 0 ) );
+        assertTrue( lines.get( 1 ).endsWith( "Today" ) );
+        assertFalse( Files.exists( directory.resolve( "dhis2.log.1" ) ) );
+        assertEquals( 0L, writer.getStatistics().get( "rotations" ) );
+    }
+
+    @Test
+    public void testArchivePreviousDay()
+        throws IOException
+    {
+        Files.createDirectories( directory );
+        Path path = directory.resolve( "dhis2.log" );
+        Files.write( path, "Yesterday\n".getBytes( StandardCharsets.UTF_8 ) );
+        Files.setLastModifiedTime( path, FileTime.from( Instant.now().minus( 2, ChronoUnit.DAYS ) ) );
+
+        writer = new LogFileWriter( directory, 0, 1, 100 );
+        writer.append( "dhis2.log", new Log( "Today" ), LogFormat.TEXT );
+        writer.close();
+
+        assertEquals( 1, readLines( "dhis2.log" ).size() );
+        assertEquals( "Yesterday", readLines( "dhis2.log.1" ).get( 0 ) );
+    }
+
+    @Test
+    public void testTruncateBySizeWithoutArchives()
+        throws IOException
+    {
+        writer = new LogFileWriter( directory, 200, 0, 1000 );
+
+        for ( int i = 0; i < 20; i++ )
+        {
+            writer.append( "dhis2.log", new Log( "Message with some length " + i ), LogFormat.TEXT );
+        }
+
+        writer.close();
+
+        List<String> lines = readLines( "dhis2.log" );
+
+        assertTrue( Files.size( directory.resolve( "dhis2.log" ) ) <= 200 );
+        assertTrue( lines.get( lines.size() - 1 ).endsWith( "Message with some length 19" ) );
+        assertFalse( Files.exists( directory.resolve( "dhis2.log.1" ) ) );
+    }
+
+    @Test
+    public void testParseFileSize()
+    {
+        assertEquals( 100L * 1024 * 1024, LogFileWriter.parseFileSize( "100MB" ) );
+        assertEquals( 512L * 1024, LogFileWriter.parseFileSize( "512kb" ) );
+        assertEquals( 1024L * 1024 * 1024, LogFileWriter.parseFileSize( "1GB" ) );
+        assertEquals( 2048L, LogFileWriter.parseFileSize( "2048" ) );
+    }
+
+    @Test( expected = IllegalArgumentException.class )
+    public void testParseInvalidFileSize()
+    {
+        LogFileWriter.parseFileSize( "large" );
+    }
+
+    private List<String> readLines( String fileName )
+        throws IOException
+    {
+        return Files.readAllLines( directory.resolve( fileName ), StandardCharsets.UTF_8 );
+    }
+}
@@ -31,7 +31,10 @@ package org.hisp.dhis.programrule.engine;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.hisp.dhis.cache.Cache;
+import org.hisp.dhis.cache.CacheProvider;
 import org.hisp.dhis.commons.util.DebugUtils;
+import org.hisp.dhis.option.OptionSet;
 import org.hisp.dhis.organisationunit.OrganisationUnit;
 import org.hisp.dhis.organisationunit.OrganisationUnitGroupService;
 import org.hisp.dhis.program.Program;
@@ -45,7 +48,11 @@ import org.hisp.dhis.user.CurrentUserService;
 import org.hisp.dhis.user.UserAuthorityGroup;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import javax.annotation.PostConstruct;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -66,6 +73,37 @@ public class ProgramRuleEngine
 
     private static final Set<ProgramRuleActionType> IMPLEMENTABLE_TYPES = ProgramRuleActionType.getImplementedActions();
 
+    /**
+     * Cache of program rule contexts by program UID. Contexts created before
+     * the last invalidation of all contexts or of the context of their program
+     * are stale.
+     */
+    private Cache<ProgramRuleContext> programRuleContextCache;
+
+    private final AtomicLong programRuleContextVersion = new AtomicLong();
+
+    /**
+     * Version of the last invalidation of all contexts.
+     */
+    private volatile long allContextsInvalidatedVersion;
+
+    /**
+     * Version of the last invalidation of the context of a program, by
+     * program UID.
+     */
+    private final Map<String, Long> contextInvalidatedVersions = new ConcurrentHashMap<>();
+
+    /**
+     * UIDs of the metadata other than program rules and variables which the
+     * context of a program was created from, by program UID. These are the
+     * organisation unit groups and their members, and the data elements and
+     * attributes of the variables and their option sets.
+     */
+    private final Map<String, Set<String>> contextDependencies = new ConcurrentHashMap<>();
+
+    @Autowired
+    private CacheProvider cacheProvider;
+
     @Autowired
     private ProgramRuleEntityMapperService programRuleEntityMapperService;
 
@@ -87,6 +125,22 @@ public class ProgramRuleEngine
     @Autowired
     private CurrentUserService currentUserService;
 
+    /**
+     * Contexts hold mapped rules which are not serializable, so they are kept
+     * in memory. When redis is enabled, invalidations are broadcast to the
+     * other nodes.
+     */
+    @PostConstruct
+    public void init()
+    {
+        programRuleContextCache = cacheProvider.newCacheBuilder( ProgramRuleContext.class )
+            .forRegion( "programRuleContext" )
+            .expireAfterWrite( 1, TimeUnit.HOURS )
+            .withMaximumSize( 1000 )
+            .forceInMemory()
+            .build();
+    }
+
     public List<RuleEffect> evaluateEnrollment( ProgramInstance enrollment )
     {
         if ( enrollment == null )
@@ -95,16 +149,14 @@ public class ProgramRuleEngine
         }
 
         List<RuleEffect> ruleEffects = new ArrayList<>();
-        
-        List<ProgramRule> implementableProgramRules = getImplementableRules( enrollment.getProgram() );
 
-        if ( implementableProgramRules.isEmpty() ) // if implementation does not exist on back end side
+        ProgramRuleContext context = getProgramRuleContext( enrollment.getProgram() );
+
+        if ( context.rules.isEmpty() ) // if implementation does not exist on back end side
         {
             return ruleEffects;
         }
 
-        List<ProgramRuleVariable> programRuleVariables = programRuleVariableService.getProgramRuleVariable( enrollment.getProgram() );
-
         RuleEnrollment ruleEnrollment = programRuleEntityMapperService.toMappedRuleEnrollment( enrollment );
 
         List<RuleEvent> ruleEvents = programRuleEntityMapperService.toMappedRuleEvents( enrollment.getProgramStageInstances() );
@@ -113,7 +165,7 @@ public class ProgramRuleEngine
 
         try
         {
-            ruleEngine = ruleEngineBuilder( implementableProgramRules, programRuleVariables ).events( ruleEvents ).build();
+            ruleEngine = ruleEngineBuilder( context ).events( ruleEvents ).build();
 
             ruleEffects = ruleEngine.evaluate( ruleEnrollment  ).call();
 
@@ -140,15 +192,13 @@ public class ProgramRuleEngine
 
         ProgramInstance enrollment = programStageInstance.getProgramInstance();
 
-        List<ProgramRule> implementableProgramRules = getImplementableRules( enrollment.getProgram() );
+        ProgramRuleContext context = getProgramRuleContext( enrollment.getProgram() );
 
-        if ( implementableProgramRules.isEmpty() )
+        if ( context.rules.isEmpty() )
         {
             return ruleEffects;
         }
 
-        List<ProgramRuleVariable> programRuleVariables = programRuleVariableService.getProgramRuleVariable( enrollment.getProgram() );
-
         RuleEnrollment ruleEnrollment = programRuleEntityMapperService.toMappedRuleEnrollment( enrollment );
 
         List<RuleEvent> ruleEvents = programRuleEntityMapperService.toMappedRuleEvents( enrollment.getProgramStageInstances(), programStageInstance );
@@ -157,7 +207,7 @@ public class ProgramRuleEngine
 
         try
         {
-            ruleEngine = ruleEngineBuilder( implementableProgramRules, programRuleVariables ).enrollment( ruleEnrollment ).events( ruleEvents ).build();
+            ruleEngine = ruleEngineBuilder( context ).enrollment( ruleEnrollment ).events( ruleEvents ).build();
 
             ruleEffects = ruleEngine.evaluate( programRuleEntityMapperService.toMappedRuleEvent( programStageInstance )  ).call();
 
@@ -173,14 +223,135 @@ public class ProgramRuleEngine
         return ruleEffects;
     }
 
-    private RuleEngine.Builder ruleEngineBuilder( List<ProgramRule> programRules, List<ProgramRuleVariable> programRuleVariables )
+    /**
+     * Indicates whether the given program has implementable program rules with
+     * assign value actions.
+     *
+     * @param program the program.
+     * @return true if the program has rules which assign values.
+     */
+    public boolean hasAssignValueRules( Program program )
+    {
+        return getProgramRuleContext( program ).assignValueRules;
+    }
+
+    /**
+     * Invalidates the cached program rule contexts of all programs, on this
+     * and on the other nodes of a cluster.
+     */
+    public void invalidateProgramRuleContexts()
+    {
+        allContextsInvalidatedVersion = programRuleContextVersion.incrementAndGet();
+
+        programRuleContextCache.invalidateAll();
+    }
+
+    /**
+     * Invalidates the cached program rule context of the given program, on
+     * this and on the other nodes of a cluster. Invoked when the program or
+     * its program rules, actions or variables change.
+     *
+     * @param programUid the program UID.
+     */
+    public void invalidateProgramRuleContext( String programUid )
+    {
+        contextInvalidatedVersions.merge( programUid, programRuleContextVersion.incrementAndGet(), Math::max );
+
+        programRuleContextCache.invalidate( programUid );
+    }
+
+    /**
+     * Invalidates the cached program rule contexts which were created from the
+     * metadata object with the given UID, such as an organisation unit group,
+     * an organisation unit, a data element, an attribute or an option set.
+     * Only contexts created on this node are known, contexts created on other
+     * nodes only are refreshed when they expire after one hour.
+     *
+     * @param uid the metadata object UID.
+     */
+    public void invalidateProgramRuleContextsDependingOn( String uid )
+    {
+        contextDependencies.forEach( ( programUid, dependencies ) -> {
+            if ( dependencies.contains( uid ) )
+            {
+                invalidateProgramRuleContext( programUid );
+            }
+        } );
+    }
+
+    // -------------------------------------------------------------------------
+    // Supportive methods
+    // -------------------------------------------------------------------------
+
+    private RuleEngine.Builder ruleEngineBuilder( ProgramRuleContext context )
     {
-        Map<String, List<String>> supplementaryData = new HashMap<>();
+        Map<String, List<String>> supplementaryData = new HashMap<>( context.orgUnitGroupMembers );
+
+        if ( currentUserService.getCurrentUser() != null )
+        {
+            supplementaryData.put( USER, currentUserService.getCurrentUser().getUserCredentials().getUserAuthorityGroups().stream().map( UserAuthorityGroup::getUid ).collect( Collectors.toList() ) );
+        }
+
+        return RuleEngineContext
+            .builder( programRuleExpressionEvaluator )
+            .supplementaryData( supplementaryData )
+            .calculatedValueMap( inMemoryMap.getVariablesMap() )
+            .rules( context.rules )
+            .ruleVariables( context.ruleVariables )
+            .build().toEngineBuilder().triggerEnvironment( TriggerEnvironment.SERVER );
+    }
+
+    /**
+     * Returns the cached program rule context of the given program, or creates
+     * and caches a new one if there is none or the cached one is stale. A
+     * context created while metadata changes are committed is cached with a
+     * version before the invalidation, and is hence replaced on the next
+     * invocation.
+     */
+    ProgramRuleContext getProgramRuleContext( Program program )
+    {
+        long version = programRuleContextVersion.get();
+
+        ProgramRuleContext context = programRuleContextCache.getIfPresent( program.getUid() ).orElse( null );
+
+        if ( context == null || isStale( context, program.getUid() ) )
+        {
+            context = createProgramRuleContext( program, version );
+
+            programRuleContextCache.put( program.getUid(), context );
+        }
+
+        return context;
+    }
+
+    private boolean isStale( ProgramRuleContext context, String programUid )
+    {
+        return context.version < allContextsInvalidatedVersion ||
+            context.version < contextInvalidatedVersions.getOrDefault( programUid, 0L );
+    }
+
+    /**
+     * Maps the implementable program rules and the program rule variables of
+     * the given program, and loads the members of the organisation unit groups
+     * referred to by d2:inOrgUnitGroup in rule conditions.
+     */
+    private ProgramRuleContext createProgramRuleContext( Program program, long version )
+    {
+        List<ProgramRule> programRules = getImplementableRules( program );
+
+        if ( programRules.isEmpty() )
+        {
+            contextDependencies.remove( program.getUid() );
+
+            return new ProgramRuleContext( version, new ArrayList<>(), new ArrayList<>(), new HashMap<>(), false );
+        }
 
         List<String> orgUnitGroups = new ArrayList<>();
 
         List<Rule> rules = new ArrayList<>();
 
+        boolean assignValueRules = false;
+
         for ( ProgramRule programRule : programRules )
         {
             Rule rule = programRuleEntityMapperService.toMappedProgramRule( programRule );
@@ -189,6 +360,9 @@ public class ProgramRuleEngine
             {
                 rules.add( rule );
 
+                assignValueRules |= programRule.getProgramRuleActions().stream()
+                    .anyMatch( action -> ProgramRuleActionType.ASSIGN == action.getProgramRuleActionType() );
+
                 Matcher matcher = PATTERN.matcher( StringUtils.defaultIfBlank( programRule.getCondition(), "" ) );
 
                 while ( matcher.find() )
@@ -198,28 +372,80 @@ public class ProgramRuleEngine
             }
         }
 
-        if ( !orgUnitGroups.isEmpty() )
+        Set<String> dependencies = new HashSet<>();
+
+        Map<String, List<String>> orgUnitGroupMembers = new HashMap<>();
+
+        for ( String orgUnitGroup : orgUnitGroups )
         {
-            supplementaryData = orgUnitGroups.stream().collect( Collectors.toMap( g -> g,  g -> organisationUnitGroupService.getOrganisationUnitGroup( g ).getMembers()
-                .stream().map( OrganisationUnit::getUid ).collect( Collectors.toList() ) ) );
+            orgUnitGroupMembers.put( orgUnitGroup, organisationUnitGroupService.getOrganisationUnitGroup( orgUnitGroup ).getMembers()
+                .stream().map( OrganisationUnit::getUid ).collect( Collectors.toList() ) );
+
+            dependencies.add( orgUnitGroup );
+            dependencies.addAll( orgUnitGroupMembers.get( orgUnitGroup ) );
         }
 
-        if ( currentUserService.getCurrentUser() != null )
+        List<ProgramRuleVariable> programRuleVariables = programRuleVariableService.getProgramRuleVariable( program );
+
+        for ( ProgramRuleVariable variable : programRuleVariables )
         {
-            supplementaryData.put( USER, currentUserService.getCurrentUser().getUserCredentials().getUserAuthorityGroups().stream().map( UserAuthorityGroup::getUid ).collect( Collectors.toList() ) );
+            if ( variable.getDataElement() != null )
+            {
+                dependencies.add( variable.getDataElement().getUid() );
+                addDependency( dependencies, variable.getDataElement().getOptionSet() );
+            }
+
+            if ( variable.getAttribute() != null )
+            {
+                dependencies.add( variable.getAttribute().getUid() );
+                addDependency( dependencies, variable.getAttribute().getOptionSet() );
+            }
         }
 
-        return RuleEngineContext
-            .builder( programRuleExpressionEvaluator )
-            .supplementaryData( supplementaryData )
-            .calculatedValueMap( inMemoryMap.getVariablesMap() )
-            .rules( rules )
-            .ruleVariables( programRuleEntityMapperService.toMappedProgramRuleVariables( programRuleVariables ) )
-            .build().toEngineBuilder().triggerEnvironment( TriggerEnvironment.SERVER );
+        contextDependencies.put( program.getUid(), dependencies );
+
+        List<RuleVariable> ruleVariables = programRuleEntityMapperService.toMappedProgramRuleVariables( programRuleVariables );
+
+        return new ProgramRuleContext( version, rules, ruleVariables, orgUnitGroupMembers, assignValueRules );
+    }
+
+    private void addDependency( Set<String> dependencies, OptionSet optionSet )
+    {
+        if ( optionSet != null )
+        {
+            dependencies.add( optionSet.getUid() );
+        }
     }
 
     private List<ProgramRule> getImplementableRules( Program program )
     {
         return programRuleService.getImplementableProgramRules( program, IMPLEMENTABLE_TYPES );
     }
+
+    /**
+     * The rules, rule variables and organisation unit group members of a
+     * program, which are independent of the enrollment or event evaluated.
+     */
+    static final class ProgramRuleContext
+    {
+        private final long version;
+
+        private final List<Rule> rules;
+
+        private final List<RuleVariable> ruleVariables;
+
+        private final Map<String, List<String>> orgUnitGroupMembers;
+
+        private final boolean assignValueRules;
+
+        private ProgramRuleContext( long version, List<Rule> rules, List<RuleVariable> ruleVariables,
+            Map<String, List<String>> orgUnitGroupMembers, boolean assignValueRules )
+        {
+            this.version = version;
+            this.rules = rules;
+            this.ruleVariables = ruleVariables;
+            this.orgUnitGroupMembers = orgUnitGroupMembers;
+            this.assignValueRules = assignValueRules;
+        }
+    }
 }
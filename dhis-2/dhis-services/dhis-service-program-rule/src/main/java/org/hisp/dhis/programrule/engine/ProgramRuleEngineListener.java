@@ -37,29 +37,29 @@ import org.springframework.context.event.EventListener;
 public class ProgramRuleEngineListener
 {
     @Autowired
-    private ProgramRuleEngineService programRuleEngineService;
+    private ProgramRuleExecutionQueue programRuleExecutionQueue;
 
     @EventListener
     public void listenEvent( TrackedEntityInstanceEnrolledEvent event )
     {
-        programRuleEngineService.evaluate( event.getProgramInstance() );
+        programRuleExecutionQueue.submit( event.getProgramInstance() );
     }
 
     @EventListener
     public void listenEvent( DataValueUpdatedEvent event )
     {
-        programRuleEngineService.evaluate( event.getProgramStageInstance() );
+        programRuleExecutionQueue.submit( event.getProgramStageInstance() );
     }
 
     @EventListener
     public void listenEvent( ProgramStageInstanceCompletedEvent event )
     {
-        programRuleEngineService.evaluate( event.getProgramStageInstance() );
+        programRuleExecutionQueue.submit( event.getProgramStageInstance() );
     }
 
     @EventListener
     public void listenEvent( ProgramStageInstanceScheduledEvent event )
     {
-        programRuleEngineService.evaluate( event.getProgramStageInstance() );
+        programRuleExecutionQueue.submit( event.getProgramStageInstance() );
     }
 }
@@ -0,0 +1,402 @@
+package org.hisp.dhis.programrule.engine;
+
+/*
+ * Copyright (c) 2004-2018, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.hisp.dhis.commons.util.DebugUtils;
+import org.hisp.dhis.external.conf.ConfigurationKey;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
+import org.hisp.dhis.program.Program;
+import org.hisp.dhis.program.ProgramInstance;
+import org.hisp.dhis.program.ProgramInstanceService;
+import org.hisp.dhis.program.ProgramStageInstance;
+import org.hisp.dhis.program.ProgramStageInstanceService;
+import org.hisp.dhis.rules.models.RuleEffect;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Executes program rules for enrollments and events. By default rules are
+ * evaluated synchronously in the calling thread. When asynchronous execution
+ * is enabled in dhis.conf, evaluations are put on a bounded queue once the
+ * calling transaction has committed, and drained in batches by a pool of
+ * workers. Submitting blocks while the queue is full.
+ * <p>
+ * Programs with assign value rules are still evaluated synchronously unless
+ * this is disabled in dhis.conf, as the assigned values must be visible when
+ * the request returns.
+ */
+public class ProgramRuleExecutionQueue
+{
+    private static final Log log = LogFactory.getLog( ProgramRuleExecutionQueue.class );
+
+    // -------------------------------------------------------------------------
+    // Dependencies
+    // -------------------------------------------------------------------------
+
+    @Autowired
+    private ProgramRuleEngineService programRuleEngineService;
+
+    @Autowired
+    private ProgramRuleEngine programRuleEngine;
+
+    @Autowired
+    private ProgramInstanceService programInstanceService;
+
+    @Autowired
+    private ProgramStageInstanceService programStageInstanceService;
+
+    @Autowired
+    private DhisConfigurationProvider config;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    // -------------------------------------------------------------------------
+    // State
+    // -------------------------------------------------------------------------
+
+    private boolean async;
+
+    private boolean assignValueSync;
+
+    private int batchSize;
+
+    private BlockingQueue<ExecutionRequest> queue;
+
+    private ExecutorService executor;
+
+    private final AtomicLong executed = new AtomicLong();
+
+    private final AtomicLong effects = new AtomicLong();
+
+    private final AtomicLong latencyMillis = new AtomicLong();
+
+    private final long startTime = System.currentTimeMillis();
+
+    @PostConstruct
+    public void init()
+    {
+        async = config.isEnabled( ConfigurationKey.PROGRAM_RULE_ASYNC );
+        assignValueSync = config.isEnabled( ConfigurationKey.PROGRAM_RULE_ASSIGN_VALUE_SYNC );
+
+        if ( !async )
+        {
+            return;
+        }
+
+        int poolSize = Integer.parseInt( config.getProperty( ConfigurationKey.PROGRAM_RULE_ASYNC_POOL_SIZE ) );
+        int queueSize = Integer.parseInt( config.getProperty( ConfigurationKey.PROGRAM_RULE_ASYNC_QUEUE_SIZE ) );
+        batchSize = Integer.parseInt( config.getProperty( ConfigurationKey.PROGRAM_RULE_ASYNC_BATCH_SIZE ) );
+
+        queue = new ArrayBlockingQueue<>( queueSize );
+        executor = Executors.newFixedThreadPool( poolSize, new ThreadFactoryBuilder()
+            .setNameFormat( "program-rule-worker-%d" ).setDaemon( true ).build() );
+
+        for ( int i = 0; i < poolSize; i++ )
+        {
+            executor.execute( this::drain );
+        }
+
+        log.info( String.format( "Program rules are executed asynchronously by %d workers, queue size: %d, batch size: %d",
+            poolSize, queueSize, batchSize ) );
+    }
+
+    @PreDestroy
+    public void shutdown()
+    {
+        if ( executor != null )
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Submission
+    // -------------------------------------------------------------------------
+
+    /**
+     * Executes the program rules of the given enrollment.
+     *
+     * @param programInstance the enrollment.
+     */
+    public void submit( ProgramInstance programInstance )
+    {
+        if ( isSync( programInstance.getProgram() ) )
+        {
+            programRuleEngineService.evaluate( programInstance );
+        }
+        else
+        {
+            enqueueAfterCommit( new ExecutionRequest( programInstance.getProgram().getUid(), programInstance.getUid(), false ) );
+        }
+    }
+
+    /**
+     * Executes the program rules of the given event.
+     *
+     * @param programStageInstance the event.
+     */
+    public void submit( ProgramStageInstance programStageInstance )
+    {
+        Program program = programStageInstance.getProgramInstance().getProgram();
+
+        if ( isSync( program ) )
+        {
+            programRuleEngineService.evaluate( programStageInstance );
+        }
+        else
+        {
+            enqueueAfterCommit( new ExecutionRequest( program.getUid(), programStageInstance.getUid(), true ) );
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Metrics
+    // -------------------------------------------------------------------------
+
+    /**
+     * Returns the number of executions waiting in the queue.
+     */
+    public int getQueueDepth()
+    {
+        return queue != null ? queue.size() : 0;
+    }
+
+    /**
+     * Returns the number of asynchronous executions completed.
+     */
+    public long getExecutionCount()
+    {
+        return executed.get();
+    }
+
+    /**
+     * Returns the average time in milliseconds from submission until completed
+     * execution of asynchronous executions.
+     */
+    public double getAverageLatency()
+    {
+        long count = executed.get();
+
+        return count > 0 ? (double) latencyMillis.get() / count : 0d;
+    }
+
+    /**
+     * Returns the number of rule effects per second produced by asynchronous
+     * executions since startup.
+     */
+    public double getEffectsPerSecond()
+    {
+        long seconds = Math.max( 1, TimeUnit.MILLISECONDS.toSeconds( System.currentTimeMillis() - startTime ) );
+
+        return (double) effects.get() / seconds;
+    }
+
+    // -------------------------------------------------------------------------
+    // Supportive methods
+    // -------------------------------------------------------------------------
+
+    private boolean isSync( Program program )
+    {
+        return !async || ( assignValueSync && programRuleEngine.hasAssignValueRules( program ) );
+    }
+
+    /**
+     * Enqueues the given request once the current transaction has committed,
+     * so that workers see the enrollment or event, or immediately if there is
+     * no transaction.
+     */
+    private void enqueueAfterCommit( ExecutionRequest request )
+    {
+        request.securityContext = SecurityContextHolder.getContext();
+
+        if ( TransactionSynchronizationManager.isSynchronizationActive() )
+        {
+            TransactionSynchronizationManager.registerSynchronization( new TransactionSynchronizationAdapter()
+            {
+                @Override
+                public void afterCommit()
+                {
+                    enqueue( request );
+                }
+            } );
+        }
+        else
+        {
+            enqueue( request );
+        }
+    }
+
+    private void enqueue( ExecutionRequest request )
+    {
+        request.submitted = System.currentTimeMillis();
+
+        try
+        {
+            queue.put( request );
+        }
+        catch ( InterruptedException ex )
+        {
+            log.warn( String.format( "Interrupted while queueing program rule execution for: %s", request.uid ) );
+
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Takes batches of requests from the queue until interrupted.
+     */
+    private void drain()
+    {
+        while ( !Thread.currentThread().isInterrupted() )
+        {
+            List<ExecutionRequest> batch = new ArrayList<>( batchSize );
+
+            try
+            {
+                batch.add( queue.take() );
+            }
+            catch ( InterruptedException ex )
+            {
+                return;
+            }
+
+            queue.drainTo( batch, batchSize - 1 );
+
+            execute( batch );
+        }
+    }
+
+    /**
+     * Executes a batch of requests grouped by program, so that the rule
+     * context of each program is reused across its enrollments and events.
+     * Repeated requests for the same enrollment or event are executed once,
+     * as rules are evaluated against the committed state.
+     */
+    private void execute( List<ExecutionRequest> batch )
+    {
+        Map<String, Map<String, ExecutionRequest>> programRequests = batch.stream()
+            .collect( Collectors.groupingBy( r -> r.programUid, LinkedHashMap::new,
+                Collectors.toMap( r -> r.uid, r -> r, ( a, b ) -> a, LinkedHashMap::new ) ) );
+
+        for ( Map<String, ExecutionRequest> requests : programRequests.values() )
+        {
+            execute( requests.values() );
+        }
+
+        log.debug( String.format( "Executed program rule batch of size: %d, queue depth: %d, average latency: %.1f ms, effects per second: %.2f",
+            batch.size(), getQueueDepth(), getAverageLatency(), getEffectsPerSecond() ) );
+    }
+
+    private void execute( Collection<ExecutionRequest> requests )
+    {
+        for ( ExecutionRequest request : requests )
+        {
+            SecurityContextHolder.setContext( request.securityContext );
+
+            try
+            {
+                List<RuleEffect> ruleEffects = transactionTemplate.execute( status -> evaluate( request ) );
+
+                effects.addAndGet( ruleEffects.size() );
+            }
+            catch ( Exception ex )
+            {
+                log.error( String.format( "Program rule execution failed for: %s", request.uid ) );
+                log.error( DebugUtils.getStackTrace( ex ) );
+            }
+            finally
+            {
+                SecurityContextHolder.clearContext();
+
+                executed.incrementAndGet();
+                latencyMillis.addAndGet( System.currentTimeMillis() - request.submitted );
+            }
+        }
+    }
+
+    private List<RuleEffect> evaluate( ExecutionRequest request )
+    {
+        if ( request.event )
+        {
+            ProgramStageInstance programStageInstance = programStageInstanceService.getProgramStageInstance( request.uid );
+
+            return programStageInstance != null ? programRuleEngineService.evaluate( programStageInstance ) : new ArrayList<>();
+        }
+
+        ProgramInstance programInstance = programInstanceService.getProgramInstance( request.uid );
+
+        return programInstance != null ? programRuleEngineService.evaluate( programInstance ) : new ArrayList<>();
+    }
+
+    /**
+     * A queued program rule execution for an enrollment or event.
+     */
+    private static final class ExecutionRequest
+    {
+        private final String programUid;
+
+        private final String uid;
+
+        private final boolean event;
+
+        private SecurityContext securityContext;
+
+        private long submitted;
+
+        private ExecutionRequest( String programUid, String uid, boolean event )
+        {
+            this.programUid = programUid;
+            this.uid = uid;
+            this.event = event;
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package org.hisp.dhis.programrule.engine.hibernate;
+
+/*
+ * Copyright (c) 2004-2018, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import com.google.common.collect.ImmutableSet;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.hibernate.LazyInitializationException;
+import org.hibernate.SessionFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCommitDeleteEventListener;
+import org.hibernate.event.spi.PostCommitInsertEventListener;
+import org.hibernate.event.spi.PostCommitUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hisp.dhis.common.IdentifiableObject;
+import org.hisp.dhis.dataelement.DataElement;
+import org.hisp.dhis.option.Option;
+import org.hisp.dhis.option.OptionSet;
+import org.hisp.dhis.organisationunit.OrganisationUnit;
+import org.hisp.dhis.organisationunit.OrganisationUnitGroup;
+import org.hisp.dhis.program.Program;
+import org.hisp.dhis.programrule.ProgramRule;
+import org.hisp.dhis.programrule.ProgramRuleAction;
+import org.hisp.dhis.programrule.ProgramRuleVariable;
+import org.hisp.dhis.programrule.engine.ProgramRuleEngine;
+import org.hisp.dhis.trackedentity.TrackedEntityAttribute;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import javax.annotation.PostConstruct;
+import java.util.Set;
+
+/**
+ * Invalidates the program rule contexts cached by the program rule engine
+ * after changes to the metadata they are created from have been committed.
+ * Changes to programs and their program rules, program rule actions and
+ * program rule variables invalidate the context of the program. Changes to
+ * organisation unit groups, organisation units, data elements, tracked entity
+ * attributes, option sets and options invalidate the contexts which were
+ * created from them. The listener is registered with the session factory on
+ * startup, rather than through an integrator, as it invalidates the cache of
+ * the program rule engine bean.
+ */
+public class ProgramRuleContextPostCommitEventListener
+    implements PostCommitInsertEventListener, PostCommitUpdateEventListener, PostCommitDeleteEventListener
+{
+    private static final Log log = LogFactory.getLog( ProgramRuleContextPostCommitEventListener.class );
+
+    private static final Set<Class<?>> HANDLED_TYPES = ImmutableSet.of( Program.class, ProgramRule.class,
+        ProgramRuleAction.class, ProgramRuleVariable.class, OrganisationUnitGroup.class, OrganisationUnit.class,
+        DataElement.class, TrackedEntityAttribute.class, OptionSet.class, Option.class );
+
+    @Autowired
+    private SessionFactory sessionFactory;
+
+    @Autowired
+    private ProgramRuleEngine programRuleEngine;
+
+    @PostConstruct
+    public void init()
+    {
+        EventListenerRegistry registry = sessionFactory.unwrap( SessionFactoryImplementor.class )
+            .getServiceRegistry().getService( EventListenerRegistry.class );
+
+        registry.appendListeners( EventType.POST_COMMIT_INSERT, this );
+        registry.appendListeners( EventType.POST_COMMIT_UPDATE, this );
+        registry.appendListeners( EventType.POST_COMMIT_DELETE, this );
+    }
+
+    @Override
+    public void onPostInsert( PostInsertEvent event )
+    {
+        invalidate( event.getEntity() );
+    }
+
+    @Override
+    public void onPostInsertCommitFailed( PostInsertEvent event )
+    {
+    }
+
+    @Override
+    public void onPostUpdate( PostUpdateEvent event )
+    {
+        invalidate( event.getEntity() );
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed( PostUpdateEvent event )
+    {
+    }
+
+    @Override
+    public void onPostDelete( PostDeleteEvent event )
+    {
+        invalidate( event.getEntity() );
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed( PostDeleteEvent event )
+    {
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding( EntityPersister persister )
+    {
+        return HANDLED_TYPES.stream().anyMatch( type -> type.isAssignableFrom( persister.getMappedClass() ) );
+    }
+
+    private void invalidate( Object entity )
+    {
+        try
+        {
+            if ( entity instanceof Program )
+            {
+                invalidateProgram( (Program) entity );
+            }
+            else if ( entity instanceof ProgramRule )
+            {
+                invalidateProgram( ((ProgramRule) entity).getProgram() );
+            }
+            else if ( entity instanceof ProgramRuleAction )
+            {
+                ProgramRule programRule = ((ProgramRuleAction) entity).getProgramRule();
+                invalidateProgram( programRule != null ? programRule.getProgram() : null );
+            }
+            else if ( entity instanceof ProgramRuleVariable )
+            {
+                invalidateProgram( ((ProgramRuleVariable) entity).getProgram() );
+            }
+            else if ( entity instanceof Option )
+            {
+                OptionSet optionSet = ((Option) entity).getOptionSet();
+
+                if ( optionSet != null )
+                {
+                    programRuleEngine.invalidateProgramRuleContextsDependingOn( optionSet.getUid() );
+                }
+            }
+            else if ( entity instanceof OrganisationUnitGroup || entity instanceof OrganisationUnit ||
+                entity instanceof DataElement || entity instanceof TrackedEntityAttribute || entity instanceof OptionSet )
+            {
+                programRuleEngine.invalidateProgramRuleContextsDependingOn( ((IdentifiableObject) entity).getUid() );
+            }
+        }
+        catch ( LazyInitializationException ex )
+        {
+            log.debug( "Could not resolve program of " + entity.getClass().getSimpleName() + ", invalidating all contexts" );
+
+            programRuleEngine.invalidateProgramRuleContexts();
+        }
+    }
+
+    /**
+     * Invalidates the context of the given program, or all contexts if the
+     * program is not known.
+     */
+    private void invalidateProgram( Program program )
+    {
+        if ( program != null )
+        {
+            programRuleEngine.invalidateProgramRuleContext( program.getUid() );
+        }
+        else
+        {
+            programRuleEngine.invalidateProgramRuleContexts();
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package org.hisp.dhis.programrule.engine;
+
+/*
+ * Copyright (c) 2004-2018, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import org.hisp.dhis.DhisTest;
+import org.hisp.dhis.dataelement.DataElement;
+import org.hisp.dhis.dataelement.DataElementService;
+import org.hisp.dhis.program.Program;
+import org.hisp.dhis.program.ProgramService;
+import org.hisp.dhis.programrule.ProgramRule;
+import org.hisp.dhis.programrule.ProgramRuleAction;
+import org.hisp.dhis.programrule.ProgramRuleActionType;
+import org.hisp.dhis.programrule.ProgramRuleService;
+import org.hisp.dhis.programrule.ProgramRuleVariable;
+import org.hisp.dhis.programrule.ProgramRuleVariableService;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+/**
+ * Tests that the program rule contexts cached by the program rule engine are
+ * invalidated when program rule metadata changes are committed. Extends
+ * DhisTest so that changes are committed and the post commit listener runs.
+ */
+public class ProgramRuleContextCacheTest
+    extends DhisTest
+{
+    @Autowired
+    private ProgramRuleEngine programRuleEngine;
+
+    @Autowired
+    private DataElementService dataElementService;
+
+    @Autowired
+    private ProgramService programService;
+
+    @Autowired
+    private ProgramRuleService programRuleService;
+
+    @Autowired
+    private ProgramRuleVariableService programRuleVariableService;
+
+    private DataElement dataElementA;
+
+    private DataElement dataElementB;
+
+    private Program programA;
+
+    private Program programB;
+
+    private ProgramRule programRuleA;
+
+    private ProgramRuleVariable programRuleVariableA;
+
+    @Override
+    public void setUpTest()
+    {
+        dataElementA = createDataElement( 'A' );
+        dataElementB = createDataElement( 'B' );
+        dataElementService.addDataElement( dataElementA );
+        dataElementService.addDataElement( dataElementB );
+
+        programA = createProgram( 'A' );
+        programB = createProgram( 'B' );
+        programService.addProgram( programA );
+        programService.addProgram( programB );
+
+        programRuleA = createProgramRule( 'A', programA );
+        programRuleA.getProgramRuleActions().add( createAssignAction( 'A', programRuleA ) );
+        programRuleService.addProgramRule( programRuleA );
+
+        ProgramRule programRuleB = createProgramRule( 'B', programB );
+        programRuleB.getProgramRuleActions().add( createAssignAction( 'B', programRuleB ) );
+        programRuleService.addProgramRule( programRuleB );
+
+        programRuleVariableA = createProgramRuleVariable( 'A', programA );
+        programRuleVariableA.setDataElement( dataElementA );
+        programRuleVariableService.addProgramRuleVariable( programRuleVariableA );
+    }
+
+    @Override
+    public boolean emptyDatabaseAfterTest()
+    {
+        return true;
+    }
+
+    // -------------------------------------------------------------------------
+    // Tests
+    // -------------------------------------------------------------------------
+
+    @Test
+    public void testContextIsCached()
+    {
+        ProgramRuleEngine.ProgramRuleContext context = programRuleEngine.getProgramRuleContext( programA );
+
+        assertSame( context, programRuleEngine.getProgramRuleContext( programA ) );
+    }
+
+    @Test
+    public void testUpdateProgramRuleInvalidatesContext()
+    {
+        ProgramRuleEngine.ProgramRuleContext context = programRuleEngine.getProgramRuleContext( programA );
+
+        programRuleA.setCondition( "false" );
+        programRuleService.updateProgramRule( programRuleA );
+
+        assertNotSame( context, programRuleEngine.getProgramRuleContext( programA ) );
+    }
+
+    @Test
+    public void testUpdateProgramRuleRetainsContextOfOtherProgram()
+    {
+        ProgramRuleEngine.ProgramRuleContext context = programRuleEngine.getProgramRuleContext( programB );
+
+        programRuleA.setCondition( "false" );
+        programRuleService.updateProgramRule( programRuleA );
+
+        assertSame( context, programRuleEngine.getProgramRuleContext( programB ) );
+    }
+
+    @Test
+    public void testUpdateDataElementInvalidatesDependentContext()
+    {
+        ProgramRuleEngine.ProgramRuleContext contextA = programRuleEngine.getProgramRuleContext( programA );
+        ProgramRuleEngine.ProgramRuleContext contextB = programRuleEngine.getProgramRuleContext( programB );
+
+        dataElementA.setDescription( "Updated description" );
+        dataElementService.updateDataElement( dataElementA );
+
+        assertNotSame( contextA, programRuleEngine.getProgramRuleContext( programA ) );
+        assertSame( contextB, programRuleEngine.getProgramRuleContext( programB ) );
+    }
+
+    @Test
+    public void testUpdateUnrelatedDataElementRetainsContext()
+    {
+        ProgramRuleEngine.ProgramRuleContext context = programRuleEngine.getProgramRuleContext( programA );
+
+        dataElementB.setDescription( "Updated description" );
+        dataElementService.updateDataElement( dataElementB );
+
+        assertSame( context, programRuleEngine.getProgramRuleContext( programA ) );
+    }
+
+    @Test
+    public void testUpdateProgramRuleVariableInvalidatesContext()
+    {
+        ProgramRuleEngine.ProgramRuleContext context = programRuleEngine.getProgramRuleContext( programA );
+
+        programRuleVariableA.setName( "ProgramRuleVariableB" );
+        programRuleVariableService.updateProgramRuleVariable( programRuleVariableA );
+
+        assertNotSame( context, programRuleEngine.getProgramRuleContext( programA ) );
+    }
+
+    @Test
+    public void testUpdateProgramInvalidatesContext()
+    {
+        ProgramRuleEngine.ProgramRuleContext context = programRuleEngine.getProgramRuleContext( programA );
+
+        programA.setDescription( "Updated description" );
+        programService.updateProgram( programA );
+
+        assertNotSame( context, programRuleEngine.getProgramRuleContext( programA ) );
+    }
+
+    @Test
+    public void testInvalidateProgramRuleContexts()
+    {
+        ProgramRuleEngine.ProgramRuleContext context = programRuleEngine.getProgramRuleContext( programA );
+
+        programRuleEngine.invalidateProgramRuleContexts();
+
+        assertNotSame( context, programRuleEngine.getProgramRuleContext( programA ) );
+    }
+
+    // -------------------------------------------------------------------------
+    // Supportive methods
+    // -------------------------------------------------------------------------
+
+    private ProgramRuleAction createAssignAction( char uniqueCharacter, ProgramRule programRule )
+    {
+        ProgramRuleAction programRuleAction = createProgramRuleAction( uniqueCharacter, programRule );
+        programRuleAction.setProgramRuleActionType( ProgramRuleActionType.ASSIGN );
+        programRuleAction.setContent( "#{myvar}" );
+        programRuleAction.setData( "true" );
+
+        return programRuleAction;
+    }
+}
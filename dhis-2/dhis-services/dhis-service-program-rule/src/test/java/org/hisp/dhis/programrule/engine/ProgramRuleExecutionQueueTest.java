@@ -0,0 +1,150 @@
+package org.hisp.dhis.programrule.engine;
+
+/*
+ * Copyright (c) 2004-2018, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import org.hisp.dhis.DhisConvenienceTest;
+import org.hisp.dhis.external.conf.ConfigurationKey;
+import org.hisp.dhis.external.conf.DhisConfigurationProvider;
+import org.hisp.dhis.program.Program;
+import org.hisp.dhis.program.ProgramInstance;
+import org.hisp.dhis.program.ProgramStageInstance;
+import org.hisp.dhis.program.ProgramStageInstanceService;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnit;
+import org.mockito.junit.MockitoRule;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class ProgramRuleExecutionQueueTest extends DhisConvenienceTest
+{
+    @Rule
+    public MockitoRule mockitoRule = MockitoJUnit.rule();
+
+    @Mock
+    private ProgramRuleEngineService programRuleEngineService;
+
+    @Mock
+    private ProgramRuleEngine programRuleEngine;
+
+    @Mock
+    private ProgramStageInstanceService programStageInstanceService;
+
+    @Mock
+    private DhisConfigurationProvider config;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @InjectMocks
+    private ProgramRuleExecutionQueue queue;
+
+    private Program program;
+
+    private ProgramStageInstance programStageInstance;
+
+    @Before
+    public void initTest()
+    {
+        program = createProgram( 'A' );
+
+        ProgramInstance programInstance = new ProgramInstance();
+        programInstance.setAutoFields();
+        programInstance.setProgram( program );
+
+        programStageInstance = new ProgramStageInstance();
+        programStageInstance.setAutoFields();
+        programStageInstance.setProgramInstance( programInstance );
+
+        when( config.getProperty( ConfigurationKey.PROGRAM_RULE_ASYNC_POOL_SIZE ) ).thenReturn( "1" );
+        when( config.getProperty( ConfigurationKey.PROGRAM_RULE_ASYNC_QUEUE_SIZE ) ).thenReturn( "10" );
+        when( config.getProperty( ConfigurationKey.PROGRAM_RULE_ASYNC_BATCH_SIZE ) ).thenReturn( "10" );
+        when( config.isEnabled( ConfigurationKey.PROGRAM_RULE_ASSIGN_VALUE_SYNC ) ).thenReturn( true );
+
+        when( programStageInstanceService.getProgramStageInstance( programStageInstance.getUid() ) ).thenReturn( programStageInstance );
+        when( programRuleEngineService.evaluate( any( ProgramStageInstance.class ) ) ).thenReturn( new ArrayList<>() );
+        when( transactionTemplate.execute( any() ) ).thenAnswer( invocation ->
+            ( (TransactionCallback<?>) invocation.getArgument( 0 ) ).doInTransaction( null ) );
+    }
+
+    @After
+    public void tearDownTest()
+    {
+        queue.shutdown();
+    }
+
+    @Test
+    public void testSynchronousExecution()
+    {
+        when( config.isEnabled( ConfigurationKey.PROGRAM_RULE_ASYNC ) ).thenReturn( false );
+
+        queue.init();
+        queue.submit( programStageInstance );
+
+        verify( programRuleEngineService ).evaluate( programStageInstance );
+        verify( programStageInstanceService, never() ).getProgramStageInstance( any( String.class ) );
+        assertEquals( 0, queue.getExecutionCount() );
+    }
+
+    @Test
+    public void testAsynchronousExecution()
+    {
+        when( config.isEnabled( ConfigurationKey.PROGRAM_RULE_ASYNC ) ).thenReturn( true );
+        when( programRuleEngine.hasAssignValueRules( program ) ).thenReturn( false );
+
+        queue.init();
+        queue.submit( programStageInstance );
+
+        verify( programRuleEngineService, timeout( 5000 ) ).evaluate( programStageInstance );
+        verify( programStageInstanceService ).getProgramStageInstance( programStageInstance.getUid() );
+    }
+
+    @Test
+    public void testAssignValueRulesExecutedSynchronously()
+    {
+        when( config.isEnabled( ConfigurationKey.PROGRAM_RULE_ASYNC ) ).thenReturn( true );
+        when( programRuleEngine.hasAssignValueRules( program ) ).thenReturn( true );
+
+        queue.init();
+        queue.submit( programStageInstance );
+
+        verify( programRuleEngineService ).evaluate( programStageInstance );
+        verify( programStageInstanceService, never() ).getProgramStageInstance( any( String.class ) );
+    }
+}
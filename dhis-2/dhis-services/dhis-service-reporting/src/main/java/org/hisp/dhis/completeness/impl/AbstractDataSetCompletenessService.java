@@ -45,6 +45,7 @@ import org.hisp.dhis.dataset.DataSet;
 import org.hisp.dhis.dataset.DataSetService;
 import org.hisp.dhis.organisationunit.OrganisationUnit;
 import org.hisp.dhis.organisationunit.OrganisationUnitGroup;
+import org.hisp.dhis.organisationunit.OrganisationUnitHierarchy;
 import org.hisp.dhis.organisationunit.OrganisationUnitService;
 import org.hisp.dhis.period.Period;
 import org.hisp.dhis.period.PeriodService;
@@ -122,8 +123,7 @@ public abstract class AbstractDataSetCompletenessService
     {
         final Period period = periodService.getPeriod( periodId );
 
-        final Set<Long> children = organisationUnitService.getOrganisationUnitHierarchy().getChildren(
-            organisationUnitId );
+        final OrganisationUnitHierarchy hierarchy = organisationUnitService.getOrganisationUnitHierarchy();
 
         final List<DataSet> dataSets = dataSetService.getAllDataSets();
 
@@ -136,7 +136,7 @@ public abstract class AbstractDataSetCompletenessService
             final List<Long> periodsBetweenDates = getIdentifiers( 
                 periodService.getPeriodsBetweenDates( dataSet.getPeriodType(), period.getStartDate(), period.getEndDate() ) );
 
-            final Set<Long> relevantSources = getRelevantSources( dataSet, children, groups );
+            final Set<Long> relevantSources = getRelevantSources( dataSet, hierarchy, organisationUnitId, groups );
 
             final DataSetCompletenessResult result = new DataSetCompletenessResult();
 
@@ -175,16 +175,15 @@ public abstract class AbstractDataSetCompletenessService
         
         final Set<OrganisationUnitGroup> groups = groupIds != null ? Sets.newHashSet( idObjectManager.getObjects( OrganisationUnitGroup.class, groupIds ) ) : null;
         
+        final OrganisationUnitHierarchy hierarchy = organisationUnitService.getOrganisationUnitHierarchy();
+
         final List<DataSetCompletenessResult> results = new ArrayList<>();
         
         for ( final Long unitId : organisationUnitIds )
         {
             final OrganisationUnit unit = orgUnits.get( unitId );
 
-            final Set<Long> children = organisationUnitService.getOrganisationUnitHierarchy().getChildren(
-                unit.getId() );
-
-            final Set<Long> relevantSources = getRelevantSources( dataSet, children, groups );
+            final Set<Long> relevantSources = getRelevantSources( dataSet, hierarchy, unit.getId(), groups );
 
             final DataSetCompletenessResult result = getDataSetCompleteness( period, periodsBetweenDates, unit, relevantSources, dataSet );
 
@@ -223,7 +222,12 @@ public abstract class AbstractDataSetCompletenessService
         return result;
     }
 
-    private Set<Long> getRelevantSources( DataSet dataSet, Set<Long> sources, Set<OrganisationUnitGroup> groups )
+    /**
+     * Returns the sources of the given data set which are in the subtree of
+     * the given organisation unit and are members of all of the given groups.
+     */
+    private Set<Long> getRelevantSources( DataSet dataSet, OrganisationUnitHierarchy hierarchy, long organisationUnitId,
+        Set<OrganisationUnitGroup> groups )
     {
         Set<Long> dataSetSources = new HashSet<>( getIdentifiers( dataSet.getSources() ) );
 
@@ -236,6 +240,8 @@ public abstract class AbstractDataSetCompletenessService
             }
         }
 
-        return Sets.intersection( dataSetSources, sources );
+        dataSetSources.removeIf( id -> !hierarchy.isDescendant( id, organisationUnitId ) );
+
+        return dataSetSources;
     }
 }
@@ -81,6 +81,8 @@ import org.hisp.dhis.period.PeriodType;
 import org.hisp.dhis.program.AnalyticsType;
 import org.hisp.dhis.program.ProgramIndicator;
 import org.hisp.dhis.scheduling.JobConfiguration;
+import org.hisp.dhis.scheduling.WorkQueue;
+import org.hisp.dhis.scheduling.WorkQueueResult;
 import org.hisp.dhis.scheduling.parameters.PredictorJobParameters;
 import org.hisp.dhis.system.notification.NotificationLevel;
 import org.hisp.dhis.system.notification.Notifier;
@@ -137,6 +139,9 @@ public class DefaultPredictionService
     @Autowired
     private BatchHandlerFactory batchHandlerFactory;
 
+    @Autowired
+    private WorkQueue workQueue;
+
     public void setAnalyticsService( AnalyticsService analyticsService )
     {
         this.analyticsService = analyticsService;
@@ -175,7 +180,7 @@ public class DefaultPredictionService
         {
             notifier.notify( jobId, NotificationLevel.INFO, "Making predictions", false );
 
-            predictionSummary = predictInternal( startDate, endDate, predictors, predictorGroups );
+            predictionSummary = predictInternal( startDate, endDate, predictors, predictorGroups, jobId );
 
             notifier.update( jobId, NotificationLevel.INFO, "Prediction done", true )
                 .addJobSummary( jobId, predictionSummary, PredictionSummary.class );
@@ -192,7 +197,8 @@ public class DefaultPredictionService
         return predictionSummary;
     }
 
-    private PredictionSummary predictInternal( Date startDate, Date endDate, List<String> predictors, List<String> predictorGroups )
+    private PredictionSummary predictInternal( Date startDate, Date endDate, List<String> predictors, List<String> predictorGroups,
+        JobConfiguration jobId )
     {
         List<Predictor> predictorList = new ArrayList<>();
 
@@ -222,9 +228,20 @@ public class DefaultPredictionService
 
         log.info( "Running " + predictorList.size() + " predictors from " + startDate.toString() + " to " + endDate.toString() );
 
-        for ( Predictor predictor : predictorList )
+        // Tasks are run by other nodes without the current user, which decides
+        // the stored by value and the org unit boundary, so only distribute
+        // predictions which are run by the system, such as scheduled jobs
+
+        if ( workQueue.isEnabled() && predictorList.size() > 1 && currentUserService.getCurrentUser() == null )
         {
-            predict( predictor, startDate, endDate, predictionSummary );
+            predictDistributed( predictorList, startDate, endDate, predictionSummary, jobId );
+        }
+        else
+        {
+            for ( Predictor predictor : predictorList )
+            {
+                predict( predictor, startDate, endDate, predictionSummary );
+            }
         }
 
         log.info( "Finished predictors from " + startDate.toString() + " to " + endDate.toString() + ": " + predictionSummary.toString() );
@@ -232,6 +249,29 @@ public class DefaultPredictionService
         return predictionSummary;
     }
 
+    /**
+     * Runs the given predictors by distributing one task per predictor to the
+     * nodes of the cluster through the {@link WorkQueue}. The predictions are
+     * made without a current user, so this must only be used for predictions
+     * run by the system.
+     */
+    private void predictDistributed( List<Predictor> predictorList, Date startDate, Date endDate,
+        PredictionSummary predictionSummary, JobConfiguration jobId )
+    {
+        List<String> payloads = predictorList.stream()
+            .map( predictor -> PredictorTaskHandler.getPayload( predictor, startDate, endDate ) )
+            .collect( Collectors.toList() );
+
+        WorkQueueResult result = workQueue.execute( jobId, PredictorTaskHandler.TASK_TYPE, payloads );
+
+        result.getResults().forEach( r -> PredictorTaskHandler.addResult( predictionSummary, r ) );
+
+        if ( !result.isSuccess() )
+        {
+            throw new IllegalStateException( "Predictions failed: " + result.getErrors() );
+        }
+    }
+
     @Override
     public void predict( Predictor predictor, Date startDate, Date endDate, PredictionSummary predictionSummary )
     {
@@ -336,7 +376,8 @@ public class DefaultPredictionService
                             Map<DimensionalItemObject, Double> nonAggregateValueMap = combine( nonAggregateSampleMap.get( aoc ), nonAggregateSampleMapNonAoc );
 
                             Double value = expressionService.getExpressionValueRegEx( generator, nonAggregateValueMap,
-                                constantMap, null, period.getDaysInPeriod(), aggregateValueMap );
+                                expressionService.getItemValueMap( nonAggregateValueMap ), constantMap, null,
+                                period.getDaysInPeriod(), aggregateValueMap );
 
                             if ( value != null && !value.isNaN() && !value.isInfinite() &&
                                 !dataValueIsZeroAndInsignificant( Double.toString( value ), outputDataElement ) )
@@ -465,22 +506,28 @@ public class DefaultPredictionService
 
         if ( dataMap != null )
         {
-            for ( String aggregate : aggregates )
+            List<Expression> expressions = aggregates.stream()
+                .map( aggregate -> new Expression( aggregate, "Aggregated", missingValueStrategy ) )
+                .collect( Collectors.toList() );
+
+            for ( Period period : samplePeriods )
             {
-                Expression expression = new Expression( aggregate, "Aggregated", missingValueStrategy );
+                MapMap<String, DimensionalItemObject, Double> periodValues = dataMap.get( period );
 
-                for ( Period period : samplePeriods )
+                if ( periodValues != null )
                 {
-                    MapMap<String, DimensionalItemObject, Double> periodValues = dataMap.get( period );
-
-                    if ( periodValues != null )
+                    for ( String aoc : periodValues.keySet() )
                     {
-                        for ( String aoc : periodValues.keySet() )
+                        Map<DimensionalItemObject, Double> valueMap = periodValues.get( aoc );
+
+                        Map<String, Double> itemValueMap = expressionService.getItemValueMap( valueMap );
+
+                        for ( Expression expression : expressions )
                         {
-                            Double value = expressionService.getExpressionValueRegEx( expression,
-                                periodValues.get( aoc ), constantMap, null, period.getDaysInPeriod() );
+                            Double value = expressionService.getExpressionValueRegEx( expression, valueMap,
+                                itemValueMap, constantMap, null, period.getDaysInPeriod(), null );
 
-                            result.putValue( aoc, aggregate, value );
+                            result.putValue( aoc, expression.getExpression(), value );
                         }
                     }
                 }
@@ -711,8 +758,6 @@ public class DefaultPredictionService
         params.setOrganisationUnits( new HashSet<>( orgUnits ) );
         params.setReturnParentOrgUnit( true );
 
-        List<DeflatedDataValue> deflatedDataValues = dataValueService.getDeflatedDataValues( params );
-
         Map<Long, DataElement> dataElementLookup = dataElements.stream().collect( Collectors.toMap( DataElement::getId, de -> de ) );
         Map<String, DataElementOperand> dataElementOperandLookup = dataElementOperands.stream().collect(
             Collectors.toMap( deo -> deo.getDataElement().getId() + "." + deo.getCategoryOptionCombo().getId(), deo -> deo ) );
@@ -722,21 +767,15 @@ public class DefaultPredictionService
 
         Map4<OrganisationUnit, Period, String, DimensionalItemObject, Double> dataValues = new Map4<>();
 
-        for ( DeflatedDataValue dv : deflatedDataValues )
-        {
+        dataValueService.getDeflatedDataValues( params, dv -> {
             DataElement dataElement = dataElementLookup.get( dv.getDataElementId() );
             DataElementOperand dataElementOperand = dataElementOperandLookup.get( dv.getDataElementId() + "." + dv.getCategoryOptionComboId() );
             Period p = periodLookup.get( dv.getPeriodId() );
             OrganisationUnit orgUnit = orgUnitLookup.get( dv.getSourceId() );
-            CategoryOptionCombo attributeOptionCombo = aocLookup.get( dv.getAttributeOptionComboId() );
             String stringValue = dv.getValue();
 
-            if ( attributeOptionCombo == null )
-            {
-                attributeOptionCombo = categoryService.getCategoryOptionCombo( dv.getAttributeOptionComboId() );
-
-                aocLookup.put( dv.getAttributeOptionComboId(), attributeOptionCombo );
-            }
+            CategoryOptionCombo attributeOptionCombo = aocLookup.computeIfAbsent(
+                dv.getAttributeOptionComboId(), categoryService::getCategoryOptionCombo );
 
             if ( dataElement != null )
             {
@@ -747,7 +786,7 @@ public class DefaultPredictionService
             {
                 addAggregateDataValue( dataValues, orgUnit, p, attributeOptionCombo, dataElementOperand, stringValue );
             }
-        }
+        } );
 
         return dataValues;
     }
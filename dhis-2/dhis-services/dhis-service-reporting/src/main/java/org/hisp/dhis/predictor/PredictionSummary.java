@@ -90,6 +90,19 @@ public class PredictionSummary extends AbstractWebMessageResponse
         unchanged += 1;
     }
 
+    /**
+     * Adds the given counts, typically from predictions made elsewhere, to
+     * this summary.
+     */
+    public void add( int predictors, int inserted, int updated, int deleted, int unchanged )
+    {
+        this.predictors += predictors;
+        this.inserted += inserted;
+        this.updated += updated;
+        this.deleted += deleted;
+        this.unchanged += unchanged;
+    }
+
     public int getPredictions()
     {
         return inserted + updated + unchanged;
@@ -0,0 +1,121 @@
+package org.hisp.dhis.predictor;
+
+/*
+ * Copyright (c) 2004-2018, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import org.hisp.dhis.scheduling.WorkTaskHandler;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Date;
+
+/**
+ * Runs a single predictor on behalf of a prediction job running on another
+ * node of the cluster.
+ * <p>
+ * The payload is on the format <code>{predictor uid};{start date};{end date}</code>
+ * where dates are given in milliseconds, and the result is the
+ * {@link PredictionSummary} counts on the format of
+ * {@link #getResult(PredictionSummary)}.
+ */
+public class PredictorTaskHandler
+    implements WorkTaskHandler
+{
+    public static final String TASK_TYPE = "predictor";
+
+    private static final String SEP = ";";
+
+    @Autowired
+    private PredictorService predictorService;
+
+    @Autowired
+    private PredictionService predictionService;
+
+    // -------------------------------------------------------------------------
+    // WorkTaskHandler implementation
+    // -------------------------------------------------------------------------
+
+    @Override
+    public String getTaskType()
+    {
+        return TASK_TYPE;
+    }
+
+    @Override
+    @Transactional
+    public String execute( String payload )
+    {
+        String[] parts = payload.split( SEP );
+
+        Predictor predictor = predictorService.getPredictor( parts[0] );
+
+        if ( predictor == null )
+        {
+            throw new IllegalArgumentException( "Predictor does not exist: " + parts[0] );
+        }
+
+        PredictionSummary predictionSummary = new PredictionSummary();
+
+        predictionService.predict( predictor, new Date( Long.parseLong( parts[1] ) ),
+            new Date( Long.parseLong( parts[2] ) ), predictionSummary );
+
+        return getResult( predictionSummary );
+    }
+
+    // -------------------------------------------------------------------------
+    // Supportive methods
+    // -------------------------------------------------------------------------
+
+    /**
+     * Returns the task payload for the given predictor and dates.
+     */
+    public static String getPayload( Predictor predictor, Date startDate, Date endDate )
+    {
+        return predictor.getUid() + SEP + startDate.getTime() + SEP + endDate.getTime();
+    }
+
+    /**
+     * Returns the task result for the given prediction summary.
+     */
+    public static String getResult( PredictionSummary summary )
+    {
+        return summary.getPredictors() + SEP + summary.getInserted() + SEP + summary.getUpdated() + SEP +
+            summary.getDeleted() + SEP + summary.getUnchanged();
+    }
+
+    /**
+     * Adds the counts of the given task result to the given prediction summary.
+     */
+    public static void addResult( PredictionSummary summary, String result )
+    {
+        String[] counts = result.split( SEP );
+
+        summary.add( Integer.parseInt( counts[0] ), Integer.parseInt( counts[1] ), Integer.parseInt( counts[2] ),
+            Integer.parseInt( counts[3] ), Integer.parseInt( counts[4] ) );
+    }
+}
@@ -30,7 +30,6 @@ package org.hisp.dhis.validation;
 
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
-import org.apache.commons.lang3.ObjectUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.hisp.dhis.analytics.AnalyticsService;
@@ -40,8 +39,6 @@ import org.hisp.dhis.category.CategoryService;
 import org.hisp.dhis.common.DimensionalItemObject;
 import org.hisp.dhis.common.DimensionalObject;
 import org.hisp.dhis.common.Grid;
-import org.hisp.dhis.common.MapMap;
-import org.hisp.dhis.common.MapMapMap;
 import org.hisp.dhis.commons.util.DebugUtils;
 import org.hisp.dhis.dataelement.DataElement;
 import org.hisp.dhis.dataelement.DataElementOperand;
@@ -58,6 +55,7 @@ import org.hisp.dhis.system.util.MathUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.HashMap;
@@ -118,11 +116,9 @@ public class DataValidationTask
     private ValidationRuleExtended ruleX;   // Current rule extended.
 
     // Data for current period and all rules being evaluated:
-    private MapMapMap<Long, String, DimensionalItemObject, Double> dataMap;
+    private ValidationValueTable dataValues;
 
-    private MapMapMap<Long, String, DimensionalItemObject, Double> eventMap;
-
-    private MapMapMap<Long, String, DimensionalItemObject, Double> slidingWindowEventMap;
+    private ValidationValueTable slidingWindowValues;
 
     public void init( List<OrganisationUnit> orgUnits, ValidationRunContext context, AnalyticsService analyticsService )
     {
@@ -314,18 +310,26 @@ public class DataValidationTask
      */
     private void getData()
     {
-        getDataMap();
+        List<DimensionalItemObject> items = new ArrayList<>();
+        items.addAll( periodTypeX.getDataElements() );
+        items.addAll( periodTypeX.getDataElementOperands() );
+        items.addAll( periodTypeX.getEventItems() );
+        items.addAll( periodTypeX.getEventItemsWithoutAttributeOptions() );
+
+        dataValues = new ValidationValueTable(
+            orgUnits.stream().map( OrganisationUnit::getId ).collect( Collectors.toList() ), items );
 
-        slidingWindowEventMap = getEventMapForSlidingWindow( true, periodTypeX.getEventItems() );
-        slidingWindowEventMap
-            .putMap( getEventMapForSlidingWindow( false, periodTypeX.getEventItemsWithoutAttributeOptions() ) );
+        addDataValues();
 
-        slidingWindowEventMap.putMap( dataMap );
+        slidingWindowValues = new ValidationValueTable( dataValues );
 
-        eventMap = getEventMap( true, periodTypeX.getEventItems() );
-        eventMap.putMap( getEventMap( false, periodTypeX.getEventItemsWithoutAttributeOptions() ) );
+        addEventValuesForSlidingWindow( true, periodTypeX.getEventItems() );
+        addEventValuesForSlidingWindow( false, periodTypeX.getEventItemsWithoutAttributeOptions() );
 
-        dataMap.putMap( eventMap );
+        slidingWindowValues.putAll( dataValues );
+
+        addEventValues( true, periodTypeX.getEventItems() );
+        addEventValues( false, periodTypeX.getEventItemsWithoutAttributeOptions() );
     }
 
     /**
@@ -344,11 +348,11 @@ public class DataValidationTask
         }
         else if ( slidingWindow )
         {
-            return getExpressionValueMap( expression, slidingWindowEventMap );
+            return getExpressionValueMap( expression, slidingWindowValues );
         }
         else
         {
-            return getExpressionValueMap( expression, dataMap );
+            return getExpressionValueMap( expression, dataValues );
         }
     }
 
@@ -425,60 +429,84 @@ public class DataValidationTask
 
     /**
      * Evaluates an expression, returning a map of values by attribute option
-     * combo.
+     * combo. Values without attribute option combo are used for all
+     * attribute option combos.
      *
      * @param expression expression to evaluate.
-     * @param valueMap   Map of value maps, by attribute option combo.
+     * @param values     table of values.
      * @return map of values.
      */
-    private Map<String, Double> getExpressionValueMap( Expression expression,
-        MapMapMap<Long, String, DimensionalItemObject, Double> valueMap )
+    private Map<String, Double> getExpressionValueMap( Expression expression, ValidationValueTable values )
     {
         Map<String, Double> expressionValueMap = new HashMap<>();
 
-        Map<DimensionalItemObject, Double> nonAocValues = valueMap.get( orgUnitId ) == null
-            ? null : valueMap.get( orgUnitId ).get( NON_AOC );
-
-        MapMap<String, DimensionalItemObject, Double> aocValues = valueMap.get( orgUnitId );
+        int orgUnitIndex = values.getOrgUnitIndex( orgUnitId );
 
-        if ( aocValues == null )
+        if ( !values.hasRows( orgUnitIndex ) )
         {
-            if ( nonAocValues == null )
-            {
-                return expressionValueMap;
-            }
-            else
-            {
-                aocValues = new MapMap<>();
-                aocValues.putEntries( context.getDefaultAttributeCombo().getUid(), nonAocValues );
-            }
+            return expressionValueMap;
         }
 
-        for ( Map.Entry<String, Map<DimensionalItemObject, Double>> entry : aocValues.entrySet() )
+        int nonAocRow = values.getRow( orgUnitIndex, values.getAocIndex( NON_AOC ) );
+
+        for ( int aocIndex = 0; aocIndex < values.getAocCount(); aocIndex++ )
         {
-            Map<DimensionalItemObject, Double> values = entry.getValue();
+            int row = values.getRow( orgUnitIndex, aocIndex );
 
-            if ( nonAocValues != null )
+            if ( row < 0 )
             {
-                values.putAll( nonAocValues );
+                continue;
             }
 
-            Double value = expressionService.getExpressionValueRegEx( expression, values,
+            Double value = expressionService.getExpressionValueRegEx( expression,
+                itemKey -> getItemValue( values, row, nonAocRow, itemKey ),
+                () -> getItemValueMap( values, row, nonAocRow ),
                 context.getConstantMap(), null, period.getDaysInPeriod() );
 
             if ( MathUtils.isValidDouble( value ) )
             {
-                expressionValueMap.put( entry.getKey(), value );
+                expressionValueMap.put( values.getAoc( aocIndex ), value );
             }
         }
 
         return expressionValueMap;
     }
 
+    /**
+     * Gets the value of an item for an attribute option combo row, taking
+     * any value without attribute option combo first.
+     *
+     * @return the value, or NaN if missing.
+     */
+    private double getItemValue( ValidationValueTable values, int row, int nonAocRow, String itemKey )
+    {
+        int itemIndex = values.getItemIndex( itemKey );
+
+        double value = values.getValue( nonAocRow, itemIndex );
+
+        return !Double.isNaN( value ) ? value : values.getValue( row, itemIndex );
+    }
+
+    /**
+     * Gets the values of an attribute option combo row as a map, including
+     * any values without attribute option combo.
+     */
+    private Map<DimensionalItemObject, Double> getItemValueMap( ValidationValueTable values, int row, int nonAocRow )
+    {
+        Map<DimensionalItemObject, Double> valueMap = values.getValueMap( row );
+
+        if ( nonAocRow >= 0 )
+        {
+            valueMap.putAll( values.getValueMap( nonAocRow ) );
+        }
+
+        return valueMap;
+    }
+
     /**
      * Gets data values for this task.
      */
-    private void getDataMap()
+    private void addDataValues()
     {
         DataExportParams params = new DataExportParams();
         params.setDataElements( periodTypeX.getDataElements() );
@@ -494,69 +522,45 @@ public class DataValidationTask
             params.setAttributeOptionCombos( Sets.newHashSet( context.getAttributeCombo() ) );
         }
 
-        List<DeflatedDataValue> dataValues = dataValueService.getDeflatedDataValues( params );
-
-        dataMap = new MapMapMap<>();
+        dataValueService.getDeflatedDataValues( params, this::addDataValue );
+    }
 
-        MapMapMap<Long, String, DimensionalItemObject, Long> checkForDuplicates = new MapMapMap<>();
+    /**
+     * Adds a single data value streamed from the database for this task.
+     */
+    private void addDataValue( DeflatedDataValue dv )
+    {
+        String valueString = dv.getValue();
+        double value;
 
-        for ( DeflatedDataValue dv : dataValues )
+        try
         {
-            DataElement dataElement = periodTypeX.getDataElementIdMap().get( dv.getDataElementId() );
-            String deoIdKey = periodTypeX.getDeoIds( dv.getDataElementId(), dv.getCategoryOptionComboId() );
-            DataElementOperand dataElementOperand = periodTypeX.getDataElementOperandIdMap().get( deoIdKey );
-            Period p = getPeriod( dv.getPeriodId() );
-            long orgUnitId = dv.getSourceId();
-            String attributeOptionComboUid = getAttributeOptionCombo( dv.getAttributeOptionComboId() ).getUid();
-            String valueString = dv.getValue();
-            Double value;
-
-            try
-            {
-                value = Double.parseDouble( valueString );
-            }
-            catch ( NumberFormatException | NullPointerException e )
-            {
-                continue;
-            }
-
-            if ( dataElement != null )
-            {
-                addValueToDataMap( orgUnitId, attributeOptionComboUid, dataElement, value, p, checkForDuplicates );
-            }
-
-            if ( dataElementOperand != null )
-            {
-                addValueToDataMap( orgUnitId, attributeOptionComboUid, dataElementOperand, value, p,
-                    checkForDuplicates );
-            }
+            value = Double.parseDouble( valueString );
+        }
+        catch ( NumberFormatException | NullPointerException e )
+        {
+            return;
         }
-    }
 
-    private void addValueToDataMap( long orgUnitId, String aocUid, DimensionalItemObject dimItemObject,
-        Double value, Period p, MapMapMap<Long, String, DimensionalItemObject, Long> checkForDuplicates )
-    {
-        double existingValue = ObjectUtils.firstNonNull( dataMap.getValue( orgUnitId, aocUid, dimItemObject ), 0.0 );
+        DataElement dataElement = periodTypeX.getDataElementIdMap().get( dv.getDataElementId() );
+        String deoIdKey = periodTypeX.getDeoIds( dv.getDataElementId(), dv.getCategoryOptionComboId() );
+        DataElementOperand dataElementOperand = periodTypeX.getDataElementOperandIdMap().get( deoIdKey );
+        Period p = getPeriod( dv.getPeriodId() );
+        long orgUnitId = dv.getSourceId();
+        String attributeOptionComboUid = getAttributeOptionCombo( dv.getAttributeOptionComboId() ).getUid();
 
         long periodInterval = p.getEndDate().getTime() - p.getStartDate().getTime();
 
-        Long existingPeriodInterval = checkForDuplicates.getValue( orgUnitId, aocUid, dimItemObject );
-
-        if ( existingPeriodInterval != null )
+        if ( dataElement != null )
         {
-            if ( existingPeriodInterval < periodInterval )
-            {
-                return; // Do not overwrite the previous value if for a shorter interval
-            }
-            else if ( existingPeriodInterval > periodInterval )
-            {
-                existingValue = 0.0; // Overwrite previous value if for a longer interval
-            }
+            dataValues.addDataValue( orgUnitId, attributeOptionComboUid, dataElement, value, periodInterval );
         }
 
-        dataMap.putEntry( orgUnitId, aocUid, dimItemObject, value + existingValue );
-
-        checkForDuplicates.putEntry( orgUnitId, aocUid, dimItemObject, periodInterval );
+        if ( dataElementOperand != null )
+        {
+            dataValues.addDataValue( orgUnitId, attributeOptionComboUid, dataElementOperand, value,
+                periodInterval );
+        }
     }
 
     /**
@@ -564,12 +568,11 @@ public class DataValidationTask
      *
      * @param hasAttributeOptions whether the event data has attribute options.
      */
-    private MapMapMap<Long, String, DimensionalItemObject, Double> getEventMap(
-        boolean hasAttributeOptions, Set<DimensionalItemObject> eventItems )
+    private void addEventValues( boolean hasAttributeOptions, Set<DimensionalItemObject> eventItems )
     {
         if ( eventItems.isEmpty() )
         {
-            return new MapMapMap<>();
+            return;
         }
 
         DataQueryParams.Builder paramsBuilder = DataQueryParams.newBuilder()
@@ -583,7 +586,7 @@ public class DataValidationTask
             paramsBuilder.withAttributeOptionCombos( Lists.newArrayList() );
         }
 
-        return getEventData( paramsBuilder.build(), hasAttributeOptions );
+        addEventData( dataValues, paramsBuilder.build(), hasAttributeOptions );
     }
 
     /**
@@ -591,12 +594,11 @@ public class DataValidationTask
      *
      * @param hasAttributeOptions whether the event data has attribute options.
      */
-    private MapMapMap<Long, String, DimensionalItemObject, Double> getEventMapForSlidingWindow(
-        boolean hasAttributeOptions, Set<DimensionalItemObject> eventItems )
+    private void addEventValuesForSlidingWindow( boolean hasAttributeOptions, Set<DimensionalItemObject> eventItems )
     {
         if ( eventItems.isEmpty() )
         {
-            return new MapMapMap<>();
+            return;
         }
 
         // We want to position the sliding window over the most recent data.
@@ -631,21 +633,18 @@ public class DataValidationTask
             paramsBuilder.withAttributeOptionCombos( Lists.newArrayList() );
         }
 
-        return getEventData( paramsBuilder.build(), hasAttributeOptions );
+        addEventData( slidingWindowValues, paramsBuilder.build(), hasAttributeOptions );
     }
 
     /**
-     * Gets event data.
+     * Gets event data and puts it into a table of values.
      *
+     * @param values              table of values.
      * @param params              event data query parameters.
      * @param hasAttributeOptions whether the event data has attribute options.
-     * @return event data.
      */
-    private MapMapMap<Long, String, DimensionalItemObject, Double> getEventData(
-        DataQueryParams params, boolean hasAttributeOptions )
+    private void addEventData( ValidationValueTable values, DataQueryParams params, boolean hasAttributeOptions )
     {
-        MapMapMap<Long, String, DimensionalItemObject, Double> map = new MapMapMap<>();
-
         Grid grid = analyticsService.getAggregatedDataValues( params );
 
         int dxInx = grid.getIndexOfHeader( DimensionalObject.DATA_X_DIM_ID );
@@ -668,9 +667,7 @@ public class DataValidationTask
             OrganisationUnit orgUnit = ouLookup.get( ou );
             DimensionalItemObject eventItem = dxLookup.get( dx );
 
-            map.putEntry( orgUnit.getId(), ao, eventItem, vl );
+            values.putValue( orgUnit.getId(), ao, eventItem, vl );
         }
-
-        return map;
     }
 }
@@ -0,0 +1,447 @@
+package org.hisp.dhis.validation;
+
+/*
+ * Copyright (c) 2004-2018, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import org.hisp.dhis.common.DimensionalItemObject;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Holds the values fetched by a validation task for one period and a batch
+ * of organisation units, for evaluating validation rule expressions.
+ * <p>
+ * The values are stored by columns rather than in nested maps: organisation
+ * units, attribute option combos and dimensional items are each mapped to an
+ * int index, and each organisation unit / attribute option combo pair that
+ * has values occupies a row of doubles with one cell per item. Cells without
+ * a value are marked as missing in a bitmap. This avoids allocating a map
+ * entry and a boxed value for every value in the batch.
+ * <p>
+ * Instances are not thread-safe. Each validation task uses its own tables.
+ */
+public class ValidationValueTable
+{
+    private static final int INITIAL_ROW_CAPACITY = 16;
+
+    private final long[] orgUnitIds;
+
+    private final List<DimensionalItemObject> items;
+
+    private final Map<DimensionalItemObject, Integer> itemIndexes;
+
+    private final Map<String, Integer> itemKeyIndexes;
+
+    private final List<String> aocs = new ArrayList<>();
+
+    private final Map<String, Integer> aocIndexes = new HashMap<>();
+
+    /**
+     * Row of each organisation unit / attribute option combo pair by index,
+     * plus one, or zero if the pair has no row.
+     */
+    private final int[][] rows;
+
+    private int rowCount = 0;
+
+    private double[] values;
+
+    private final BitSet present = new BitSet();
+
+    /**
+     * Length of the period of each data value, for resolving values of the
+     * same item stored for different period types. Allocated when the first
+     * data value is added.
+     */
+    private long[] periodIntervals;
+
+    // -------------------------------------------------------------------------
+    // Constructors
+    // -------------------------------------------------------------------------
+
+    /**
+     * Creates an empty table.
+     *
+     * @param orgUnitIds the identifiers of the organisation units.
+     * @param items the dimensional items which may have values.
+     */
+    public ValidationValueTable( Collection<Long> orgUnitIds, Collection<? extends DimensionalItemObject> items )
+    {
+        this.orgUnitIds = orgUnitIds.stream().mapToLong( Long::longValue ).distinct().sorted().toArray();
+        this.items = new ArrayList<>();
+        this.itemIndexes = new HashMap<>();
+        this.itemKeyIndexes = new HashMap<>();
+
+        for ( DimensionalItemObject item : items )
+        {
+            if ( item != null && !itemIndexes.containsKey( item ) )
+            {
+                itemIndexes.put( item, this.items.size() );
+                itemKeyIndexes.putIfAbsent( item.getDimensionItem(), this.items.size() );
+                this.items.add( item );
+            }
+        }
+
+        this.rows = new int[this.orgUnitIds.length][];
+        this.values = new double[INITIAL_ROW_CAPACITY * this.items.size()];
+    }
+
+    /**
+     * Creates an empty table for the same organisation units and items as
+     * another table.
+     *
+     * @param table the other table.
+     */
+    public ValidationValueTable( ValidationValueTable table )
+    {
+        this.orgUnitIds = table.orgUnitIds;
+        this.items = table.items;
+        this.itemIndexes = table.itemIndexes;
+        this.itemKeyIndexes = table.itemKeyIndexes;
+        this.rows = new int[orgUnitIds.length][];
+        this.values = new double[INITIAL_ROW_CAPACITY * items.size()];
+    }
+
+    // -------------------------------------------------------------------------
+    // Logic
+    // -------------------------------------------------------------------------
+
+    /**
+     * Adds a data value. Values of the same item for periods of the same
+     * length are summed. A value for a shorter period replaces a value for a
+     * longer period, and a value for a longer period is ignored if there is
+     * a value for a shorter period.
+     *
+     * @param orgUnitId the organisation unit identifier.
+     * @param aoc the attribute option combo uid.
+     * @param item the dimensional item.
+     * @param value the value.
+     * @param periodInterval the length of the period of the value.
+     */
+    public void addDataValue( long orgUnitId, String aoc, DimensionalItemObject item, double value,
+        long periodInterval )
+    {
+        int cell = getCell( orgUnitId, aoc, item );
+
+        if ( cell < 0 )
+        {
+            return;
+        }
+
+        if ( periodIntervals == null )
+        {
+            periodIntervals = new long[values.length];
+        }
+
+        if ( present.get( cell ) )
+        {
+            long existingPeriodInterval = periodIntervals[cell];
+
+            if ( existingPeriodInterval < periodInterval )
+            {
+                return; // Do not overwrite the previous value if for a shorter interval
+            }
+            else if ( existingPeriodInterval == periodInterval )
+            {
+                value += values[cell];
+            }
+        }
+
+        values[cell] = value;
+        periodIntervals[cell] = periodInterval;
+        present.set( cell );
+    }
+
+    /**
+     * Puts a value, replacing any existing value of the item.
+     *
+     * @param orgUnitId the organisation unit identifier.
+     * @param aoc the attribute option combo uid.
+     * @param item the dimensional item.
+     * @param value the value, or null if missing.
+     */
+    public void putValue( long orgUnitId, String aoc, DimensionalItemObject item, Double value )
+    {
+        int cell = getCell( orgUnitId, aoc, item );
+
+        if ( cell < 0 )
+        {
+            return;
+        }
+
+        if ( value != null )
+        {
+            values[cell] = value;
+            present.set( cell );
+        }
+        else
+        {
+            present.clear( cell );
+        }
+    }
+
+    /**
+     * Puts all values of another table with the same organisation units and
+     * items into this table, replacing existing values of the same items.
+     *
+     * @param table the other table.
+     */
+    public void putAll( ValidationValueTable table )
+    {
+        int itemCount = items.size();
+
+        for ( int orgUnitIndex = 0; orgUnitIndex < orgUnitIds.length; orgUnitIndex++ )
+        {
+            for ( int aocIndex = 0; aocIndex < table.aocs.size(); aocIndex++ )
+            {
+                int fromRow = table.getRow( orgUnitIndex, aocIndex );
+
+                if ( fromRow < 0 )
+                {
+                    continue;
+                }
+
+                int toRow = getOrAddRow( orgUnitIndex, getOrAddAocIndex( table.aocs.get( aocIndex ) ) );
+
+                for ( int fromCell = table.present.nextSetBit( fromRow * itemCount );
+                    fromCell >= 0 && fromCell < ( fromRow + 1 ) * itemCount;
+                    fromCell = table.present.nextSetBit( fromCell + 1 ) )
+                {
+                    int toCell = toRow * itemCount + fromCell - fromRow * itemCount;
+
+                    values[toCell] = table.values[fromCell];
+                    present.set( toCell );
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the index of an organisation unit.
+     *
+     * @param orgUnitId the organisation unit identifier.
+     * @return the index, or -1 if the organisation unit is not in this table.
+     */
+    public int getOrgUnitIndex( long orgUnitId )
+    {
+        int index = Arrays.binarySearch( orgUnitIds, orgUnitId );
+
+        return index >= 0 ? index : -1;
+    }
+
+    /**
+     * Gets the number of attribute option combos with values in this table.
+     * Attribute option combos are indexed from zero to this number.
+     */
+    public int getAocCount()
+    {
+        return aocs.size();
+    }
+
+    /**
+     * Gets the uid of the attribute option combo with the given index.
+     */
+    public String getAoc( int aocIndex )
+    {
+        return aocs.get( aocIndex );
+    }
+
+    /**
+     * Gets the index of an attribute option combo.
+     *
+     * @param aoc the attribute option combo uid.
+     * @return the index, or -1 if the table has no values for the attribute
+     *         option combo.
+     */
+    public int getAocIndex( String aoc )
+    {
+        Integer index = aocIndexes.get( aoc );
+
+        return index != null ? index : -1;
+    }
+
+    /**
+     * Gets the row of an organisation unit / attribute option combo pair.
+     *
+     * @param orgUnitIndex the organisation unit index.
+     * @param aocIndex the attribute option combo index.
+     * @return the row, or -1 if the pair has no values.
+     */
+    public int getRow( int orgUnitIndex, int aocIndex )
+    {
+        if ( orgUnitIndex < 0 || aocIndex < 0 )
+        {
+            return -1;
+        }
+
+        int[] aocRows = rows[orgUnitIndex];
+
+        return aocRows != null && aocIndex < aocRows.length ? aocRows[aocIndex] - 1 : -1;
+    }
+
+    /**
+     * Indicates whether the organisation unit with the given index has any
+     * row in this table.
+     */
+    public boolean hasRows( int orgUnitIndex )
+    {
+        return orgUnitIndex >= 0 && rows[orgUnitIndex] != null;
+    }
+
+    /**
+     * Gets the index of a dimensional item.
+     *
+     * @param itemKey the dimension item identifier.
+     * @return the index, or -1 if the item is not in this table.
+     */
+    public int getItemIndex( String itemKey )
+    {
+        Integer index = itemKeyIndexes.get( itemKey );
+
+        return index != null ? index : -1;
+    }
+
+    /**
+     * Gets a value.
+     *
+     * @param row the row, or -1 for no row.
+     * @param itemIndex the item index, or -1 for no item.
+     * @return the value, or NaN if missing.
+     */
+    public double getValue( int row, int itemIndex )
+    {
+        if ( row < 0 || itemIndex < 0 )
+        {
+            return Double.NaN;
+        }
+
+        int cell = row * items.size() + itemIndex;
+
+        return present.get( cell ) ? values[cell] : Double.NaN;
+    }
+
+    /**
+     * Gets the values of a row as a map.
+     *
+     * @param row the row.
+     * @return the values by dimensional item.
+     */
+    public Map<DimensionalItemObject, Double> getValueMap( int row )
+    {
+        Map<DimensionalItemObject, Double> valueMap = new HashMap<>();
+
+        for ( int itemIndex = 0; itemIndex < items.size(); itemIndex++ )
+        {
+            double value = getValue( row, itemIndex );
+
+            if ( !Double.isNaN( value ) )
+            {
+                valueMap.put( items.get( itemIndex ), value );
+            }
+        }
+
+        return valueMap;
+    }
+
+    // -------------------------------------------------------------------------
+    // Supportive methods
+    // -------------------------------------------------------------------------
+
+    /**
+     * Gets the cell for a value, adding the row if needed.
+     *
+     * @return the cell, or -1 if the organisation unit or item is not in
+     *         this table.
+     */
+    private int getCell( long orgUnitId, String aoc, DimensionalItemObject item )
+    {
+        int orgUnitIndex = getOrgUnitIndex( orgUnitId );
+        Integer itemIndex = item != null ? itemIndexes.get( item ) : null;
+
+        if ( orgUnitIndex < 0 || itemIndex == null )
+        {
+            return -1;
+        }
+
+        int row = getOrAddRow( orgUnitIndex, getOrAddAocIndex( aoc ) );
+
+        return row * items.size() + itemIndex;
+    }
+
+    private int getOrAddAocIndex( String aoc )
+    {
+        Integer index = aocIndexes.get( aoc );
+
+        if ( index == null )
+        {
+            index = aocs.size();
+            aocs.add( aoc );
+            aocIndexes.put( aoc, index );
+        }
+
+        return index;
+    }
+
+    private int getOrAddRow( int orgUnitIndex, int aocIndex )
+    {
+        int[] aocRows = rows[orgUnitIndex];
+
+        if ( aocRows == null || aocIndex >= aocRows.length )
+        {
+            aocRows = aocRows == null ? new int[aocs.size()] : Arrays.copyOf( aocRows, aocs.size() );
+            rows[orgUnitIndex] = aocRows;
+        }
+
+        if ( aocRows[aocIndex] == 0 )
+        {
+            int itemCount = items.size();
+
+            if ( ( rowCount + 1 ) * itemCount > values.length )
+            {
+                int capacity = Math.max( values.length * 2, ( rowCount + 1 ) * itemCount );
+
+                values = Arrays.copyOf( values, capacity );
+
+                if ( periodIntervals != null )
+                {
+                    periodIntervals = Arrays.copyOf( periodIntervals, capacity );
+                }
+            }
+
+            aocRows[aocIndex] = ++rowCount;
+        }
+
+        return aocRows[aocIndex] - 1;
+    }
+}
@@ -0,0 +1,185 @@
+package org.hisp.dhis.validation;
+
+/*
+ * Copyright (c) 2004-2018, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import com.google.common.collect.Lists;
+import org.hisp.dhis.DhisConvenienceTest;
+import org.hisp.dhis.dataelement.DataElement;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ValidationValueTableTest
+    extends DhisConvenienceTest
+{
+    private static final long DAY = 86400000L;
+
+    private DataElement deA;
+    private DataElement deB;
+    private DataElement deC;
+
+    private ValidationValueTable table;
+
+    @Before
+    public void setUp()
+    {
+        deA = createDataElement( 'A' );
+        deB = createDataElement( 'B' );
+        deC = createDataElement( 'C' );
+
+        table = new ValidationValueTable( Lists.newArrayList( 30L, 10L, 20L ), Lists.newArrayList( deA, deB ) );
+    }
+
+    @Test
+    public void testAddDataValue()
+    {
+        table.addDataValue( 10L, "aocA", deA, 1d, 30 * DAY );
+        table.addDataValue( 10L, "aocA", deA, 2d, 30 * DAY );
+        table.addDataValue( 10L, "aocA", deB, 5d, 30 * DAY );
+        table.addDataValue( 10L, "aocA", deB, 7d, 7 * DAY );
+        table.addDataValue( 10L, "aocA", deB, 9d, 30 * DAY );
+        table.addDataValue( 10L, "aocA", deC, 4d, 30 * DAY );
+        table.addDataValue( 40L, "aocA", deA, 4d, 30 * DAY );
+
+        int row = table.getRow( table.getOrgUnitIndex( 10L ), table.getAocIndex( "aocA" ) );
+
+        assertEquals( 3d, table.getValue( row, table.getItemIndex( deA.getDimensionItem() ) ), DELTA );
+        assertEquals( 7d, table.getValue( row, table.getItemIndex( deB.getDimensionItem() ) ), DELTA );
+        assertEquals( -1, table.getItemIndex( deC.getDimensionItem() ) );
+        assertEquals( -1, table.getOrgUnitIndex( 40L ) );
+        assertEquals( 1, table.getAocCount() );
+    }
+
+    @Test
+    public void testRows()
+    {
+        table.putValue( 20L, "aocA", deA, 1d );
+        table.putValue( 30L, "aocB", deB, 2d );
+        table.putValue( 20L, "aocB", deB, 3d );
+
+        int ou10 = table.getOrgUnitIndex( 10L );
+        int ou20 = table.getOrgUnitIndex( 20L );
+        int ou30 = table.getOrgUnitIndex( 30L );
+        int aocA = table.getAocIndex( "aocA" );
+        int aocB = table.getAocIndex( "aocB" );
+
+        assertEquals( 2, table.getAocCount() );
+        assertEquals( "aocA", table.getAoc( aocA ) );
+        assertEquals( "aocB", table.getAoc( aocB ) );
+        assertEquals( -1, table.getAocIndex( "aocC" ) );
+
+        assertFalse( table.hasRows( ou10 ) );
+        assertTrue( table.hasRows( ou20 ) );
+        assertTrue( table.hasRows( ou30 ) );
+
+        assertEquals( -1, table.getRow( ou30, aocA ) );
+
+        int row = table.getRow( ou20, aocB );
+
+        assertTrue( Double.isNaN( table.getValue( row, table.getItemIndex( deA.getDimensionItem() ) ) ) );
+        assertEquals( 3d, table.getValue( row, table.getItemIndex( deB.getDimensionItem() ) ), DELTA );
+        assertEquals( 2d, table.getValue( table.getRow( ou30, aocB ), table.getItemIndex( deB.getDimensionItem() ) ), DELTA );
+        assertTrue( Double.isNaN( table.getValue( -1, 0 ) ) );
+    }
+
+    @Test
+    public void testPutValue()
+    {
+        table.addDataValue( 10L, "aocA", deA, 1d, 30 * DAY );
+        table.putValue( 10L, "aocA", deA, 5d );
+        table.putValue( 10L, "aocA", deB, 6d );
+        table.putValue( 10L, "aocA", deB, null );
+
+        int row = table.getRow( table.getOrgUnitIndex( 10L ), table.getAocIndex( "aocA" ) );
+
+        assertEquals( 5d, table.getValue( row, table.getItemIndex( deA.getDimensionItem() ) ), DELTA );
+        assertTrue( Double.isNaN( table.getValue( row, table.getItemIndex( deB.getDimensionItem() ) ) ) );
+    }
+
+    @Test
+    public void testPutAll()
+    {
+        table.putValue( 10L, "aocA", deA, 1d );
+        table.putValue( 10L, "aocA", deB, 2d );
+
+        ValidationValueTable other = new ValidationValueTable( table );
+
+        other.putValue( 10L, "aocB", deA, 3d );
+        other.putValue( 10L, "aocA", deB, 4d );
+        other.putValue( 30L, "aocA", deA, 5d );
+
+        table.putAll( other );
+
+        int aocA = table.getAocIndex( "aocA" );
+        int aocB = table.getAocIndex( "aocB" );
+        int ou10 = table.getOrgUnitIndex( 10L );
+        int ou30 = table.getOrgUnitIndex( 30L );
+        int a = table.getItemIndex( deA.getDimensionItem() );
+        int b = table.getItemIndex( deB.getDimensionItem() );
+
+        assertEquals( 1d, table.getValue( table.getRow( ou10, aocA ), a ), DELTA );
+        assertEquals( 4d, table.getValue( table.getRow( ou10, aocA ), b ), DELTA );
+        assertEquals( 3d, table.getValue( table.getRow( ou10, aocB ), a ), DELTA );
+        assertTrue( Double.isNaN( table.getValue( table.getRow( ou10, aocB ), b ) ) );
+        assertEquals( 5d, table.getValue( table.getRow( ou30, aocA ), a ), DELTA );
+    }
+
+    @Test
+    public void testGetValueMap()
+    {
+        table.putValue( 20L, "aocA", deB, 8d );
+
+        Map<?, Double> valueMap = table.getValueMap(
+            table.getRow( table.getOrgUnitIndex( 20L ), table.getAocIndex( "aocA" ) ) );
+
+        assertEquals( 1, valueMap.size() );
+        assertEquals( 8d, valueMap.get( deB ), DELTA );
+    }
+
+    @Test
+    public void testManyRows()
+    {
+        for ( int i = 0; i < 100; i++ )
+        {
+            table.putValue( 10L + ( i % 3 ) * 10, "aoc" + i, deA, (double) i );
+        }
+
+        for ( int i = 0; i < 100; i++ )
+        {
+            int row = table.getRow( table.getOrgUnitIndex( 10L + ( i % 3 ) * 10 ), table.getAocIndex( "aoc" + i ) );
+
+            assertEquals( i, table.getValue( row, table.getItemIndex( deA.getDimensionItem() ) ), DELTA );
+        }
+    }
+}
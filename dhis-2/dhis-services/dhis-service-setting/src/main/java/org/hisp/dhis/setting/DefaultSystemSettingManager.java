@@ -51,6 +51,7 @@ import org.hisp.dhis.system.util.ValidationUtils;
 import org.jasypt.encryption.pbe.PBEStringEncryptor;
 import org.jasypt.exceptions.EncryptionOperationNotPossibleException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.transaction.TransactionStatus;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.transaction.support.TransactionCallback;
@@ -98,6 +99,9 @@ public class DefaultSystemSettingManager
     @Autowired
     private Environment environment;
 
+    @Autowired
+    private ApplicationEventPublisher publisher;
+
     public void setSystemSettingStore( SystemSettingStore systemSettingStore )
     {
         this.systemSettingStore = systemSettingStore;
@@ -154,6 +158,8 @@ public class DefaultSystemSettingManager
 
             systemSettingStore.update( setting );
         }
+
+        publisher.publishEvent( new SystemSettingUpdatedEvent( this, settingKey ) );
     }
 
     @Override
@@ -167,6 +173,8 @@ public class DefaultSystemSettingManager
             settingCache.invalidate( settingKey.getName() );
 
             systemSettingStore.delete( setting );
+
+            publisher.publishEvent( new SystemSettingUpdatedEvent( this, settingKey ) );
         }
     }
 
@@ -305,6 +313,8 @@ public class DefaultSystemSettingManager
     public void invalidateCache()
     {
         settingCache.invalidateAll();
+
+        publisher.publishEvent( new SystemSettingUpdatedEvent( this, null ) );
     }
 
     // -------------------------------------------------------------------------
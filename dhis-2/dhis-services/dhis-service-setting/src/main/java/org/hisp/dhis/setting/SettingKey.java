@@ -101,6 +101,11 @@ public enum SettingKey
     CAN_GRANT_OWN_USER_AUTHORITY_GROUPS( "keyCanGrantOwnUserAuthorityGroups", Boolean.FALSE, Boolean.class ),
     IGNORE_ANALYTICS_APPROVAL_YEAR_THRESHOLD( "keyIgnoreAnalyticsApprovalYearThreshold", -1, Integer.class ),
     ANALYTICS_MAX_LIMIT( "keyAnalyticsMaxLimit", 100000, Integer.class ),
+    ANALYTICS_MAX_CONCURRENT_QUERIES( "keyAnalyticsMaxConcurrentQueries", 0, Integer.class ),
+    ANALYTICS_MAX_CONCURRENT_QUERIES_PER_USER( "keyAnalyticsMaxConcurrentQueriesPerUser", 0, Integer.class ),
+    ANALYTICS_MAX_QUERY_COST( "keyAnalyticsMaxQueryCost", 0, Integer.class ),
+    ANALYTICS_MAX_QUEUED_QUERIES( "keyAnalyticsMaxQueuedQueries", 1000, Integer.class ),
+    ANALYTICS_MAX_QUERY_WAIT( "keyAnalyticsMaxQueryWait", 60, Integer.class ),
     SQL_VIEW_MAX_LIMIT( "keySqlViewMaxLimit", -1, Integer.class ),
     RESPECT_META_DATA_START_END_DATES_IN_ANALYTICS_TABLE_EXPORT( "keyRespectMetaDataStartEndDatesInAnalyticsTableExport", Boolean.FALSE, Boolean.class ),
     SKIP_DATA_TYPE_VALIDATION_IN_ANALYTICS_TABLE_EXPORT( "keySkipDataTypeValidationInAnalyticsTableExport", Boolean.FALSE, Boolean.class ),
@@ -116,6 +121,7 @@ public enum SettingKey
     LAST_SUCCESSFUL_COMPLETE_DATA_SET_REGISTRATION_SYNC( "keyLastCompleteDataSetRegistrationSyncSuccess", new Date( 0 ), Date.class ),
     SKIP_SYNCHRONIZATION_FOR_DATA_CHANGED_BEFORE( "syncSkipSyncForDataChangedBefore", new Date( 0 ), Date.class ),
     LAST_SUCCESSFUL_ANALYTICS_TABLES_UPDATE( "keyLastSuccessfulAnalyticsTablesUpdate", Date.class ),
+    LAST_SUCCESSFUL_INCREMENTAL_ANALYTICS_TABLES_UPDATE( "keyLastSuccessfulIncrementalAnalyticsTablesUpdate", Date.class ),
     LAST_SUCCESSFUL_RESOURCE_TABLES_UPDATE( "keyLastSuccessfulResourceTablesUpdate", Date.class ),
     LAST_SUCCESSFUL_SYSTEM_MONITORING_PUSH( "keyLastSuccessfulSystemMonitoringPush", Date.class ),
     LAST_SUCCESSFUL_MONITORING( "keyLastSuccessfulMonitoring", Date.class ),
@@ -162,6 +168,8 @@ public enum SettingKey
     TRACKER_SYNC_PAGE_SIZE( "syncTrackerPageSize", 20, Integer.class ),
     EVENT_SYNC_PAGE_SIZE( "syncEventsPageSize", 60, Integer.class ),
     DATA_VALUES_SYNC_PAGE_SIZE( "syncDataValuesPageSize", 10000, Integer.class ),
+    DATA_VALUES_SYNC_PAGES_IN_FLIGHT( "syncDataValuesPagesInFlight", 2, Integer.class ),
+    DATA_VALUES_SYNC_CHECKPOINT( "keyDataValuesSyncCheckpoint", String.class ),
     MAX_REMOTE_SERVER_AVAILABILITY_CHECK_ATTEMPTS( "syncMaxRemoteServerAvailabilityCheckAttempts", 3, Integer.class ),
     MAX_SYNC_ATTEMPTS( "syncMaxAttempts", 3, Integer.class ),
     DELAY_BETWEEN_REMOTE_SERVER_AVAILABILITY_CHECK_ATTEMPTS( "syncDelayBetweenRemoteServerAvailabilityCheckAttempts", 500, Integer.class ),
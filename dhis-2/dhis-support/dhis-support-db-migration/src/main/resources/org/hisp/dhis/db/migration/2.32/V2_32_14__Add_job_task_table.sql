@@ -0,0 +1,19 @@
+CREATE TABLE IF NOT EXISTS jobtask (
+    jobtaskid BIGSERIAL NOT NULL PRIMARY KEY,
+    groupid VARCHAR(11) NOT NULL,
+    tasktype VARCHAR(100) NOT NULL,
+    payload TEXT,
+    status VARCHAR(20) NOT NULL,
+    attempts INTEGER NOT NULL DEFAULT 0,
+    maxattempts INTEGER NOT NULL,
+    nodeid VARCHAR(255),
+    result TEXT,
+    error TEXT,
+    created TIMESTAMP NOT NULL,
+    heartbeat TIMESTAMP,
+    finished TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS in_jobtask_status_jobtaskid ON jobtask (status, jobtaskid);
+
+CREATE INDEX IF NOT EXISTS in_jobtask_groupid ON jobtask (groupid);
@@ -0,0 +1,13 @@
+CREATE TABLE IF NOT EXISTS dataapprovalstatus (
+    workflowid BIGINT NOT NULL,
+    periodid BIGINT NOT NULL,
+    organisationunitid BIGINT NOT NULL,
+    attributeoptioncomboid BIGINT NOT NULL,
+    categoryoptionid BIGINT NOT NULL,
+    acceptancerequired BOOLEAN NOT NULL,
+    readybelow BOOLEAN NOT NULL,
+    lastupdated TIMESTAMP NOT NULL,
+    PRIMARY KEY (workflowid, periodid, organisationunitid, attributeoptioncomboid, categoryoptionid, acceptancerequired)
+);
+
+CREATE INDEX IF NOT EXISTS in_dataapprovalstatus_organisationunitid ON dataapprovalstatus (organisationunitid);
@@ -0,0 +1,8 @@
+CREATE TABLE IF NOT EXISTS reservedvaluepool (
+    ownerobject CHARACTER VARYING(255) NOT NULL,
+    owneruid CHARACTER VARYING(255) NOT NULL,
+    key CHARACTER VARYING(255) NOT NULL,
+    value CHARACTER VARYING(255) NOT NULL,
+    created TIMESTAMP NOT NULL,
+    PRIMARY KEY (ownerobject, owneruid, key, value)
+);
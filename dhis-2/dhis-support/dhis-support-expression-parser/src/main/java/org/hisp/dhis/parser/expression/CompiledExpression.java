@@ -0,0 +1,120 @@
+package org.hisp.dhis.parser.expression;
+
+/*
+ * Copyright (c) 2004-2018, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import java.util.List;
+
+/**
+ * An expression compiled into a tree of nodes operating on primitive
+ * doubles, which can be evaluated many times without walking the ANTLR
+ * parse tree. The values of the items in the expression are passed in
+ * slots, which are resolved once at compile time.
+ * <p/>
+ * Compiled expressions are immutable and may be evaluated concurrently,
+ * each thread using its own {@link ExpressionItemValues}.
+ *
+ * @see ExpressionCompiler
+ */
+public class CompiledExpression
+{
+    private final String expression;
+
+    private final CompiledNode root;
+
+    private final List<CompiledItem> items;
+
+    private final boolean booleanValue;
+
+    // -------------------------------------------------------------------------
+    // Constructor
+    // -------------------------------------------------------------------------
+
+    CompiledExpression( String expression, CompiledNode root, List<CompiledItem> items, boolean booleanValue )
+    {
+        this.expression = expression;
+        this.root = root;
+        this.items = items;
+        this.booleanValue = booleanValue;
+    }
+
+    // -------------------------------------------------------------------------
+    // Logic
+    // -------------------------------------------------------------------------
+
+    /**
+     * Creates item values sized for this expression.
+     *
+     * @return new item values.
+     */
+    public ExpressionItemValues newItemValues()
+    {
+        return new ExpressionItemValues( items.size() );
+    }
+
+    /**
+     * Evaluates this expression. Boolean values are returned as 1 for true
+     * and 0 for false.
+     *
+     * @param values the item values, indexed by the slots of {@link #getItems()}.
+     * @return the expression value, NaN if null.
+     */
+    public double evaluate( ExpressionItemValues values )
+    {
+        values.resetCounts();
+
+        return root.evaluate( values );
+    }
+
+    // -------------------------------------------------------------------------
+    // Getters
+    // -------------------------------------------------------------------------
+
+    public String getExpression()
+    {
+        return expression;
+    }
+
+    /**
+     * Gets the items of this expression. The position of each item in the
+     * list is its value slot.
+     */
+    public List<CompiledItem> getItems()
+    {
+        return items;
+    }
+
+    /**
+     * Indicates whether this expression evaluates to a boolean rather than
+     * a number.
+     */
+    public boolean isBooleanValue()
+    {
+        return booleanValue;
+    }
+}
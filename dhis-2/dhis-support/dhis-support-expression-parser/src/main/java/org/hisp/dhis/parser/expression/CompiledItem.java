@@ -0,0 +1,109 @@
+package org.hisp.dhis.parser.expression;
+
+/*
+ * Copyright (c) 2004-2018, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import java.util.Objects;
+
+/**
+ * An item referenced by a compiled expression, occupying one value slot of
+ * the compiled expression.
+ */
+public class CompiledItem
+{
+    public enum Type
+    {
+        DIMENSIONAL_ITEM,
+        CONSTANT,
+        ORG_UNIT_GROUP_COUNT,
+        DAYS
+    }
+
+    private final Type type;
+
+    /**
+     * The item key: the dimension item identifier for dimensional items,
+     * the constant or organisation unit group identifier for constants and
+     * organisation unit group counts, and null for days.
+     */
+    private final String key;
+
+    public CompiledItem( Type type, String key )
+    {
+        this.type = type;
+        this.key = key;
+    }
+
+    // -------------------------------------------------------------------------
+    // Getters
+    // -------------------------------------------------------------------------
+
+    public Type getType()
+    {
+        return type;
+    }
+
+    public String getKey()
+    {
+        return key;
+    }
+
+    // -------------------------------------------------------------------------
+    // hashCode, equals and toString
+    // -------------------------------------------------------------------------
+
+    @Override
+    public int hashCode()
+    {
+        return Objects.hash( type, key );
+    }
+
+    @Override
+    public boolean equals( Object object )
+    {
+        if ( this == object )
+        {
+            return true;
+        }
+
+        if ( object == null || getClass() != object.getClass() )
+        {
+            return false;
+        }
+
+        CompiledItem other = (CompiledItem) object;
+
+        return type == other.type && Objects.equals( key, other.key );
+    }
+
+    @Override
+    public String toString()
+    {
+        return "[" + type + ", " + key + "]";
+    }
+}
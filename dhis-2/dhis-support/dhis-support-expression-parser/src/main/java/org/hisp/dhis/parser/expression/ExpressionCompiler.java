@@ -0,0 +1,604 @@
+package org.hisp.dhis.parser.expression;
+
+/*
+ * Copyright (c) 2004-2018, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.hisp.dhis.parser.expression.antlr.ExpressionBaseVisitor;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static java.lang.Math.pow;
+import static org.hisp.dhis.parser.expression.ParserUtils.*;
+import static org.hisp.dhis.parser.expression.antlr.ExpressionParser.*;
+
+/**
+ * Compiles an expression once into a {@link CompiledExpression}, a tree of
+ * nodes operating on primitive doubles with pre-resolved item slots, so that
+ * the expression can be evaluated for many organisation units and periods
+ * without walking the ANTLR parse tree and boxing intermediate values.
+ * <p/>
+ * Evaluation follows the ExpressionEvaluator visitor: missing item values
+ * are replaced by the default value and counted, except within isNull,
+ * isNotNull and firstNonNull; and the and, or and if operations evaluate
+ * only the arguments needed. A missing number of days is replaced by the
+ * default value without being counted, and firstNonNull returns the
+ * default value if all of its arguments are missing.
+ * <p/>
+ * Only numeric and boolean expressions can be compiled. Expressions using
+ * strings, program variables or program functions, or mixing numeric and
+ * boolean values, are rejected with a {@link ParserException}, and are to
+ * be evaluated with a visitor instead.
+ */
+public class ExpressionCompiler
+    extends ExpressionBaseVisitor<ExpressionCompiler.TypedNode>
+{
+    private static final Cache<String, Optional<CompiledExpression>> COMPILED_EXPRESSIONS = Caffeine.newBuilder()
+        .expireAfterAccess( 10, TimeUnit.MINUTES ).initialCapacity( 10000 )
+        .maximumSize( 50000 ).build();
+
+    private final List<CompiledItem> items = new ArrayList<>();
+
+    private final Map<CompiledItem, Integer> itemSlots = new HashMap<>();
+
+    /**
+     * Whether item values are read without replacing missing values and
+     * without counting them, as in ExpressionEvaluator#visitAllowingNullValues.
+     */
+    private boolean allowingNullValues = false;
+
+    private ExpressionCompiler()
+    {
+    }
+
+    // -------------------------------------------------------------------------
+    // Logic
+    // -------------------------------------------------------------------------
+
+    /**
+     * Compiles an expression.
+     *
+     * @param expr the expression to compile.
+     * @return the compiled expression.
+     * @throws ParserException if the expression can't be parsed or compiled.
+     */
+    public static CompiledExpression compile( String expr )
+    {
+        ExpressionCompiler compiler = new ExpressionCompiler();
+
+        TypedNode typedNode = Parser.visit( expr, compiler );
+
+        return new CompiledExpression( expr, typedNode.node, compiler.items, typedNode.isBoolean );
+    }
+
+    /**
+     * Gets the compiled form of an expression from the cache, compiling it
+     * if needed. Expressions which can't be compiled are cached as well, so
+     * that they are not parsed again for every evaluation.
+     *
+     * @param expr the expression to compile.
+     * @return the compiled expression, or null if it can't be compiled.
+     */
+    public static CompiledExpression getCompiledExpression( String expr )
+    {
+        return COMPILED_EXPRESSIONS.get( expr, e -> {
+            try
+            {
+                return Optional.of( compile( e ) );
+            }
+            catch ( ParserException ex )
+            {
+                return Optional.empty();
+            }
+        } ).orElse( null );
+    }
+
+    // -------------------------------------------------------------------------
+    // Visitor methods
+    // -------------------------------------------------------------------------
+
+    @Override
+    public TypedNode visitExpression( ExpressionContext ctx )
+    {
+        return visit( ctx.expr() );
+    }
+
+    @Override
+    public TypedNode visitExpr( ExprContext ctx )
+    {
+        if ( ctx.op != null )
+        {
+            return compileOperator( ctx );
+        }
+        else if ( ctx.expr().size() > 0 ) // Expression with whitespace
+        {
+            return visit( ctx.expr( 0 ) );
+        }
+
+        return visit( ctx.getChild( 0 ) );
+    }
+
+    @Override
+    public TypedNode visitFunction( FunctionContext ctx )
+    {
+        switch ( ctx.fun.getType() )
+        {
+            case FIRST_NON_NULL:
+                return number( firstNonNull( ctx.itemNumStringLiteral() ) );
+
+            case GREATEST:
+                return number( greatestOrLeast( ctx.expr(), 1.0 ) );
+
+            case IF:
+                return ifFunction( ctx );
+
+            case IS_NOT_NULL:
+            {
+                CompiledNode item = compileAllowingNullValues( ctx.item() );
+                return bool( v -> toDouble( !Double.isNaN( item.evaluate( v ) ) ) );
+            }
+
+            case IS_NULL:
+            {
+                CompiledNode item = compileAllowingNullValues( ctx.item() );
+                return bool( v -> toDouble( Double.isNaN( item.evaluate( v ) ) ) );
+            }
+
+            case LEAST:
+                return number( greatestOrLeast( ctx.expr(), -1.0 ) );
+
+            default:
+                throw new ParserExceptionWithoutContext( "Function can't be compiled: " + ctx.fun.getText() );
+        }
+    }
+
+    @Override
+    public TypedNode visitItem( ItemContext ctx )
+    {
+        switch ( ctx.it.getType() )
+        {
+            case HASH_BRACE:
+                if ( isDataElementOperandSyntax( ctx ) )
+                {
+                    return dimensionalItem(
+                        ctx.uid0.getText() + "." +
+                            ( ctx.uid1 == null ? "*" : ctx.uid1.getText() ) +
+                            ( ctx.uid2 == null ? "" : "." + ctx.uid2.getText() ) );
+                }
+                else // Data element:
+                {
+                    return dimensionalItem(
+                        ctx.uid0.getText() );
+                }
+
+            case A_BRACE:
+                if ( !isExpressionProgramAttribute( ctx ) )
+                {
+                    throw new ParserExceptionWithoutContext( "Program attribute must have two UIDs: " + ctx.getText() );
+                }
+                // Fall through
+            case D_BRACE:
+                return dimensionalItem(
+                    ctx.uid0.getText() + "." +
+                        ctx.uid1.getText() );
+
+            case C_BRACE:
+                return uncountedItem( new CompiledItem( CompiledItem.Type.CONSTANT, ctx.uid0.getText() ) );
+
+            case I_BRACE:
+                return dimensionalItem(
+                    ctx.uid0.getText() );
+
+            case OUG_BRACE:
+                return uncountedItem( new CompiledItem( CompiledItem.Type.ORG_UNIT_GROUP_COUNT, ctx.uid0.getText() ) );
+
+            case R_BRACE:
+                return dimensionalItem(
+                    ctx.uid0.getText() + "." +
+                        ctx.REPORTING_RATE_TYPE().getText() );
+
+            case DAYS:
+                return days();
+
+            default:
+                throw new ParserExceptionWithoutContext( "Item can't be compiled: " + ctx.getText() );
+        }
+    }
+
+    @Override
+    public TypedNode visitProgramVariable( ProgramVariableContext ctx )
+    {
+        throw new ParserExceptionWithoutContext( "Program variable can't be compiled: " + ctx.getText() );
+    }
+
+    @Override
+    public TypedNode visitProgramFunction( ProgramFunctionContext ctx )
+    {
+        throw new ParserExceptionWithoutContext( "Program function can't be compiled: " + ctx.getText() );
+    }
+
+    @Override
+    public TypedNode visitLiteral( LiteralContext ctx )
+    {
+        if ( ctx.numericLiteral() != null )
+        {
+            double value = Double.parseDouble( ctx.getText() );
+
+            return number( v -> value );
+        }
+        else if ( ctx.stringLiteral() != null )
+        {
+            throw new ParserExceptionWithoutContext( "String can't be compiled: " + ctx.getText() );
+        }
+
+        double value = toDouble( Boolean.parseBoolean( ctx.getText() ) );
+
+        return bool( v -> value );
+    }
+
+    // -------------------------------------------------------------------------
+    // Supportive methods
+    // -------------------------------------------------------------------------
+
+    private TypedNode compileOperator( ExprContext ctx )
+    {
+        if ( ctx.programNullTest != null )
+        {
+            throw new ParserExceptionWithoutContext( "Program null test can't be compiled: " + ctx.getText() );
+        }
+
+        switch ( ctx.op.getType() )
+        {
+            case PAREN:
+                return visit( ctx.expr( 0 ) );
+
+            case PLUS:
+                if ( ctx.expr().size() == 1 ) // Unary plus operator
+                {
+                    return number( numeric( ctx.expr( 0 ) ) );
+                }
+                else // Addition operator
+                {
+                    CompiledNode a = numeric( ctx.expr( 0 ) );
+                    CompiledNode b = numeric( ctx.expr( 1 ) );
+                    return number( v -> a.evaluate( v ) + b.evaluate( v ) );
+                }
+
+            case MINUS:
+                if ( ctx.expr().size() == 1 ) // Unary minus operator
+                {
+                    CompiledNode a = numeric( ctx.expr( 0 ) );
+                    return number( v -> - a.evaluate( v ) );
+                }
+                else // Subtraction operator
+                {
+                    CompiledNode a = numeric( ctx.expr( 0 ) );
+                    CompiledNode b = numeric( ctx.expr( 1 ) );
+                    return number( v -> a.evaluate( v ) - b.evaluate( v ) );
+                }
+
+            case POWER:
+            {
+                CompiledNode a = numeric( ctx.expr( 0 ) );
+                CompiledNode b = numeric( ctx.expr( 1 ) );
+                return number( v -> pow( a.evaluate( v ), b.evaluate( v ) ) );
+            }
+
+            case MUL:
+            {
+                CompiledNode a = numeric( ctx.expr( 0 ) );
+                CompiledNode b = numeric( ctx.expr( 1 ) );
+                return number( v -> a.evaluate( v ) * b.evaluate( v ) );
+            }
+
+            case DIV:
+            {
+                CompiledNode a = numeric( ctx.expr( 0 ) );
+                CompiledNode b = numeric( ctx.expr( 1 ) );
+                return number( v -> a.evaluate( v ) / b.evaluate( v ) );
+            }
+
+            case MOD:
+            {
+                CompiledNode a = numeric( ctx.expr( 0 ) );
+                CompiledNode b = numeric( ctx.expr( 1 ) );
+                return number( v -> a.evaluate( v ) % b.evaluate( v ) );
+            }
+
+            case NOT:
+            case EXCLAMATION_POINT:
+            {
+                CompiledNode a = logical( ctx.expr( 0 ) );
+                return bool( v -> toDouble( !isTrue( a.evaluate( v ) ) ) );
+            }
+
+            case AND:
+            case AMPERSAND_2:
+            {
+                CompiledNode a = logical( ctx.expr( 0 ) );
+                CompiledNode b = logical( ctx.expr( 1 ) );
+                return bool( v -> toDouble( isTrue( a.evaluate( v ) ) && isTrue( b.evaluate( v ) ) ) );
+            }
+
+            case OR:
+            case VERTICAL_BAR_2:
+            {
+                CompiledNode a = logical( ctx.expr( 0 ) );
+                CompiledNode b = logical( ctx.expr( 1 ) );
+                return bool( v -> toDouble( isTrue( a.evaluate( v ) ) || isTrue( b.evaluate( v ) ) ) );
+            }
+
+            case EQ:
+            {
+                CompiledNode[] args = comparable( ctx );
+                return bool( v -> toDouble( args[0].evaluate( v ) == args[1].evaluate( v ) ) );
+            }
+
+            case NE:
+            {
+                CompiledNode[] args = comparable( ctx );
+                return bool( v -> toDouble( args[0].evaluate( v ) != args[1].evaluate( v ) ) );
+            }
+
+            case GT:
+            {
+                CompiledNode[] args = comparable( ctx );
+                return bool( v -> toDouble( args[0].evaluate( v ) > args[1].evaluate( v ) ) );
+            }
+
+            case LT:
+            {
+                CompiledNode[] args = comparable( ctx );
+                return bool( v -> toDouble( args[0].evaluate( v ) < args[1].evaluate( v ) ) );
+            }
+
+            case GEQ:
+            {
+                CompiledNode[] args = comparable( ctx );
+                return bool( v -> toDouble( args[0].evaluate( v ) >= args[1].evaluate( v ) ) );
+            }
+
+            case LEQ:
+            {
+                CompiledNode[] args = comparable( ctx );
+                return bool( v -> toDouble( args[0].evaluate( v ) <= args[1].evaluate( v ) ) );
+            }
+
+            default:
+                throw new ParserExceptionWithoutContext( "Operator can't be compiled: " + ctx.op.getText() );
+        }
+    }
+
+    private TypedNode ifFunction( FunctionContext ctx )
+    {
+        CompiledNode test = logical( ctx.expr( 0 ) );
+        TypedNode a = visit( ctx.expr( 1 ) );
+        TypedNode b = visit( ctx.expr( 2 ) );
+
+        if ( a.isBoolean != b.isBoolean )
+        {
+            throw new ParserExceptionWithoutContext( "If function values must be of the same type: " + ctx.getText() );
+        }
+
+        CompiledNode node = v -> isTrue( test.evaluate( v ) ) ? a.node.evaluate( v ) : b.node.evaluate( v );
+
+        return a.isBoolean ? bool( node ) : number( node );
+    }
+
+    private CompiledNode firstNonNull( List<ItemNumStringLiteralContext> contexts )
+    {
+        List<CompiledNode> nodes = new ArrayList<>();
+
+        for ( ItemNumStringLiteralContext c : contexts )
+        {
+            if ( c.item() != null )
+            {
+                nodes.add( compileAllowingNullValues( c.item() ) );
+            }
+            else if ( c.numStringLiteral().numericLiteral() != null )
+            {
+                double value = Double.parseDouble( c.getText() );
+
+                nodes.add( v -> value );
+            }
+            else
+            {
+                throw new ParserExceptionWithoutContext( "String can't be compiled: " + c.getText() );
+            }
+        }
+
+        CompiledNode[] args = nodes.toArray( new CompiledNode[0] );
+
+        return v -> {
+            for ( CompiledNode arg : args )
+            {
+                double value = arg.evaluate( v );
+
+                if ( !Double.isNaN( value ) )
+                {
+                    return value;
+                }
+            }
+
+            return DOUBLE_VALUE_IF_NULL;
+        };
+    }
+
+    private CompiledNode greatestOrLeast( List<ExprContext> contexts, double greatestLeast )
+    {
+        CompiledNode[] args = contexts.stream().map( this::numeric ).toArray( CompiledNode[]::new );
+
+        return v -> {
+            double returnVal = Double.NaN;
+
+            for ( CompiledNode arg : args )
+            {
+                double val = arg.evaluate( v );
+
+                if ( Double.isNaN( returnVal ) || !Double.isNaN( val ) && ( val - returnVal ) * greatestLeast > 0 )
+                {
+                    returnVal = val;
+                }
+            }
+
+            return returnVal;
+        };
+    }
+
+    private TypedNode dimensionalItem( String key )
+    {
+        int slot = getSlot( new CompiledItem( CompiledItem.Type.DIMENSIONAL_ITEM, key ) );
+
+        return allowingNullValues
+            ? number( v -> v.getValue( slot ) )
+            : number( v -> v.getCountedValue( slot ) );
+    }
+
+    private TypedNode uncountedItem( CompiledItem item )
+    {
+        int slot = getSlot( item );
+
+        return number( v -> v.getValue( slot ) );
+    }
+
+    private TypedNode days()
+    {
+        int slot = getSlot( new CompiledItem( CompiledItem.Type.DAYS, null ) );
+
+        if ( allowingNullValues )
+        {
+            return number( v -> v.getValue( slot ) );
+        }
+
+        return number( v -> {
+            double value = v.getValue( slot );
+
+            return Double.isNaN( value ) ? DOUBLE_VALUE_IF_NULL : value;
+        } );
+    }
+
+    private int getSlot( CompiledItem item )
+    {
+        return itemSlots.computeIfAbsent( item, i -> {
+            items.add( i );
+            return items.size() - 1;
+        } );
+    }
+
+    private CompiledNode compileAllowingNullValues( ItemContext ctx )
+    {
+        boolean savedAllowingNullValues = allowingNullValues;
+
+        allowingNullValues = true;
+
+        CompiledNode node = visit( ctx ).node;
+
+        allowingNullValues = savedAllowingNullValues;
+
+        return node;
+    }
+
+    private CompiledNode numeric( ExprContext ctx )
+    {
+        TypedNode typedNode = visit( ctx );
+
+        if ( typedNode.isBoolean )
+        {
+            throw new ParserExceptionWithoutContext( "Found boolean value when expecting Double: " + ctx.getText() );
+        }
+
+        return typedNode.node;
+    }
+
+    private CompiledNode logical( ExprContext ctx )
+    {
+        TypedNode typedNode = visit( ctx );
+
+        if ( !typedNode.isBoolean )
+        {
+            throw new ParserExceptionWithoutContext( "Found number when expecting Boolean: " + ctx.getText() );
+        }
+
+        return typedNode.node;
+    }
+
+    private CompiledNode[] comparable( ExprContext ctx )
+    {
+        TypedNode a = visit( ctx.expr( 0 ) );
+        TypedNode b = visit( ctx.expr( 1 ) );
+
+        if ( a.isBoolean != b.isBoolean )
+        {
+            throw new ParserExceptionWithoutContext( "Compared values must be of the same type: " + ctx.getText() );
+        }
+
+        return new CompiledNode[] { a.node, b.node };
+    }
+
+    private static boolean isTrue( double value )
+    {
+        return value != 0d && !Double.isNaN( value );
+    }
+
+    private static double toDouble( boolean value )
+    {
+        return value ? 1d : 0d;
+    }
+
+    private static TypedNode number( CompiledNode node )
+    {
+        return new TypedNode( node, false );
+    }
+
+    private static TypedNode bool( CompiledNode node )
+    {
+        return new TypedNode( node, true );
+    }
+
+    /**
+     * A compiled node together with its value type.
+     */
+    static class TypedNode
+    {
+        private final CompiledNode node;
+
+        private final boolean isBoolean;
+
+        private TypedNode( CompiledNode node, boolean isBoolean )
+        {
+            this.node = node;
+            this.isBoolean = isBoolean;
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package org.hisp.dhis.parser.expression;
+
+/*
+ * Copyright (c) 2004-2018, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import java.util.Arrays;
+
+import static org.hisp.dhis.parser.expression.ParserUtils.DOUBLE_VALUE_IF_NULL;
+
+/**
+ * Item values for the evaluation of a compiled expression, indexed by the
+ * slots of the expression items. Also counts the items found and the item
+ * values found during evaluation, for the subsequent application of a
+ * missing value strategy.
+ * <p/>
+ * Instances are not thread-safe, but may be reused for successive
+ * evaluations of the same compiled expression.
+ */
+public class ExpressionItemValues
+{
+    private final double[] values;
+
+    private int itemsFound = 0;
+
+    private int itemValuesFound = 0;
+
+    // -------------------------------------------------------------------------
+    // Constructor
+    // -------------------------------------------------------------------------
+
+    public ExpressionItemValues( int size )
+    {
+        this.values = new double[size];
+
+        Arrays.fill( values, Double.NaN );
+    }
+
+    // -------------------------------------------------------------------------
+    // Logic
+    // -------------------------------------------------------------------------
+
+    /**
+     * Sets the value of the item in the given slot.
+     *
+     * @param slot the item slot.
+     * @param value the item value, or null if the value is missing.
+     */
+    public void setValue( int slot, Double value )
+    {
+        values[slot] = value != null ? value : Double.NaN;
+    }
+
+    /**
+     * Sets the value of the item in the given slot.
+     *
+     * @param slot the item slot.
+     * @param value the item value, or NaN if the value is missing.
+     */
+    public void setValue( int slot, double value )
+    {
+        values[slot] = value;
+    }
+
+    /**
+     * Sets all item values as missing.
+     */
+    public void clear()
+    {
+        Arrays.fill( values, Double.NaN );
+    }
+
+    public int getItemsFound()
+    {
+        return itemsFound;
+    }
+
+    public int getItemValuesFound()
+    {
+        return itemValuesFound;
+    }
+
+    // -------------------------------------------------------------------------
+    // Methods used by compiled expression nodes
+    // -------------------------------------------------------------------------
+
+    /**
+     * Resets the item counts before an evaluation.
+     */
+    void resetCounts()
+    {
+        itemsFound = 0;
+        itemValuesFound = 0;
+    }
+
+    /**
+     * Gets the value of the item in the given slot, NaN if missing.
+     */
+    double getValue( int slot )
+    {
+        return values[slot];
+    }
+
+    /**
+     * Gets the value of the item in the given slot, replacing a missing value
+     * with the default value and counting the item for the missing value
+     * strategy.
+     */
+    double getCountedValue( int slot )
+    {
+        itemsFound++;
+
+        double value = values[slot];
+
+        if ( Double.isNaN( value ) )
+        {
+            return DOUBLE_VALUE_IF_NULL;
+        }
+
+        itemValuesFound++;
+
+        return value;
+    }
+}
@@ -66,7 +66,7 @@ public class Parser
      * @param visitor the visitor instance
      * @return the visitor value
      */
-    public static Object visit( String expr, ExpressionBaseVisitor<Object> visitor )
+    public static <T> T visit( String expr, ExpressionBaseVisitor<T> visitor )
     {
         ParseTree parseTree = getParseTree( expr );
 
@@ -66,6 +66,8 @@ public enum ConfigurationKey
     CLUSTER_MEMBERS( "cluster.members", "", false ),
     CLUSTER_CACHE_PORT( "cluster.cache.port", "4001", false ),
     CLUSTER_CACHE_REMOTE_OBJECT_PORT( "cluster.cache.remote.object.port", "0", false ),
+    CLUSTER_WORK_QUEUE( "cluster.work_queue", "off", false ),
+    CLUSTER_WORK_QUEUE_WORKERS( "cluster.work_queue.workers", "1", false ),
     METADATA_AUDIT_PERSIST( "metadata.audit.persist", "off", false ),
     METADATA_AUDIT_LOG( "metadata.audit.log", "off", false ),
     REDIS_HOST( "redis.host", "localhost", false ),
@@ -75,6 +77,13 @@ public enum ConfigurationKey
     REDIS_USE_SSL( "redis.use.ssl", "false", false ),
     FLYWAY_OUT_OF_ORDER_MIGRATION( "flyway.migrate_out_of_order", "false", false ),
     PROGRAM_TEMPORARY_OWNERSHIP_TIMEOUT( "tracker.temporary.ownership.timeout", "3", false ),
+    PROGRAM_RULE_ASYNC( "tracker.rule_engine.async", "off", false ),
+    PROGRAM_RULE_ASYNC_POOL_SIZE( "tracker.rule_engine.async.pool_size", "2", false ),
+    PROGRAM_RULE_ASYNC_QUEUE_SIZE( "tracker.rule_engine.async.queue_size", "10000", false ),
+    PROGRAM_RULE_ASYNC_BATCH_SIZE( "tracker.rule_engine.async.batch_size", "100", false ),
+    PROGRAM_RULE_ASSIGN_VALUE_SYNC( "tracker.rule_engine.assign_value_sync", "on", false ),
+    APPROVAL_STATUS_TABLE( "approval.status_table", "off", false ),
+    RESERVED_VALUE_POOL_SIZE( "reservedvalue.pool_size", "0", false ),
     LEADER_TIME_TO_LIVE( "leader.time.to.live.minutes", "2", false ),
     ANALYTICS_CACHE_EXPIRATION( "analytics.cache.expiration", "0" ),
     AMQP_MODE( "amqp.mode", "EMBEDDED" ),
@@ -366,6 +366,7 @@ public class HibernateDbmsManager
         dropTable( "_dataapprovalminlevel" );
 
         emptyTable( "reservedvalue" );
+        emptyTable( "reservedvaluepool" );
         emptyTable( "sequentialnumbercounter" );
 
         log.debug( "Cleared database contents" );
@@ -47,6 +47,18 @@ public class HibernateUtils
         return object != null && ((object instanceof HibernateProxy) || (object instanceof PersistentCollection));
     }
 
+    /**
+     * Indicates whether the given object, which may be a proxy or a lazy
+     * collection, is initialized and can be accessed without a query.
+     *
+     * @param object the object to check.
+     * @return true if the object is initialized or not a proxy.
+     */
+    public static boolean isInitialized( Object object )
+    {
+        return Hibernate.isInitialized( object );
+    }
+
     /**
      * If object is proxy, get unwrapped non-proxy object.
      *
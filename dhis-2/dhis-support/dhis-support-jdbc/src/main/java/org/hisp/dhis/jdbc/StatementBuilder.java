@@ -114,6 +114,15 @@ public interface StatementBuilder
      * @return statement for analytics operation for a table.
      */
     String getAnalyze( String table );
+
+    /**
+     * Returns a query for the start time of the oldest transaction in progress
+     * in the current database, other than the transaction of the query. Returns
+     * null if such statement is not supported.
+     *
+     * @return query for the start time of the oldest transaction in progress.
+     */
+    String getOldestTransactionStart();
     
     /**
      * Returns an SQL statement to include in create table statements with applies
@@ -58,6 +58,12 @@ public class H2StatementBuilder
         return null;
     }
 
+    @Override
+    public String getOldestTransactionStart()
+    {
+        return null;
+    }
+
     @Override
     public String getTableOptions( boolean autoVacuum )
     {
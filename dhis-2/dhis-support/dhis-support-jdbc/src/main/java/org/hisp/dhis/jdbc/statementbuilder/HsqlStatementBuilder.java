@@ -58,6 +58,12 @@ public class HsqlStatementBuilder
         return null;
     }
 
+    @Override
+    public String getOldestTransactionStart()
+    {
+        return null;
+    }
+
     @Override
     public String getTableOptions( boolean autoVacuum )
     {
@@ -66,6 +66,13 @@ public class PostgreSQLStatementBuilder
     {
         return "analyze " + table + ";";
     }   
+
+    @Override
+    public String getOldestTransactionStart()
+    {
+        return "select min(xact_start) from pg_stat_activity " +
+            "where datname = current_database() and pid <> pg_backend_pid()";
+    }
     
     @Override
     public String getAutoIncrementValue()
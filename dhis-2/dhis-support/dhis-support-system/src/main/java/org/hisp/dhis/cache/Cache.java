@@ -106,7 +106,8 @@ public interface Cache<V>
 
     /**
      * Discards all entries in this cache instance. If a shared cache is used,
-     * this method does not clear anything.
+     * this method does not clear the shared store, but node local copies of
+     * the entries are discarded on all nodes.
      */
     void invalidateAll();
 }
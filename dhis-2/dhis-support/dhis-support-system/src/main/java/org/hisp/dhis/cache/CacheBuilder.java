@@ -29,6 +29,7 @@ package org.hisp.dhis.cache;
  */
 
 import java.util.concurrent.TimeUnit;
+import java.util.function.ToIntFunction;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -52,8 +53,14 @@ public class CacheBuilder<V>
 
     private RedisTemplate<String, ?> redisTemplate;
 
+    private CacheInvalidationBus invalidationBus;
+
     private long maximumSize;
 
+    private long maximumWeight;
+
+    private ToIntFunction<V> weigher;
+
     private String region;
 
     private boolean refreshExpiryOnAccess;
@@ -64,17 +71,29 @@ public class CacheBuilder<V>
     
     private boolean expiryEnabled;
 
+    private boolean forceInMemory;
+
     public CacheBuilder( RedisTemplate<String, ?> redisTemplate, DhisConfigurationProvider configurationProvider )
+    {
+        this( redisTemplate, configurationProvider, null );
+    }
+
+    public CacheBuilder( RedisTemplate<String, ?> redisTemplate, DhisConfigurationProvider configurationProvider,
+        CacheInvalidationBus invalidationBus )
     {
         this.configurationProvider = configurationProvider;
         this.redisTemplate = redisTemplate;
+        this.invalidationBus = invalidationBus;
         //Applying sensible defaults
         this.maximumSize = -1;
+        this.maximumWeight = -1;
+        this.weigher = null;
         this.region = "default";
         this.refreshExpiryOnAccess = false;
         this.expiryInSeconds = 0;
         this.defaultValue = null;
         this.expiryEnabled = false;
+        this.forceInMemory = false;
     }
 
     /**
@@ -96,6 +115,35 @@ public class CacheBuilder<V>
         return this;
     }
 
+    /**
+     * Set the maximum weight for the cache instance to be built, where the
+     * weight of each value is given by the weigher. This is meant for values
+     * which vary greatly in size. The maximum weight takes precedence over the
+     * maximum size for in memory caches, and is not applied to the redis
+     * store, whose memory is bounded by the redis server configuration.
+     * 
+     * @param maximumWeight The maximum weight, must be greater than 0.
+     * @param weigher The function giving the weight of a value, must not be
+     *        negative.
+     * @return The builder instance
+     * @throws IllegalArgumentException if specified maximumWeight is not a
+     *         positive value or the weigher is null.
+     */
+    public CacheBuilder<V> withMaximumWeight( long maximumWeight, ToIntFunction<V> weigher )
+    {
+        if ( maximumWeight <= 0 )
+        {
+            throw new IllegalArgumentException( "MaximumWeight must be positive" );
+        }
+        if ( weigher == null )
+        {
+            throw new IllegalArgumentException( "Weigher cannot be null" );
+        }
+        this.maximumWeight = maximumWeight;
+        this.weigher = weigher;
+        return this;
+    }
+
     /**
      * Set the cacheRegion for the cache instance to be built. If not specified
      * default is "default" region.
@@ -156,6 +204,20 @@ public class CacheBuilder<V>
         return this;
     }
 
+    /**
+     * Configure the cache instance to keep values in memory only, also when
+     * redis is enabled. This is meant for values which are large or not
+     * serializable. When redis is enabled, invalidations are still broadcast
+     * so that the in memory caches of other nodes evict their copy.
+     * 
+     * @return The builder instance.
+     */
+    public CacheBuilder<V> forceInMemory()
+    {
+        this.forceInMemory = true;
+        return this;
+    }
+
     /**
      * Configure the cache instance to have a default value if the key does not have an associated value in cache. The default value will not be stored in the cache.
      * 
@@ -179,11 +241,16 @@ public class CacheBuilder<V>
      * implementation {@link LocalCache} will be returned. For Local cache,
      * every instance created using this method will be logically separate and
      * will not share any state. However, when using Redis Cache, every instance
-     * created using this method will use the same redis store.
+     * created using this method will use the same redis store. If a
+     * {@link CacheInvalidationBus} is available when redis is enabled, a
+     * {@link TwoTierCache} is returned which keeps a local copy of the values
+     * in front of the redis store. If the builder is forced to be in memory,
+     * a {@link TwoTierCache} without shared store is returned instead, which
+     * only broadcasts invalidations.
      * 
      * @return A cache instance based on the system configuration and input
-     *         parameters. Returns one of {@link RedisCache}, {@link LocalCache}
-     *         or {@link NoOpCache}
+     *         parameters. Returns one of {@link TwoTierCache},
+     *         {@link RedisCache}, {@link LocalCache} or {@link NoOpCache}
      */
     public Cache<V> build()
     {
@@ -194,6 +261,22 @@ public class CacheBuilder<V>
         }
         else if ( configurationProvider.getProperty( ConfigurationKey.REDIS_ENABLED ).equalsIgnoreCase( "true" ) )
         {
+            if ( forceInMemory && invalidationBus != null )
+            {
+                log.info( String.format( "In memory Cache instance with invalidation broadcast created for region:'%s'", region ) );
+                return TwoTierCache.inMemory( this );
+            }
+            else if ( forceInMemory )
+            {
+                log.info( String.format( "Local Cache instance created for region:'%s'", region ) );
+                return new LocalCache<V>( this );
+            }
+            else if ( invalidationBus != null )
+            {
+                log.info( String.format( "Two tier Cache instance created for region:'%s'", region ) );
+                return new TwoTierCache<V>( this );
+            }
+
             log.info( String.format( "Redis Cache instance created for region:'%s'", region ) );
             return new RedisCache<V>( this );
         }
@@ -209,6 +292,16 @@ public class CacheBuilder<V>
         return maximumSize;
     }
 
+    public long getMaximumWeight()
+    {
+        return maximumWeight;
+    }
+
+    public ToIntFunction<V> getWeigher()
+    {
+        return weigher;
+    }
+
     public String getRegion()
     {
         return region;
@@ -229,6 +322,11 @@ public class CacheBuilder<V>
         return expiryInSeconds;
     }
 
+    public boolean isForceInMemory()
+    {
+        return forceInMemory;
+    }
+
     public V getDefaultValue()
     {
         return defaultValue;
@@ -238,4 +336,9 @@ public class CacheBuilder<V>
     {
         return redisTemplate;
     }
+
+    public CacheInvalidationBus getInvalidationBus()
+    {
+        return invalidationBus;
+    }
 }
@@ -0,0 +1,68 @@
+package org.hisp.dhis.cache;
+
+/*
+ * Copyright (c) 2004-2018, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import java.util.function.Consumer;
+
+/**
+ * Broadcasts cache invalidations between the cache instances of all nodes in
+ * a cluster, so that node local copies of shared cache entries can be evicted
+ * when the entry is changed on another node.
+ */
+public interface CacheInvalidationBus
+{
+    /**
+     * Publishes an invalidation of the given key in the given cache region. The
+     * invalidation is delivered to every subscriber of the region except the
+     * subscriber with the given source identifier.
+     *
+     * @param region the cache region.
+     * @param key the invalidated key, or null if all keys of the region were
+     *        invalidated.
+     * @param source the identifier of the publishing subscriber.
+     */
+    void publish( String region, String key, String source );
+
+    /**
+     * Subscribes to invalidations of the given cache region.
+     *
+     * @param region the cache region.
+     * @param subscriber the unique identifier of the subscriber.
+     * @param listener the listener which receives the invalidated key, or null
+     *        if all keys of the region were invalidated.
+     */
+    void subscribe( String region, String subscriber, Consumer<String> listener );
+
+    /**
+     * Removes the subscription with the given identifier.
+     *
+     * @param subscriber the identifier of the subscriber.
+     */
+    void unsubscribe( String subscriber );
+}
@@ -43,6 +43,8 @@ public class DefaultCacheProvider implements CacheProvider
 
     private RedisTemplate<String, ?> redisTemplate;
 
+    private CacheInvalidationBus cacheInvalidationBus;
+
     /**
      * Creates a new {@link CacheBuilder} that can be used to build a cache that
      * stores the valueType specified.
@@ -54,7 +56,7 @@ public class DefaultCacheProvider implements CacheProvider
      */
     public <V> CacheBuilder<V> newCacheBuilder( Class<V> valueType )
     {
-        return new CacheBuilder<V>( redisTemplate, configurationProvider );
+        return new CacheBuilder<V>( redisTemplate, configurationProvider, cacheInvalidationBus );
     }
 
     @Autowired
@@ -69,4 +71,10 @@ public class DefaultCacheProvider implements CacheProvider
         this.redisTemplate = redisTemplate;
     }
 
+    @Autowired( required = false )
+    public void setCacheInvalidationBus( CacheInvalidationBus cacheInvalidationBus )
+    {
+        this.cacheInvalidationBus = cacheInvalidationBus;
+    }
+
 }
\ No newline at end of file
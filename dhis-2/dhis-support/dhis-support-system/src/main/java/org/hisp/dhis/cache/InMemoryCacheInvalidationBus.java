@@ -0,0 +1,103 @@
+package org.hisp.dhis.cache;
+
+/*
+ * Copyright (c) 2004-2018, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+/**
+ * In memory implementation of {@link CacheInvalidationBus}. Invalidations are
+ * delivered synchronously to the subscribers within the same JVM. Used when
+ * the system runs as a single node.
+ */
+public class InMemoryCacheInvalidationBus
+    implements CacheInvalidationBus
+{
+    private static final Log log = LogFactory.getLog( InMemoryCacheInvalidationBus.class );
+
+    /**
+     * Mapping of region to subscriber identifier to listener.
+     */
+    private final Map<String, Map<String, Consumer<String>>> listeners = new ConcurrentHashMap<>();
+
+    @Override
+    public void publish( String region, String key, String source )
+    {
+        deliver( region, key, source );
+    }
+
+    @Override
+    public void subscribe( String region, String subscriber, Consumer<String> listener )
+    {
+        listeners.computeIfAbsent( region, r -> new ConcurrentHashMap<>() ).put( subscriber, listener );
+    }
+
+    @Override
+    public void unsubscribe( String subscriber )
+    {
+        listeners.values().forEach( map -> map.remove( subscriber ) );
+    }
+
+    /**
+     * Delivers the given invalidation to the local subscribers of the region,
+     * except the subscriber which published it.
+     *
+     * @param region the cache region.
+     * @param key the invalidated key, or null for all keys.
+     * @param source the identifier of the publishing subscriber.
+     */
+    protected void deliver( String region, String key, String source )
+    {
+        Map<String, Consumer<String>> regionListeners = listeners.get( region );
+
+        if ( regionListeners == null )
+        {
+            return;
+        }
+
+        for ( Map.Entry<String, Consumer<String>> entry : regionListeners.entrySet() )
+        {
+            if ( !entry.getKey().equals( source ) )
+            {
+                try
+                {
+                    entry.getValue().accept( key );
+                }
+                catch ( RuntimeException ex )
+                {
+                    log.warn( String.format( "Cache invalidation listener failed for region: '%s'", region ), ex );
+                }
+            }
+        }
+    }
+}
@@ -34,6 +34,7 @@ import java.util.Collection;
 import java.util.Optional;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
+import java.util.function.ToIntFunction;
 import com.github.benmanes.caffeine.cache.Caffeine;
 
 /**
@@ -54,6 +55,7 @@ public class LocalCache<V> implements Cache<V>
      *
      * @param cacheBuilder CacheBuilder instance
      */
+    @SuppressWarnings( "unchecked" )
     public LocalCache( final CacheBuilder<V> cacheBuilder )
     {
         Caffeine<Object, Object> builder = Caffeine.newBuilder();
@@ -69,7 +71,14 @@ public class LocalCache<V> implements Cache<V>
                 builder.expireAfterWrite( cacheBuilder.getExpiryInSeconds(), TimeUnit.SECONDS );
             }
         }
-        if ( cacheBuilder.getMaximumSize() > 0 )
+        if ( cacheBuilder.getMaximumWeight() > 0 )
+        {
+            ToIntFunction<V> weigher = cacheBuilder.getWeigher();
+
+            builder.maximumWeight( cacheBuilder.getMaximumWeight() );
+            builder.weigher( ( Object key, Object value ) -> weigher.applyAsInt( (V) value ) );
+        }
+        else if ( cacheBuilder.getMaximumSize() > 0 )
         {
             builder.maximumSize( cacheBuilder.getMaximumSize() );
         }
@@ -0,0 +1,125 @@
+package org.hisp.dhis.cache;
+
+/*
+ * Copyright (c) 2004-2018, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+
+/**
+ * Redis backed implementation of {@link CacheInvalidationBus}. Invalidations
+ * are published on a redis pub/sub channel which every node of the cluster
+ * listens to, and are delivered to the local subscribers of each node when
+ * received. The publishing node receives its own invalidations as well, which
+ * are skipped for the publishing subscriber only.
+ * <p>
+ * Redis pub/sub does not guarantee delivery, so node local copies should
+ * always expire within a bounded duration.
+ */
+public class RedisCacheInvalidationBus
+    extends InMemoryCacheInvalidationBus
+    implements MessageListener
+{
+    private static final Log log = LogFactory.getLog( RedisCacheInvalidationBus.class );
+
+    public static final String CHANNEL = "dhis2:cacheInvalidation";
+
+    private static final String SEPARATOR = " ";
+
+    private final RedisTemplate<String, ?> redisTemplate;
+
+    public RedisCacheInvalidationBus( RedisTemplate<String, ?> redisTemplate )
+    {
+        this.redisTemplate = redisTemplate;
+    }
+
+    // -------------------------------------------------------------------------
+    // CacheInvalidationBus implementation
+    // -------------------------------------------------------------------------
+
+    @Override
+    public void publish( String region, String key, String source )
+    {
+        try
+        {
+            redisTemplate.convertAndSend( CHANNEL, encode( region, key, source ) );
+        }
+        catch ( RuntimeException ex )
+        {
+            log.warn( String.format( "Failed to publish cache invalidation for region: '%s'", region ), ex );
+
+            // At least keep the subscribers of this node consistent
+
+            deliver( region, key, source );
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // MessageListener implementation
+    // -------------------------------------------------------------------------
+
+    @Override
+    public void onMessage( Message message, byte[] pattern )
+    {
+        Object body = redisTemplate.getValueSerializer().deserialize( message.getBody() );
+
+        if ( !( body instanceof String ) )
+        {
+            log.warn( "Ignoring unrecognized cache invalidation message" );
+            return;
+        }
+
+        String[] parts = ( (String) body ).split( SEPARATOR, 3 );
+
+        if ( parts.length < 2 )
+        {
+            log.warn( String.format( "Ignoring malformed cache invalidation message: '%s'", body ) );
+            return;
+        }
+
+        deliver( parts[1], parts.length == 3 ? parts[2] : null, parts[0] );
+    }
+
+    // -------------------------------------------------------------------------
+    // Supportive methods
+    // -------------------------------------------------------------------------
+
+    /**
+     * Encodes an invalidation as {@code source region [key]}. Sources and
+     * regions never contain the separator, whereas keys may.
+     */
+    static String encode( String region, String key, String source )
+    {
+        String message = source + SEPARATOR + region;
+
+        return key != null ? message + SEPARATOR + key : message;
+    }
+}
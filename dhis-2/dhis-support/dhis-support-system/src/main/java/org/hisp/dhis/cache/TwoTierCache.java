@@ -0,0 +1,332 @@
+package org.hisp.dhis.cache;
+
+/*
+ * Copyright (c) 2004-2018, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import java.lang.ref.WeakReference;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Two tier implementation of {@link Cache}. Values are kept in a node local
+ * cache (L1) in front of a shared cache (L2) which is common to all nodes of
+ * a cluster. Reads are served from the local cache when possible and fall
+ * back to the shared cache, populating the local cache on the way. Writes and
+ * invalidations go to both tiers. Invalidations, and writes which replace a
+ * different value, are broadcast through a {@link CacheInvalidationBus} so
+ * that the local caches of the other nodes evict their copy of the entry.
+ * Writes of keys which are not cached yet only fill the cache and are not
+ * broadcast, so values which other nodes may hold must be changed through
+ * {@link #invalidate(String)}.
+ * <p>
+ * Since invalidations may be lost, entries in the local cache always expire
+ * after at most {@link #MAX_LOCAL_EXPIRY_SECONDS} seconds.
+ * <p>
+ * The bus only holds a weak reference to the cache, and the subscription is
+ * removed when an invalidation arrives after the cache was garbage collected,
+ * or when the cache is closed.
+ */
+public class TwoTierCache<V> implements Cache<V>, AutoCloseable
+{
+    /**
+     * Upper bound for the time a value is kept in the local cache.
+     */
+    public static final long MAX_LOCAL_EXPIRY_SECONDS = TimeUnit.MINUTES.toSeconds( 10 );
+
+    private final Cache<V> localCache;
+
+    private final Cache<V> sharedCache;
+
+    private final CacheInvalidationBus invalidationBus;
+
+    private final String region;
+
+    private final String id;
+
+    private final V defaultValue;
+
+    /**
+     * Whether values are kept in the local cache only.
+     */
+    private final boolean localOnly;
+
+    /**
+     * Constructor for instantiating TwoTierCache, using a {@link LocalCache}
+     * as local and a {@link RedisCache} as shared cache.
+     *
+     * @param cacheBuilder The cache builder instance
+     */
+    public TwoTierCache( CacheBuilder<V> cacheBuilder )
+    {
+        this( new LocalCache<V>( localCacheBuilder( cacheBuilder ) ), new RedisCache<V>( sharedCacheBuilder( cacheBuilder ) ),
+            cacheBuilder.getInvalidationBus(), cacheBuilder.getRegion(), cacheBuilder.getDefaultValue() );
+    }
+
+    /**
+     * Creates a TwoTierCache which keeps values in a {@link LocalCache} only,
+     * using a {@link NoOpCache} as shared cache. Invalidations are broadcast
+     * like for any TwoTierCache, which keeps the local caches of all nodes
+     * consistent without storing the values in the shared store.
+     *
+     * @param cacheBuilder The cache builder instance
+     * @return a TwoTierCache without shared store.
+     */
+    public static <V> TwoTierCache<V> inMemory( CacheBuilder<V> cacheBuilder )
+    {
+        return new TwoTierCache<V>( new LocalCache<V>( localCacheBuilder( cacheBuilder ) ),
+            new NoOpCache<V>( new CacheBuilder<V>( null, null ) ), cacheBuilder.getInvalidationBus(),
+            cacheBuilder.getRegion(), cacheBuilder.getDefaultValue() );
+    }
+
+    /**
+     * Constructor for instantiating TwoTierCache with the given tiers. The
+     * given caches should not have any default value.
+     *
+     * @param localCache the node local cache.
+     * @param sharedCache the cache shared between nodes.
+     * @param invalidationBus the bus to broadcast invalidations through.
+     * @param region the cache region.
+     * @param defaultValue the default value, can be null.
+     */
+    public TwoTierCache( Cache<V> localCache, Cache<V> sharedCache, CacheInvalidationBus invalidationBus,
+        String region, V defaultValue )
+    {
+        this.localCache = localCache;
+        this.sharedCache = sharedCache;
+        this.invalidationBus = invalidationBus;
+        this.region = region;
+        this.id = UUID.randomUUID().toString();
+        this.defaultValue = defaultValue;
+        this.localOnly = sharedCache instanceof NoOpCache;
+
+        invalidationBus.subscribe( region, id, new InvalidationListener( this, invalidationBus, id ) );
+    }
+
+    // -------------------------------------------------------------------------
+    // Cache implementation
+    // -------------------------------------------------------------------------
+
+    @Override
+    public Optional<V> getIfPresent( String key )
+    {
+        Optional<V> value = localCache.getIfPresent( key );
+
+        if ( value.isPresent() )
+        {
+            return value;
+        }
+
+        value = sharedCache.getIfPresent( key );
+        value.ifPresent( v -> localCache.put( key, v ) );
+
+        return value;
+    }
+
+    @Override
+    public Optional<V> get( String key )
+    {
+        return Optional.ofNullable( getIfPresent( key ).orElse( defaultValue ) );
+    }
+
+    @Override
+    public Optional<V> get( String key, Function<String, V> mappingFunction )
+    {
+        if ( null == mappingFunction )
+        {
+            throw new IllegalArgumentException( "MappingFunction cannot be null" );
+        }
+
+        Optional<V> value = localCache.getIfPresent( key );
+
+        if ( !value.isPresent() )
+        {
+            value = sharedCache.get( key, mappingFunction );
+            value.ifPresent( v -> localCache.put( key, v ) );
+        }
+
+        return Optional.ofNullable( value.orElse( defaultValue ) );
+    }
+
+    @Override
+    public Collection<V> getAll()
+    {
+        return localOnly ? localCache.getAll() : sharedCache.getAll();
+    }
+
+    @Override
+    public void put( String key, V value )
+    {
+        if ( null == value )
+        {
+            throw new IllegalArgumentException( "Value cannot be null" );
+        }
+
+        Optional<V> previous = getIfPresent( key );
+
+        sharedCache.put( key, value );
+        localCache.put( key, value );
+
+        if ( previous.isPresent() && !previous.get().equals( value ) )
+        {
+            invalidationBus.publish( region, key, id );
+        }
+    }
+
+    @Override
+    public void invalidate( String key )
+    {
+        sharedCache.invalidate( key );
+        localCache.invalidate( key );
+        invalidationBus.publish( region, key, id );
+    }
+
+    @Override
+    public void invalidateAll()
+    {
+        sharedCache.invalidateAll();
+        localCache.invalidateAll();
+        invalidationBus.publish( region, null, id );
+    }
+
+    // -------------------------------------------------------------------------
+    // AutoCloseable implementation
+    // -------------------------------------------------------------------------
+
+    /**
+     * Removes the subscription of this cache from the invalidation bus.
+     */
+    @Override
+    public void close()
+    {
+        invalidationBus.unsubscribe( id );
+    }
+
+    // -------------------------------------------------------------------------
+    // Supportive methods
+    // -------------------------------------------------------------------------
+
+    /**
+     * Evicts the given key, or all keys if null, from the local cache.
+     */
+    private void evictLocal( String key )
+    {
+        if ( key == null )
+        {
+            localCache.invalidateAll();
+        }
+        else
+        {
+            localCache.invalidate( key );
+        }
+    }
+
+    /**
+     * Creates a builder for the shared tier. The shared tier has the same
+     * expiry as the given builder and no default value.
+     */
+    private static <V> CacheBuilder<V> sharedCacheBuilder( CacheBuilder<V> cacheBuilder )
+    {
+        CacheBuilder<V> builder = new CacheBuilder<V>( cacheBuilder.getRedisTemplate(), null )
+            .forRegion( cacheBuilder.getRegion() );
+
+        if ( cacheBuilder.isExpiryEnabled() && cacheBuilder.isRefreshExpiryOnAccess() )
+        {
+            builder.expireAfterAccess( cacheBuilder.getExpiryInSeconds(), TimeUnit.SECONDS );
+        }
+        else if ( cacheBuilder.isExpiryEnabled() )
+        {
+            builder.expireAfterWrite( cacheBuilder.getExpiryInSeconds(), TimeUnit.SECONDS );
+        }
+
+        return builder;
+    }
+
+    /**
+     * Creates a builder for the local tier. The local tier has the same size
+     * or weight as the given builder, expires after write with at most
+     * {@link #MAX_LOCAL_EXPIRY_SECONDS} seconds and has no default value.
+     */
+    private static <V> CacheBuilder<V> localCacheBuilder( CacheBuilder<V> cacheBuilder )
+    {
+        CacheBuilder<V> builder = new CacheBuilder<V>( null, null ).forRegion( cacheBuilder.getRegion() );
+
+        if ( cacheBuilder.getMaximumWeight() > 0 )
+        {
+            builder.withMaximumWeight( cacheBuilder.getMaximumWeight(), cacheBuilder.getWeigher() );
+        }
+        else if ( cacheBuilder.getMaximumSize() > 0 )
+        {
+            builder.withMaximumSize( cacheBuilder.getMaximumSize() );
+        }
+
+        long expiry = cacheBuilder.isExpiryEnabled() ?
+            Math.min( cacheBuilder.getExpiryInSeconds(), MAX_LOCAL_EXPIRY_SECONDS ) : MAX_LOCAL_EXPIRY_SECONDS;
+
+        return builder.expireAfterWrite( expiry, TimeUnit.SECONDS );
+    }
+
+    /**
+     * Listener which evicts invalidated keys from the local cache of a weakly
+     * referenced cache, and unsubscribes once the cache is garbage collected.
+     */
+    private static class InvalidationListener
+        implements Consumer<String>
+    {
+        private final WeakReference<TwoTierCache<?>> cacheRef;
+
+        private final CacheInvalidationBus invalidationBus;
+
+        private final String id;
+
+        InvalidationListener( TwoTierCache<?> cache, CacheInvalidationBus invalidationBus, String id )
+        {
+            this.cacheRef = new WeakReference<>( cache );
+            this.invalidationBus = invalidationBus;
+            this.id = id;
+        }
+
+        @Override
+        public void accept( String key )
+        {
+            TwoTierCache<?> cache = cacheRef.get();
+
+            if ( cache != null )
+            {
+                cache.evictLocal( key );
+            }
+            else
+            {
+                invalidationBus.unsubscribe( id );
+            }
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package org.hisp.dhis.configuration;
+
+/*
+ * Copyright (c) 2004-2018, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import org.hisp.dhis.cache.CacheInvalidationBus;
+import org.hisp.dhis.cache.InMemoryCacheInvalidationBus;
+import org.hisp.dhis.cache.RedisCacheInvalidationBus;
+import org.hisp.dhis.condition.RedisDisabledCondition;
+import org.hisp.dhis.condition.RedisEnabledCondition;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+
+/**
+ * This class deals with configuring an appropriate cache invalidation bus
+ * depending on whether redis is enabled or not.
+ */
+@Configuration
+public class CacheInvalidationConfiguration
+{
+    @Autowired( required = false )
+    private RedisTemplate<String, ?> redisTemplate;
+
+    @Bean
+    @Conditional( RedisEnabledCondition.class )
+    public RedisCacheInvalidationBus redisCacheInvalidationBus()
+    {
+        return new RedisCacheInvalidationBus( redisTemplate );
+    }
+
+    @Bean
+    @Conditional( RedisEnabledCondition.class )
+    public RedisMessageListenerContainer cacheInvalidationListenerContainer()
+    {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory( redisTemplate.getConnectionFactory() );
+        container.addMessageListener( redisCacheInvalidationBus(), new ChannelTopic( RedisCacheInvalidationBus.CHANNEL ) );
+        return container;
+    }
+
+    @Bean
+    @Conditional( RedisDisabledCondition.class )
+    public CacheInvalidationBus inMemoryCacheInvalidationBus()
+    {
+        return new InMemoryCacheInvalidationBus();
+    }
+}
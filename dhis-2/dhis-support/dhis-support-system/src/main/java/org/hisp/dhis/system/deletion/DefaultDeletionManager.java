@@ -28,16 +28,24 @@ package org.hisp.dhis.system.deletion;
  * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
  */
 
+
 import javassist.util.proxy.ProxyObject;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.hisp.dhis.common.DeleteNotAllowedException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.util.ClassUtils;
 
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
 
 /**
  * TODO: Add support for failed allow tests on "transitive" deletion handlers which
@@ -52,6 +60,7 @@ public class DefaultDeletionManager
 
     private static final String DELETE_METHOD_PREFIX = "delete";
     private static final String ALLOW_METHOD_PREFIX = "allowDelete";
+    private static final String BULK_METHOD_SUFFIX = "s";
 
     /**
      * Deletion handlers registered in context are subscribed to deletion 
@@ -60,6 +69,17 @@ public class DefaultDeletionManager
     @Autowired(required = false)
     private List<DeletionHandler> deletionHandlers;
 
+    /**
+     * Resolved DeletionHandler methods, keyed on method name and parameter type.
+     */
+    private final Map<String, Optional<Method>> methodCache = new ConcurrentHashMap<>();
+
+    /**
+     * Whether a DeletionHandler class should be invoked through a bulk method,
+     * keyed on handler class and method name.
+     */
+    private final Map<String, Boolean> bulkMethodCache = new ConcurrentHashMap<>();
+
     // -------------------------------------------------------------------------
     // DeletionManager implementation
     // -------------------------------------------------------------------------
@@ -85,38 +105,138 @@ public class DefaultDeletionManager
 
         String allowMethodName = ALLOW_METHOD_PREFIX + className;
 
+        Method allowMethod = getMethod( allowMethodName, clazz );
+
+        if ( allowMethod == null )
+        {
+            log.error( "Method '" + allowMethodName + "' does not exist on class '" + clazz + "'" );
+            return;
+        }
+
         String currentHandler = null;
 
         try
         {
-            Method allowMethod = DeletionHandler.class.getMethod( allowMethodName, clazz );
-
             for ( DeletionHandler handler : deletionHandlers )
             {
                 currentHandler = handler.getClass().getSimpleName();
 
                 log.debug( "Check if allowed using " + currentHandler + " for class " + className );
 
-                Object allow = allowMethod.invoke( handler, object );
+                verifyAllowed( handler, allowMethod, object );
+            }
+        }
+        catch ( IllegalAccessException ex )
+        {
+            log.error( "Method '" + allowMethodName + "' can not be invoked on DeletionHandler '" + currentHandler + "'", ex );
+            return;
+        }
+        catch ( InvocationTargetException ex )
+        {
+            log.error( "Method '" + allowMethodName + "' threw exception on DeletionHandler '" + currentHandler + "'", ex );
+            return;
+        }
 
-                if ( allow != null )
-                {
-                    String hint = String.valueOf( allow );
+        // ---------------------------------------------------------------------
+        // Delete associated objects
+        // ---------------------------------------------------------------------
 
-                    String message = "Could not delete due to association with another object: " +
-                        handler.getClassName() + ( hint.isEmpty() ? hint : ( " (" + hint + ")" ) );
+        String deleteMethodName = DELETE_METHOD_PREFIX + className;
 
-                    log.info( "Delete was not allowed by " + currentHandler + ": " + message );
-                    
-                    throw new DeleteNotAllowedException( DeleteNotAllowedException.ERROR_ASSOCIATED_BY_OTHER_OBJECTS, message );
-                }
+        try
+        {
+            Method deleteMethod = getMethod( deleteMethodName, clazz );
+
+            for ( DeletionHandler handler : deletionHandlers )
+            {
+                currentHandler = handler.getClass().getSimpleName();
+
+                log.debug( "Deleting object using " + currentHandler + " for class " + className );
+
+                deleteMethod.invoke( handler, object );
             }
         }
-        catch ( NoSuchMethodException e )
+        catch ( Exception ex )
+        {
+            log.error( "Failed to invoke method " + deleteMethodName + " on DeletionHandler '" + currentHandler + "'", ex );
+            return;
+        }
+
+        log.info( "Deleted objects associated with object of type " + className );
+    }
+
+    @Override
+    public void execute( Collection<?> objects )
+    {
+        if ( objects == null || objects.isEmpty() )
+        {
+            return;
+        }
+
+        if ( deletionHandlers == null || deletionHandlers.isEmpty() )
         {
-            log.error( "Method '" + allowMethodName + "' does not exist on class '" + clazz + "'", e );
+            log.info( "No deletion handlers registered, aborting deletion handling" );
             return;
         }
+
+        Map<Class<?>, List<Object>> objectMap = objects.stream()
+            .collect( Collectors.groupingBy( this::getClazz, LinkedHashMap::new, Collectors.toList() ) );
+
+        objectMap.forEach( this::executeBulk );
+    }
+
+    // -------------------------------------------------------------------------
+    // Supportive methods
+    // -------------------------------------------------------------------------
+
+    /**
+     * Runs the deletion handlers for the given objects of the given class. Handlers
+     * which override the bulk methods for the class are invoked once with the
+     * full list of objects, other handlers are invoked once per object.
+     */
+    private void executeBulk( Class<?> clazz, List<Object> objects )
+    {
+        String className = clazz.getSimpleName();
+
+        // ---------------------------------------------------------------------
+        // Verify that objects are allowed to be deleted
+        // ---------------------------------------------------------------------
+
+        String allowMethodName = ALLOW_METHOD_PREFIX + className;
+
+        Method allowMethod = getMethod( allowMethodName, clazz );
+
+        if ( allowMethod == null )
+        {
+            log.error( "Method '" + allowMethodName + "' does not exist on class '" + clazz + "'" );
+            return;
+        }
+
+        Method bulkAllowMethod = getMethod( allowMethodName + BULK_METHOD_SUFFIX, Collection.class );
+
+        String currentHandler = null;
+
+        try
+        {
+            for ( DeletionHandler handler : deletionHandlers )
+            {
+                currentHandler = handler.getClass().getSimpleName();
+
+                log.debug( "Check if allowed using " + currentHandler + " for " + objects.size() + " objects of class " + className );
+
+                if ( useBulkMethod( handler, bulkAllowMethod, allowMethod ) )
+                {
+                    verifyAllowed( handler, bulkAllowMethod, objects );
+                }
+                else
+                {
+                    for ( Object object : objects )
+                    {
+                        verifyAllowed( handler, allowMethod, object );
+                    }
+                }
+            }
+        }
         catch ( IllegalAccessException ex )
         {
             log.error( "Method '" + allowMethodName + "' can not be invoked on DeletionHandler '" + currentHandler + "'", ex );
@@ -136,15 +256,26 @@ public class DefaultDeletionManager
 
         try
         {
-            Method deleteMethod = DeletionHandler.class.getMethod( deleteMethodName, clazz );
+            Method deleteMethod = getMethod( deleteMethodName, clazz );
+            Method bulkDeleteMethod = getMethod( deleteMethodName + BULK_METHOD_SUFFIX, Collection.class );
 
             for ( DeletionHandler handler : deletionHandlers )
             {
                 currentHandler = handler.getClass().getSimpleName();
 
-                log.debug( "Deleting object using " + currentHandler + " for class " + className );
+                log.debug( "Deleting " + objects.size() + " objects using " + currentHandler + " for class " + className );
 
-                deleteMethod.invoke( handler, object );
+                if ( useBulkMethod( handler, bulkDeleteMethod, deleteMethod ) )
+                {
+                    bulkDeleteMethod.invoke( handler, objects );
+                }
+                else
+                {
+                    for ( Object object : objects )
+                    {
+                        deleteMethod.invoke( handler, object );
+                    }
+                }
             }
         }
         catch ( Exception ex )
@@ -153,7 +284,78 @@ public class DefaultDeletionManager
             return;
         }
 
-        log.info( "Deleted objects associated with object of type " + className );
+        log.info( "Deleted objects associated with " + objects.size() + " objects of type " + className );
+    }
+
+    /**
+     * Invokes the given allow method on the given handler and throws a
+     * {@link DeleteNotAllowedException} if the handler denies the delete.
+     */
+    private void verifyAllowed( DeletionHandler handler, Method allowMethod, Object argument )
+        throws IllegalAccessException, InvocationTargetException
+    {
+        Object allow = allowMethod.invoke( handler, argument );
+
+        if ( allow != null )
+        {
+            String hint = String.valueOf( allow );
+
+            String message = "Could not delete due to association with another object: " +
+                handler.getClassName() + ( hint.isEmpty() ? hint : ( " (" + hint + ")" ) );
+
+            log.info( "Delete was not allowed by " + handler.getClass().getSimpleName() + ": " + message );
+
+            throw new DeleteNotAllowedException( DeleteNotAllowedException.ERROR_ASSOCIATED_BY_OTHER_OBJECTS, message );
+        }
+    }
+
+    /**
+     * Returns the public DeletionHandler method with the given name and parameter
+     * type, or null if no such method exists. Lookups are cached.
+     */
+    private Method getMethod( String methodName, Class<?> parameterType )
+    {
+        return methodCache.computeIfAbsent( methodName + "(" + parameterType.getName() + ")", key -> {
+            try
+            {
+                return Optional.of( DeletionHandler.class.getMethod( methodName, parameterType ) );
+            }
+            catch ( NoSuchMethodException ex )
+            {
+                return Optional.empty();
+            }
+        } ).orElse( null );
+    }
+
+    /**
+     * Indicates whether the given handler should be invoked through the given
+     * bulk method. This is the case when the handler class overrides the bulk
+     * method at the same level or below the single object method, so that a
+     * subclass which overrides only the single object method is not bypassed.
+     * Returns false if the bulk method is null.
+     */
+    private boolean useBulkMethod( DeletionHandler handler, Method bulkMethod, Method method )
+    {
+        if ( bulkMethod == null || method == null )
+        {
+            return false;
+        }
+
+        Class<?> handlerClass = ClassUtils.getUserClass( handler );
+
+        return bulkMethodCache.computeIfAbsent( handlerClass.getName() + "." + bulkMethod.getName(), key -> {
+            try
+            {
+                Class<?> bulkClass = handlerClass.getMethod( bulkMethod.getName(), bulkMethod.getParameterTypes() ).getDeclaringClass();
+                Class<?> singleClass = handlerClass.getMethod( method.getName(), method.getParameterTypes() ).getDeclaringClass();
+
+                return bulkClass != DeletionHandler.class && singleClass.isAssignableFrom( bulkClass );
+            }
+            catch ( NoSuchMethodException ex )
+            {
+                return false;
+            }
+        } );
     }
 
     private Class<?> getClazz( Object object )
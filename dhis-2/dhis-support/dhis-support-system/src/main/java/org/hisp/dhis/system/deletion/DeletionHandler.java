@@ -123,6 +123,8 @@ import org.hisp.dhis.validation.ValidationRule;
 import org.hisp.dhis.validation.ValidationRuleGroup;
 import org.hisp.dhis.validation.notification.ValidationNotificationTemplate;
 
+import java.util.Collection;
+
 /**
  * A DeletionHandler should override methods for objects that, when deleted,
  * will affect the current object in any way. Eg. a DeletionHandler for
@@ -132,6 +134,14 @@ import org.hisp.dhis.validation.notification.ValidationNotificationTemplate;
  * if there exists objects that are dependent on the DataElement and are
  * considered not be deleted. The return value could be a hint for which object
  * is denying the delete, like the name.
+ * <p>
+ * For types which are typically deleted in large numbers, eg. through metadata
+ * import, a DeletionHandler can additionally override the bulk methods like
+ * deleteDataElements(..) which receive the full set of objects being deleted.
+ * This allows references to be resolved with a single set based query. When the
+ * bulk method of a type is not overridden, or is overridden further up the class
+ * hierarchy than the single object method, the DeletionManager will invoke the
+ * single object method once per object instead.
  *
  * @author Lars Helge Overland
  */
@@ -145,6 +155,28 @@ public abstract class DeletionHandler
 
     protected abstract String getClassName();
 
+    // -------------------------------------------------------------------------
+    // Bulk methods
+    // -------------------------------------------------------------------------
+
+    public void deleteDataElements( Collection<DataElement> dataElements )
+    {
+    }
+
+    public String allowDeleteDataElements( Collection<DataElement> dataElements )
+    {
+        return null;
+    }
+
+    public void deleteOrganisationUnits( Collection<OrganisationUnit> units )
+    {
+    }
+
+    public String allowDeleteOrganisationUnits( Collection<OrganisationUnit> units )
+    {
+        return null;
+    }
+
     // -------------------------------------------------------------------------
     // Public methods
     // -------------------------------------------------------------------------
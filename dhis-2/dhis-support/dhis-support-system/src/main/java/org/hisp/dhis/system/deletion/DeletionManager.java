@@ -28,6 +28,8 @@ package org.hisp.dhis.system.deletion;
  * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
  */
 
+import java.util.Collection;
+
 /**
  * @author Lars Helge Overland
  */
@@ -35,5 +37,25 @@ public interface DeletionManager
 {
     String ID = DeletionManager.class.getName();
     
+    /**
+     * Runs the deletion handlers for the given object which is about to be
+     * deleted.
+     *
+     * @param object the object to delete.
+     * @throws org.hisp.dhis.common.DeleteNotAllowedException if a handler
+     *         denies the delete.
+     */
     void execute( Object object );
+
+    /**
+     * Runs the deletion handlers for the given objects which are about to be
+     * deleted. Handlers which override the bulk methods for a type are invoked
+     * once with all objects of that type, other handlers are invoked once per
+     * object.
+     *
+     * @param objects the objects to delete.
+     * @throws org.hisp.dhis.common.DeleteNotAllowedException if a handler
+     *         denies the delete of any of the objects.
+     */
+    void execute( Collection<?> objects );
 }
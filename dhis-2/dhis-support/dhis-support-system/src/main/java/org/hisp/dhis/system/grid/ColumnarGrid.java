@@ -0,0 +1,881 @@
+package org.hisp.dhis.system.grid;
+
+/*
+ * Copyright (c) 2004-2018, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.google.common.collect.Iterables;
+
+import org.apache.commons.lang3.Validate;
+import org.hisp.dhis.common.Grid;
+import org.hisp.dhis.common.GridHeader;
+import org.hisp.dhis.common.adapter.JacksonRowDataSerializer;
+
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.stream.IntStream;
+
+/**
+ * Grid which stores values column by column. Columns holding only
+ * {@link Double} values are stored as primitive arrays, and columns holding
+ * only {@link String} values are dictionary-encoded, which makes the grid
+ * suitable for large responses with repeating dimension items. Columns with
+ * values of other or mixed types are stored as lists of objects.
+ * <p>
+ * Rows returned by {@link #getRow(int)} and {@link #getRows()} are views
+ * backed by the columns, and values set through a row view are written to
+ * the grid. Rows are not materialized, so rendering a grid row by row does
+ * not require more memory than the grid itself.
+ * <p>
+ * Headers, meta data and operations which work on rows and columns through
+ * the grid interface are inherited from {@link ListGrid}, only the storage of
+ * values is overridden.
+ */
+public class ColumnarGrid
+    extends ListGrid
+{
+    /**
+     * The columns of the grid.
+     */
+    private List<Column> columns;
+
+    /**
+     * The number of rows in the grid.
+     */
+    private int height;
+
+    /**
+     * Indicating the current column in the current row for writing data.
+     */
+    private int currentColumnWriteIndex;
+
+    /**
+     * Default constructor.
+     */
+    public ColumnarGrid()
+    {
+        super();
+        this.columns = new ArrayList<>();
+    }
+
+    /**
+     * @param metaData meta data.
+     * @param internalMetaData internal meta data.
+     */
+    public ColumnarGrid( Map<String, Object> metaData, Map<String, Object> internalMetaData )
+    {
+        super( metaData, internalMetaData );
+        this.columns = new ArrayList<>();
+    }
+
+    // ---------------------------------------------------------------------
+    // Public methods
+    // ---------------------------------------------------------------------
+
+    @Override
+    @JsonProperty
+    public int getHeight()
+    {
+        return height;
+    }
+
+    @Override
+    @JsonProperty
+    public int getWidth()
+    {
+        return height > 0 ? columns.size() : 0;
+    }
+
+    @Override
+    public int getVisibleWidth()
+    {
+        return height > 0 ? getVisibleColumnIndexes().length : 0;
+    }
+
+    @Override
+    public Grid addRow()
+    {
+        height++;
+
+        currentColumnWriteIndex = 0;
+
+        return this;
+    }
+
+    @Override
+    public Grid addRows( Grid grid )
+    {
+        for ( List<Object> row : grid.getRows() )
+        {
+            addRow();
+            addValuesAsList( row );
+        }
+
+        return this;
+    }
+
+    @Override
+    public Grid addValue( Object value )
+    {
+        int columnIndex = currentColumnWriteIndex++;
+
+        while ( columnIndex >= columns.size() )
+        {
+            columns.add( Column.of( value ) );
+        }
+
+        Column column = getWritableColumn( columnIndex, value );
+        column.fill( height - 1 );
+        column.append( value );
+
+        return this;
+    }
+
+    @Override
+    public Grid addValues( Object[] values )
+    {
+        for ( Object value : values )
+        {
+            addValue( value );
+        }
+
+        return this;
+    }
+
+    @Override
+    public List<Object> getRow( int rowIndex )
+    {
+        if ( rowIndex < 0 || rowIndex >= height )
+        {
+            throw new IndexOutOfBoundsException( "Row index: " + rowIndex + ", height: " + height );
+        }
+
+        return new RowView( rowIndex, null );
+    }
+
+    @Override
+    @JsonProperty
+    @JsonSerialize( using = JacksonRowDataSerializer.class )
+    public List<List<Object>> getRows()
+    {
+        return new RowsView( null );
+    }
+
+    @Override
+    public List<List<Object>> getVisibleRows()
+    {
+        return getHeaders() != null && getHeaders().size() > 0 ? new RowsView( getVisibleColumnIndexes() ) : new ArrayList<>();
+    }
+
+    @Override
+    public List<Object> getColumn( int columnIndex )
+    {
+        Column column = columns.get( columnIndex );
+
+        List<Object> values = new ArrayList<>( height );
+
+        for ( int i = 0; i < height; i++ )
+        {
+            values.add( column.get( i ) );
+        }
+
+        return values;
+    }
+
+    @Override
+    public Object getValue( int rowIndex, int columnIndex )
+    {
+        if ( rowIndex < 0 || rowIndex >= height || columnIndex < 0 || columnIndex >= columns.size() )
+        {
+            throw new IllegalArgumentException( "Grid does not contain the requested row / column" );
+        }
+
+        return columns.get( columnIndex ).get( rowIndex );
+    }
+
+    @Override
+    public Grid addColumn( List<Object> columnValues )
+    {
+        return addColumn( columns.size(), columnValues );
+    }
+
+    @Override
+    public Grid addColumn( int columnIndex, List<Object> columnValues )
+    {
+        if ( height != columnValues.size() )
+        {
+            throw new IllegalStateException( "Number of column values (" + columnValues.size() + ") is not equal to number of rows (" + height + ")" );
+        }
+
+        columns.add( columnIndex, Column.of( columnValues ) );
+
+        return this;
+    }
+
+    @Override
+    public Grid addAndPopulateColumnsBefore( int referenceColumnIndex, Map<Object, List<?>> valueMap, int newColumns )
+    {
+        Validate.inclusiveBetween( 0, getWidth() - 1, referenceColumnIndex );
+        Validate.notNull( valueMap );
+
+        Column referenceColumn = columns.get( referenceColumnIndex );
+
+        List<List<Object>> newColumnValues = new ArrayList<>();
+
+        for ( int i = 0; i < newColumns; i++ )
+        {
+            newColumnValues.add( new ArrayList<>( height ) );
+        }
+
+        for ( int rowIndex = 0; rowIndex < height; rowIndex++ )
+        {
+            List<?> list = valueMap.get( referenceColumn.get( rowIndex ) );
+
+            for ( int i = 0; i < newColumns; i++ )
+            {
+                newColumnValues.get( i ).add( list == null ? null : Iterables.get( list, i, null ) );
+            }
+        }
+
+        for ( int i = 0; i < newColumns; i++ )
+        {
+            columns.add( referenceColumnIndex + i, Column.of( newColumnValues.get( i ) ) );
+        }
+
+        return this;
+    }
+
+    @Override
+    public boolean columnIsEmpty( int columnIndex )
+    {
+        return columns.get( columnIndex ).isEmpty();
+    }
+
+    @Override
+    public Grid removeColumn( int columnIndex )
+    {
+        if ( columnIndex < columns.size() )
+        {
+            columns.remove( columnIndex );
+        }
+
+        return super.removeColumn( columnIndex );
+    }
+
+    @Override
+    public Grid removeCurrentWriteRow()
+    {
+        height--;
+
+        columns.forEach( column -> column.truncate( height ) );
+
+        currentColumnWriteIndex = columns.size();
+
+        return this;
+    }
+
+    @Override
+    public Grid limitGrid( int limit )
+    {
+        if ( limit < 0 )
+        {
+            throw new IllegalStateException( "Illegal limit: " + limit );
+        }
+
+        if ( limit > 0 && limit <= getHeight() )
+        {
+            selectRows( IntStream.range( 0, limit ).toArray() );
+        }
+
+        return this;
+    }
+
+    @Override
+    public Grid limitGrid( int startPos, int endPos )
+    {
+        if ( startPos < 0 || endPos < startPos || endPos > getHeight() )
+        {
+            throw new IllegalStateException( "Illegal start / end pos: " + startPos + ", " + endPos + ", " + getHeight() );
+        }
+
+        selectRows( IntStream.range( startPos, endPos ).toArray() );
+
+        return this;
+    }
+
+    @Override
+    public Grid sortGrid( int columnIndex, int order )
+    {
+        if ( order == 0 )
+        {
+            return this; // No sorting
+        }
+
+        columnIndex--;
+
+        if ( columnIndex < 0 || columnIndex >= getWidth() )
+        {
+            throw new IllegalArgumentException( "Column index out of bounds: " + columnIndex );
+        }
+
+        Comparator<List<Object>> comparator = new GridRowComparator( columnIndex, order );
+
+        Integer[] rowIndexes = new Integer[height];
+
+        for ( int i = 0; i < height; i++ )
+        {
+            rowIndexes[i] = i;
+        }
+
+        Arrays.sort( rowIndexes, ( rowIndex1, rowIndex2 ) -> comparator.compare( getRow( rowIndex1 ), getRow( rowIndex2 ) ) );
+
+        selectRows( Arrays.stream( rowIndexes ).mapToInt( Integer::intValue ).toArray() );
+
+        return this;
+    }
+
+    @Override
+    public Grid substituteMetaData( int sourceColumnIndex, int targetColumnIndex, Map<? extends Object, ? extends Object> metaDataMap )
+    {
+        if ( metaDataMap == null || sourceColumnIndex >= columns.size() )
+        {
+            return this;
+        }
+
+        Column sourceColumn = columns.get( sourceColumnIndex );
+
+        if ( sourceColumnIndex == targetColumnIndex && sourceColumn instanceof StringColumn &&
+            ( (StringColumn) sourceColumn ).substitute( metaDataMap ) )
+        {
+            return this; // Substituted dictionary values instead of cells
+        }
+
+        for ( int rowIndex = 0; rowIndex < height; rowIndex++ )
+        {
+            Object metaValue = metaDataMap.get( sourceColumn.get( rowIndex ) );
+
+            if ( metaValue != null )
+            {
+                setValue( rowIndex, targetColumnIndex, metaValue );
+            }
+        }
+
+        return this;
+    }
+
+    // -------------------------------------------------------------------------
+    // Supportive methods
+    // -------------------------------------------------------------------------
+
+    /**
+     * Sets the value at the given row and column, converting the column to a
+     * column of objects if the value is not supported by the column.
+     */
+    private void setValue( int rowIndex, int columnIndex, Object value )
+    {
+        Column column = getWritableColumn( columnIndex, value );
+        column.fill( rowIndex + 1 );
+        column.set( rowIndex, value );
+    }
+
+    /**
+     * Returns the column at the given index, replacing it with a column
+     * which supports the given value if required.
+     */
+    private Column getWritableColumn( int columnIndex, Object value )
+    {
+        Column column = columns.get( columnIndex );
+
+        if ( !column.supports( value ) )
+        {
+            column = column.isEmpty() ? Column.of( value ).fill( column.size() ) : new ObjectColumn( column );
+            columns.set( columnIndex, column );
+        }
+
+        return column;
+    }
+
+    /**
+     * Retains the rows at the given indexes, in the given order.
+     */
+    private void selectRows( int[] rowIndexes )
+    {
+        columns.replaceAll( column -> column.select( rowIndexes ) );
+
+        height = rowIndexes.length;
+    }
+
+    private int[] getVisibleColumnIndexes()
+    {
+        List<GridHeader> headers = getHeaders();
+
+        return IntStream.range( 0, columns.size() )
+            .filter( i -> i >= headers.size() || !headers.get( i ).isHidden() )
+            .toArray();
+    }
+
+    // -------------------------------------------------------------------------
+    // Row views
+    // -------------------------------------------------------------------------
+
+    /**
+     * Row backed by the columns of the grid. Values set through the row are
+     * written to the grid.
+     */
+    private class RowView
+        extends AbstractList<Object>
+        implements RandomAccess
+    {
+        private final int rowIndex;
+
+        private final int[] columnIndexes;
+
+        private RowView( int rowIndex, int[] columnIndexes )
+        {
+            this.rowIndex = rowIndex;
+            this.columnIndexes = columnIndexes;
+        }
+
+        @Override
+        public Object get( int index )
+        {
+            return columns.get( getColumnIndex( index ) ).get( rowIndex );
+        }
+
+        @Override
+        public Object set( int index, Object value )
+        {
+            int columnIndex = getColumnIndex( index );
+
+            Object previous = columns.get( columnIndex ).get( rowIndex );
+
+            setValue( rowIndex, columnIndex, value );
+
+            return previous;
+        }
+
+        @Override
+        public int size()
+        {
+            return columnIndexes != null ? columnIndexes.length : columns.size();
+        }
+
+        private int getColumnIndex( int index )
+        {
+            if ( index < 0 || index >= size() )
+            {
+                throw new IndexOutOfBoundsException( "Index: " + index + ", size: " + size() );
+            }
+
+            return columnIndexes != null ? columnIndexes[index] : index;
+        }
+    }
+
+    /**
+     * Rows of the grid, where each row is created on access.
+     */
+    private class RowsView
+        extends AbstractList<List<Object>>
+        implements RandomAccess
+    {
+        private final int[] columnIndexes;
+
+        private RowsView( int[] columnIndexes )
+        {
+            this.columnIndexes = columnIndexes;
+        }
+
+        @Override
+        public List<Object> get( int index )
+        {
+            if ( index < 0 || index >= height )
+            {
+                throw new IndexOutOfBoundsException( "Index: " + index + ", size: " + height );
+            }
+
+            return new RowView( index, columnIndexes );
+        }
+
+        @Override
+        public int size()
+        {
+            return height;
+        }
+    }
+
+    // -------------------------------------------------------------------------
+    // Columns
+    // -------------------------------------------------------------------------
+
+    /**
+     * Column of values. Values are appended in row order, rows beyond the
+     * size of the column are null.
+     */
+    private abstract static class Column
+        implements Serializable
+    {
+        protected int size;
+
+        protected int nonNull;
+
+        /**
+         * Returns a column which supports the given value.
+         */
+        static Column of( Object value )
+        {
+            if ( value instanceof Double )
+            {
+                return new DoubleColumn();
+            }
+            else if ( value instanceof String )
+            {
+                return new StringColumn();
+            }
+            else if ( value == null )
+            {
+                return new StringColumn();
+            }
+
+            return new ObjectColumn();
+        }
+
+        /**
+         * Returns a column holding the given values.
+         */
+        static Column of( List<?> values )
+        {
+            Column column = values.stream()
+                .filter( v -> v != null ).findFirst()
+                .map( Column::of ).orElseGet( StringColumn::new );
+
+            for ( Object value : values )
+            {
+                if ( !column.supports( value ) )
+                {
+                    column = new ObjectColumn( column );
+                }
+
+                column.append( value );
+            }
+
+            return column;
+        }
+
+        int size()
+        {
+            return size;
+        }
+
+        boolean isEmpty()
+        {
+            return nonNull == 0;
+        }
+
+        /**
+         * Appends null values until the column has the given size.
+         */
+        Column fill( int toSize )
+        {
+            while ( size < toSize )
+            {
+                append( null );
+            }
+
+            return this;
+        }
+
+        void append( Object value )
+        {
+            ensureCapacity( size + 1 );
+            write( size++, value, false );
+        }
+
+        void set( int index, Object value )
+        {
+            write( index, value, get( index ) != null );
+        }
+
+        void truncate( int toSize )
+        {
+            for ( int i = toSize; i < size; i++ )
+            {
+                if ( get( i ) != null )
+                {
+                    nonNull--;
+                }
+
+                write( i, null, false );
+            }
+
+            size = Math.min( size, toSize );
+        }
+
+        Column select( int[] rowIndexes )
+        {
+            Column column = newColumn();
+            column.ensureCapacity( rowIndexes.length );
+
+            for ( int rowIndex : rowIndexes )
+            {
+                column.append( get( rowIndex ) );
+            }
+
+            return column;
+        }
+
+        private void write( int index, Object value, boolean wasNonNull )
+        {
+            if ( wasNonNull )
+            {
+                nonNull--;
+            }
+
+            if ( value != null )
+            {
+                nonNull++;
+            }
+
+            doWrite( index, value );
+        }
+
+        /**
+         * Returns the value at the given index, or null if the index is
+         * beyond the size of the column.
+         */
+        abstract Object get( int index );
+
+        abstract boolean supports( Object value );
+
+        abstract void ensureCapacity( int capacity );
+
+        abstract void doWrite( int index, Object value );
+
+        abstract Column newColumn();
+    }
+
+    /**
+     * Column of double values stored as a primitive array.
+     */
+    private static class DoubleColumn
+        extends Column
+    {
+        private double[] values = new double[16];
+
+        private BitSet nulls = new BitSet();
+
+        @Override
+        Object get( int index )
+        {
+            return index < size && !nulls.get( index ) ? values[index] : null;
+        }
+
+        @Override
+        boolean supports( Object value )
+        {
+            return value == null || value instanceof Double;
+        }
+
+        @Override
+        void ensureCapacity( int capacity )
+        {
+            if ( capacity > values.length )
+            {
+                values = Arrays.copyOf( values, Math.max( capacity, values.length + ( values.length >> 1 ) ) );
+            }
+        }
+
+        @Override
+        void doWrite( int index, Object value )
+        {
+            nulls.set( index, value == null );
+            values[index] = value != null ? (Double) value : 0d;
+        }
+
+        @Override
+        Column newColumn()
+        {
+            return new DoubleColumn();
+        }
+    }
+
+    /**
+     * Column of string values stored as codes referring to a dictionary of
+     * distinct values.
+     */
+    private static class StringColumn
+        extends Column
+    {
+        private static final int NULL_CODE = -1;
+
+        private int[] codes = new int[16];
+
+        private List<String> dictionary = new ArrayList<>();
+
+        private Map<String, Integer> dictionaryIndex = new HashMap<>();
+
+        @Override
+        Object get( int index )
+        {
+            return index < size && codes[index] != NULL_CODE ? dictionary.get( codes[index] ) : null;
+        }
+
+        @Override
+        boolean supports( Object value )
+        {
+            return value == null || value instanceof String;
+        }
+
+        @Override
+        void ensureCapacity( int capacity )
+        {
+            if ( capacity > codes.length )
+            {
+                codes = Arrays.copyOf( codes, Math.max( capacity, codes.length + ( codes.length >> 1 ) ) );
+            }
+        }
+
+        @Override
+        void doWrite( int index, Object value )
+        {
+            codes[index] = value != null ? dictionaryIndex.computeIfAbsent( (String) value, v -> {
+                dictionary.add( v );
+                return dictionary.size() - 1;
+            } ) : NULL_CODE;
+        }
+
+        @Override
+        Column newColumn()
+        {
+            return new StringColumn();
+        }
+
+        /**
+         * Substitutes the dictionary values which have a string mapping in the
+         * given map, which substitutes the values of all cells referring to
+         * them.
+         *
+         * @return false if a value maps to a value which is not a string, in
+         *         which case no values are substituted.
+         */
+        boolean substitute( Map<?, ?> metaDataMap )
+        {
+            List<String> substitutedDictionary = new ArrayList<>( dictionary.size() );
+
+            for ( String value : dictionary )
+            {
+                Object metaValue = metaDataMap.get( value );
+
+                if ( metaValue != null && !( metaValue instanceof String ) )
+                {
+                    return false;
+                }
+
+                substitutedDictionary.add( metaValue != null ? (String) metaValue : value );
+            }
+
+            Map<String, Integer> index = new HashMap<>();
+
+            for ( int i = 0; i < substitutedDictionary.size(); i++ )
+            {
+                index.putIfAbsent( substitutedDictionary.get( i ), i );
+            }
+
+            dictionary = substitutedDictionary;
+            dictionaryIndex = index;
+
+            return true;
+        }
+    }
+
+    /**
+     * Column of values of any type.
+     */
+    private static class ObjectColumn
+        extends Column
+    {
+        private ArrayList<Object> values = new ArrayList<>();
+
+        ObjectColumn()
+        {
+        }
+
+        ObjectColumn( Column column )
+        {
+            values.ensureCapacity( column.size() );
+
+            for ( int i = 0; i < column.size(); i++ )
+            {
+                append( column.get( i ) );
+            }
+        }
+
+        @Override
+        Object get( int index )
+        {
+            return index < size ? values.get( index ) : null;
+        }
+
+        @Override
+        boolean supports( Object value )
+        {
+            return true;
+        }
+
+        @Override
+        void ensureCapacity( int capacity )
+        {
+            values.ensureCapacity( capacity );
+
+            while ( values.size() < capacity )
+            {
+                values.add( null );
+            }
+        }
+
+        @Override
+        void doWrite( int index, Object value )
+        {
+            values.set( index, value );
+        }
+
+        @Override
+        Column newColumn()
+        {
+            return new ObjectColumn();
+        }
+    }
+}
@@ -42,11 +42,11 @@ import static org.hisp.dhis.system.util.PDFUtils.resetPaddings;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.StringWriter;
+import java.io.UncheckedIOException;
 import java.io.Writer;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
@@ -59,6 +59,7 @@ import org.hisp.dhis.api.util.DateUtils;
 import org.hisp.dhis.common.DimensionalObjectUtils;
 import org.hisp.dhis.common.Grid;
 import org.hisp.dhis.common.GridHeader;
+import org.hisp.dhis.common.GridWriter;
 import org.hisp.dhis.commons.collection.ListUtils;
 import org.hisp.dhis.commons.util.Encoder;
 import org.hisp.dhis.commons.util.TextUtils;
@@ -78,7 +79,6 @@ import org.htmlparser.tags.TableRow;
 import org.htmlparser.tags.TableTag;
 import org.springframework.jdbc.support.rowset.SqlRowSet;
 
-import com.csvreader.CsvWriter;
 import com.lowagie.text.Document;
 import com.lowagie.text.pdf.PdfPTable;
 
@@ -104,7 +104,6 @@ public class GridUtils
     private static final Log log = LogFactory.getLog( GridUtils.class );
 
     private static final String EMPTY = "";
-    private static final char CSV_DELIMITER = ',';
     private static final String XLS_SHEET_PREFIX = "Sheet ";
     private static final int JXL_MAX_COLS = 256;
 
@@ -344,28 +343,20 @@ public class GridUtils
             return;
         }
 
-        CsvWriter csvWriter = new CsvWriter( writer, CSV_DELIMITER );
+        GridWriter gridWriter = new CsvGridWriter( writer );
 
-        Iterator<GridHeader> headers = grid.getHeaders().iterator();
-
-        if ( !grid.getHeaders().isEmpty() )
+        try
         {
-            while ( headers.hasNext() )
+            gridWriter.writeHeaders( grid.getHeaders() );
+
+            for ( List<Object> row : grid.getRows() )
             {
-                csvWriter.write( headers.next().getColumn() );
+                gridWriter.writeRow( row );
             }
-
-            csvWriter.endRecord();
         }
-
-        for ( List<Object> row : grid.getRows() )
+        catch ( UncheckedIOException ex )
         {
-            for ( Object value : row )
-            {
-                csvWriter.write( value != null ? String.valueOf( value ) : StringUtils.EMPTY );
-            }
-
-            csvWriter.endRecord();
+            throw ex.getCause();
         }
     }
 
@@ -912,7 +912,7 @@ public class ListGrid
     {
         Map<String, T> map = new HashMap<>();
 
-        for ( List<Object> row : grid )
+        for ( List<Object> row : getRows() )
         {
             List<Object> metaDataRow = new ArrayList<>( row );
 
@@ -1028,16 +1028,16 @@ public class ListGrid
 
         while ( rs.next() )
         {
+            if ( maxLimit > 0 && getHeight() >= maxLimit )
+            {
+                throw new IllegalStateException( "Number of rows produced by query is larger than the max limit: " + maxLimit );
+            }
+
             addRow();
 
             for ( int i = 1; i <= cols; i++ )
             {
                 addValue( rs.getObject( i ) );
-
-                if ( maxLimit > 0 && i > maxLimit )
-                {
-                    throw new IllegalStateException( "Number of rows produced by query is larger than the max limit: " + maxLimit );
-                }
             }
         }
 
@@ -1110,7 +1110,7 @@ public class ListGrid
             builder.append( headerNames ).append( "\n" );
         }
 
-        for ( List<Object> row : grid )
+        for ( List<Object> row : getRows() )
         {
             builder.append( row ).append( "\n" );
         }
@@ -0,0 +1,240 @@
+package org.hisp.dhis.cache;
+
+/*
+ * Copyright (c) 2004-2018, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Simulates two nodes sharing a cache store and an invalidation bus.
+ */
+public class TwoTierCacheTest
+{
+    private CacheInvalidationBus bus;
+
+    private Cache<String> sharedCache;
+
+    private Cache<String> localCacheA;
+
+    private Cache<String> localCacheB;
+
+    private TwoTierCache<String> nodeA;
+
+    private TwoTierCache<String> nodeB;
+
+    @Before
+    public void before()
+    {
+        bus = new InMemoryCacheInvalidationBus();
+        sharedCache = newLocalCache();
+        localCacheA = newLocalCache();
+        localCacheB = newLocalCache();
+        nodeA = new TwoTierCache<>( localCacheA, sharedCache, bus, "test", null );
+        nodeB = new TwoTierCache<>( localCacheB, sharedCache, bus, "test", null );
+    }
+
+    @Test
+    public void testGetPopulatesLocalCache()
+    {
+        sharedCache.put( "k", "v" );
+
+        assertEquals( "v", nodeA.get( "k" ).get() );
+        assertEquals( "v", localCacheA.getIfPresent( "k" ).get() );
+        assertFalse( localCacheB.getIfPresent( "k" ).isPresent() );
+    }
+
+    @Test
+    public void testGetWithMappingFunctionComputesOnce()
+    {
+        AtomicInteger loads = new AtomicInteger();
+
+        assertEquals( "v1", nodeA.get( "k", key -> "v" + loads.incrementAndGet() ).get() );
+        assertEquals( "v1", nodeB.get( "k", key -> "v" + loads.incrementAndGet() ).get() );
+        assertEquals( 1, loads.get() );
+        assertEquals( "v1", localCacheB.getIfPresent( "k" ).get() );
+    }
+
+    @Test
+    public void testPutEvictsOtherNodes()
+    {
+        nodeA.put( "k", "v1" );
+        assertEquals( "v1", nodeB.get( "k" ).get() );
+
+        nodeA.put( "k", "v2" );
+
+        assertFalse( localCacheB.getIfPresent( "k" ).isPresent() );
+        assertEquals( "v2", localCacheA.getIfPresent( "k" ).get() );
+        assertEquals( "v2", nodeB.get( "k" ).get() );
+    }
+
+    @Test
+    public void testPutBroadcastsOnlyChangedValues()
+    {
+        AtomicInteger received = new AtomicInteger();
+
+        bus.subscribe( "test", "listener", key -> received.incrementAndGet() );
+
+        nodeA.put( "k", "v1" );
+        nodeA.put( "k", "v1" );
+
+        assertEquals( 0, received.get() );
+
+        nodeA.put( "k", "v2" );
+
+        assertEquals( 1, received.get() );
+    }
+
+    @Test
+    public void testCloseUnsubscribes()
+    {
+        nodeA.put( "k", "v1" );
+        nodeB.get( "k" );
+
+        nodeB.close();
+        nodeA.put( "k", "v2" );
+
+        assertEquals( "v1", localCacheB.getIfPresent( "k" ).get() );
+    }
+
+    @Test
+    public void testInvalidateEvictsAllTiers()
+    {
+        nodeA.put( "k", "v" );
+        nodeB.get( "k" );
+
+        nodeB.invalidate( "k" );
+
+        assertFalse( sharedCache.getIfPresent( "k" ).isPresent() );
+        assertFalse( localCacheA.getIfPresent( "k" ).isPresent() );
+        assertFalse( nodeA.get( "k" ).isPresent() );
+    }
+
+    @Test
+    public void testInvalidateAllEvictsOtherNodes()
+    {
+        nodeA.put( "k1", "v1" );
+        nodeA.put( "k2", "v2" );
+        nodeB.get( "k1" );
+        nodeB.get( "k2" );
+
+        nodeA.invalidateAll();
+
+        assertFalse( localCacheA.getIfPresent( "k1" ).isPresent() );
+        assertFalse( localCacheB.getIfPresent( "k1" ).isPresent() );
+        assertFalse( localCacheB.getIfPresent( "k2" ).isPresent() );
+    }
+
+    @Test
+    public void testOtherRegionIsNotEvicted()
+    {
+        Cache<String> otherLocalCache = newLocalCache();
+        TwoTierCache<String> other = new TwoTierCache<>( otherLocalCache, newLocalCache(), bus, "other", null );
+
+        other.put( "k", "v" );
+        nodeA.invalidate( "k" );
+
+        assertTrue( otherLocalCache.getIfPresent( "k" ).isPresent() );
+    }
+
+    @Test
+    public void testDefaultValue()
+    {
+        TwoTierCache<String> cache = new TwoTierCache<>( newLocalCache(), newLocalCache(), bus, "default", "d" );
+
+        assertEquals( "d", cache.get( "k" ).get() );
+        assertEquals( "d", cache.get( "k", key -> null ).get() );
+        assertFalse( cache.getIfPresent( "k" ).isPresent() );
+    }
+
+    @Test
+    public void testInMemoryCacheBroadcastsInvalidation()
+    {
+        AtomicInteger loads = new AtomicInteger();
+
+        Cache<String> memoryA = TwoTierCache.inMemory( newInMemoryCacheBuilder() );
+        Cache<String> memoryB = TwoTierCache.inMemory( newInMemoryCacheBuilder() );
+
+        assertEquals( "v1", memoryA.get( "k", key -> "v" + loads.incrementAndGet() ).get() );
+        assertEquals( "v2", memoryB.get( "k", key -> "v" + loads.incrementAndGet() ).get() );
+        assertEquals( "v1", memoryA.get( "k", key -> "v" + loads.incrementAndGet() ).get() );
+
+        memoryA.invalidateAll();
+
+        assertEquals( "v3", memoryB.get( "k", key -> "v" + loads.incrementAndGet() ).get() );
+        assertEquals( 3, loads.get() );
+    }
+
+    @Test
+    public void testInMemoryCacheGetAll()
+    {
+        Cache<String> memory = TwoTierCache.inMemory( newInMemoryCacheBuilder() );
+
+        memory.put( "k1", "v1" );
+        memory.put( "k2", "v2" );
+
+        assertEquals( 2, memory.getAll().size() );
+        assertTrue( memory.getAll().contains( "v1" ) );
+    }
+
+    @Test
+    public void testUnsubscribe()
+    {
+        AtomicInteger received = new AtomicInteger();
+
+        bus.subscribe( "test", "listener", key -> received.incrementAndGet() );
+        nodeA.invalidate( "k" );
+        bus.unsubscribe( "listener" );
+        nodeA.invalidate( "k" );
+
+        assertEquals( 1, received.get() );
+    }
+
+    @Test
+    public void testEncodeRedisMessage()
+    {
+        assertEquals( "src test a b", RedisCacheInvalidationBus.encode( "test", "a b", "src" ) );
+        assertEquals( "src test", RedisCacheInvalidationBus.encode( "test", null, "src" ) );
+    }
+
+    private CacheBuilder<String> newInMemoryCacheBuilder()
+    {
+        return new CacheBuilder<String>( null, null, bus ).forRegion( "memory" ).withMaximumSize( 100 ).forceInMemory();
+    }
+
+    private static Cache<String> newLocalCache()
+    {
+        return new LocalCache<>( new CacheBuilder<String>( null, null ).withMaximumSize( 100 ) );
+    }
+}
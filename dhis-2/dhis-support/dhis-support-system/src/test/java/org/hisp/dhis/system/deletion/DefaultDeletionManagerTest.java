@@ -0,0 +1,198 @@
+package org.hisp.dhis.system.deletion;
+
+/*
+ * Copyright (c) 2004-2018, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import com.google.common.collect.Lists;
+import org.hisp.dhis.common.DeleteNotAllowedException;
+import org.hisp.dhis.dataelement.DataElement;
+import org.hisp.dhis.organisationunit.OrganisationUnit;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class DefaultDeletionManagerTest
+{
+    private DefaultDeletionManager deletionManager;
+
+    private SingleDeletionHandler singleHandler;
+
+    private BulkDeletionHandler bulkHandler;
+
+    private SingleSubclassDeletionHandler singleSubclassHandler;
+
+    private DataElement deA;
+    private DataElement deB;
+    private DataElement deC;
+
+    @Before
+    public void before()
+    {
+        singleHandler = new SingleDeletionHandler();
+        bulkHandler = new BulkDeletionHandler();
+        singleSubclassHandler = new SingleSubclassDeletionHandler();
+
+        deletionManager = new DefaultDeletionManager();
+
+        ReflectionTestUtils.setField( deletionManager, "deletionHandlers",
+            Lists.newArrayList( singleHandler, bulkHandler, singleSubclassHandler ) );
+
+        deA = new DataElement( "DataElementA" );
+        deB = new DataElement( "DataElementB" );
+        deC = new DataElement( "DataElementC" );
+    }
+
+    @Test
+    public void testExecute()
+    {
+        deletionManager.execute( deA );
+
+        assertEquals( 1, singleHandler.dataElements.size() );
+        assertEquals( 1, bulkHandler.dataElements.size() );
+        assertEquals( 0, bulkHandler.bulkInvocations );
+        assertEquals( 1, singleSubclassHandler.dataElements.size() );
+    }
+
+    @Test
+    public void testExecuteBulk()
+    {
+        deletionManager.execute( Lists.newArrayList( deA, deB, deC ) );
+
+        assertEquals( 3, singleHandler.dataElements.size() );
+        assertEquals( 3, bulkHandler.dataElements.size() );
+        assertEquals( 1, bulkHandler.bulkInvocations );
+        assertEquals( 0, singleSubclassHandler.bulkInvocations );
+        assertEquals( 3, singleSubclassHandler.dataElements.size() );
+    }
+
+    @Test
+    public void testExecuteBulkMixedTypes()
+    {
+        OrganisationUnit ouA = new OrganisationUnit( "OrgUnitA" );
+
+        deletionManager.execute( Lists.newArrayList( deA, ouA, deB ) );
+
+        assertEquals( 2, singleHandler.dataElements.size() );
+        assertEquals( 1, singleHandler.organisationUnits.size() );
+        assertEquals( 2, bulkHandler.dataElements.size() );
+        assertEquals( 1, bulkHandler.bulkInvocations );
+    }
+
+    @Test( expected = DeleteNotAllowedException.class )
+    public void testExecuteBulkNotAllowed()
+    {
+        bulkHandler.allow = false;
+
+        deletionManager.execute( Lists.newArrayList( deA, deB ) );
+    }
+
+    // -------------------------------------------------------------------------
+    // Supportive classes
+    // -------------------------------------------------------------------------
+
+    private static class SingleDeletionHandler
+        extends DeletionHandler
+    {
+        List<DataElement> dataElements = new ArrayList<>();
+
+        List<OrganisationUnit> organisationUnits = new ArrayList<>();
+
+        @Override
+        public String getClassName()
+        {
+            return "Single";
+        }
+
+        @Override
+        public void deleteDataElement( DataElement dataElement )
+        {
+            dataElements.add( dataElement );
+        }
+
+        @Override
+        public void deleteOrganisationUnit( OrganisationUnit unit )
+        {
+            organisationUnits.add( unit );
+        }
+    }
+
+    private static class BulkDeletionHandler
+        extends DeletionHandler
+    {
+        List<DataElement> dataElements = new ArrayList<>();
+
+        int bulkInvocations = 0;
+
+        boolean allow = true;
+
+        @Override
+        public String getClassName()
+        {
+            return "Bulk";
+        }
+
+        @Override
+        public void deleteDataElement( DataElement dataElement )
+        {
+            dataElements.add( dataElement );
+        }
+
+        @Override
+        public String allowDeleteDataElements( Collection<DataElement> dataElements )
+        {
+            return allow ? null : ERROR;
+        }
+
+        @Override
+        public void deleteDataElements( Collection<DataElement> dataElements )
+        {
+            this.dataElements.addAll( dataElements );
+            bulkInvocations++;
+        }
+    }
+
+    /**
+     * Overrides the single object method only, and must hence not be invoked
+     * through the bulk method inherited from its superclass.
+     */
+    private static class SingleSubclassDeletionHandler
+        extends BulkDeletionHandler
+    {
+        @Override
+        public void deleteDataElement( DataElement dataElement )
+        {
+            dataElements.add( dataElement );
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package org.hisp.dhis.system.grid;
+
+/*
+ * Copyright (c) 2004-2018, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.StringWriter;
+import java.util.List;
+import java.util.Map;
+
+import org.hisp.dhis.common.Grid;
+import org.hisp.dhis.common.GridHeader;
+import org.hisp.dhis.common.ValueType;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+
+public class ColumnarGridTest
+{
+    private Grid grid;
+
+    @Before
+    public void setUp()
+    {
+        grid = new ColumnarGrid();
+
+        grid.addHeader( new GridHeader( "dx", "dx", ValueType.TEXT, String.class.getName(), false, true ) );
+        grid.addHeader( new GridHeader( "pe", "pe", ValueType.TEXT, String.class.getName(), false, true ) );
+        grid.addHeader( new GridHeader( "value", "value", ValueType.NUMBER, Double.class.getName(), false, false ) );
+
+        grid.addRow().addValuesVar( "deA", "201901", 3d );
+        grid.addRow().addValuesVar( "deB", "201901", 1d );
+        grid.addRow().addValuesVar( "deA", "201902", null );
+        grid.addRow().addValuesVar( "deB", "201902", 2d );
+    }
+
+    @Test
+    public void testGetValues()
+    {
+        assertEquals( 4, grid.getHeight() );
+        assertEquals( 3, grid.getWidth() );
+
+        assertEquals( Lists.newArrayList( "deA", "201901", 3d ), grid.getRow( 0 ) );
+        assertEquals( Lists.newArrayList( "deA", "201902", null ), grid.getRow( 2 ) );
+        assertEquals( Lists.newArrayList( "deA", "deB", "deA", "deB" ), grid.getColumn( 0 ) );
+        assertEquals( 2d, grid.getValue( 3, 2 ) );
+        assertNull( grid.getValue( 2, 2 ) );
+    }
+
+    @Test
+    public void testAddValueOfOtherType()
+    {
+        grid.addRow().addValuesVar( 5, "201903", "n/a" );
+
+        assertEquals( Lists.newArrayList( "deA", "deB", "deA", "deB", 5 ), grid.getColumn( 0 ) );
+        assertEquals( Lists.newArrayList( 3d, 1d, null, 2d, "n/a" ), grid.getColumn( 2 ) );
+    }
+
+    @Test
+    public void testSetValueThroughRow()
+    {
+        List<Object> row = grid.getRow( 1 );
+
+        assertEquals( "deB", row.set( 0, "deC" ) );
+        assertEquals( 1d, row.set( 2, 7d ) );
+
+        assertEquals( "deC", grid.getValue( 1, 0 ) );
+        assertEquals( 7d, grid.getValue( 1, 2 ) );
+        assertEquals( "deB", grid.getValue( 3, 0 ) );
+    }
+
+    @Test
+    public void testSubstituteMetaData()
+    {
+        Map<Object, Object> metaData = ImmutableMap.of( "deA", "Data element A", "201901", "January 2019" );
+
+        grid.substituteMetaData( metaData );
+
+        assertEquals( Lists.newArrayList( "Data element A", "deB", "Data element A", "deB" ), grid.getColumn( 0 ) );
+        assertEquals( Lists.newArrayList( "January 2019", "January 2019", "201902", "201902" ), grid.getColumn( 1 ) );
+
+        grid.addRow().addValuesVar( "deA", "201901", 1d );
+
+        assertEquals( "deA", grid.getValue( 4, 0 ) );
+    }
+
+    @Test
+    public void testSubstituteMetaDataWithObjects()
+    {
+        grid.substituteMetaData( 0, 0, ImmutableMap.of( "deA", 1 ) );
+
+        assertEquals( Lists.newArrayList( 1, "deB", 1, "deB" ), grid.getColumn( 0 ) );
+    }
+
+    @Test
+    public void testSortGrid()
+    {
+        grid.sortGrid( 3, -1 );
+
+        assertEquals( Lists.newArrayList( null, 1d, 2d, 3d ), grid.getColumn( 2 ) );
+        assertEquals( Lists.newArrayList( "deA", "deB", "deB", "deA" ), grid.getColumn( 0 ) );
+    }
+
+    @Test
+    public void testLimitGrid()
+    {
+        grid.limitGrid( 1, 3 );
+
+        assertEquals( 2, grid.getHeight() );
+        assertEquals( Lists.newArrayList( "deB", "201901", 1d ), grid.getRow( 0 ) );
+        assertEquals( Lists.newArrayList( "deA", "201902", null ), grid.getRow( 1 ) );
+    }
+
+    @Test
+    public void testGetVisibleRows()
+    {
+        Grid gridA = new ColumnarGrid();
+
+        gridA.addHeader( new GridHeader( "dx", "dx", ValueType.TEXT, String.class.getName(), false, true ) );
+        gridA.addHeader( new GridHeader( "pe", "pe", ValueType.TEXT, String.class.getName(), true, true ) );
+        gridA.addHeader( new GridHeader( "value", "value", ValueType.NUMBER, Double.class.getName(), false, false ) );
+        gridA.addRow().addValuesVar( "deA", "201901", 3d );
+
+        assertEquals( Lists.newArrayList( "deA", 3d ), gridA.getVisibleRows().get( 0 ) );
+        assertEquals( 2, gridA.getVisibleWidth() );
+    }
+
+    @Test
+    public void testRemoveCurrentWriteRow()
+    {
+        grid.removeCurrentWriteRow();
+
+        assertEquals( 3, grid.getHeight() );
+
+        grid.addRow().addValuesVar( "deC", "201903", 4d );
+
+        assertEquals( Lists.newArrayList( "deC", "201903", 4d ), grid.getRow( 3 ) );
+    }
+
+    @Test
+    public void testSerialize()
+        throws Exception
+    {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        try ( ObjectOutputStream oos = new ObjectOutputStream( out ) )
+        {
+            oos.writeObject( grid );
+        }
+
+        try ( ObjectInputStream ois = new ObjectInputStream( new ByteArrayInputStream( out.toByteArray() ) ) )
+        {
+            Grid copy = (Grid) ois.readObject();
+
+            assertEquals( grid.getRows(), copy.getRows() );
+        }
+    }
+
+    @Test
+    public void testToCsv()
+        throws Exception
+    {
+        StringWriter writer = new StringWriter();
+
+        GridUtils.toCsv( grid, writer );
+
+        String[] lines = writer.toString().split( "\\R" );
+
+        assertEquals( 5, lines.length );
+        assertEquals( "dx,pe,value", lines[0] );
+        assertEquals( "deA,201901,3.0", lines[1] );
+        assertEquals( "deA,201902,", lines[3] );
+    }
+}
@@ -0,0 +1,143 @@
+package org.hisp.dhis.system.grid;
+
+/*
+ * Copyright (c) 2004-2018, University of Oslo
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * Redistributions of source code must retain the above copyright notice, this
+ * list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright notice,
+ * this list of conditions and the following disclaimer in the documentation
+ * and/or other materials provided with the distribution.
+ * Neither the name of the HISP project nor the names of its contributors may
+ * be used to endorse or promote products derived from this software without
+ * specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND ON
+ * ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.function.Supplier;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.hisp.dhis.common.Grid;
+import org.hisp.dhis.common.GridHeader;
+import org.junit.Ignore;
+import org.junit.Test;
+
+/**
+ * Compares memory usage and CSV render time of {@link ListGrid} and
+ * {@link ColumnarGrid} for a raw data response of 1M cells. Run manually,
+ * preferably with a fixed heap size.
+ */
+@Ignore( "Benchmark, run manually" )
+public class GridBenchmarkTest
+{
+    private static final Log log = LogFactory.getLog( GridBenchmarkTest.class );
+
+    private static final int ROWS = 200_000;
+
+    private static final int DATA_ITEMS = 100;
+
+    private static final int PERIODS = 24;
+
+    private static final int ORG_UNITS = 1_000;
+
+    @Test
+    public void testBenchmark()
+        throws IOException
+    {
+        for ( int i = 0; i < 3; i++ )
+        {
+            benchmark( "ListGrid", ListGrid::new );
+            benchmark( "ColumnarGrid", ColumnarGrid::new );
+        }
+    }
+
+    private void benchmark( String name, Supplier<Grid> gridSupplier )
+        throws IOException
+    {
+        long memoryBefore = getUsedMemory();
+        long start = System.nanoTime();
+
+        Grid grid = populate( gridSupplier.get() );
+
+        long populateMillis = ( System.nanoTime() - start ) / 1_000_000;
+        long memory = getUsedMemory() - memoryBefore;
+
+        start = System.nanoTime();
+
+        GridUtils.toCsv( grid, new NullWriter() );
+
+        long renderMillis = ( System.nanoTime() - start ) / 1_000_000;
+
+        log.info( String.format( "%s: cells: %d, memory: %d MB, populate: %d ms, render CSV: %d ms",
+            name, grid.getHeight() * grid.getWidth(), memory / ( 1024 * 1024 ), populateMillis, renderMillis ) );
+    }
+
+    private Grid populate( Grid grid )
+    {
+        grid.addHeader( new GridHeader( "dx", "Data" ) );
+        grid.addHeader( new GridHeader( "pe", "Period" ) );
+        grid.addHeader( new GridHeader( "ou", "Organisation unit" ) );
+        grid.addHeader( new GridHeader( "co", "Category option combo" ) );
+        grid.addHeader( new GridHeader( "value", "Value" ) );
+
+        for ( int i = 0; i < ROWS; i++ )
+        {
+            grid.addRow()
+                .addValue( "dataElement" + ( i % DATA_ITEMS ) )
+                .addValue( String.valueOf( 201800 + ( i % PERIODS ) ) )
+                .addValue( "orgUnit" + ( i % ORG_UNITS ) )
+                .addValue( "HllvX50cXC0" )
+                .addValue( (double) i );
+        }
+
+        return grid;
+    }
+
+    private long getUsedMemory()
+    {
+        Runtime runtime = Runtime.getRuntime();
+
+        for ( int i = 0; i < 3; i++ )
+        {
+            System.gc();
+        }
+
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static class NullWriter
+        extends Writer
+    {
+        @Override
+        public void write( char[] buffer, int offset, int length )
+        {
+        }
+
+        @Override
+        public void flush()
+        {
+        }
+
+        @Override
+        public void close()
+        {
+        }
+    }
+}
@@ -65,8 +65,8 @@ public class GridTest
     @Before
     public void setUp()
     {
-        gridA = new ListGrid();
-        gridB = new ListGrid();
+        gridA = newGrid();
+        gridB = newGrid();
         
         headerA = new GridHeader( "ColA", "colA", ValueType.TEXT, String.class.getName(), false, true );
         headerB = new GridHeader( "ColB", "colB", ValueType.TEXT, String.class.getName(), false, true );
@@ -102,6 +102,15 @@ public class GridTest
         gridB.addValue( 13 );
     }
     
+    /**
+     * Returns the grid implementation under test. Override in order to run
+     * the tests against other {@link Grid} implementations.
+     */
+    protected Grid newGrid()
+    {
+        return new ListGrid();
+    }
+
     @Test
     public void testAddGrid()
     {
@@ -113,7 +122,7 @@ public class GridTest
     @Test
     public void testAddHeaders()
     {
-        Grid grid = new ListGrid();
+        Grid grid = newGrid();
         
         GridHeader headerA = new GridHeader( "DataElementA", "Data element A" );
         GridHeader headerB = new GridHeader( "DataElementB", "Data element B" );
@@ -137,7 +146,7 @@ public class GridTest
     @Test
     public void testColumnIsEmpty()
     {
-        Grid grid = new ListGrid()
+        Grid grid = newGrid()
             .addRow().addValuesVar( "A1", null, "A3", null )
             .addRow().addValuesVar( "B1", null, "B3", null )
             .addRow().addValuesVar( null, null, "C3", null )
@@ -152,7 +161,7 @@ public class GridTest
     @Test
     public void testRemoveEmptyColumns()
     {
-        Grid grid = new ListGrid()
+        Grid grid = newGrid()
             .addHeader( new GridHeader( "H1" ) )
             .addHeader( new GridHeader( "H2" ) )
             .addHeader( new GridHeader( "H3" ) )
@@ -173,7 +182,7 @@ public class GridTest
     @Test
     public void testRemoveEmptyColumnsWithoutHeaders()
     {
-        Grid grid = new ListGrid()
+        Grid grid = newGrid()
             .addRow().addValuesVar( "A1", null, "A3", null )
             .addRow().addValuesVar( "B1", null, "B3", null )
             .addRow().addValuesVar( null, null, "C3", null )
@@ -189,7 +198,7 @@ public class GridTest
     @Test
     public void testAddHeaderList()
     {
-        Grid grid = new ListGrid();
+        Grid grid = newGrid();
         
         GridHeader headerA = new GridHeader( "DataElementA", "Data element A" );
         GridHeader headerB = new GridHeader( "DataElementB", "Data element B" );
@@ -600,7 +609,7 @@ public class GridTest
     @Test
     public void testSortA()
     {
-        Grid grid = new ListGrid();
+        Grid grid = newGrid();
         
         grid.addRow().addValue( 1 ).addValue( "a" );
         grid.addRow().addValue( 2 ).addValue( "b" );
@@ -621,7 +630,7 @@ public class GridTest
     @Test
     public void testSortB()
     {
-        Grid grid = new ListGrid();
+        Grid grid = newGrid();
         
         grid.addRow().addValue( 3 ).addValue( "a" );
         grid.addRow().addValue( 2 ).addValue( "b" );
@@ -642,7 +651,7 @@ public class GridTest
     @Test
     public void testSortC()
     {
-        Grid grid = new ListGrid();
+        Grid grid = newGrid();
 
         grid.addRow().addValue( 1 ).addValue( "c" );
         grid.addRow().addValue( 3 ).addValue( "a" );
@@ -663,7 +672,7 @@ public class GridTest
     @Test
     public void testSortD()
     {
-        Grid grid = new ListGrid();
+        Grid grid = newGrid();
         
         grid.addRow().addValue( "a" ).addValue( "a" ).addValue( 5.2 );
         grid.addRow().addValue( "b" ).addValue( "b" ).addValue( 0.0 );
@@ -696,7 +705,7 @@ public class GridTest
     @Test
     public void testSortE()
     {
-        Grid grid = new ListGrid();
+        Grid grid = newGrid();
 
         grid.addRow().addValue( "two" ).addValue( 2 );
         grid.addRow().addValue( "null" ).addValue( null );
@@ -717,7 +726,7 @@ public class GridTest
     @Test
     public void testSortF()
     {
-        Grid grid = new ListGrid();
+        Grid grid = newGrid();
 
         grid.addRow().addValue( "two" ).addValue( 2 );
         grid.addRow().addValue( "null" ).addValue( null );
@@ -757,7 +766,7 @@ public class GridTest
     @Test
     public void testAddRegressionColumn()
     {
-        gridA = new ListGrid();
+        gridA = newGrid();
 
         gridA.addRow();        
         gridA.addValue( 10.0 );
@@ -782,7 +791,7 @@ public class GridTest
     @Test
     public void testAddCumulativeColumn()
     {
-        gridA = new ListGrid();
+        gridA = newGrid();
 
         gridA.addRow();        
         gridA.addValue( 10.0 );
@@ -872,7 +881,7 @@ public class GridTest
     @Test
     public void testAddValuesAsList()
     {
-        Grid grid = new ListGrid();
+        Grid grid = newGrid();
         
         grid.addRow().addValuesAsList( Lists.newArrayList( "colA1", "colB1", "colC1" ) );
         grid.addRow().addValuesAsList( Lists.newArrayList( "colA2", "colB2", "colC2" ) );
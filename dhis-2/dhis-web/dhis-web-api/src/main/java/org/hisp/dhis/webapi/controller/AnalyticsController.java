@@ -42,6 +42,7 @@ import org.hisp.dhis.system.grid.GridUtils;
 import org.hisp.dhis.webapi.mvc.annotation.ApiVersion;
 import org.hisp.dhis.webapi.utils.ContextUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -51,6 +52,7 @@ import org.springframework.web.bind.annotation.ResponseBody;
 
 import javax.servlet.http.HttpServletResponse;
 import java.util.Date;
+import java.util.Map;
 import java.util.Set;
 
 import static org.hisp.dhis.common.DimensionalObjectUtils.getItemsFromParam;
@@ -72,6 +74,9 @@ public class AnalyticsController
     @Autowired
     private AnalyticsService analyticsService;
 
+    @Autowired
+    private QueryAdmissionController admissionController;
+
     @Autowired
     private ContextUtils contextUtils;
 
@@ -102,6 +107,7 @@ public class AnalyticsController
         @RequestParam( required = false ) boolean showHierarchy,
         @RequestParam( required = false ) boolean includeNumDen,
         @RequestParam( required = false ) boolean includeMetadataDetails,
+        @RequestParam( required = false ) boolean includeQueryTimings,
         @RequestParam( required = false ) DisplayProperty displayProperty,
         @RequestParam( required = false ) IdScheme outputIdScheme,
         @RequestParam( required = false ) IdScheme inputIdScheme,
@@ -121,7 +127,8 @@ public class AnalyticsController
             .skipRounding( skipRounding ).completedOnly( completedOnly ).hierarchyMeta( hierarchyMeta )
             .ignoreLimit( ignoreLimit ).hideEmptyRows( hideEmptyRows ).hideEmptyColumns( hideEmptyColumns )
             .showHierarchy( showHierarchy ).includeNumDen( includeNumDen )
-            .includeMetadataDetails( includeMetadataDetails ).displayProperty( displayProperty )
+            .includeMetadataDetails( includeMetadataDetails ).includeQueryTimings( includeQueryTimings )
+            .displayProperty( displayProperty )
             .outputIdScheme( outputIdScheme ).inputIdScheme( inputIdScheme ).approvalLevel( approvalLevel )
             .relativePeriodDate( relativePeriodDate ).userOrgUnit( userOrgUnit ).apiVersion( apiVersion )
             .order( order ).timeField( timeField ).orgUnitField( orgUnitField ).build();
@@ -677,4 +684,11 @@ public class AnalyticsController
     {
         return AnalyticsTableType.values();
     }
+
+    @PreAuthorize( "hasRole('ALL') or hasRole('F_PERFORM_MAINTENANCE')" )
+    @RequestMapping( value = RESOURCE_PATH + "/admission", method = RequestMethod.GET, produces = { "application/json", "application/javascript" } )
+    public @ResponseBody Map<String, Object> getAdmissionStatistics()
+    {
+        return admissionController.getStatistics();
+    }
 }
@@ -40,6 +40,7 @@ import org.hisp.dhis.api.util.DateUtils;
 import org.hisp.dhis.common.DeleteNotAllowedException;
 import org.hisp.dhis.common.IllegalQueryException;
 import org.hisp.dhis.common.MaintenanceModeException;
+import org.hisp.dhis.common.QueryRejectedException;
 import org.hisp.dhis.common.QueryTimeoutException;
 import org.hisp.dhis.common.exception.InvalidIdentifierReferenceException;
 import org.hisp.dhis.dataapproval.exceptions.DataApprovalException;
@@ -148,8 +149,8 @@ public class CrudControllerAdvice
         webMessageService.send( WebMessageUtils.error( getExceptionMessage( ex ) ), response, request );
     }
 
-    @ExceptionHandler( MaintenanceModeException.class )
-    public void maintenanceModeExceptionHandler( MaintenanceModeException ex, HttpServletResponse response, HttpServletRequest request )
+    @ExceptionHandler( { MaintenanceModeException.class, QueryRejectedException.class } )
+    public void maintenanceModeExceptionHandler( RuntimeException ex, HttpServletResponse response, HttpServletRequest request )
     {
         webMessageService.send( WebMessageUtils.serviceUnavailable( ex.getMessage() ), response, request );
     }
@@ -31,6 +31,7 @@ import org.hisp.dhis.analytics.AnalyticsTableGenerator;
  */
 
 import org.hisp.dhis.analytics.AnalyticsTableService;
+import org.hisp.dhis.analytics.cache.SubQueryCache;
 import org.hisp.dhis.analytics.partition.PartitionManager;
 import org.hisp.dhis.appmanager.AppManager;
 import org.hisp.dhis.cache.HibernateCacheManager;
@@ -88,6 +89,9 @@ public class MaintenanceController
     @Autowired
     private PartitionManager partitionManager;
 
+    @Autowired
+    private SubQueryCache subQueryCache;
+
     @Autowired
     private RenderService renderService;
 
@@ -246,6 +250,7 @@ public class MaintenanceController
     {
         cacheManager.clearCache();
         partitionManager.clearCaches();
+        subQueryCache.invalidateAll();
     }
 
     @RequestMapping( value = "/dataPruning/organisationUnits/{uid}", method = { RequestMethod.PUT, RequestMethod.POST } )
@@ -39,6 +39,7 @@ import org.hisp.dhis.schema.descriptors.SqlViewSchemaDescriptor;
 import org.hisp.dhis.sqlview.SqlView;
 import org.hisp.dhis.sqlview.SqlViewQuery;
 import org.hisp.dhis.sqlview.SqlViewService;
+import org.hisp.dhis.system.grid.CsvGridWriter;
 import org.hisp.dhis.system.grid.GridUtils;
 import org.hisp.dhis.system.util.CodecUtils;
 import org.hisp.dhis.webapi.utils.ContextUtils;
@@ -112,13 +113,11 @@ public class SqlViewController
         List<String> filters = Lists.newArrayList( contextService.getParameterValues( "filter" ) );
         List<String> fields = Lists.newArrayList( contextService.getParameterValues( "fields" ) );
 
-        Grid grid = sqlViewService.getSqlViewGrid( sqlView, SqlView.getCriteria( criteria ), SqlView.getCriteria( var ), filters, fields );
-
-        String filename = CodecUtils.filenameEncode( grid.getTitle() ) + ".csv";
+        String filename = CodecUtils.filenameEncode( sqlView.getName() ) + ".csv";
 
         contextUtils.configureResponse( response, ContextUtils.CONTENT_TYPE_CSV, sqlView.getCacheStrategy(), filename, true );
 
-        GridUtils.toCsv( grid, response.getWriter() );
+        sqlViewService.writeSqlViewData( sqlView, SqlView.getCriteria( criteria ), SqlView.getCriteria( var ), filters, fields, new CsvGridWriter( response.getWriter() ) );
     }
 
     @RequestMapping( value = "/{uid}/data.xls", method = RequestMethod.GET )
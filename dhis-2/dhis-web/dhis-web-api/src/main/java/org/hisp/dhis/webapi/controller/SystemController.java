@@ -49,6 +49,7 @@ import org.hisp.dhis.common.Objects;
 import org.hisp.dhis.dxf2.common.ImportSummary;
 import org.hisp.dhis.i18n.I18n;
 import org.hisp.dhis.i18n.I18nManager;
+import org.hisp.dhis.logging.adapter.FileLogAdapter;
 import org.hisp.dhis.node.NodeUtils;
 import org.hisp.dhis.node.exception.InvalidTypeException;
 import org.hisp.dhis.node.types.CollectionNode;
@@ -70,6 +71,7 @@ import org.hisp.dhis.webapi.utils.ContextUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -118,6 +120,9 @@ public class SystemController
     @Autowired
     private StatisticsProvider statisticsProvider;
 
+    @Autowired
+    private FileLogAdapter fileLogAdapter;
+
     private static final CsvFactory CSV_FACTORY = new CsvMapper().getFactory();
 
     // -------------------------------------------------------------------------
@@ -368,6 +373,13 @@ public class SystemController
         return "pong";
     }
 
+    @PreAuthorize( "hasRole('ALL') or hasRole('F_PERFORM_MAINTENANCE')" )
+    @RequestMapping( value = "/logging", method = RequestMethod.GET, produces = { "application/json" } )
+    public @ResponseBody Map<String, Object> getLoggingStatistics()
+    {
+        return fileLogAdapter.getStatistics();
+    }
+
     @RequestMapping( value = "/flags", method = RequestMethod.GET, produces = { "application/json" } )
     public @ResponseBody List<StyleObject> getFlags()
     {
@@ -39,6 +39,7 @@ import org.hisp.dhis.dxf2.webmessage.WebMessageException;
 import org.hisp.dhis.dxf2.webmessage.WebMessageUtils;
 import org.hisp.dhis.reservedvalue.ReserveValueException;
 import org.hisp.dhis.reservedvalue.ReservedValue;
+import org.hisp.dhis.reservedvalue.ReservedValuePoolStatistics;
 import org.hisp.dhis.reservedvalue.ReservedValueService;
 import org.hisp.dhis.schema.descriptors.TrackedEntityAttributeSchemaDescriptor;
 import org.hisp.dhis.textpattern.TextPatternGenerationException;
@@ -151,6 +152,46 @@ public class TrackedEntityAttributeController
 
     }
 
+    /**
+     * Returns statistics for the pool of pre-generated values and a forecast of
+     * when values will be exhausted, for the key resolved from the required
+     * values given as request parameters.
+     *
+     * @param id the attribute identifier.
+     * @return the pool statistics.
+     * @throws WebMessageException
+     */
+    @RequestMapping( value = "/{id}/reservedValuePool", method = RequestMethod.GET, produces = {
+        ContextUtils.CONTENT_TYPE_JSON, ContextUtils.CONTENT_TYPE_JAVASCRIPT } )
+    @ApiVersion( { DhisApiVersion.DEFAULT, DhisApiVersion.ALL } )
+    public @ResponseBody
+    ReservedValuePoolStatistics getReservedValuePoolStatistics( @PathVariable String id )
+        throws WebMessageException
+    {
+        TrackedEntityAttribute attribute = trackedEntityAttributeService.getTrackedEntityAttribute( id );
+
+        if ( attribute == null )
+        {
+            throw new WebMessageException( WebMessageUtils.notFound( TrackedEntityAttribute.class, id ) );
+        }
+
+        if ( attribute.getTextPattern() == null )
+        {
+            throw new WebMessageException( WebMessageUtils.conflict( "This attribute has no pattern" ) );
+        }
+
+        Map<String, String> values = getRequiredValues( attribute, context.getParameterValuesMap() );
+
+        try
+        {
+            return reservedValueService.getPoolStatistics( attribute.getTextPattern(), values );
+        }
+        catch ( TextPatternGenerationException ex )
+        {
+            throw new WebMessageException( WebMessageUtils.error( ex.getMessage() ) );
+        }
+    }
+
     // Helpers
 
     private List<ReservedValue> reserve( String id, int numberToReserve, int daysToLive )